@@ -102,6 +102,14 @@ public class Galaxik extends GameEngine
 
 	private static final int PLAYER_BUTTONS = 3;
 
+	private static final String[] AUDIO_CONFIGS = {
+		"assets/config/audio/effects/ding01.mp3.config",
+		"assets/config/audio/effects/battle01.mp3.config",
+		"assets/config/audio/effects/lostPlanet01.mp3.config",
+		"assets/config/audio/effects/planetCaptured01.mp3.config",
+		"assets/config/audio/effects/upgrade01.mp3.config"
+	};
+
 	// define private class variables
 
 	private Image loadingImage = null;
@@ -110,6 +118,7 @@ public class Galaxik extends GameEngine
 	private GameLoader gameLoader = null;
 	private Planet selectedPlanet = null;
 	private Planet selectedPlanetAlternate = null;
+	private RenderSnapshot captureSnapshot = null;
 
 	// define public class variables
 
@@ -188,11 +197,14 @@ public class Galaxik extends GameEngine
 		public void run()
 		{
 			int ii = 0;
+			int mipChains = 0;
 			int localX = 0;
 			int localY = 0;
 			double zoomLevel = 0.0;
 			double localWidth = 0.0;
 			double localHeight = 0.0;
+			int[] zoomWidths = null;
+			int[] zoomHeights = null;
 
 			Texture texture = null;
 			Player player = null;
@@ -314,6 +326,29 @@ public class Galaxik extends GameEngine
 					"assets/textures/galaxik/planet11.png");
 			progressBar.increment(8);
 
+			// start decoding the textures & audio configurations across the
+			// asset workers, the loads below wait on (or reuse) these, and
+			// the progress bar fills as the workers complete them
+
+			assetCache.resetLoadProgress();
+			for(ii = 0; ii < planetImages.length; ii++) {
+				assetCache.getAssetAsync(AssetCache.TYPE_TEXTURE,
+						planetImages[ii]);
+			}
+			assetCache.getAssetAsync(AssetCache.TYPE_TEXTURE,
+					"assets/textures/galaxik/starscape.png");
+			assetCache.getAssetAsync(AssetCache.TYPE_TEXTURE,
+					"assets/textures/galaxik/playerIcon.png");
+			if(USE_HIGHLIGHT_IMAGE) {
+				assetCache.getAssetAsync(AssetCache.TYPE_TEXTURE,
+						"assets/textures/galaxik/planetHighlight.png");
+			}
+			for(ii = 0; ii < AUDIO_CONFIGS.length; ii++) {
+				assetCache.getAssetAsync(AssetCache.TYPE_CONFIG,
+						AUDIO_CONFIGS[ii]);
+			}
+			progressBar.trackLoads(assetCache, 40);
+
 			// load the game logo
 
 			logoImage = (Image)assetCache.getAsset(AssetCache.TYPE_IMAGE,
@@ -347,17 +382,21 @@ public class Galaxik extends GameEngine
 					"assets/textures/galaxik/beta.png");
 			progressBar.increment(8);
 
-			// load scene background
+			// load scene background, the scene textures are pinned for the
+			// life of the game so that the textures (and the mipmaps built
+			// for them) are never evicted & decoded again in play
 
+			assetCache.pinAsset(AssetCache.TYPE_TEXTURE,
+					"assets/textures/galaxik/starscape.png");
 			texture = (Texture)assetCache.getAsset(AssetCache.TYPE_TEXTURE,
 					"assets/textures/galaxik/starscape.png");
-			progressBar.increment(8);
 
 			// build sprite mipmaps
 
+			assetCache.pinAsset(AssetCache.TYPE_TEXTURE,
+					"assets/textures/galaxik/playerIcon.png");
 			texture = (Texture)assetCache.getAsset(AssetCache.TYPE_TEXTURE,
 					"assets/textures/galaxik/playerIcon.png");
-			progressBar.increment(8);
 			texture.buildMipMap((windowWidth / PLANET_PIXEL_DIVISION),
 					(windowWidth / PLANET_PIXEL_DIVISION));
 			progressBar.increment(8);
@@ -365,35 +404,45 @@ public class Galaxik extends GameEngine
 					(windowWidth / PLANET_PIXEL_DIVISION),
 					(windowWidth / PLANET_PIXEL_DIVISION));
 			for(ii = 0; ii < planetImages.length; ii++) {
+				assetCache.pinAsset(AssetCache.TYPE_TEXTURE, planetImages[ii]);
 				texture = (Texture)assetCache.getAsset(AssetCache.TYPE_TEXTURE,
 						planetImages[ii]);
-				progressBar.increment(2);
 				texture.buildMipMap((windowWidth / PLANET_PIXEL_DIVISION),
 						(windowWidth / PLANET_PIXEL_DIVISION));
 				progressBar.increment(2);
 			}
 
+			// the planet mipmaps for every zoom level are built as a chain
+			// on the asset worker threads, rather than on first use, and
+			// the progress bar fills as the chains complete
+
+			zoomWidths = new int[(int)((GameScene.ZOOM_MAX -
+						GameScene.ZOOM_MIN) / GameScene.ZOOM_INCREMENT) + 1];
+			zoomHeights = new int[zoomWidths.length];
 			zoomLevel = GameScene.ZOOM_MIN;
-			while(zoomLevel <= GameScene.ZOOM_MAX) {
+			for(ii = 0; ii < zoomWidths.length; ii++) {
 				localWidth = (GameScene.PLANET_PIXELS * (zoomLevel / 100.0));
 				localHeight = (GameScene.PLANET_PIXELS * (zoomLevel / 100.0));
-				for(ii = 0; ii < planetImages.length; ii++) {
-					texture = (Texture)assetCache.getAsset(
-							AssetCache.TYPE_TEXTURE, planetImages[ii]);
-					progressBar.increment(2);
-					texture.buildMipMap((int)localWidth, (int)localHeight);
-					progressBar.increment(2);
-				}
-				if(USE_HIGHLIGHT_IMAGE) {
-					texture = (Texture)assetCache.getAsset(
-							AssetCache.TYPE_TEXTURE,
-							"assets/textures/galaxik/planetHighlight.png");
-					progressBar.increment(2);
-					texture.buildMipMap((int)localWidth, (int)localHeight);
-					progressBar.increment(2);
-				}
+				zoomWidths[ii] = (int)localWidth;
+				zoomHeights[ii] = (int)localHeight;
 				zoomLevel += GameScene.ZOOM_INCREMENT;
 			}
+			for(ii = 0; ii < planetImages.length; ii++) {
+				texture = (Texture)assetCache.getAsset(AssetCache.TYPE_TEXTURE,
+						planetImages[ii]);
+				texture.buildMipChainAsync(zoomWidths, zoomHeights);
+				mipChains++;
+			}
+			if(USE_HIGHLIGHT_IMAGE) {
+				assetCache.pinAsset(AssetCache.TYPE_TEXTURE,
+						"assets/textures/galaxik/planetHighlight.png");
+				texture = (Texture)assetCache.getAsset(AssetCache.TYPE_TEXTURE,
+						"assets/textures/galaxik/planetHighlight.png");
+				texture.buildMipChainAsync(zoomWidths, zoomHeights);
+				mipChains++;
+			}
+			progressBar.trackLoads(assetCache,
+					(40 + (mipChains * zoomWidths.length * 4)));
 
 			// setup play-dialogue GUI elements
 
@@ -891,14 +940,14 @@ public class Galaxik extends GameEngine
 		scene = new GameScene("GalaxikScene", 0, 0, windowWidth, windowHeight,
 				game, this);
 		scene.setSpriteSize(GameScene.PLANET_PIXELS, GameScene.PLANET_PIXELS);
+		scene.setLayerCacheMode(true);
 
 		// load scene background
 
 		texture = (Texture)assetCache.getAsset(AssetCache.TYPE_TEXTURE,
 				"assets/textures/galaxik/starscape.png");
 		texture.buildMipMap(sceneWidth, sceneHeight);
-		scene.commitBackground(texture.getMipMap(sceneWidth, sceneHeight),
-				sceneWidth, sceneHeight);
+		scene.commitBackground(texture, sceneWidth, sceneHeight);
 
 		camera = scene.getCamera();
 	}
@@ -1099,9 +1148,15 @@ public class Galaxik extends GameEngine
 			return;
 		}
 
-		// render scene
+		// render scene (captured directly when building a pipelined
+		// snapshot, the rest of the frame is recorded from the drawing)
 
-		scene.render2D(render2D);
+		if(captureSnapshot != null) {
+			scene.captureRenderState(captureSnapshot);
+		}
+		else {
+			scene.render2D(render2D);
+		}
 
 		// render foreground
 
@@ -1540,6 +1595,17 @@ public class Galaxik extends GameEngine
 		}
 	}
 
+	public synchronized void buildRenderSnapshot(RenderSnapshot snapshot)
+	{
+		captureSnapshot = snapshot;
+		try {
+			pipeline();
+		}
+		finally {
+			captureSnapshot = null;
+		}
+	}
+
 	// event handling
 
 	public synchronized void handleMouseEvents(int type, MouseEvent event)
@@ -718,7 +718,7 @@ public class Game
 						sprite = galaxik.scene.getSprite(planet.getName());
 						sprite.setImageTexture(Sprite.DIRECTION_EAST,
 								planet.getImageName());
-						galaxik.scene.triggerNewSnapshot();
+						galaxik.scene.triggerNewSnapshot(planet);
 
 						// update planet state
 
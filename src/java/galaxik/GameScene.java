@@ -17,9 +17,11 @@ package galaxik;
 
 import java.util.Iterator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.Graphics2D;
 import java.awt.Color;
@@ -28,6 +30,7 @@ import java.awt.Color;
 
 import lyra.*;
 import lyra.drivers.MouseDriver;
+import lyra.interfaces.LayerInterface;
 
 // define class
 
@@ -56,8 +59,29 @@ public class GameScene extends Scene
 	protected int spriteHeight = 0;
 	protected double zoomLevel = 0.0;
 	protected Image background = null;
+	protected Texture backgroundTexture = null;
+	protected int layerWidth = 0;
+	protected int layerHeight = 0;
+	protected Image layerImage = null;
+	protected LayerCache backgroundLayer = null;
 	protected Game game = null;
 	protected HashMap spriteNameIndex = null;
+	protected HashSet snapshotPlanets = null;
+
+	// define private class objects
+
+	private class BackgroundLayer implements LayerInterface
+	{
+		public void renderLayer(Graphics2D render, int x, int y, int width,
+				int height)
+		{
+			if(layerImage == null) {
+				return;
+			}
+			render.drawImage(layerImage, 0, 0, layerWidth, layerHeight,
+					gameEngine);
+		}
+	}
 
 	// define class private functions
 
@@ -90,6 +114,161 @@ public class GameScene extends Scene
 		}
 	}
 
+	private void validateBackgroundLayer(int width, int height)
+	{
+		Image image = null;
+
+		// the cached chunks are re-rendered when the zoom changes, or when
+		// a nearer mip level of the background becomes available
+
+		image = obtainBackground(width, height);
+		if((image != layerImage) || (width != layerWidth) ||
+				(height != layerHeight)) {
+			layerImage = image;
+			layerWidth = width;
+			layerHeight = height;
+			backgroundLayer.invalidateAll();
+		}
+	}
+
+	private Image obtainBackground(int width, int height)
+	{
+		Image result = null;
+
+		// draw from the nearest level of the background's mip chain
+
+		if(backgroundTexture != null) {
+			result = backgroundTexture.getNearestMipMap(width, height);
+		}
+		if(result == null) {
+			result = background;
+		}
+
+		return result;
+	}
+
+	private double calculateSnapshotZoom(int sceneWidth, int sceneHeight)
+	{
+		return (((((double)width / (double)sceneWidth) * 100.0) +
+					(((double)height / (double)sceneHeight) * 100.0)) / 2.0);
+	}
+
+	private Rectangle calculateSnapshotBounds(Planet planet, double pixels)
+	{
+		// matches the sprite location set by updatePlanetZoom(), padded for
+		// the sprite's outline
+
+		return new Rectangle(((int)((double)planet.getX() * pixels) - 2),
+				((int)((double)planet.getY() * pixels) - 2),
+				((int)pixels + 4), ((int)pixels + 4));
+	}
+
+	private void updateSnapshot(int sceneWidth, int sceneHeight)
+	{
+		int ii = 0;
+		int size = 0;
+		int localWidth = 0;
+		int localHeight = 0;
+		double snapshotZoom = 0.0;
+		double pixels = 0.0;
+
+		Object[] names = null;
+		Image image = null;
+		Iterator iterator = null;
+		Sprite sprite = null;
+		Planet planet = null;
+		Planet neighbour = null;
+		Texture texture = null;
+		Rectangle region = null;
+		Rectangle bounds = null;
+		BufferedImage buffer = null;
+		Graphics2D render2D = null;
+
+		// take every planet invalidated since the last snapshot at once, so
+		// that several captures in a turn are redrawn together
+
+		synchronized(snapshotPlanets) {
+			if(snapshotPlanets.isEmpty()) {
+				return;
+			}
+			names = snapshotPlanets.toArray();
+			snapshotPlanets.clear();
+		}
+
+		snapshotZoom = calculateSnapshotZoom(sceneWidth, sceneHeight);
+		pixels = ((double)PLANET_PIXELS * (snapshotZoom / 100.0));
+		size = (int)pixels;
+		localWidth = (int)((double)backgroundWidth * (snapshotZoom / 100.0));
+		localHeight = (int)((double)backgroundHeight * (snapshotZoom / 100.0));
+
+		// the snapshot last handed out may still be drawn by the render
+		// thread, so the update is applied to a copy in the spare buffer
+
+		try {
+			buffer = obtainSnapshotBuffer();
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			return;
+		}
+
+		render2D = buffer.createGraphics();
+		try {
+			render2D.drawImage(renderBuffer, 0, 0, gameEngine);
+
+			for(ii = 0; ii < names.length; ii++) {
+				planet = game.getPlanet((String)names[ii]);
+				if(planet == null) {
+					continue;
+				}
+
+				// restore the background beneath the planet
+
+				region = calculateSnapshotBounds(planet, pixels);
+				render2D.setClip(region);
+				render2D.setColor(gameEngine.getBackground());
+				render2D.fillRect(region.x, region.y, region.width,
+						region.height);
+				if(background != null) {
+					render2D.drawImage(obtainBackground(localWidth,
+								localHeight), 0, 0, localWidth, localHeight,
+							gameEngine);
+				}
+
+				// redraw every planet overlapping the region
+
+				iterator = spriteSet.iterator();
+				while(iterator.hasNext()) {
+					sprite = (Sprite)iterator.next();
+					if(sprite == null) {
+						break;
+					}
+					neighbour = game.getPlanet(sprite.getName());
+					if(neighbour == null) {
+						continue;
+					}
+					bounds = calculateSnapshotBounds(neighbour, pixels);
+					if(!bounds.intersects(region)) {
+						continue;
+					}
+					texture = (Texture)gameEngine.getAssetCache().getAsset(
+							AssetCache.TYPE_TEXTURE, neighbour.getImageName());
+					image = texture.getNearestMipMap(size, size);
+					render2D.drawImage(image, (bounds.x + 2), (bounds.y + 2),
+							size, size, gameEngine);
+				}
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+		finally {
+			render2D.dispose();
+		}
+
+		swapSnapshotBuffers();
+	}
+
 	private void updatePlanetZoom(Sprite sprite, Planet planet)
 	{
 		int localX = 0;
@@ -119,6 +298,61 @@ public class GameScene extends Scene
 		}
 	}
 
+	private void renderScene(Graphics2D render, boolean isLayerCached)
+	{
+		double localWidth = 0.0;
+		double localHeight = 0.0;
+
+		Iterator iterator = null;
+		Sprite sprite = null;
+
+		try {
+			offsetX = (0 - camera.getCameraX());
+			offsetY = (0 - camera.getCameraY());
+
+			// render background, the snapshot draws it directly at its own
+			// zoom so the cached chunks of the camera view are left intact
+
+			if(background != null) {
+				localWidth = ((double)backgroundWidth * (zoomLevel / 100.0));
+				localHeight = ((double)backgroundHeight * (zoomLevel / 100.0));
+				if((isLayerCached) && (backgroundLayer != null)) {
+					validateBackgroundLayer((int)localWidth, (int)localHeight);
+					backgroundLayer.render2D(render, camera.getCameraX(),
+							camera.getCameraY(), camera.getWindowWidth(),
+							camera.getWindowHeight(), false);
+				}
+				else {
+					render.drawImage(obtainBackground((int)localWidth,
+								(int)localHeight), offsetX, offsetY,
+							(int)localWidth, (int)localHeight, gameEngine);
+				}
+			}
+
+			// render sprite set
+
+			iterator = spriteSet.iterator();
+			while(iterator.hasNext()) {
+				sprite = (Sprite)iterator.next();
+				if(sprite == null) {
+					break;
+				}
+				if(sprite.isVisible()) {
+					sprite.render2D(render);
+				}
+			}
+
+			if(debugMode) {
+				render.setColor(Color.blue);
+				render.fillOval(((spriteCenterX - 4) + offsetX),
+						((spriteCenterY - 4) + offsetY), 8, 8);
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+	}
+
 	// define class public functions
 
 	public GameScene(String name, int x, int y, int width, int height,
@@ -136,7 +370,13 @@ public class GameScene extends Scene
 		spriteHeight = 0;
 		zoomLevel = ZOOM_DEFAULT;
 		background = null;
+		backgroundTexture = null;
+		layerWidth = 0;
+		layerHeight = 0;
+		layerImage = null;
+		backgroundLayer = null;
 		spriteNameIndex = new HashMap();
+		snapshotPlanets = new HashSet();
 	}
 
 	public boolean wasZoomed()
@@ -253,11 +493,46 @@ public class GameScene extends Scene
 		return (Sprite)spriteNameIndex.get(name);
 	}
 
+	public void setLayerCacheMode(boolean mode)
+	{
+		super.setLayerCacheMode(mode);
+
+		// the background is cached as a layer of its own, beneath the tiles
+
+		if(mode) {
+			backgroundLayer = new LayerCache(new BackgroundLayer(),
+					gameEngine);
+		}
+		else {
+			backgroundLayer = null;
+		}
+		layerImage = null;
+	}
+
 	public void commitBackground(Image image, int width, int height)
 	{
 		backgroundWidth = width;
 		backgroundHeight = height;
 		background = image;
+		backgroundTexture = null;
+	}
+
+	public void commitBackground(Texture texture, int width, int height)
+	{
+		int minWidth = 0;
+		int minHeight = 0;
+
+		texture.buildMipMap(width, height);
+		commitBackground(texture.getMipMap(width, height), width, height);
+		backgroundTexture = texture;
+
+		// build the halvings of the background which cover the minimum zoom
+		// in the background, so that zooming out draws from a nearby level
+		// rather than downscaling the full map every frame
+
+		minWidth = (int)((double)width * (ZOOM_MIN / 100.0));
+		minHeight = (int)((double)height * (ZOOM_MIN / 100.0));
+		texture.buildMipPyramidAsync(width, height, minWidth, minHeight);
 	}
 
 	public void reset()
@@ -568,58 +843,53 @@ public class GameScene extends Scene
 		hasSnapshot = false;
 	}
 
+	public void triggerNewSnapshot(Planet planet)
+	{
+		// only the planet's region of the snapshot is redrawn, on the next
+		// request for it
+
+		synchronized(snapshotPlanets) {
+			snapshotPlanets.add(planet.getName());
+		}
+	}
+
 	public Image snapshot(int sceneWidth, int sceneHeight)
 	{
-		int counter = 0;
 		int currentX = 0;
 		int currentY = 0;
 		double currentZoomLevel = 0.0;
 
 		Image result = null;
+		BufferedImage buffer = null;
 		Graphics2D render2D = null;
 		Iterator iterator = null;
 		Sprite sprite = null;
 		Planet planet = null;
 
 		try {
-			if(hasSnapshot) {
+			if((hasSnapshot) && (renderBuffer != null)) {
+				updateSnapshot(sceneWidth, sceneHeight);
 				result = (Image)renderBuffer;
 				return result;
 			}
 
-			// setup rendering buffer
+			// a full render covers any planets awaiting a redraw
 
-			if((renderBuffer == null) || (renderBuffer.getGraphics() == null)) {
-				renderBuffer = (BufferedImage)gameEngine.createImage(width,
-						height);
-				counter = 0;
-				while((counter < 8) &&
-						((renderBuffer == null) ||
-						 (renderBuffer.getGraphics() == null))) {
-					counter++;
-					renderBuffer = (BufferedImage)gameEngine.createImage(width,
-							height);
-				}
-				if((renderBuffer == null) ||
-						(renderBuffer.getGraphics() == null)) {
-					throw new Exception("failed to build rendering buffer");
-				}
+			synchronized(snapshotPlanets) {
+				snapshotPlanets.clear();
 			}
 
-			// test rendering buffer
+			// setup rendering buffer, the snapshot last handed out may still
+			// be drawn by the render thread so the spare buffer is used
 
-			if((renderBuffer == null) || (renderBuffer.getGraphics() == null)) {
-				throw new Exception("unable to perform snapshot render");
-			}
+			buffer = obtainSnapshotBuffer();
 
 			// setup the scene
 
 			currentX = camera.getCameraX();
 			currentY = camera.getCameraY();
 			currentZoomLevel = zoomLevel;
-			zoomLevel = (((((double)width / (double)sceneWidth) * 100.0) +
-						(((double)height / (double)sceneHeight) * 100.0)) /
-					2.0);
+			zoomLevel = calculateSnapshotZoom(sceneWidth, sceneHeight);
 			camera.setCameraCoords(0, 0);
 
 			iterator = spriteSet.iterator();
@@ -643,11 +913,16 @@ public class GameScene extends Scene
 
 			// perform scene render to buffer
 
-			render2D = (Graphics2D)renderBuffer.getGraphics();
-			render2D.setColor(gameEngine.getBackground());
-			render2D.fillRect(0, 0, width, height);
-			render2D.setColor(gameEngine.getForeground());
-			this.render2D(render2D);
+			render2D = buffer.createGraphics();
+			try {
+				render2D.setColor(gameEngine.getBackground());
+				render2D.fillRect(0, 0, width, height);
+				render2D.setColor(gameEngine.getForeground());
+				renderScene(render2D, false);
+			}
+			finally {
+				render2D.dispose();
+			}
 
 			// reset the scene back to baseline
 
@@ -675,7 +950,7 @@ public class GameScene extends Scene
 
 			// obtain result
 
-			result = (Image)renderBuffer;
+			result = swapSnapshotBuffers();
 
 			hasSnapshot = true;
 		}
@@ -686,7 +961,7 @@ public class GameScene extends Scene
 		return result;
 	}
 
-	public void render2D(Graphics2D render)
+	public void captureRenderState(RenderSnapshot snapshot)
 	{
 		double localWidth = 0.0;
 		double localHeight = 0.0;
@@ -698,16 +973,25 @@ public class GameScene extends Scene
 			offsetX = (0 - camera.getCameraX());
 			offsetY = (0 - camera.getCameraY());
 
-			// render background
+			// capture background
 
 			if(background != null) {
 				localWidth = ((double)backgroundWidth * (zoomLevel / 100.0));
 				localHeight = ((double)backgroundHeight * (zoomLevel / 100.0));
-				render.drawImage(background, offsetX, offsetY, (int)localWidth,
-						(int)localHeight, gameEngine);
+				if(backgroundLayer != null) {
+					validateBackgroundLayer((int)localWidth, (int)localHeight);
+					backgroundLayer.captureRenderState(snapshot,
+							camera.getCameraX(), camera.getCameraY(),
+							camera.getWindowWidth(), camera.getWindowHeight());
+				}
+				else {
+					snapshot.addImage(obtainBackground((int)localWidth,
+								(int)localHeight), offsetX, offsetY,
+							(int)localWidth, (int)localHeight);
+				}
 			}
 
-			// render sprite set
+			// capture sprite set
 
 			iterator = spriteSet.iterator();
 			while(iterator.hasNext()) {
@@ -716,19 +1000,18 @@ public class GameScene extends Scene
 					break;
 				}
 				if(sprite.isVisible()) {
-					sprite.render2D(render);
+					sprite.captureRenderState(snapshot);
 				}
 			}
-
-			if(debugMode) {
-				render.setColor(Color.blue);
-				render.fillOval(((spriteCenterX - 4) + offsetX),
-						((spriteCenterY - 4) + offsetY), 8, 8);
-			}
 		}
 		catch(Exception e) {
 			e.printStackTrace();
 		}
 	}
+
+	public void render2D(Graphics2D render)
+	{
+		renderScene(render, true);
+	}
 }
 
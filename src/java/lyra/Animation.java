@@ -34,6 +34,47 @@ public class Animation implements GraphicsInterface
 
 	private static final String CLASS_NAME = Animation.class.getName();
 
+	// define class private functions
+
+	private void invalidate()
+	{
+		if((gameEngine == null) || (!isVisible)) {
+			return;
+		}
+		gameEngine.invalidate((x + offsetX), (y + offsetY), width, height);
+	}
+
+	private AtlasRegion obtainRegion(int id)
+	{
+		Image image = null;
+		AtlasRegion result = null;
+		TextureAtlas atlas = null;
+
+		if(gameEngine == null) {
+			return null;
+		}
+
+		atlas = gameEngine.getTextureAtlas();
+		if(atlas == null) {
+			return null;
+		}
+
+		// the frames are packed on first use (and again should the atlas
+		// reuse their space), a frame the atlas can not hold is drawn
+		// directly
+
+		image = (Image)frames.get(id);
+		result = (AtlasRegion)regions.get(id);
+		if((regionImages.get(id) != image) ||
+				((result != null) && (!result.isValid()))) {
+			result = atlas.add(image);
+			regions.set(id, result);
+			regionImages.set(id, image);
+		}
+
+		return result;
+	}
+
 	// define private class variables
 
 	protected boolean isVisible = false;
@@ -50,6 +91,8 @@ public class Animation implements GraphicsInterface
 	protected long animationThresholdMillis = 0;
 	protected String name = null;
 	protected Vector frames = null;
+	protected Vector regions = null;
+	protected Vector regionImages = null;
 	protected GameEngine gameEngine = null;
 
 	// define class public functions
@@ -66,6 +109,8 @@ public class Animation implements GraphicsInterface
 		animationTime = (long)0;
 		animationThresholdMillis = (long)0;
 		frames = new Vector(8, 8);
+		regions = new Vector(8, 8);
+		regionImages = new Vector(8, 8);
 
 		this.name = name;
 		this.x = x;
@@ -107,14 +152,18 @@ public class Animation implements GraphicsInterface
 
 	public void setLocation(int x, int y)
 	{
+		invalidate();
 		this.x = x;
 		this.y = y;
+		invalidate();
 	}
 
 	public void resize(int width, int height)
 	{
+		invalidate();
 		this.width = width;
 		this.height = height;
+		invalidate();
 	}
 
 	public Rectangle getLocation()
@@ -134,8 +183,10 @@ public class Animation implements GraphicsInterface
 
 	public void setOffsets(int x, int y)
 	{
+		invalidate();
 		offsetX = x;
 		offsetY = y;
+		invalidate();
 	}
 
 	public boolean isVisible()
@@ -155,6 +206,7 @@ public class Animation implements GraphicsInterface
 			offsetY = (0 - cameraY);
 		}
 		else {
+			invalidate();
 			isVisible = false;
 		}
 
@@ -170,6 +222,8 @@ public class Animation implements GraphicsInterface
 					AssetCache.TYPE_TEXTURE, imageName);
 			texture.buildMipMap(width, height);
 			frames.add(texture.getMipMap(width, height));
+			regions.add(null);
+			regionImages.add(null);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -209,6 +263,7 @@ public class Animation implements GraphicsInterface
 		willAutoStop = true;
 		animationRef = 0;
 		animationTime = (new Date()).getTime();
+		invalidate();
 	}
 
 	public void start(boolean willAutoStop)
@@ -224,10 +279,14 @@ public class Animation implements GraphicsInterface
 		this.willAutoStop = willAutoStop;
 		animationRef = 0;
 		animationTime = (new Date()).getTime();
+		invalidate();
 	}
 
 	public void stop()
 	{
+		if(isPlaying) {
+			invalidate();
+		}
 		isPlaying = false;
 	}
 
@@ -249,18 +308,51 @@ public class Animation implements GraphicsInterface
 					isPlaying = false;
 				}
 			}
+			invalidate();
+		}
+	}
+
+	public void captureRenderState(RenderSnapshot snapshot)
+	{
+		AtlasRegion region = null;
+
+		if((!isVisible) || (!isPlaying)) {
+			return;
+		}
+
+		region = obtainRegion(animationRef);
+		if(region != null) {
+			snapshot.addRegion(region, (x + offsetX), (y + offsetY), width,
+					height, 0.0);
+		}
+		else {
+			snapshot.addImage((Image)frames.get(animationRef), (x + offsetX),
+					(y + offsetY), width, height);
 		}
 	}
 
 	public void render2D(Graphics2D render)
 	{
+		AtlasRegion region = null;
+
 		try {
 			if((!isVisible) || (!isPlaying)) {
 				return;
 			}
 
-			render.drawImage((Image)frames.get(animationRef), (x + offsetX),
-					(y + offsetY), width, height, gameEngine);
+			// render the frame (from the texture atlas when it has been
+			// packed)
+
+			region = obtainRegion(animationRef);
+			if(region != null) {
+				region.render2D(render, (x + offsetX), (y + offsetY), width,
+						height, gameEngine);
+			}
+			else {
+				render.drawImage((Image)frames.get(animationRef),
+						(x + offsetX), (y + offsetY), width, height,
+						gameEngine);
+			}
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -4,7 +4,9 @@
  * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
  * intellectual property of Joshua S. English. All rights reserved.
  *
- * A system for loading & caching game assets.
+ * A system for loading & caching game assets, bounded by a memory budget with
+ * least-recently-used eviction of unpinned assets, and optionally loaded in
+ * parallel by a pool of asset worker threads.
  *
  * Written by Josh English.
  */
@@ -15,9 +17,22 @@ package lyra;
 
 // import external packages
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.awt.image.BufferedImage;
 import java.awt.image.ImageProducer;
@@ -27,8 +42,14 @@ import javax.imageio.ImageIO;
 // import internal packages
 
 import lyra.audio.AudioPlayer;
+import lyra.audio.AudioSample;
 import lyra.drivers.HttpDriver;
+import lyra.interfaces.AssetInterface;
+import lyra.plugins.MP3FrameIndex;
+import lyra.util.AssetArchive;
+import lyra.util.ByteBufferInputStream;
 import lyra.util.Config;
+import lyra.util.ImageDiskCache;
 
 // define class
 
@@ -42,23 +63,35 @@ public class AssetCache
 	public static final int TYPE_CONFIG = 4;
 	public static final int TYPE_RAW_IMAGE = 5;
 	public static final int TYPE_AUDIO = 6;
+	public static final int TYPE_AUDIO_SAMPLE = 7;
+	public static final int TYPE_AUDIO_INDEX = 8;
 	public static final int TYPE_UNKNOWN = -1;
+	public static final long UNLIMITED_BUDGET = 0;
+	public static final int DEFAULT_WORKER_THREADS = 4;
+	public static final int DEFAULT_SAMPLE_SECONDS = 5;
+	public static final long DEFAULT_SAMPLE_BYTES = 1048576;
 
 	// define private class constants
 
 	private static final String CLASS_NAME = AssetCache.class.getName();
+	private static final long CONFIG_WEIGHT = 1024;
+	private static final long WORKER_KEEP_ALIVE_SECONDS = 30;
 
 	// define private class class objects
 
 	private class Asset
 	{
 		private int type = 0;
+		private int pins = 0;
+		private long weight = 0;
 		private String name = null;
 		private Object asset = null;
 
 		public Asset(int type, String name, Object asset)
 		{
 			this.type = type;
+			this.pins = 0;
+			this.weight = 0;
 			this.name = name;
 			this.asset = asset;
 		}
@@ -79,9 +112,147 @@ public class AssetCache
 		}
 	}
 
+	private class AssetWorker extends Thread
+	{
+		public AssetWorker(Runnable runnable)
+		{
+			super(runnable, "AssetWorker");
+			setDaemon(true);
+		}
+	}
+
+	private class WorkerFactory implements ThreadFactory
+	{
+		public Thread newThread(Runnable runnable)
+		{
+			return new AssetWorker(runnable);
+		}
+	}
+
+	private class CachedLoad implements Callable
+	{
+		private Object asset = null;
+
+		public CachedLoad(Object asset)
+		{
+			this.asset = asset;
+		}
+
+		public Object call()
+		{
+			return asset;
+		}
+	}
+
+	private class TaskLoad extends FutureTask
+	{
+		public TaskLoad(Runnable task)
+		{
+			super(task, null);
+		}
+
+		protected void done()
+		{
+			completeTask();
+		}
+	}
+
+	private class SampleDecode implements Callable
+	{
+		private String key = null;
+		private Config config = null;
+
+		public SampleDecode(String key, Config config)
+		{
+			this.key = key;
+			this.config = config;
+		}
+
+		public Object call()
+		{
+			Object result = null;
+
+			try {
+				result = new AudioSample(config, gameEngine);
+				result = store(key, new Asset(TYPE_AUDIO_SAMPLE,
+							((AudioSample)result).getName(), result));
+			}
+			finally {
+				completeDecode(key);
+			}
+
+			return result;
+		}
+	}
+
+	private class AssetLoad implements Callable
+	{
+		private int type = 0;
+		private String name = null;
+		private String key = null;
+		private ArrayList listeners = null;
+		private FutureTask future = null;
+
+		public AssetLoad(int type, String name, String key)
+		{
+			this.type = type;
+			this.name = name;
+			this.key = key;
+			listeners = new ArrayList();
+			future = new FutureTask(this);
+		}
+
+		public Object call()
+		{
+			int ii = 0;
+
+			Object result = null;
+			ArrayList list = null;
+
+			try {
+				result = getAsset(type, name);
+			}
+			finally {
+				list = completeLoad(this);
+			}
+
+			for(ii = 0; ii < list.size(); ii++) {
+				try {
+					((AssetInterface)list.get(ii)).assetLoaded(type, name,
+							result);
+				}
+				catch(Exception e) {
+					e.printStackTrace();
+				}
+			}
+
+			return result;
+		}
+	}
+
 	// define private class variables
 
-	private HashMap index = null;
+	private long memoryBudget = 0;
+	private long memoryUsage = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+	private int workerThreads = 0;
+	private int requestedLoads = 0;
+	private int completedLoads = 0;
+	private int pendingTasks = 0;
+	private int sampleSeconds = 0;
+	private long sampleBytes = 0;
+	private String assetMode = null;
+	private String path = null;
+	private LinkedHashMap index = null;
+	private HashMap pending = null;
+	private HashMap decodes = null;
+	private ThreadPoolExecutor workers = null;
+	private HashMap contentHashes = null;
+	private AssetArchive archive = null;
+	private ImageDiskCache diskCache = null;
+	private ImageConverter imageConverter = null;
 	private HttpDriver httpDriver = null;
 	private GameEngine gameEngine = null;
 
@@ -96,6 +267,202 @@ public class AssetCache
 		return result;
 	}
 
+	private long calculateImageWeight(Image image)
+	{
+		int width = 0;
+		int height = 0;
+
+		// decoded images are held as 32-bit pixels, an image that has not
+		// finished loading weighs nothing until the next re-weigh
+
+		width = image.getWidth(null);
+		height = image.getHeight(null);
+		if((width <= 0) || (height <= 0)) {
+			return 0;
+		}
+
+		return ((long)width * (long)height * 4);
+	}
+
+	private long calculateWeight(Asset asset)
+	{
+		long result = 0;
+
+		if(asset.asset instanceof Image) {
+			result = calculateImageWeight((Image)asset.asset);
+		}
+		else if(asset.asset instanceof Texture) {
+			result = ((Texture)asset.asset).getMemorySize();
+		}
+		else if(asset.asset instanceof AudioPlayer) {
+			result = ((AudioPlayer)asset.asset).getMemorySize();
+		}
+		else if(asset.asset instanceof AudioSample) {
+			result = ((AudioSample)asset.asset).getMemorySize();
+		}
+		else if(asset.asset instanceof MP3FrameIndex) {
+			result = ((MP3FrameIndex)asset.asset).getMemorySize();
+		}
+		else if(asset.asset instanceof Config) {
+			result = CONFIG_WEIGHT;
+		}
+
+		return result;
+	}
+
+	private synchronized Asset lookup(String key)
+	{
+		Asset result = null;
+
+		// the index is access-ordered, so a lookup also marks the asset as
+		// the most recently used
+
+		result = (Asset)index.get(key);
+		if(result != null) {
+			hitCount++;
+			reweigh(result);
+		}
+		else {
+			missCount++;
+		}
+
+		return result;
+	}
+
+	private synchronized Object store(String key, Asset asset)
+	{
+		Asset existing = null;
+
+		// another thread may have built the same asset while this one was
+		// loading, keep the first one stored so that callers share it
+
+		existing = (Asset)index.get(key);
+		if(existing != null) {
+			return existing.asset;
+		}
+
+		insert(key, asset);
+
+		return asset.asset;
+	}
+
+	private synchronized void insert(String key, Asset asset)
+	{
+		Asset existing = null;
+
+		existing = (Asset)index.put(key, asset);
+		if(existing != null) {
+			memoryUsage -= existing.weight;
+		}
+		asset.weight = calculateWeight(asset);
+		memoryUsage += asset.weight;
+		evict(asset);
+	}
+
+	private synchronized void reweigh(Asset asset)
+	{
+		long weight = 0;
+
+		// textures gain mipmaps and audio caches its stream as it plays, so
+		// an asset is re-weighed as it is used (or grows) rather than every
+		// asset being re-weighed on each store
+
+		weight = calculateWeight(asset);
+		if(weight == asset.weight) {
+			return;
+		}
+
+		memoryUsage += (weight - asset.weight);
+		asset.weight = weight;
+		if(memoryUsage > memoryBudget) {
+			evict(asset);
+		}
+	}
+
+	private synchronized void evict(Asset keep)
+	{
+		Iterator iterator = null;
+		Asset asset = null;
+
+		if(memoryBudget <= UNLIMITED_BUDGET) {
+			return;
+		}
+
+		// walk from the least recently used, skipping pinned assets and the
+		// asset that was just requested
+
+		// note: audio players are never evicted, as one holds threads & a
+		// line until it is closed (and the game may still be playing it),
+		// they are only released by removeAsset() or closeAudio()
+
+		iterator = index.values().iterator();
+		while((memoryUsage > memoryBudget) && (iterator.hasNext())) {
+			asset = (Asset)iterator.next();
+			if((asset == keep) || (asset.pins > 0) ||
+					(asset.asset instanceof AudioPlayer)) {
+				continue;
+			}
+			iterator.remove();
+			memoryUsage -= asset.weight;
+			evictionCount++;
+		}
+	}
+
+	private synchronized ArrayList completeLoad(AssetLoad load)
+	{
+		// the asset (if any) is already stored, so requests that arrive from
+		// here on are served from the index
+
+		pending.remove(load.key);
+		completedLoads++;
+
+		return load.listeners;
+	}
+
+	private synchronized void completeDecode(String key)
+	{
+		// the sample is already stored, so later requests hit the index
+
+		decodes.remove(key);
+	}
+
+	private synchronized void completeTask()
+	{
+		pendingTasks--;
+		completedLoads++;
+	}
+
+	private Object awaitLoad(String key)
+	{
+		AssetLoad load = null;
+		Object result = null;
+
+		// asset workers never wait on one another, a worker that needs an
+		// asset being loaded by another worker decodes it itself, so that a
+		// saturated pool can not deadlock
+
+		if(Thread.currentThread() instanceof AssetWorker) {
+			return null;
+		}
+
+		synchronized(this) {
+			load = (AssetLoad)pending.get(key);
+		}
+		if(load == null) {
+			return null;
+		}
+
+		try {
+			result = load.future.get();
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			result = null;
+		}
+
+		return result;
+	}
+
 	private Image buildNewInternalImage(String assetName)
 	{
 		Image result = null;
@@ -110,11 +477,11 @@ public class AssetCache
 		FileInputStream result = null;
 
 		try {
-			if(assetName.startsWith(gameEngine.getPath())) {
+			if(assetName.startsWith(path)) {
 				result = new FileInputStream(assetName);
 			}
 			else {
-				result = new FileInputStream(gameEngine.getPath() + "/" +
+				result = new FileInputStream(path + "/" +
 						assetName);
 			}
 		}
@@ -132,11 +499,11 @@ public class AssetCache
 
 		try {
 			if(httpDriver != null) {
-				if(assetName.startsWith(gameEngine.getPath())) {
+				if(assetName.startsWith(path)) {
 					result = httpDriver.execute(assetName);
 				}
 				else {
-					result = httpDriver.execute(gameEngine.getPath() + "/" +
+					result = httpDriver.execute(path + "/" +
 							assetName);
 				}
 			}
@@ -149,53 +516,146 @@ public class AssetCache
 		return result;
 	}
 
-	private Image buildNewImage(String assetName)
+	private ByteBuffer obtainArchiveBuffer(String assetName)
+	{
+		if(archive == null) {
+			return null;
+		}
+
+		// archive entries are named relative to the game path
+
+		if(assetName.startsWith(path)) {
+			assetName = assetName.substring(path.length());
+		}
+
+		return archive.getBuffer(assetName);
+	}
+
+	private ByteBuffer obtainAssetBuffer(String assetName) throws Exception
 	{
 		int length = 0;
+		int bytesRead = 0;
 		byte[] buffer = null;
 
 		FileInputStream inputStream = null;
-		ByteArrayInputStream byteInput = null;
-		BufferedImage imageBuffer = null;
-		ImageProducer producer = null;
-		Image result = null;
+		ByteBuffer result = null;
 
-		try {
-			if(gameEngine.getAssetMode().equals("FILE")) {
-				inputStream = obtainInputStream(assetName);
-			}
+		// prefer a zero-copy slice of the mapped archive, and otherwise read
+		// the whole asset from its file (or over HTTP)
+
+		result = obtainArchiveBuffer(assetName);
+		if(result != null) {
+			return result;
+		}
+
+		if(assetMode.equals("FILE")) {
+			inputStream = obtainInputStream(assetName);
 			if(inputStream != null) {
-				length = (int)inputStream.getChannel().size();
-				if(length > 0) {
+				try {
+					length = (int)inputStream.getChannel().size();
 					buffer = new byte[length];
-					length = inputStream.read(buffer);
-					byteInput = new ByteArrayInputStream(buffer, 0, length);
-					imageBuffer = ImageIO.read(byteInput);
+					while(bytesRead < buffer.length) {
+						length = inputStream.read(buffer, bytesRead,
+								(buffer.length - bytesRead));
+						if(length < 0) {
+							break;
+						}
+						bytesRead += length;
+					}
 				}
-				else {
-					imageBuffer = ImageIO.read(inputStream);
+				finally {
+					inputStream.close();
 				}
-				inputStream.close();
 			}
-			else if(gameEngine.getAssetMode().equals("HTTP")) {
-				buffer = obtainRemoteAsset(assetName);
-				byteInput = new ByteArrayInputStream(buffer, 0, buffer.length);
-				imageBuffer = ImageIO.read(byteInput);
+		}
+		else if(assetMode.equals("HTTP")) {
+			buffer = obtainRemoteAsset(assetName);
+			if(buffer != null) {
+				bytesRead = buffer.length;
 			}
-			else {
-				throw new Exception("unable to obtain asset from unknown " +
-						"game engine mode");
+		}
+		else {
+			throw new Exception("unable to obtain asset from unknown " +
+					"game engine mode");
+		}
+
+		if(buffer == null) {
+			throw new Exception("{" + CLASS_NAME + "} unable to read asset '" +
+					assetName + "'");
+		}
+
+		return ByteBuffer.wrap(buffer, 0, bytesRead);
+	}
+
+	private BufferedImage decodeImage(String assetName) throws Exception
+	{
+		String key = null;
+		ByteBuffer source = null;
+		BufferedImage result = null;
+
+		source = obtainAssetBuffer(assetName);
+
+		// decoded pixels are keyed on the hash of the source bytes, so that
+		// an edited asset is never served stale pixels
+
+		if(diskCache != null) {
+			key = ImageDiskCache.hash(source);
+			synchronized(this) {
+				contentHashes.put(assetName, key);
 			}
-			producer = imageBuffer.getSource();
-			if(producer != null) {
-				result = gameEngine.createImage(producer);
+			result = diskCache.load(key);
+			if(result != null) {
+				return result;
+			}
+		}
+
+		result = ImageIO.read(new ByteBufferInputStream(source));
+		if(result == null) {
+			throw new Exception("{" + CLASS_NAME + "} unable to decode " +
+					"image '" + assetName + "'");
+		}
+
+		if(key != null) {
+			diskCache.store(key, result);
+		}
+
+		return result;
+	}
+
+	private ThreadPoolExecutor obtainWorkers()
+	{
+		// note: callers must hold the cache lock
+
+		if(workers == null) {
+			workers = new ThreadPoolExecutor(workerThreads, workerThreads,
+					WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+					new LinkedBlockingQueue(), new WorkerFactory());
+			workers.allowCoreThreadTimeOut(true);
+		}
+
+		return workers;
+	}
+
+	private Image buildNewImage(String assetName)
+	{
+		BufferedImage imageBuffer = null;
+		ImageConverter converter = null;
+		Image result = null;
+
+		try {
+			imageBuffer = decodeImage(assetName);
+
+			// normalize the decoded pixels to the display's format, rather
+			// than round-tripping them through an image producer
+
+			converter = getImageConverter();
+			if(converter != null) {
+				result = converter.convert(imageBuffer);
 			}
 			else {
 				result = (Image)imageBuffer;
 			}
 
-			byteInput.close();
-
 			java.lang.Runtime.getRuntime().freeMemory();
 		}
 		catch(Exception e) {
@@ -230,10 +690,16 @@ public class AssetCache
 		Config result = null;
 
 		try {
-			if(gameEngine.getAssetMode().equals("FILE")) {
-				result = new Config(gameEngine.getPath() + "/" + assetName);
+			if(archive != null) {
+				buffer = archive.getBytes(assetName);
 			}
-			else if(gameEngine.getAssetMode().equals("HTTP")) {
+			if(buffer != null) {
+				result = new Config(assetName, buffer);
+			}
+			else if(assetMode.equals("FILE")) {
+				result = new Config(path + "/" + assetName);
+			}
+			else if(assetMode.equals("HTTP")) {
 				buffer = obtainRemoteAsset(assetName);
 				result = new Config(assetName, buffer);
 			}
@@ -252,44 +718,10 @@ public class AssetCache
 
 	private Image buildNewRawImage(String assetName)
 	{
-		int length = 0;
-		byte[] buffer = null;
-
-		FileInputStream inputStream = null;
-		ByteArrayInputStream byteInput = null;
-		BufferedImage imageBuffer = null;
 		Image result = null;
 
 		try {
-			if(gameEngine.getAssetMode().equals("FILE")) {
-				inputStream = obtainInputStream(assetName);
-			}
-			if(inputStream != null) {
-				length = (int)inputStream.getChannel().size();
-				if(length > 0) {
-					buffer = new byte[length];
-					length = inputStream.read(buffer);
-					byteInput = new ByteArrayInputStream(buffer, 0, length);
-					imageBuffer = ImageIO.read(byteInput);
-				}
-				else {
-					imageBuffer = ImageIO.read(inputStream);
-				}
-				inputStream.close();
-			}
-			else if(gameEngine.getAssetMode().equals("HTTP")) {
-				buffer = obtainRemoteAsset(assetName);
-				byteInput = new ByteArrayInputStream(buffer, 0, buffer.length);
-				imageBuffer = ImageIO.read(byteInput);
-			}
-			else {
-				throw new Exception("unable to obtain asset from unknown " +
-						"game engine mode");
-			}
-
-			result = (Image)imageBuffer;
-
-			byteInput.close();
+			result = (Image)decodeImage(assetName);
 
 			java.lang.Runtime.getRuntime().freeMemory();
 		}
@@ -306,11 +738,18 @@ public class AssetCache
 		Image result = null;
 		BufferedImage image = null;
 		ImageProducer producer = null;
+		ImageConverter converter = null;
 
 		try {
 			image = (BufferedImage)this.getAsset(TYPE_RAW_IMAGE, assetName);
-			producer = image.getSource();
-			result = gameEngine.createImage(producer);
+			converter = getImageConverter();
+			if(converter != null) {
+				result = converter.convert(image);
+			}
+			else {
+				producer = image.getSource();
+				result = gameEngine.createImage(producer);
+			}
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -342,7 +781,31 @@ public class AssetCache
 	public AssetCache(GameEngine gameEngine)
 	{
 		this.gameEngine = gameEngine;
-		index = new HashMap();
+
+		// the asset mode & path are fixed once the engine is initialized,
+		// take them here so that the asset workers never need the game
+		// engine's lock (which a synchronous load may be holding)
+
+		assetMode = gameEngine.getAssetMode();
+		path = gameEngine.getPath();
+		memoryBudget = UNLIMITED_BUDGET;
+		memoryUsage = 0;
+		hitCount = 0;
+		missCount = 0;
+		evictionCount = 0;
+		workerThreads = Math.min(DEFAULT_WORKER_THREADS,
+				Runtime.getRuntime().availableProcessors());
+		requestedLoads = 0;
+		completedLoads = 0;
+		pendingTasks = 0;
+		sampleSeconds = DEFAULT_SAMPLE_SECONDS;
+		sampleBytes = DEFAULT_SAMPLE_BYTES;
+		index = new LinkedHashMap(16, (float)0.75, true);
+		pending = new HashMap();
+		decodes = new HashMap();
+		workers = null;
+		contentHashes = new HashMap();
+		imageConverter = new ImageConverter(gameEngine);
 	}
 
 	public String getClassName()
@@ -355,7 +818,255 @@ public class AssetCache
 		httpDriver = new HttpDriver(hostname, port);
 	}
 
-	public boolean addAsset(int type, String assetName, Object object)
+	public boolean loadArchive(String filename)
+	{
+		boolean result = false;
+
+		try {
+			if(!new File(filename).isAbsolute()) {
+				filename = (path + "/" + filename);
+			}
+			archive = new AssetArchive(filename);
+			result = true;
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			archive = null;
+		}
+
+		return result;
+	}
+
+	public AssetArchive getArchive()
+	{
+		return archive;
+	}
+
+	public boolean loadDiskCache(String directory)
+	{
+		boolean result = false;
+
+		try {
+			diskCache = new ImageDiskCache(directory);
+			result = true;
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			diskCache = null;
+		}
+
+		return result;
+	}
+
+	public ImageDiskCache getDiskCache()
+	{
+		return diskCache;
+	}
+
+	public synchronized ImageConverter getImageConverter()
+	{
+		return imageConverter;
+	}
+
+	public synchronized boolean isCompatibleImageMode()
+	{
+		return (imageConverter != null);
+	}
+
+	public synchronized void setCompatibleImageMode(boolean mode)
+	{
+		// note: only affects images loaded after the mode is changed
+
+		if(mode == (imageConverter != null)) {
+			return;
+		}
+		if(mode) {
+			imageConverter = new ImageConverter(gameEngine);
+		}
+		else {
+			imageConverter = null;
+		}
+	}
+
+	public synchronized int getSampleSeconds()
+	{
+		return sampleSeconds;
+	}
+
+	public synchronized long getSampleBytes()
+	{
+		return sampleBytes;
+	}
+
+	public synchronized void setSampleThreshold(int seconds, long bytes)
+	{
+		// note: a zero duration disables decoding clips into samples
+
+		if(seconds < 0) {
+			seconds = 0;
+		}
+		if(bytes < 0) {
+			bytes = 0;
+		}
+		sampleSeconds = seconds;
+		sampleBytes = bytes;
+	}
+
+	public boolean isSampleAudio(Config config)
+	{
+		long seconds = 0;
+		long bytes = 0;
+
+		// a clip is decoded once when its configured length, and the size
+		// of its decoded samples, are both within the thresholds
+
+		try {
+			seconds = config.getLong("global", "trackLengthSeconds",
+					0).longValue();
+			bytes = (seconds *
+					config.getDouble("global", "sampleRate",
+						44100).longValue() *
+					config.getLong("global", "channels", 2).longValue() *
+					(config.getLong("global", "sampleBitSize",
+						16).longValue() / 8));
+
+			synchronized(this) {
+				return ((seconds > 0) && (seconds <= sampleSeconds) &&
+						(bytes <= sampleBytes));
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+
+		return false;
+	}
+
+	public AudioSample getAudioSample(Config config)
+	{
+		boolean isDecoder = false;
+		String name = null;
+		String key = null;
+		Asset asset = null;
+		FutureTask decode = null;
+		AudioSample result = null;
+
+		// decoded samples are keyed by the audio file, so every player &
+		// mixer voice of the same clip shares one buffer
+
+		try {
+			name = config.getString("global", "url");
+			if(name == null) {
+				throw new Exception("{" + CLASS_NAME +
+						"} missing url for audio sample");
+			}
+			key = buildKey(TYPE_AUDIO_SAMPLE, name);
+
+			// concurrent first plays of a clip share a single decode, which
+			// runs on the first caller's thread outside of the cache's lock
+
+			synchronized(this) {
+				asset = lookup(key);
+				if(asset == null) {
+					decode = (FutureTask)decodes.get(key);
+					if(decode == null) {
+						decode = new FutureTask(new SampleDecode(key,
+									config));
+						decodes.put(key, decode);
+						isDecoder = true;
+					}
+				}
+			}
+
+			if(asset != null) {
+				result = (AudioSample)asset.getAsset();
+			}
+			else {
+				if(isDecoder) {
+					decode.run();
+				}
+				result = (AudioSample)decode.get();
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+
+		return result;
+	}
+
+	public MP3FrameIndex getFrameIndex(String assetName)
+	{
+		Asset asset = null;
+
+		// mp3 frame indexes are keyed by the audio file, so every stream of
+		// the same track seeks without re-scanning it
+
+		asset = lookup(buildKey(TYPE_AUDIO_INDEX, assetName));
+		if(asset == null) {
+			return null;
+		}
+		return (MP3FrameIndex)asset.getAsset();
+	}
+
+	public MP3FrameIndex storeFrameIndex(String assetName,
+			MP3FrameIndex frameIndex)
+	{
+		String key = null;
+
+		key = buildKey(TYPE_AUDIO_INDEX, assetName);
+		return (MP3FrameIndex)store(key, new Asset(TYPE_AUDIO_INDEX,
+					assetName, frameIndex));
+	}
+
+	public synchronized String getContentHash(String assetName)
+	{
+		return (String)contentHashes.get(assetName);
+	}
+
+	public synchronized long getMemoryBudget()
+	{
+		return memoryBudget;
+	}
+
+	public synchronized void setMemoryBudget(long bytes)
+	{
+		if(bytes < UNLIMITED_BUDGET) {
+			bytes = UNLIMITED_BUDGET;
+		}
+		memoryBudget = bytes;
+		evict(null);
+	}
+
+	public synchronized long getMemoryUsage()
+	{
+		return memoryUsage;
+	}
+
+	public synchronized long getHitCount()
+	{
+		return hitCount;
+	}
+
+	public synchronized long getMissCount()
+	{
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount()
+	{
+		return evictionCount;
+	}
+
+	public synchronized void resetCounters()
+	{
+		hitCount = 0;
+		missCount = 0;
+		evictionCount = 0;
+	}
+
+	public synchronized boolean addAsset(int type, String assetName,
+			Object object)
 	{
 		boolean result = false;
 		String key = null;
@@ -364,7 +1075,8 @@ public class AssetCache
 		try {
 			if((type != TYPE_IMAGE) && (type != TYPE_TEXTURE) &&
 					(type != TYPE_CONFIG) && (type != TYPE_RAW_IMAGE) &&
-					(type != TYPE_AUDIO)) {
+					(type != TYPE_AUDIO) && (type != TYPE_AUDIO_SAMPLE) &&
+					(type != TYPE_AUDIO_INDEX)) {
 				throw new Exception("{" + CLASS_NAME +
 						"} invalid asset type " + type);
 			}
@@ -372,7 +1084,7 @@ public class AssetCache
 			asset = (Asset)index.get(key);
 			if(asset == null) {
 				asset = new Asset(type, assetName, object);
-				index.put(key, asset);
+				insert(key, asset);
 				result = true;
 			}
 			else {
@@ -403,8 +1115,19 @@ public class AssetCache
 						"} invalid asset type " + type);
 			}
 			key = buildKey(type, assetName);
-			asset = (Asset)index.get(key);
+			asset = lookup(key);
 			if(asset == null) {
+				// an asynchronous load of the same asset may already be in
+				// flight, wait for it rather than decoding the asset twice
+
+				result = awaitLoad(key);
+				if(result != null) {
+					return result;
+				}
+
+				// note: assets are built outside of the cache lock, so that a
+				// slow decode does not stall the render thread
+
 				if(type == TYPE_INTERNAL_IMAGE) {
 					newAsset = buildNewInternalImage(assetName);
 				}
@@ -425,14 +1148,13 @@ public class AssetCache
 				}
 				if(newAsset != null) {
 					asset = new Asset(type, assetName, newAsset);
-					index.put(key, asset);
+					result = store(key, asset);
 				}
 				else {
 					throw new Exception("{" + CLASS_NAME +
 							"} failed to obtain asset '" + assetName +
 							"' type " + type);
 				}
-				result = newAsset;
 			}
 			else {
 				result = asset.getAsset();
@@ -445,19 +1167,174 @@ public class AssetCache
 		return result;
 	}
 
+	public Future getAssetAsync(int type, String assetName)
+	{
+		return getAssetAsync(type, assetName, null);
+	}
+
+	public Future getAssetAsync(int type, String assetName,
+			AssetInterface listener)
+	{
+		String key = null;
+		Object object = null;
+		Asset asset = null;
+		AssetLoad load = null;
+		FutureTask result = null;
+
+		key = buildKey(type, assetName);
+
+		synchronized(this) {
+			asset = (Asset)index.get(key);
+			if((asset == null) && (type != TYPE_INTERNAL_IMAGE)) {
+				// concurrent requests for the same asset share a single load
+
+				load = (AssetLoad)pending.get(key);
+				if(load == null) {
+					load = new AssetLoad(type, assetName, key);
+					pending.put(key, load);
+					requestedLoads++;
+					obtainWorkers().execute(load.future);
+				}
+				if(listener != null) {
+					load.listeners.add(listener);
+				}
+				return load.future;
+			}
+			if(asset != null) {
+				hitCount++;
+				object = asset.getAsset();
+			}
+		}
+
+		// the asset is already cached, complete the request immediately on
+		// the calling thread (as are internal images, which are built by the
+		// game engine and so never by an asset worker)
+
+		if(asset == null) {
+			object = getAsset(type, assetName);
+		}
+
+		result = new FutureTask(new CachedLoad(object));
+		result.run();
+
+		if(listener != null) {
+			listener.assetLoaded(type, assetName, object);
+		}
+
+		return result;
+	}
+
+	public synchronized Future submitTask(Runnable task)
+	{
+		FutureTask result = null;
+
+		// background work derived from cached assets (such as mipmap chains)
+		// shares the asset worker threads, and counts toward the load
+		// progress until it completes
+
+		result = new TaskLoad(task);
+		pendingTasks++;
+		requestedLoads++;
+		obtainWorkers().execute(result);
+
+		return result;
+	}
+
+	public synchronized int getWorkerThreads()
+	{
+		return workerThreads;
+	}
+
+	public synchronized void setWorkerThreads(int amount)
+	{
+		if(amount < 1) {
+			amount = 1;
+		}
+		workerThreads = amount;
+		if(workers == null) {
+			return;
+		}
+
+		// the core size may never exceed the maximum size, so grow and shrink
+		// the pool in opposite orders
+
+		if(amount > workers.getMaximumPoolSize()) {
+			workers.setMaximumPoolSize(amount);
+			workers.setCorePoolSize(amount);
+		}
+		else {
+			workers.setCorePoolSize(amount);
+			workers.setMaximumPoolSize(amount);
+		}
+	}
+
+	public synchronized int getPendingLoads()
+	{
+		return pending.size();
+	}
+
+	public synchronized int getRequestedLoads()
+	{
+		return requestedLoads;
+	}
+
+	public synchronized int getCompletedLoads()
+	{
+		return completedLoads;
+	}
+
+	public synchronized double getLoadProgress()
+	{
+		if(requestedLoads < 1) {
+			return 1.0;
+		}
+		return ((double)completedLoads / (double)requestedLoads);
+	}
+
+	public synchronized void resetLoadProgress()
+	{
+		// loads still in flight are carried over into the next batch
+
+		requestedLoads = (pending.size() + pendingTasks);
+		completedLoads = 0;
+	}
+
+	public synchronized void shutdownWorkers()
+	{
+		if(workers != null) {
+			workers.shutdown();
+			workers = null;
+		}
+	}
+
 	public boolean removeAsset(int type, String assetName)
 	{
 		boolean result = false;
 		String key = null;
+		Asset asset = null;
 
 		try {
-			if((type != TYPE_IMAGE) && (type != TYPE_TEXTURE)) {
+			if((type != TYPE_INTERNAL_IMAGE) && (type != TYPE_IMAGE) &&
+					(type != TYPE_TEXTURE) && (type != TYPE_CONFIG) &&
+					(type != TYPE_RAW_IMAGE) && (type != TYPE_AUDIO) &&
+					(type != TYPE_AUDIO_SAMPLE) && (type != TYPE_AUDIO_INDEX)) {
 				throw new Exception("{" + CLASS_NAME +
 						"} invalid asset type " + type);
 			}
 			key = buildKey(type, assetName);
-			if(index.remove(key) != null) {
-				result = true;
+			synchronized(this) {
+				asset = (Asset)index.remove(key);
+				if(asset != null) {
+					memoryUsage -= asset.weight;
+					result = true;
+				}
+			}
+
+			// note: an audio player is closed outside of the cache's lock,
+			// as closing an mp3 line joins its decode thread
+
+			if((asset != null) && (asset.asset instanceof AudioPlayer)) {
+				((AudioPlayer)asset.asset).close();
 			}
 		}
 		catch(Exception e) {
@@ -467,6 +1344,32 @@ public class AssetCache
 		return result;
 	}
 
+	public void closeAudio()
+	{
+		Iterator iterator = null;
+		Asset asset = null;
+		ArrayList players = null;
+
+		// audio players hold threads & lines until closed, so they are all
+		// released when the engine shuts down
+
+		players = new ArrayList();
+		synchronized(this) {
+			iterator = index.values().iterator();
+			while(iterator.hasNext()) {
+				asset = (Asset)iterator.next();
+				if(asset.asset instanceof AudioPlayer) {
+					players.add(asset.asset);
+				}
+			}
+		}
+
+		iterator = players.iterator();
+		while(iterator.hasNext()) {
+			((AudioPlayer)iterator.next()).close();
+		}
+	}
+
 	public void finalizeRawAsset(int type, String assetName)
 	{
 		String key = null;
@@ -482,32 +1385,119 @@ public class AssetCache
 			newAsset = finalizeRawImage(assetName);
 			key = buildKey(TYPE_IMAGE, assetName);
 			asset = new Asset(type, assetName, newAsset);
-			index.put(key, asset);
+			insert(key, asset);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
 		}
 	}
 
-	public int getAssetCount()
+	public synchronized int getAssetCount()
 	{
 		return index.size();
 	}
 
-	public ByteArrayInputStream obtainAssetStream(String assetName)
+	public synchronized void reweighAsset(int type, String assetName)
+	{
+		Asset asset = null;
+
+		// note: called by assets that grow after being stored, such as a
+		// texture gaining a mipmap
+
+		asset = (Asset)index.get(buildKey(type, assetName));
+		if(asset != null) {
+			reweigh(asset);
+		}
+	}
+
+	public boolean pinAsset(int type, String assetName)
+	{
+		String key = null;
+		Asset asset = null;
+
+		// a pinned asset is never evicted, games pin the assets of the scene
+		// in play and unpin them when the scene is torn down
+
+		if(getAsset(type, assetName) == null) {
+			return false;
+		}
+
+		key = buildKey(type, assetName);
+		synchronized(this) {
+			asset = (Asset)index.get(key);
+			if(asset == null) {
+				return false;
+			}
+			asset.pins++;
+
+			// a texture draws from its base image, which is weighed (and
+			// would be evicted) as an image asset of its own
+
+			if(type == TYPE_TEXTURE) {
+				asset = (Asset)index.get(buildKey(TYPE_IMAGE, assetName));
+				if(asset != null) {
+					asset.pins++;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	public synchronized boolean unpinAsset(int type, String assetName)
+	{
+		Asset asset = null;
+
+		asset = (Asset)index.get(buildKey(type, assetName));
+		if((asset == null) || (asset.pins < 1)) {
+			return false;
+		}
+
+		asset.pins--;
+
+		if(type == TYPE_TEXTURE) {
+			asset = (Asset)index.get(buildKey(TYPE_IMAGE, assetName));
+			if((asset != null) && (asset.pins > 0)) {
+				asset.pins--;
+			}
+		}
+
+		evict(null);
+
+		return true;
+	}
+
+	public synchronized boolean isPinned(int type, String assetName)
+	{
+		Asset asset = null;
+
+		asset = (Asset)index.get(buildKey(type, assetName));
+		if((asset == null) || (asset.pins < 1)) {
+			return false;
+		}
+
+		return true;
+	}
+
+	public InputStream obtainAssetStream(String assetName)
 	{
 		int length = 0;
 		byte[] buffer = null;
 
+		ByteBuffer archiveBuffer = null;
 		FileInputStream inputStream = null;
-		ByteArrayInputStream result = null;
+		InputStream result = null;
 
 		try {
-			if(gameEngine.getAssetMode().equals("HTTP")) {
+			archiveBuffer = obtainArchiveBuffer(assetName);
+			if(archiveBuffer != null) {
+				result = new ByteBufferInputStream(archiveBuffer);
+			}
+			else if(assetMode.equals("HTTP")) {
 				buffer = obtainRemoteAsset(assetName);
 				result = new ByteArrayInputStream(buffer, 0, buffer.length);
 			}
-			else if(gameEngine.getAssetMode().equals("FILE")) {
+			else if(assetMode.equals("FILE")) {
 				inputStream = obtainInputStream(assetName);
 				if(inputStream != null) {
 					length = (int)inputStream.getChannel().size();
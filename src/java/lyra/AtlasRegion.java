@@ -0,0 +1,110 @@
+/*
+ * AtlasRegion.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A sub-rectangle of a texture atlas page, holding a single packed image.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+
+// define class
+
+public class AtlasRegion
+{
+	// define private class constants
+
+	private static final String CLASS_NAME = AtlasRegion.class.getName();
+
+	// define private class variables
+
+	private volatile boolean isValid = false;
+	private int page = 0;
+	private int x = 0;
+	private int y = 0;
+	private int width = 0;
+	private int height = 0;
+	private BufferedImage image = null;
+
+	// define class public functions
+
+	public AtlasRegion(int page, BufferedImage image, int x, int y, int width,
+			int height)
+	{
+		this.isValid = true;
+		this.page = page;
+		this.image = image;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public boolean isValid()
+	{
+		// note: a region is invalidated once the atlas reuses its space,
+		// after which it must be requested from the atlas again
+
+		return isValid;
+	}
+
+	protected void invalidate()
+	{
+		isValid = false;
+	}
+
+	public int getPage()
+	{
+		return page;
+	}
+
+	public BufferedImage getImage()
+	{
+		return image;
+	}
+
+	public int getX()
+	{
+		return x;
+	}
+
+	public int getY()
+	{
+		return y;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	public boolean render2D(Graphics2D render, int renderX, int renderY,
+			int renderWidth, int renderHeight, ImageObserver observer)
+	{
+		return render.drawImage(image, renderX, renderY,
+				(renderX + renderWidth), (renderY + renderHeight), x, y,
+				(x + width), (y + height), observer);
+	}
+}
+
@@ -0,0 +1,737 @@
+/*
+ * CollisionSystem.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A collision system for the sprites of a scene, using a sort-and-sweep broad
+ * phase over swept bounding boxes and a swept (time-of-impact) narrow phase.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.util.ArrayList;
+
+// import internal packages
+
+import lyra.interfaces.CollisionInterface;
+
+// define class
+
+public class CollisionSystem
+{
+	// define private class constants
+
+	private static final String CLASS_NAME = CollisionSystem.class.getName();
+	private static final int DEFAULT_CAPACITY = 64;
+
+	// define private class variables
+
+	private boolean cameraChanged = false;
+	private boolean isOrderValid = false;
+	private boolean hitX = false;
+	private boolean hitY = false;
+	private boolean isApproaching = false;
+	private int bodyCount = 0;
+	private int activeCount = 0;
+	private int pairCount = 0;
+	private int pushX = 0;
+	private int pushY = 0;
+	private int[] startX = null;
+	private int[] startY = null;
+	private int[] minX = null;
+	private int[] minY = null;
+	private int[] maxX = null;
+	private int[] maxY = null;
+	private int[] order = null;
+	private int[] active = null;
+	private int[] pairs = null;
+	private double hitTime = 0.0;
+	private Sprite[] sprites = null;
+	private SpritePhysics[] physics = null;
+	private ArrayList tiles = null;
+	private CollisionInterface listener = null;
+	private Scene scene = null;
+
+	// define class private functions
+
+	private void ensureCapacity(int capacity)
+	{
+		int length = 0;
+
+		int[] newStartX = null;
+		int[] newStartY = null;
+		Sprite[] newSprites = null;
+
+		if(capacity <= sprites.length) {
+			return;
+		}
+
+		length = (sprites.length * 2);
+		if(length < capacity) {
+			length = capacity;
+		}
+
+		// only the state carried between passes needs to be preserved
+
+		newStartX = new int[length];
+		newStartY = new int[length];
+		newSprites = new Sprite[length];
+
+		System.arraycopy(startX, 0, newStartX, 0, bodyCount);
+		System.arraycopy(startY, 0, newStartY, 0, bodyCount);
+		System.arraycopy(sprites, 0, newSprites, 0, bodyCount);
+
+		startX = newStartX;
+		startY = newStartY;
+		sprites = newSprites;
+		physics = new SpritePhysics[length];
+		minX = new int[length];
+		minY = new int[length];
+		maxX = new int[length];
+		maxY = new int[length];
+		order = new int[length];
+		active = new int[length];
+
+		isOrderValid = false;
+	}
+
+	private void addPair(int first, int second)
+	{
+		int[] newPairs = null;
+
+		if(((pairCount * 2) + 2) > pairs.length) {
+			newPairs = new int[pairs.length * 2];
+			System.arraycopy(pairs, 0, newPairs, 0, (pairCount * 2));
+			pairs = newPairs;
+		}
+
+		pairs[(pairCount * 2)] = first;
+		pairs[((pairCount * 2) + 1)] = second;
+		pairCount++;
+	}
+
+	private void gatherBodies()
+	{
+		int ii = 0;
+		int count = 0;
+
+		Sprite sprite = null;
+		ArrayList spriteSet = null;
+
+		spriteSet = scene.spriteSet;
+		count = spriteSet.size();
+
+		ensureCapacity(count);
+
+		if(count != bodyCount) {
+			isOrderValid = false;
+		}
+
+		for(ii = 0; ii < count; ii++) {
+			sprite = (Sprite)spriteSet.get(ii);
+
+			// a new (or re-ordered) sprite starts its sweep where it stands
+
+			if(sprites[ii] != sprite) {
+				sprites[ii] = sprite;
+				if(sprite != null) {
+					startX[ii] = sprite.x;
+					startY[ii] = sprite.y;
+				}
+			}
+
+			if(sprite == null) {
+				physics[ii] = null;
+				minX[ii] = Integer.MAX_VALUE;
+				minY[ii] = Integer.MAX_VALUE;
+				maxX[ii] = Integer.MAX_VALUE;
+				maxY[ii] = Integer.MAX_VALUE;
+				continue;
+			}
+
+			physics[ii] = (SpritePhysics)scene.spritePhysics.get(
+					sprite.getName());
+
+			buildSweptBounds(ii);
+		}
+
+		for(ii = count; ii < bodyCount; ii++) {
+			sprites[ii] = null;
+			physics[ii] = null;
+		}
+
+		bodyCount = count;
+	}
+
+	private void buildSweptBounds(int id)
+	{
+		Sprite sprite = sprites[id];
+
+		// the box covering the whole movement since the last pass, so that
+		// fast movers are not missed by the broad phase
+
+		minX[id] = Math.min(startX[id], sprite.x);
+		minY[id] = Math.min(startY[id], sprite.y);
+		maxX[id] = (Math.max(startX[id], sprite.x) + sprite.width);
+		maxY[id] = (Math.max(startY[id], sprite.y) + sprite.height);
+	}
+
+	private void sortBodies()
+	{
+		int ii = 0;
+		int nn = 0;
+		int id = 0;
+
+		if(!isOrderValid) {
+			for(ii = 0; ii < bodyCount; ii++) {
+				order[ii] = ii;
+			}
+			isOrderValid = true;
+		}
+
+		// insertion sort on the minimum x, bodies move little between passes
+		// so the order is nearly sorted and this runs in close to linear time
+
+		for(ii = 1; ii < bodyCount; ii++) {
+			id = order[ii];
+			for(nn = (ii - 1); nn >= 0; nn--) {
+				if(minX[order[nn]] <= minX[id]) {
+					break;
+				}
+				order[(nn + 1)] = order[nn];
+			}
+			order[(nn + 1)] = id;
+		}
+	}
+
+	private void sweepBodies()
+	{
+		int ii = 0;
+		int nn = 0;
+		int id = 0;
+		int other = 0;
+		int kept = 0;
+
+		pairCount = 0;
+		activeCount = 0;
+
+		for(ii = 0; ii < bodyCount; ii++) {
+			id = order[ii];
+			if(sprites[id] == null) {
+				continue;
+			}
+
+			// retire the active bodies that end before this one begins, and
+			// test the remainder on the y axis
+
+			kept = 0;
+			for(nn = 0; nn < activeCount; nn++) {
+				other = active[nn];
+				if(maxX[other] <= minX[id]) {
+					continue;
+				}
+				active[kept] = other;
+				kept++;
+
+				if((minY[id] >= maxY[other]) || (maxY[id] <= minY[other])) {
+					continue;
+				}
+				if((sprites[id].isStatic) && (sprites[other].isStatic)) {
+					continue;
+				}
+				addPair(other, id);
+			}
+			activeCount = kept;
+
+			active[activeCount] = id;
+			activeCount++;
+		}
+	}
+
+	private boolean sweepTest(int x, int y, int width, int height, int diffX,
+			int diffY, int targetX, int targetY, int targetWidth,
+			int targetHeight)
+	{
+		int overlapX = 0;
+		int overlapY = 0;
+		double entryX = 0.0;
+		double entryY = 0.0;
+		double exitX = 0.0;
+		double exitY = 0.0;
+		double entry = 0.0;
+		double exit = 0.0;
+
+		// slab test of a box moving by (diffX, diffY) against a stationary
+		// target, edges are exclusive to match Rectangle.intersects()
+
+		if(diffX > 0) {
+			entryX = ((double)(targetX - (x + width)) / (double)diffX);
+			exitX = ((double)((targetX + targetWidth) - x) / (double)diffX);
+		}
+		else if(diffX < 0) {
+			entryX = ((double)((targetX + targetWidth) - x) / (double)diffX);
+			exitX = ((double)(targetX - (x + width)) / (double)diffX);
+		}
+		else {
+			if((x >= (targetX + targetWidth)) || ((x + width) <= targetX)) {
+				return false;
+			}
+			entryX = Double.NEGATIVE_INFINITY;
+			exitX = Double.POSITIVE_INFINITY;
+		}
+
+		if(diffY > 0) {
+			entryY = ((double)(targetY - (y + height)) / (double)diffY);
+			exitY = ((double)((targetY + targetHeight) - y) / (double)diffY);
+		}
+		else if(diffY < 0) {
+			entryY = ((double)((targetY + targetHeight) - y) / (double)diffY);
+			exitY = ((double)(targetY - (y + height)) / (double)diffY);
+		}
+		else {
+			if((y >= (targetY + targetHeight)) || ((y + height) <= targetY)) {
+				return false;
+			}
+			entryY = Double.NEGATIVE_INFINITY;
+			exitY = Double.POSITIVE_INFINITY;
+		}
+
+		entry = Math.max(entryX, entryY);
+		exit = Math.min(exitX, exitY);
+
+		pushX = 0;
+		pushY = 0;
+		isApproaching = true;
+
+		if((entry >= exit) || (entry >= 1.0) || (exit <= 0.0)) {
+			return false;
+		}
+
+		if(entry < 0.0) {
+			// already overlapping at the start of the movement, separate on
+			// the axis of least penetration
+
+			overlapX = Math.min(((x + width) - targetX),
+					((targetX + targetWidth) - x));
+			overlapY = Math.min(((y + height) - targetY),
+					((targetY + targetHeight) - y));
+			if(overlapX <= overlapY) {
+				hitX = true;
+				hitY = false;
+				if((x + (width / 2)) < (targetX + (targetWidth / 2))) {
+					pushX = (0 - overlapX);
+				}
+				else {
+					pushX = overlapX;
+				}
+			}
+			else {
+				hitX = false;
+				hitY = true;
+				if((y + (height / 2)) < (targetY + (targetHeight / 2))) {
+					pushY = (0 - overlapY);
+				}
+				else {
+					pushY = overlapY;
+				}
+			}
+
+			// only a box moving further into the target is stopped at the
+			// start, one moving apart (or across) keeps its movement and is
+			// separated by whatever overlap remains at the end of it
+
+			if(hitX) {
+				isApproaching = ((pushX * diffX) < 0);
+			}
+			else {
+				isApproaching = ((pushY * diffY) < 0);
+			}
+			if(isApproaching) {
+				hitTime = 0.0;
+				return true;
+			}
+
+			hitTime = 1.0;
+			if(hitX) {
+				overlapX = Math.max(0, (overlapX - Math.abs(diffX)));
+				pushX = ((pushX < 0) ? (0 - overlapX) : overlapX);
+			}
+			else {
+				overlapY = Math.max(0, (overlapY - Math.abs(diffY)));
+				pushY = ((pushY < 0) ? (0 - overlapY) : overlapY);
+			}
+			if((pushX == 0) && (pushY == 0)) {
+				return false;
+			}
+			return true;
+		}
+
+		hitTime = entry;
+		if(entryX > entryY) {
+			hitX = true;
+			hitY = false;
+		}
+		else if(entryY > entryX) {
+			hitX = false;
+			hitY = true;
+		}
+		else {
+			hitX = true;
+			hitY = true;
+		}
+
+		return true;
+	}
+
+	private void moveBody(int id, int x, int y)
+	{
+		Sprite sprite = sprites[id];
+
+		if(physics[id] != null) {
+			physics[id].setLocation(x, y);
+		}
+		else {
+			sprite.setLocation(x, y);
+		}
+
+		if(sprite.getName().equals(scene.cameraSpriteName)) {
+			scene.camera.applyCameraDiff(sprite.getCameraDiffX(),
+					sprite.getCameraDiffY());
+			cameraChanged = true;
+		}
+	}
+
+	private void bounceBody(int id, boolean xAxis, boolean yAxis,
+			long simulateMillis)
+	{
+		SpritePhysics bodyPhysics = physics[id];
+
+		if((bodyPhysics == null) || (!bodyPhysics.willBounce())) {
+			return;
+		}
+
+		if(bodyPhysics.hasGravity()) {
+			bodyPhysics.antiGravityBounce(xAxis, yAxis, simulateMillis);
+		}
+		else {
+			bodyPhysics.simpleBounce(xAxis, yAxis);
+		}
+	}
+
+	private void queryTiles(int x, int y, int width, int height)
+	{
+		tiles.clear();
+		scene.tileGrid.query(x, y, width, height, tiles);
+	}
+
+	private void resolveTilesStatic(int id, int xDiff, int yDiff,
+			long simulateMillis)
+	{
+		int ii = 0;
+
+		Sprite sprite = sprites[id];
+		Tile tile = null;
+
+		// tiles compare screen locations using the camera offset applied at
+		// the last culling pass, convert back to world coordinates using it
+
+		queryTiles((sprite.x + sprite.offsetX + scene.tileCameraX),
+				(sprite.y + sprite.offsetY + scene.tileCameraY),
+				sprite.width, sprite.height);
+
+		for(ii = 0; ii < tiles.size(); ii++) {
+			tile = (Tile)tiles.get(ii);
+			if((tile.canIntersect()) ||
+					(!tile.detectCollision((sprite.x + sprite.offsetX),
+										   (sprite.y + sprite.offsetY),
+										   sprite.width, sprite.height))) {
+				continue;
+			}
+
+			// nudge the sprite out of the tile in the requested direction
+
+			if((xDiff != 0) || (yDiff != 0)) {
+				while(tile.detectCollision((sprite.x + sprite.offsetX),
+							(sprite.y + sprite.offsetY), sprite.width,
+							sprite.height)) {
+					moveBody(id, (sprite.x + xDiff), (sprite.y + yDiff));
+				}
+			}
+
+			if((physics[id] != null) && (physics[id].willBounce()) &&
+					((xDiff != 0) || (yDiff != 0))) {
+				physics[id].antiGravityBounce((xDiff != 0), (yDiff != 0),
+						simulateMillis);
+			}
+
+			if(listener != null) {
+				listener.tileCollision(sprite, tile, 1.0, (xDiff != 0),
+						(yDiff != 0));
+			}
+			break;
+		}
+	}
+
+	private void resolveTilesSwept(int id, long simulateMillis)
+	{
+		int ii = 0;
+		int diffX = 0;
+		int diffY = 0;
+		boolean firstX = false;
+		boolean firstY = false;
+		boolean firstApproaching = false;
+		int firstPushX = 0;
+		int firstPushY = 0;
+		double firstTime = 0.0;
+
+		Sprite sprite = sprites[id];
+		Tile tile = null;
+		Tile firstTile = null;
+
+		diffX = (sprite.x - startX[id]);
+		diffY = (sprite.y - startY[id]);
+
+		queryTiles(minX[id], minY[id], (maxX[id] - minX[id]),
+				(maxY[id] - minY[id]));
+
+		// find the earliest impact along the movement since the last pass
+
+		for(ii = 0; ii < tiles.size(); ii++) {
+			tile = (Tile)tiles.get(ii);
+			if((!tile.isVisible()) || (!tile.canCollide()) ||
+					(tile.canIntersect())) {
+				continue;
+			}
+			if(!sweepTest(startX[id], startY[id], sprite.width, sprite.height,
+						diffX, diffY, tile.x, tile.y, tile.width,
+						tile.height)) {
+				continue;
+			}
+			if((firstTile == null) || (hitTime < firstTime)) {
+				firstTile = tile;
+				firstTime = hitTime;
+				firstX = hitX;
+				firstY = hitY;
+				firstApproaching = isApproaching;
+				firstPushX = pushX;
+				firstPushY = pushY;
+			}
+		}
+
+		if(firstTile == null) {
+			return;
+		}
+
+		// move back to the point of impact, casting toward the start so that
+		// the sprite is left touching (not overlapping) the tile
+
+		moveBody(id, (startX[id] + (int)((double)diffX * firstTime) +
+					firstPushX),
+				(startY[id] + (int)((double)diffY * firstTime) + firstPushY));
+		buildSweptBounds(id);
+
+		if(firstApproaching) {
+			bounceBody(id, firstX, firstY, simulateMillis);
+		}
+
+		if(listener != null) {
+			listener.tileCollision(sprite, firstTile, firstTime, firstX,
+					firstY);
+		}
+	}
+
+	private void resolvePair(int first, int second, long simulateMillis)
+	{
+		int firstDiffX = 0;
+		int firstDiffY = 0;
+		int secondDiffX = 0;
+		int secondDiffY = 0;
+
+		Sprite firstSprite = sprites[first];
+		Sprite secondSprite = sprites[second];
+
+		firstDiffX = (firstSprite.x - startX[first]);
+		firstDiffY = (firstSprite.y - startY[first]);
+		secondDiffX = (secondSprite.x - startX[second]);
+		secondDiffY = (secondSprite.y - startY[second]);
+
+		// sweep the first sprite relative to the second
+
+		if(!sweepTest(startX[first], startY[first], firstSprite.width,
+					firstSprite.height, (firstDiffX - secondDiffX),
+					(firstDiffY - secondDiffY), startX[second],
+					startY[second], secondSprite.width,
+					secondSprite.height)) {
+			return;
+		}
+
+		// an overlap at the start is pushed out of the first sprite where it
+		// can move, otherwise out of the second (pairs already moving apart
+		// keep their movement, and are not bounced back together)
+
+		if(firstSprite.isStatic) {
+			pushX = (0 - pushX);
+			pushY = (0 - pushY);
+		}
+
+		if(!firstSprite.isStatic) {
+			moveBody(first, (startX[first] + (int)((double)firstDiffX *
+							hitTime) + pushX),
+					(startY[first] + (int)((double)firstDiffY * hitTime) +
+					 pushY));
+			buildSweptBounds(first);
+			if(isApproaching) {
+				bounceBody(first, hitX, hitY, simulateMillis);
+			}
+			pushX = 0;
+			pushY = 0;
+		}
+		if(!secondSprite.isStatic) {
+			moveBody(second, (startX[second] + (int)((double)secondDiffX *
+							hitTime) + pushX),
+					(startY[second] + (int)((double)secondDiffY * hitTime) +
+					 pushY));
+			buildSweptBounds(second);
+			if(isApproaching) {
+				bounceBody(second, hitX, hitY, simulateMillis);
+			}
+		}
+
+		if(listener != null) {
+			listener.spriteCollision(firstSprite, secondSprite, hitTime, hitX,
+					hitY);
+		}
+	}
+
+	// define class public functions
+
+	public CollisionSystem(Scene scene)
+	{
+		cameraChanged = false;
+		isOrderValid = false;
+		hitX = false;
+		hitY = false;
+		isApproaching = false;
+		bodyCount = 0;
+		activeCount = 0;
+		pairCount = 0;
+		pushX = 0;
+		pushY = 0;
+		startX = new int[DEFAULT_CAPACITY];
+		startY = new int[DEFAULT_CAPACITY];
+		minX = new int[DEFAULT_CAPACITY];
+		minY = new int[DEFAULT_CAPACITY];
+		maxX = new int[DEFAULT_CAPACITY];
+		maxY = new int[DEFAULT_CAPACITY];
+		order = new int[DEFAULT_CAPACITY];
+		active = new int[DEFAULT_CAPACITY];
+		pairs = new int[(DEFAULT_CAPACITY * 2)];
+		hitTime = 0.0;
+		sprites = new Sprite[DEFAULT_CAPACITY];
+		physics = new SpritePhysics[DEFAULT_CAPACITY];
+		tiles = new ArrayList();
+		listener = null;
+
+		this.scene = scene;
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public CollisionInterface getListener()
+	{
+		return listener;
+	}
+
+	public void setListener(CollisionInterface listener)
+	{
+		this.listener = listener;
+	}
+
+	public int getPairCount()
+	{
+		return pairCount;
+	}
+
+	public void reset()
+	{
+		int ii = 0;
+
+		for(ii = 0; ii < bodyCount; ii++) {
+			sprites[ii] = null;
+			physics[ii] = null;
+		}
+
+		bodyCount = 0;
+		pairCount = 0;
+		isOrderValid = false;
+	}
+
+	public boolean process(boolean dynamicMode, int xDiff, int yDiff,
+			long simulateMillis)
+	{
+		int ii = 0;
+
+		Sprite sprite = null;
+
+		cameraChanged = false;
+
+		try {
+			gatherBodies();
+
+			// sprite versus tile, the tiles are found through the scene grid
+
+			for(ii = 0; ii < bodyCount; ii++) {
+				sprite = sprites[ii];
+				if((sprite == null) || (sprite.isStatic)) {
+					continue;
+				}
+
+				if(dynamicMode) {
+					resolveTilesSwept(ii, simulateMillis);
+				}
+				else {
+					resolveTilesStatic(ii, xDiff, yDiff, simulateMillis);
+				}
+			}
+
+			// sprite versus sprite, broad phase then narrow phase
+
+			if(dynamicMode) {
+				sortBodies();
+				sweepBodies();
+
+				for(ii = 0; ii < pairCount; ii++) {
+					resolvePair(pairs[(ii * 2)], pairs[((ii * 2) + 1)],
+							simulateMillis);
+				}
+			}
+
+			// the next pass sweeps from where the sprites now stand
+
+			for(ii = 0; ii < bodyCount; ii++) {
+				sprite = sprites[ii];
+				if(sprite == null) {
+					continue;
+				}
+				startX[ii] = sprite.x;
+				startY[ii] = sprite.y;
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+
+		return cameraChanged;
+	}
+}
+
@@ -0,0 +1,315 @@
+/*
+ * DamageRegion.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A set of invalidated screen rectangles, accumulated between frames so that
+ * only the damaged portions of the screen are cleared, repainted and blitted.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+
+// define class
+
+public class DamageRegion
+{
+	// define public class constants
+
+	public static final int DEFAULT_MAX_RECTANGLES = 32;
+
+	// define private class constants
+
+	private static final String CLASS_NAME = DamageRegion.class.getName();
+
+	// define private class variables
+
+	private boolean isFull = false;
+	private int count = 0;
+	private int maxRectangles = 0;
+	private int width = 0;
+	private int height = 0;
+	private Rectangle[] rectangles = null;
+
+	// define class private functions
+
+	private void merge(int x, int y, int width, int height)
+	{
+		int ii = 0;
+		int right = 0;
+		int bottom = 0;
+
+		Rectangle rectangle = null;
+
+		// fold the new rectangle into an existing one that it touches, this
+		// keeps the region small for clustered damage (e.g. a moving sprite)
+
+		for(ii = 0; ii < count; ii++) {
+			rectangle = rectangles[ii];
+			if((x <= (rectangle.x + rectangle.width)) &&
+					((x + width) >= rectangle.x) &&
+					(y <= (rectangle.y + rectangle.height)) &&
+					((y + height) >= rectangle.y)) {
+				right = Math.max((rectangle.x + rectangle.width), (x + width));
+				bottom = Math.max((rectangle.y + rectangle.height),
+						(y + height));
+				rectangle.x = Math.min(rectangle.x, x);
+				rectangle.y = Math.min(rectangle.y, y);
+				rectangle.width = (right - rectangle.x);
+				rectangle.height = (bottom - rectangle.y);
+				return;
+			}
+		}
+
+		// too many disjoint rectangles, collapse to a single bounding box
+
+		if(count >= maxRectangles) {
+			rectangle = getBounds();
+			right = Math.max((rectangle.x + rectangle.width), (x + width));
+			bottom = Math.max((rectangle.y + rectangle.height), (y + height));
+			rectangle.x = Math.min(rectangle.x, x);
+			rectangle.y = Math.min(rectangle.y, y);
+			rectangle.width = (right - rectangle.x);
+			rectangle.height = (bottom - rectangle.y);
+			count = 1;
+			rectangles[0] = rectangle;
+			return;
+		}
+
+		rectangles[count] = new Rectangle(x, y, width, height);
+		count++;
+	}
+
+	// define class public functions
+
+	public DamageRegion(int width, int height)
+	{
+		this(width, height, DEFAULT_MAX_RECTANGLES);
+	}
+
+	public DamageRegion(int width, int height, int maxRectangles)
+	{
+		if(maxRectangles < 1) {
+			maxRectangles = DEFAULT_MAX_RECTANGLES;
+		}
+
+		isFull = false;
+		count = 0;
+		this.maxRectangles = maxRectangles;
+		this.width = width;
+		this.height = height;
+		rectangles = new Rectangle[maxRectangles];
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public synchronized int getWidth()
+	{
+		return width;
+	}
+
+	public synchronized int getHeight()
+	{
+		return height;
+	}
+
+	public synchronized void resize(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+		isFull = true;
+		count = 0;
+	}
+
+	public synchronized void invalidate(int x, int y, int width, int height)
+	{
+		if(isFull) {
+			return;
+		}
+
+		// clip to the screen, damage outside of it is never repainted
+
+		if(x < 0) {
+			width += x;
+			x = 0;
+		}
+		if(y < 0) {
+			height += y;
+			y = 0;
+		}
+		if((x + width) > this.width) {
+			width = (this.width - x);
+		}
+		if((y + height) > this.height) {
+			height = (this.height - y);
+		}
+		if((width <= 0) || (height <= 0)) {
+			return;
+		}
+
+		if((x == 0) && (y == 0) && (width == this.width) &&
+				(height == this.height)) {
+			invalidateAll();
+			return;
+		}
+
+		merge(x, y, width, height);
+	}
+
+	public synchronized void invalidate(Rectangle rectangle)
+	{
+		if(rectangle == null) {
+			return;
+		}
+		invalidate(rectangle.x, rectangle.y, rectangle.width,
+				rectangle.height);
+	}
+
+	public synchronized void invalidateAll()
+	{
+		isFull = true;
+		count = 0;
+	}
+
+	public synchronized void add(DamageRegion region)
+	{
+		int ii = 0;
+
+		if((region == null) || (region == this)) {
+			return;
+		}
+
+		synchronized(region) {
+			if(region.isFull) {
+				invalidateAll();
+				return;
+			}
+			for(ii = 0; ii < region.count; ii++) {
+				invalidate(region.rectangles[ii]);
+			}
+		}
+	}
+
+	public synchronized void clear()
+	{
+		int ii = 0;
+
+		for(ii = 0; ii < count; ii++) {
+			rectangles[ii] = null;
+		}
+		isFull = false;
+		count = 0;
+	}
+
+	public synchronized boolean isEmpty()
+	{
+		return ((!isFull) && (count == 0));
+	}
+
+	public synchronized boolean isFull()
+	{
+		return isFull;
+	}
+
+	public synchronized int size()
+	{
+		if(isFull) {
+			return 1;
+		}
+		return count;
+	}
+
+	public synchronized Rectangle get(int id)
+	{
+		if(isFull) {
+			if(id != 0) {
+				return null;
+			}
+			return new Rectangle(0, 0, width, height);
+		}
+		if((id < 0) || (id >= count)) {
+			return null;
+		}
+		return new Rectangle(rectangles[id]);
+	}
+
+	public synchronized boolean intersects(int x, int y, int width,
+			int height)
+	{
+		int ii = 0;
+
+		Rectangle rectangle = null;
+
+		if(isFull) {
+			return true;
+		}
+
+		for(ii = 0; ii < count; ii++) {
+			rectangle = rectangles[ii];
+			if((x < (rectangle.x + rectangle.width)) &&
+					((x + width) > rectangle.x) &&
+					(y < (rectangle.y + rectangle.height)) &&
+					((y + height) > rectangle.y)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	public synchronized Rectangle getBounds()
+	{
+		int ii = 0;
+
+		Rectangle result = null;
+
+		if(isFull) {
+			return new Rectangle(0, 0, width, height);
+		}
+
+		for(ii = 0; ii < count; ii++) {
+			if(result == null) {
+				result = new Rectangle(rectangles[ii]);
+			}
+			else {
+				result.add(rectangles[ii]);
+			}
+		}
+
+		if(result == null) {
+			result = new Rectangle(0, 0, 0, 0);
+		}
+
+		return result;
+	}
+
+	public synchronized Area getArea()
+	{
+		int ii = 0;
+
+		Area result = null;
+
+		if(isFull) {
+			return new Area(new Rectangle(0, 0, width, height));
+		}
+
+		result = new Area();
+		for(ii = 0; ii < count; ii++) {
+			result.add(new Area(rectangles[ii]));
+		}
+
+		return result;
+	}
+}
@@ -29,15 +29,22 @@ import java.awt.Cursor;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
 import java.awt.Image;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.awt.Panel;
 import java.awt.Point;
+import java.awt.Rectangle;
 
 // import internal packages
 
 import lyra.drivers.KeyboardDriver;
 import lyra.drivers.MouseDriver;
+import lyra.widgets.Widget;
+import lyra.audio.AudioMixer;
 
 // define class
 
@@ -59,6 +66,19 @@ public class GameEngine extends Applet implements Runnable
 	public static final int STATE_SHUTDOWN = 5;
 	public static final int STATE_ERROR = 6;
 
+	public static final int LOOP_MODE_VARIABLE = 1;
+	public static final int LOOP_MODE_FIXED = 2;
+
+	public static final int DEFAULT_TICKS_PER_SECOND = 60;
+	public static final int MAX_TICKS_PER_FRAME = 8;
+
+	public static final long SNAPSHOT_WAIT_MILLIS = 100;
+
+	public static final int PRESENT_MODE_BUFFERED = 1;
+	public static final int PRESENT_MODE_VOLATILE = 2;
+
+	public static final int MAX_CONTENT_LOSS_RETRIES = 4;
+
 	// define protected class constants
 
 	protected static final long serialVersionUID = 1L;
@@ -69,12 +89,48 @@ public class GameEngine extends Applet implements Runnable
 
 	// define private class variables
 
-	private int renderState = STATE_UNINIT;
-	private long ticks = 0;
+	private volatile int renderState = STATE_UNINIT;
+	private int loopMode = LOOP_MODE_VARIABLE;
+	private int ticksPerSecond = DEFAULT_TICKS_PER_SECOND;
+	private int maxFrameRate = 0;
+	private volatile long ticks = 0;
+	private long tickNanos = 0;
+	private volatile double renderAlpha = 1.0;
 	private Image lyraLogo = null;
 	private String path = null;
 	private Thread thread = null;
 
+	// pipelined rendering variables
+
+	private volatile boolean isPipelined = false;
+	private boolean hasPendingSnapshot = false;
+	private Object snapshotLock = null;
+	private RenderSnapshot frontSnapshot = null;
+	private RenderSnapshot backSnapshot = null;
+	private SnapshotGraphics snapshotGraphics = null;
+	private BufferedImage pipelineBuffer = null;
+	private Graphics2D pipelineRender = null;
+	private Renderer renderer = null;
+
+	// presentation variables
+
+	private int presentMode = PRESENT_MODE_BUFFERED;
+	private Image renderTarget = null;
+	private Graphics2D offscreenRender = null;
+	private AffineTransform defaultTransform = null;
+
+	// dirty-rectangle rendering variables
+
+	private volatile boolean isDirtyMode = false;
+	private boolean wasGameLoaded = false;
+	private long damageTick = -1;
+	private DamageRegion damageRegion = null;
+	private DamageRegion repaintRegion = null;
+
+	// headless host variables
+
+	private BufferedImage hostSurface = null;
+
 	// define protected class variables
 	
 	// game render variables
@@ -106,12 +162,87 @@ public class GameEngine extends Applet implements Runnable
 	protected Font font = null;
 	protected BufferedImage renderBuffer = null;
 	protected BufferedImage offscreenRenderBuffer = null;
+	protected VolatileImage volatileBuffer = null;
 	protected Panel internalObserver = null;
 	protected Graphics render = null;
 	protected Graphics2D render2D = null;
-	protected AssetCache assetCache = null;
+	protected volatile AssetCache assetCache = null;
+	protected TextureAtlas textureAtlas = null;
+	protected RotationCache rotationCache = null;
+	protected int audioVoices = 0;
+	protected AudioMixer audioMixer = null;
 	protected FrameRate frameRate = null;
 
+	// define private class objects
+
+	private class Renderer implements Runnable
+	{
+		private Thread thread = null;
+
+		public Renderer()
+		{
+			thread = new Thread(this);
+			thread.start();
+		}
+
+		public void run()
+		{
+			RenderSnapshot snapshot = null;
+
+			System.out.println("Lyra Game Engine Renderer Running");
+
+			try {
+				while((renderState == STATE_RUNNING) && (isPipelined)) {
+
+					// wait for the gameplay thread to publish a frame, then
+					// swap it to the front
+
+					synchronized(snapshotLock) {
+						while((!hasPendingSnapshot) &&
+								(renderState == STATE_RUNNING) &&
+								(isPipelined)) {
+							try {
+								snapshotLock.wait(SNAPSHOT_WAIT_MILLIS);
+							}
+							catch(InterruptedException e) {
+								// do nothing
+							}
+						}
+						if(!hasPendingSnapshot) {
+							continue;
+						}
+
+						snapshot = backSnapshot;
+						backSnapshot = frontSnapshot;
+						frontSnapshot = snapshot;
+						hasPendingSnapshot = false;
+						snapshotLock.notifyAll();
+					}
+
+					// rasterize the front snapshot while the next tick is
+					// being simulated
+
+					renderSnapshot(frontSnapshot);
+					frameRate.calculate();
+				}
+			}
+			catch(Exception e) {
+				if(!RELEASE_BUILD) {
+					e.printStackTrace();
+				}
+			}
+
+			synchronized(snapshotLock) {
+				if(renderer == this) {
+					renderer = null;
+				}
+				snapshotLock.notifyAll();
+			}
+
+			System.out.println("Lyra Game Engine Renderer Shutdown");
+		}
+	}
+
 	// define game engine private functions
 
 	private void displayRuntimeProperties()
@@ -179,6 +310,10 @@ public class GameEngine extends Applet implements Runnable
 		windowHeight = this.getSize().height;
 		ticks = 0;
 
+		// obtain the (optional) game loop configuration
+
+		this.loadLoopParameters();
+
 		// initialize mouse variables
 
 		mouseX = 0;
@@ -207,8 +342,24 @@ public class GameEngine extends Applet implements Runnable
 		renderBuffer = null;
 		render = this.getGraphics();
 		assetCache = new AssetCache(this);
+		this.loadAssetParameters();
 		frameRate = new FrameRate();
 
+		// setup pipelined rendering snapshots
+
+		frontSnapshot = new RenderSnapshot(this);
+		backSnapshot = new RenderSnapshot(this);
+		snapshotGraphics = new SnapshotGraphics((new BufferedImage(1, 1,
+						BufferedImage.TYPE_INT_ARGB)).createGraphics());
+		hasPendingSnapshot = false;
+
+		// setup dirty-rectangle tracking (the first frame is always full)
+
+		damageRegion = new DamageRegion(windowWidth, windowHeight);
+		damageRegion.invalidateAll();
+		repaintRegion = new DamageRegion(windowWidth, windowHeight);
+		repaintRegion.invalidateAll();
+
 		// setup environment
 
 		setBackground(Color.black);
@@ -236,149 +387,783 @@ public class GameEngine extends Applet implements Runnable
 				"assets/textures/lyra/logo.png");
 	}
 
-	private synchronized void manageRenderBuffer() throws Exception
+	private void loadLoopParameters()
+	{
+		String value = null;
+
+		try {
+			value = this.getParameter("loopMode");
+			if(value != null) {
+				if(value.equalsIgnoreCase("fixed")) {
+					loopMode = LOOP_MODE_FIXED;
+				}
+				else if(value.equalsIgnoreCase("variable")) {
+					loopMode = LOOP_MODE_VARIABLE;
+				}
+			}
+			value = this.getParameter("tickRate");
+			if(value != null) {
+				setTickRate(Integer.parseInt(value.trim()));
+			}
+			value = this.getParameter("maxFrameRate");
+			if(value != null) {
+				setMaxFrameRate(Integer.parseInt(value.trim()));
+			}
+			value = this.getParameter("pipelined");
+			if(value != null) {
+				isPipelined = value.trim().equalsIgnoreCase("true");
+			}
+			value = this.getParameter("dirtyRectangles");
+			if(value != null) {
+				isDirtyMode = value.trim().equalsIgnoreCase("true");
+			}
+			value = this.getParameter("presentMode");
+			if(value != null) {
+				if(value.equalsIgnoreCase("volatile")) {
+					presentMode = PRESENT_MODE_VOLATILE;
+				}
+				else if(value.equalsIgnoreCase("buffered")) {
+					presentMode = PRESENT_MODE_BUFFERED;
+				}
+			}
+		}
+		catch(Exception e) {
+			if(!RELEASE_BUILD) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void loadAssetParameters()
+	{
+		String value = null;
+
+		try {
+			// the asset cache budget is given in megabytes, zero (or absent)
+			// leaves the cache unbounded
+
+			value = this.getParameter("assetCacheBudget");
+			if(value != null) {
+				assetCache.setMemoryBudget(Long.parseLong(value.trim()) *
+						1048576);
+			}
+
+			// a packed asset archive (see lyra.util.AssetArchive) is read in
+			// place of the individual asset files it contains
+
+			value = this.getParameter("assetArchive");
+			if(value != null) {
+				assetCache.loadArchive(value.trim());
+			}
+
+			// decoded images (and their mipmaps) are kept in a directory on
+			// the local disk between runs
+
+			value = this.getParameter("imageDiskCache");
+			if(value != null) {
+				assetCache.loadDiskCache(value.trim());
+			}
+
+			// decoded images are converted to the display's format unless
+			// disabled
+
+			value = this.getParameter("compatibleImages");
+			if(value != null) {
+				assetCache.setCompatibleImageMode(
+						value.trim().equalsIgnoreCase("true"));
+			}
+
+			// sprites & tiles are drawn from shared atlas pages
+
+			value = this.getParameter("textureAtlas");
+			if(value != null) {
+				setTextureAtlasMode(value.trim().equalsIgnoreCase("true"));
+			}
+
+			// rotating sprites are drawn from images pre-rotated to the given
+			// number of angles (zero disables the cache)
+
+			value = this.getParameter("rotationSteps");
+			if(value != null) {
+				setRotationSteps(Integer.parseInt(value.trim()));
+			}
+
+			// short audio clips (up to the given number of seconds) are
+			// decoded once & played from memory, zero streams every clip
+
+			value = this.getParameter("audioSampleSeconds");
+			if(value != null) {
+				assetCache.setSampleThreshold(Integer.parseInt(value.trim()),
+						assetCache.getSampleBytes());
+			}
+
+			// mixed audio clips share one output line with the given number
+			// of voices (zero gives each player its own line)
+
+			value = this.getParameter("audioVoices");
+			if(value != null) {
+				setAudioVoices(Integer.parseInt(value.trim()));
+			}
+		}
+		catch(Exception e) {
+			if(!RELEASE_BUILD) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private BufferedImage buildBufferedImage() throws Exception
 	{
 		int counter = 0;
 
-		// setup rendering buffer
+		BufferedImage result = null;
 
-		if((renderBuffer == null) || (renderBuffer.getGraphics() == null)) {
-			renderBuffer = (BufferedImage)createImage(windowWidth,
-					windowHeight);
-			counter = 0;
-			while((counter < 8) &&
-					((renderBuffer == null) ||
-					 (renderBuffer.getGraphics() == null))) {
-				counter++;
-				renderBuffer = (BufferedImage)createImage(windowWidth,
+		result = (BufferedImage)createImage(windowWidth, windowHeight);
+		counter = 0;
+		while((counter < 8) && (result == null)) {
+			counter++;
+			result = (BufferedImage)createImage(windowWidth, windowHeight);
+		}
+		if(result == null) {
+			throw new Exception("failed to build rendering buffer");
+		}
+
+		return result;
+	}
+
+	private void attachRenderTarget(Image target)
+	{
+		if(render2D != null) {
+			render2D.dispose();
+		}
+
+		if(target instanceof VolatileImage) {
+			render2D = ((VolatileImage)target).createGraphics();
+		}
+		else {
+			render2D = ((BufferedImage)target).createGraphics();
+		}
+		render = render2D;
+		renderTarget = target;
+		defaultTransform = render2D.getTransform();
+
+		// a new (or restored) surface has no valid contents to preserve
+
+		if(repaintRegion != null) {
+			repaintRegion.invalidateAll();
+		}
+	}
+
+	private boolean manageVolatileBuffer()
+	{
+		int status = 0;
+
+		GraphicsConfiguration configuration = null;
+
+		try {
+			configuration = this.getGraphicsConfiguration();
+			if(configuration == null) {
+				return false;
+			}
+
+			// (re)build the accelerated surface when missing or resized
+
+			if((volatileBuffer == null) ||
+					(volatileBuffer.getWidth() != windowWidth) ||
+					(volatileBuffer.getHeight() != windowHeight)) {
+				if(volatileBuffer != null) {
+					volatileBuffer.flush();
+				}
+				volatileBuffer = createVolatileImage(windowWidth,
 						windowHeight);
+				if(volatileBuffer == null) {
+					return false;
+				}
 			}
-			if((renderBuffer == null) ||
-					(renderBuffer.getGraphics() == null)) {
-				throw new Exception("failed to build rendering buffer");
+
+			// validate the surface, recovering from content loss or a
+			// change in display configuration
+
+			status = volatileBuffer.validate(configuration);
+			if(status == VolatileImage.IMAGE_INCOMPATIBLE) {
+				volatileBuffer.flush();
+				volatileBuffer = createVolatileImage(windowWidth,
+						windowHeight);
+				if(volatileBuffer == null) {
+					return false;
+				}
+				status = VolatileImage.IMAGE_RESTORED;
+			}
+
+			if((status != VolatileImage.IMAGE_OK) ||
+					(renderTarget != volatileBuffer)) {
+				attachRenderTarget(volatileBuffer);
 			}
 		}
+		catch(Exception e) {
+			if(!RELEASE_BUILD) {
+				e.printStackTrace();
+			}
+			return false;
+		}
 
-		// test rendering buffer
+		return true;
+	}
 
-		if((renderBuffer == null) || (renderBuffer.getGraphics() == null)) {
-			throw new Exception("unable to perform render at " + ticks);
+	private synchronized void manageRenderBuffer() throws Exception
+	{
+		// setup the presentation surface
+
+		if((presentMode == PRESENT_MODE_VOLATILE) && (!manageVolatileBuffer())) {
+			if(!RELEASE_BUILD) {
+				System.out.println("Lyra Game Engine: accelerated " +
+						"presentation unavailable, falling back to buffered " +
+						"presentation");
+			}
+			presentMode = PRESENT_MODE_BUFFERED;
+			if(volatileBuffer != null) {
+				volatileBuffer.flush();
+				volatileBuffer = null;
+			}
+		}
+
+		if(presentMode == PRESENT_MODE_BUFFERED) {
+			if((renderBuffer == null) ||
+					(renderBuffer.getWidth() != windowWidth) ||
+					(renderBuffer.getHeight() != windowHeight)) {
+				renderBuffer = buildBufferedImage();
+			}
+			if(renderTarget != renderBuffer) {
+				attachRenderTarget(renderBuffer);
+			}
+		}
+		else if(renderBuffer != null) {
+			// the buffered surface holds the last frame presented before
+			// switching, so it is released rather than left stale
+
+			renderBuffer.flush();
+			renderBuffer = null;
 		}
 
 		// setup offscreen rendering buffer
 
 		if((offscreenRenderBuffer == null) ||
-				(offscreenRenderBuffer.getGraphics() == null)) {
-			offscreenRenderBuffer = (BufferedImage)createImage(windowWidth,
-					windowHeight);
-			counter = 0;
-			while((counter < 8) &&
-					((offscreenRenderBuffer == null) ||
-					 (offscreenRenderBuffer.getGraphics() == null))) {
-				counter++;
-				offscreenRenderBuffer = (BufferedImage)createImage(windowWidth,
-						windowHeight);
-			}
-			if((offscreenRenderBuffer == null) ||
-					(offscreenRenderBuffer.getGraphics() == null)) {
-				throw new Exception(
-						"failed to build offscreen rendering buffer");
+				(offscreenRenderBuffer.getWidth() != windowWidth) ||
+				(offscreenRenderBuffer.getHeight() != windowHeight)) {
+			offscreenRenderBuffer = buildBufferedImage();
+			if(offscreenRender != null) {
+				offscreenRender.dispose();
 			}
+			offscreenRender = offscreenRenderBuffer.createGraphics();
 		}
 		else {
-			// setup default rendering poperties
+			// clear the offscreen buffer, as it is drawn to every frame
 
-			offscreenRenderBuffer.getGraphics().setColor(getBackground());
-			offscreenRenderBuffer.getGraphics().fillRect(0, 0, windowWidth,
-					windowHeight);
-			offscreenRenderBuffer.getGraphics().setColor(getForeground());
+			offscreenRender.setColor(getBackground());
+			offscreenRender.fillRect(0, 0, windowWidth, windowHeight);
+			offscreenRender.setColor(getForeground());
 		}
 
-		// test offscreen rendering buffer
+		// test rendering buffers
 
-		if((offscreenRenderBuffer == null) ||
-				(offscreenRenderBuffer.getGraphics() == null)) {
+		if((render2D == null) || (offscreenRender == null)) {
 			throw new Exception("unable to perform render at " + ticks);
 		}
 
-		// setup default rendering poperties
+		// setup default rendering poperties (the graphics context is reused
+		// between frames, so reset any state left over from the last frame)
+
+		render2D.setTransform(defaultTransform);
+		render2D.setClip(null);
+		render2D.setPaintMode();
+		render2D.setFont(getFont());
+
+		// in dirty-rectangle mode only the damaged region is cleared, the
+		// clip also discards drawing outside of it
+
+		if((isDirtyMode) && (repaintRegion != null) &&
+				(!repaintRegion.isFull())) {
+			render2D.setClip(repaintRegion.getArea());
+		}
+
+		render2D.setColor(getBackground());
+		render2D.fillRect(0, 0, windowWidth, windowHeight);
+		render2D.setColor(getForeground());
+	}
+
+	private boolean prepareRepaintRegion()
+	{
+		// the loading screen (and the first frame of gameplay) are always
+		// repainted in full
+
+		if((!isGameLoaded) || (!wasGameLoaded)) {
+			damageRegion.invalidateAll();
+		}
+		wasGameLoaded = isGameLoaded;
+
+		// frames rendered within the same tick (fixed-timestep
+		// interpolation) repaint the damage of that tick again
+
+		if(ticks != damageTick) {
+			repaintRegion.clear();
+			damageTick = ticks;
+		}
+		repaintRegion.add(damageRegion);
+		damageRegion.clear();
+
+		return (!repaintRegion.isEmpty());
+	}
+
+	private void presentRenderTarget(Graphics graphics)
+	{
+		int ii = 0;
+
+		Rectangle rectangle = null;
 
-		render = renderBuffer.getGraphics();
-		render.setColor(getBackground());
-		render.fillRect(0, 0, windowWidth, windowHeight);
-		render.setColor(getForeground());
-		render2D = (Graphics2D)render;
+		if((!isDirtyMode) || (repaintRegion == null) ||
+				(repaintRegion.isFull())) {
+			graphics.drawImage(renderTarget, 0, 0, this);
+			return;
+		}
+
+		for(ii = 0; ii < repaintRegion.size(); ii++) {
+			rectangle = repaintRegion.get(ii);
+			graphics.drawImage(renderTarget, rectangle.x, rectangle.y,
+					(rectangle.x + rectangle.width),
+					(rectangle.y + rectangle.height), rectangle.x,
+					rectangle.y, (rectangle.x + rectangle.width),
+					(rectangle.y + rectangle.height), this);
+		}
 	}
 
 	private synchronized void iPaint(Graphics render)
 	{
 		try {
-			if((renderState != STATE_RUNNING) || (this.render == null) ||
-					(this.render2D == null)) {
+			if((renderState != STATE_RUNNING) || (isPipelined) ||
+					(this.render == null) || (this.render2D == null)) {
+				return;
+			}
+
+			if(isGameLoaded) {
+				try {
+					pipeline();
+				}
+				catch(Exception e) {
+					if(!RELEASE_BUILD) {
+						e.printStackTrace();
+					}
+				}
+			}
+			else {
+				render.setColor(Color.black);
+				render.fillRect(0, 0, windowWidth, windowHeight);
+				if(lyraLogo != null) {
+					render.drawImage(lyraLogo,
+							((windowWidth / 2) -
+							 (getImageWidth(lyraLogo) / 2)),
+							((windowHeight / 2) -
+							 (getImageHeight(lyraLogo) / 2)),
+							getImageWidth(lyraLogo), getImageHeight(lyraLogo),
+							this);
+				}
+				else {
+					render.setColor(Color.white);
+					render.fillOval(2, 2, 4, 4);
+					render.fillOval(8, 2, 4, 4);
+					render.fillOval(14, 2, 4, 4);
+				}
+			}
+		}
+		catch(Exception e) {
+			if(!RELEASE_BUILD) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private synchronized void iUpdate(Graphics graphics)
+	{
+		int counter = 0;
+
+		try {
+			if((renderState != STATE_RUNNING) || (isPipelined)) {
+				return;
+			}
+
+			// skip the frame entirely when nothing has been invalidated
+
+			if((isDirtyMode) && (damageRegion != null) &&
+					(!prepareRepaintRegion())) {
 				return;
 			}
 
-			if(isGameLoaded) {
+			// render & present the frame, repeating the render if the
+			// accelerated surface lost its contents during the blit
+
+			counter = 0;
+			do {
+				if((counter > 0) && (repaintRegion != null)) {
+					repaintRegion.invalidateAll();
+				}
+
+				// setup rendering double-buffer
+
+				manageRenderBuffer();
+
+				// perform render path
+
+				iPaint(render);
+
+				// paint rendering result
+
+				presentRenderTarget(graphics);
+
+				counter++;
+			} while((presentMode == PRESENT_MODE_VOLATILE) &&
+					(volatileBuffer != null) &&
+					(volatileBuffer.contentsLost()) &&
+					(counter < MAX_CONTENT_LOSS_RETRIES));
+		}
+		catch(Exception e) {
+			if(!RELEASE_BUILD) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void startRenderer()
+	{
+		synchronized(snapshotLock) {
+			if(renderer == null) {
+				renderer = new Renderer();
+			}
+		}
+	}
+
+	private synchronized void captureSnapshot(RenderSnapshot snapshot)
+	{
+		Graphics savedRender = null;
+		Graphics2D savedRender2D = null;
+
+		try {
+			snapshot.setTick(ticks);
+
+			if(isGameLoaded) {
+				// the game's drawing (through the engine's draw functions
+				// or the render context handed to widgets) is recorded into
+				// the snapshot rather than rasterized
+
+				savedRender = render;
+				savedRender2D = render2D;
+				snapshotGraphics.reset(snapshot, getForeground(),
+						getBackground(), getFont());
+				render = snapshotGraphics;
+				render2D = snapshotGraphics;
+				try {
+					buildRenderSnapshot(snapshot);
+				}
+				finally {
+					render = savedRender;
+					render2D = savedRender2D;
+				}
+			}
+			else if(lyraLogo != null) {
+				snapshot.addImage(lyraLogo,
+						((windowWidth / 2) - (getImageWidth(lyraLogo) / 2)),
+						((windowHeight / 2) - (getImageHeight(lyraLogo) / 2)),
+						getImageWidth(lyraLogo), getImageHeight(lyraLogo));
+			}
+		}
+		catch(Exception e) {
+			if(!RELEASE_BUILD) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void publishSnapshot()
+	{
+		startRenderer();
+
+		// wait for the renderer to pick up the previously published frame,
+		// the back snapshot is owned by the gameplay thread afterwards
+
+		synchronized(snapshotLock) {
+			while((hasPendingSnapshot) && (renderState == STATE_RUNNING) &&
+					(isPipelined)) {
+				try {
+					snapshotLock.wait(SNAPSHOT_WAIT_MILLIS);
+				}
+				catch(InterruptedException e) {
+					// do nothing
+				}
+			}
+			if(hasPendingSnapshot) {
+				return;
+			}
+		}
+
+		backSnapshot.clear();
+		captureSnapshot(backSnapshot);
+
+		synchronized(snapshotLock) {
+			hasPendingSnapshot = true;
+			snapshotLock.notifyAll();
+		}
+	}
+
+	private void renderSnapshot(RenderSnapshot snapshot)
+	{
+		Graphics graphics = null;
+
+		try {
+			if((pipelineBuffer == null) ||
+					(pipelineBuffer.getWidth() != windowWidth) ||
+					(pipelineBuffer.getHeight() != windowHeight)) {
+				pipelineBuffer = (BufferedImage)createImage(windowWidth,
+						windowHeight);
+				if(pipelineBuffer == null) {
+					throw new Exception("failed to build pipeline buffer");
+				}
+				pipelineRender = pipelineBuffer.createGraphics();
+			}
+
+			pipelineRender.setColor(getBackground());
+			pipelineRender.fillRect(0, 0, windowWidth, windowHeight);
+			pipelineRender.setColor(getForeground());
+			pipelineRender.setFont(getFont());
+			snapshot.render2D(pipelineRender);
+
+			graphics = this.getGraphics();
+			if(graphics != null) {
+				graphics.drawImage(pipelineBuffer, 0, 0, this);
+				graphics.dispose();
+			}
+		}
+		catch(Exception e) {
+			if(!RELEASE_BUILD) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void presentFrame()
+	{
+		Graphics graphics = null;
+
+		if(isPipelined) {
+			publishSnapshot();
+		}
+		else {
+			graphics = this.getGraphics();
+			if(graphics != null) {
+				iUpdate(graphics);
+				graphics.dispose();
+			}
+			frameRate.calculate();
+		}
+	}
+
+	private void processInputEvents()
+	{
+		int counter = 0;
+		int mouseEventType = 0;
+
+		MouseEvent mouseEvent = null;
+		KeyEvent keyEvent = null;
+
+		// handle mouse events
+
+		counter = 0;
+		while((mouse.hasEvent()) && (counter < 8)) {
+			mouseEventType = mouse.getEventType();
+			mouseEvent = mouse.getMouseEvent();
+
+			if((mouseEvent.getX() < 0) ||
+					(mouseEvent.getX() > windowWidth) ||
+					(mouseEvent.getY() < 0) ||
+					(mouseEvent.getY() > windowHeight)) {
+				mouseEvent = mouse.getMouseEvent();
+				continue;
+			}
+
+			mouseX = mouseEvent.getX();
+			mouseY = mouseEvent.getY();
+			mouseButton = mouseEvent.getButton();
+			mouseClicks = mouseEvent.getClickCount();
+
+			try {
+				handleMouseEvents(mouseEventType, mouseEvent);
+			}
+			catch(Exception e) {
+				if(!RELEASE_BUILD) {
+					e.printStackTrace();
+				}
+			}
+
+			counter++;
+		}
+
+		// handle keyboard events
+
+		counter = 0;
+		keyboard.processKeyPressEvents();
+		while((keyboard.hasEvent()) && (counter < 8)) {
+			keyEvent = keyboard.getKeyEvent();
+			if(keyEvent != null) {
+				keyboardEventType = keyboard.getKeyType();
+				shiftKey = keyboard.isShiftKeyOn();
+				lastBinaryKeyPress = keyEvent.getKeyCode();
+				keyPressBuffer = keyboard.getKeyBuffer();
+
+				try {
+					handleKeyboardEvents(keyEvent);
+				}
+				catch(Exception e) {
+					if(!RELEASE_BUILD) {
+						e.printStackTrace();
+					}
+				}
+			}
+			counter++;
+		}
+	}
+
+	private void processGameTick()
+	{
+		if(!isGameLoaded) {
+			try {
+				loadGame();
+			}
+			catch(Exception e) {
+				if(!RELEASE_BUILD) {
+					e.printStackTrace();
+				}
+			}
+		}
+		else {
+			try {
+				processGameplay();
+			}
+			catch(Exception e) {
+				if(!RELEASE_BUILD) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private void runVariableTimestep()
+	{
+		int sleepMillis = 0;
+		double delta = 0.0;
+
+		renderAlpha = 1.0;
+
+		while((renderState == STATE_RUNNING) &&
+				(loopMode == LOOP_MODE_VARIABLE)) {
+			ticks++;
+
+			// handle user input & process the gameplay
+
+			processInputEvents();
+			processGameTick();
+
+			// render the frame & calculate the frame rate
+
+			presentFrame();
+
+			if(renderState == STATE_STOPPED) {
+				break;
+			}
+
+			// take a nap
+
+			if(((frameRate.getFrameCounter() % 32) == 0) &&
+					(frameRate.get() > 120.0)) {
+				delta = ((1.0 / (frameRate.get() - 80.0)) / 2.0);
+				sleepMillis = (int)(delta * 1000.0);
 				try {
-					pipeline();
+					Thread.sleep(sleepMillis);
 				}
 				catch(Exception e) {
-					if(!RELEASE_BUILD) {
-						e.printStackTrace();
-					}
-				}
-			}
-			else {
-				render.setColor(Color.black);
-				render.fillRect(0, 0, windowWidth, windowHeight);
-				if(lyraLogo != null) {
-					render.drawImage(lyraLogo,
-							((windowWidth / 2) -
-							 (getImageWidth(lyraLogo) / 2)),
-							((windowHeight / 2) -
-							 (getImageHeight(lyraLogo) / 2)),
-							getImageWidth(lyraLogo), getImageHeight(lyraLogo),
-							this);
-				}
-				else {
-					render.setColor(Color.white);
-					render.fillOval(2, 2, 4, 4);
-					render.fillOval(8, 2, 4, 4);
-					render.fillOval(14, 2, 4, 4);
+					// do nothing
 				}
 			}
 		}
-		catch(Exception e) {
-			if(!RELEASE_BUILD) {
-				e.printStackTrace();
-			}
-		}
 	}
 
-	private synchronized void iUpdate(Graphics graphics)
+	private void runFixedTimestep()
 	{
-		try {
-			if(renderState != STATE_RUNNING) {
-				return;
+		long currentNanos = 0;
+		long previousNanos = 0;
+		long elapsedNanos = 0;
+		long accumulatorNanos = 0;
+		long frameStartNanos = 0;
+		long frameNanos = 0;
+		long sleepNanos = 0;
+
+		tickNanos = (1000000000L / (long)ticksPerSecond);
+		previousNanos = System.nanoTime();
+		accumulatorNanos = 0;
+
+		while((renderState == STATE_RUNNING) &&
+				(loopMode == LOOP_MODE_FIXED)) {
+			frameStartNanos = System.nanoTime();
+
+			// accumulate elapsed time, clamped to prevent a spiral-of-death
+			// when a single frame takes longer than several ticks
+
+			currentNanos = frameStartNanos;
+			elapsedNanos = (currentNanos - previousNanos);
+			previousNanos = currentNanos;
+			if(elapsedNanos > (tickNanos * MAX_TICKS_PER_FRAME)) {
+				elapsedNanos = (tickNanos * MAX_TICKS_PER_FRAME);
 			}
+			accumulatorNanos += elapsedNanos;
 
-			// setup rendering double-buffer
+			// run the simulation at the fixed tick rate
 
-			manageRenderBuffer();
+			while((accumulatorNanos >= tickNanos) &&
+					(renderState == STATE_RUNNING)) {
+				ticks++;
+				processInputEvents();
+				processGameTick();
+				accumulatorNanos -= tickNanos;
+			}
 
-			// perform render path
+			// render the frame, blended between the last two ticks
 
-			iPaint(render);
+			renderAlpha = ((double)accumulatorNanos / (double)tickNanos);
 
-			// paint rendering result
+			presentFrame();
 
-			graphics.drawImage(renderBuffer, 0, 0, this);
-		}
-		catch(Exception e) {
-			if(!RELEASE_BUILD) {
-				e.printStackTrace();
+			if(renderState == STATE_STOPPED) {
+				break;
+			}
+
+			// limit the render rate (if set), otherwise yield the processor
+
+			if(maxFrameRate > 0) {
+				frameNanos = (1000000000L / (long)maxFrameRate);
+				sleepNanos = (frameNanos - (System.nanoTime() -
+							frameStartNanos));
+				if(sleepNanos > 0) {
+					try {
+						Thread.sleep((sleepNanos / 1000000),
+								(int)(sleepNanos % 1000000));
+					}
+					catch(Exception e) {
+						// do nothing
+					}
+				}
+			}
+			else {
+				Thread.yield();
 			}
 		}
+
+		renderAlpha = 1.0;
 	}
 
 	// define game engine public functions
@@ -393,10 +1178,34 @@ public class GameEngine extends Applet implements Runnable
 		// init private class variables
 
 		renderState = STATE_UNINIT;
+		loopMode = LOOP_MODE_VARIABLE;
+		ticksPerSecond = DEFAULT_TICKS_PER_SECOND;
+		maxFrameRate = 0;
 		ticks = 0;
+		tickNanos = 0;
+		renderAlpha = 1.0;
 		lyraLogo = null;
 		path = null;
 		thread = null;
+		isPipelined = false;
+		hasPendingSnapshot = false;
+		snapshotLock = new Object();
+		frontSnapshot = null;
+		backSnapshot = null;
+		snapshotGraphics = null;
+		pipelineBuffer = null;
+		pipelineRender = null;
+		renderer = null;
+		presentMode = PRESENT_MODE_BUFFERED;
+		renderTarget = null;
+		offscreenRender = null;
+		defaultTransform = null;
+		isDirtyMode = false;
+		wasGameLoaded = false;
+		damageTick = -1;
+		damageRegion = null;
+		repaintRegion = null;
+		hostSurface = null;
 
 		// init protected class variables
 	
@@ -429,10 +1238,15 @@ public class GameEngine extends Applet implements Runnable
 		font = null;
 		renderBuffer = null;
 		offscreenRenderBuffer = null;
+		volatileBuffer = null;
 		internalObserver = null;
 		render = null;
 		render2D = null;
 		assetCache = null;
+		textureAtlas = null;
+		rotationCache = null;
+		audioVoices = AudioMixer.DEFAULT_VOICES;
+		audioMixer = null;
 		frameRate = null;
 	}
 
@@ -450,13 +1264,88 @@ public class GameEngine extends Applet implements Runnable
 	public synchronized void shutdown()
 	{
 		renderState = STATE_STOPPED;
+		if(assetCache != null) {
+			assetCache.shutdownWorkers();
+			assetCache.closeAudio();
+		}
+		if(audioMixer != null) {
+			audioMixer.close();
+			audioMixer = null;
+		}
 	}
 
-	public synchronized AssetCache getAssetCache()
+	public AssetCache getAssetCache()
 	{
+		// note: unsynchronized, it is read by the asset worker threads while
+		// a synchronous load may hold the engine monitor
+
 		return assetCache;
 	}
 
+	public synchronized RotationCache getRotationCache()
+	{
+		return rotationCache;
+	}
+
+	public synchronized void setRotationSteps(int steps)
+	{
+		if(steps < 1) {
+			rotationCache = null;
+		}
+		else if((rotationCache == null) ||
+				(rotationCache.getSteps() != steps)) {
+			rotationCache = new RotationCache(steps,
+					RotationCache.DEFAULT_CAPACITY, this);
+		}
+		invalidateAll();
+	}
+
+	public synchronized AudioMixer getAudioMixer()
+	{
+		// the mixer (and its output line) is created on first use
+
+		if((audioMixer == null) && (audioVoices > 0)) {
+			audioMixer = new AudioMixer(audioVoices);
+		}
+		return audioMixer;
+	}
+
+	public synchronized void setAudioVoices(int voices)
+	{
+		if(voices < 0) {
+			voices = 0;
+		}
+		if((audioMixer != null) && (audioMixer.getVoiceCount() != voices)) {
+			audioMixer.close();
+			audioMixer = null;
+		}
+		audioVoices = voices;
+	}
+
+	public synchronized TextureAtlas getTextureAtlas()
+	{
+		return textureAtlas;
+	}
+
+	public synchronized boolean isTextureAtlasMode()
+	{
+		return (textureAtlas != null);
+	}
+
+	public synchronized void setTextureAtlasMode(boolean mode)
+	{
+		if(mode == (textureAtlas != null)) {
+			return;
+		}
+		if(mode) {
+			textureAtlas = new TextureAtlas(this);
+		}
+		else {
+			textureAtlas = null;
+		}
+		invalidateAll();
+	}
+
 	public synchronized int getWindowWidth()
 	{
 		return windowWidth;
@@ -472,8 +1361,11 @@ public class GameEngine extends Applet implements Runnable
 		return renderState;
 	}
 
-	public synchronized long getTicks()
+	public long getTicks()
 	{
+		// note: unsynchronized, it is read by the scene's worker threads
+		// while the game thread holds the engine monitor
+
 		return ticks;
 	}
 
@@ -540,8 +1432,211 @@ public class GameEngine extends Applet implements Runnable
 		return frameRate.get();
 	}
 
+	public synchronized int getLoopMode()
+	{
+		return loopMode;
+	}
+
+	public synchronized void setLoopMode(int mode)
+	{
+		if((mode != LOOP_MODE_VARIABLE) && (mode != LOOP_MODE_FIXED)) {
+			return;
+		}
+		loopMode = mode;
+	}
+
+	public synchronized int getTickRate()
+	{
+		return ticksPerSecond;
+	}
+
+	public synchronized void setTickRate(int ticksPerSecond)
+	{
+		if(ticksPerSecond < 1) {
+			return;
+		}
+		this.ticksPerSecond = ticksPerSecond;
+		tickNanos = (1000000000L / (long)ticksPerSecond);
+	}
+
+	public synchronized long getTickNanos()
+	{
+		if(tickNanos == 0) {
+			return (1000000000L / (long)ticksPerSecond);
+		}
+		return tickNanos;
+	}
+
+	public synchronized int getMaxFrameRate()
+	{
+		return maxFrameRate;
+	}
+
+	public synchronized void setMaxFrameRate(int framesPerSecond)
+	{
+		if(framesPerSecond < 0) {
+			framesPerSecond = 0;
+		}
+		maxFrameRate = framesPerSecond;
+	}
+
+	public double getRenderAlpha()
+	{
+		return renderAlpha;
+	}
+
+	public synchronized boolean isPipelinedMode()
+	{
+		return isPipelined;
+	}
+
+	public synchronized void setPipelinedMode(boolean mode)
+	{
+		isPipelined = mode;
+		synchronized(snapshotLock) {
+			snapshotLock.notifyAll();
+		}
+	}
+
+	public synchronized int getPresentMode()
+	{
+		return presentMode;
+	}
+
+	public synchronized void setPresentMode(int mode)
+	{
+		if((mode != PRESENT_MODE_BUFFERED) && (mode != PRESENT_MODE_VOLATILE)) {
+			return;
+		}
+		presentMode = mode;
+	}
+
+	public boolean isDirtyRectangleMode()
+	{
+		return isDirtyMode;
+	}
+
+	public synchronized void setDirtyRectangleMode(boolean mode)
+	{
+		isDirtyMode = mode;
+		invalidateAll();
+	}
+
+	public synchronized DamageRegion getRepaintRegion()
+	{
+		return repaintRegion;
+	}
+
+	public synchronized void invalidate(int x, int y, int width, int height)
+	{
+		if((!isDirtyMode) || (damageRegion == null)) {
+			return;
+		}
+		damageRegion.invalidate(x, y, width, height);
+	}
+
+	public synchronized void invalidate(DamageRegion region)
+	{
+		if((!isDirtyMode) || (damageRegion == null) || (region == null)) {
+			return;
+		}
+		damageRegion.add(region);
+	}
+
+	public synchronized void invalidate(Widget widget)
+	{
+		if((!isDirtyMode) || (damageRegion == null) || (widget == null)) {
+			return;
+		}
+
+		// include the one pixel border drawn by drawRect() outlines
+
+		damageRegion.invalidate((widget.getX() - 1), (widget.getY() - 1),
+				(widget.getWidth() + 2), (widget.getHeight() + 2));
+	}
+
+	public synchronized void invalidateAll()
+	{
+		if(damageRegion == null) {
+			return;
+		}
+		damageRegion.invalidateAll();
+	}
+
+	public synchronized boolean isDamaged(int x, int y, int width,
+			int height)
+	{
+		if((!isDirtyMode) || (repaintRegion == null)) {
+			return true;
+		}
+		return repaintRegion.intersects(x, y, width, height);
+	}
+
+	public synchronized boolean isHeadless()
+	{
+		return (hostSurface != null);
+	}
+
+	public synchronized BufferedImage getHeadlessSurface()
+	{
+		return hostSurface;
+	}
+
+	public synchronized void setHeadlessSurface(BufferedImage surface)
+	{
+		hostSurface = surface;
+	}
+
+	public void stepFrame()
+	{
+		if(renderState == STATE_UNINIT) {
+			this.lyraInit();
+			renderState = STATE_RUNNING;
+		}
+		if(renderState != STATE_RUNNING) {
+			return;
+		}
+
+		ticks++;
+
+		processInputEvents();
+		processGameTick();
+
+		presentFrame();
+	}
+
+	public Graphics getGraphics()
+	{
+		BufferedImage surface = null;
+
+		// when hosted without a display, frames are presented onto the
+		// host's surface rather than the (peerless) applet component
+
+		surface = hostSurface;
+		if(surface != null) {
+			return surface.createGraphics();
+		}
+
+		return super.getGraphics();
+	}
+
+	public Image createImage(int width, int height)
+	{
+		Image result = null;
+
+		result = super.createImage(width, height);
+		if((result == null) && (hostSurface != null) && (width > 0) &&
+				(height > 0)) {
+			result = new BufferedImage(width, height,
+					BufferedImage.TYPE_INT_RGB);
+		}
+
+		return result;
+	}
+
 	public synchronized void paint(Graphics graphics)
 	{
+		invalidateAll();
 		if(isHighPerformanceGraphics) {
 			iPaint(graphics);
 		}
@@ -550,6 +1645,7 @@ public class GameEngine extends Applet implements Runnable
 
 	public synchronized void update(Graphics graphics)
 	{
+		invalidateAll();
 		if(isHighPerformanceGraphics) {
 			iUpdate(graphics);
 		}
@@ -558,14 +1654,6 @@ public class GameEngine extends Applet implements Runnable
 
 	public void run()
 	{
-		int counter = 0;
-		int mouseEventType = 0;
-		int sleepMillis = 0;
-		double delta = 0.0;
-
-		MouseEvent mouseEvent = null;
-		KeyEvent keyEvent = null;
-
 		try {
 			if(renderState == STATE_UNINIT) {
 				this.lyraInit();
@@ -584,114 +1672,14 @@ public class GameEngine extends Applet implements Runnable
 				// do noting
 			}
 
-			// main game engine loop
+			// main game engine loop (the loop mode may change at runtime)
 
 			while(renderState == STATE_RUNNING) {
-				ticks++;
-
-				// handle mouse events
-
-				counter = 0;
-				while((mouse.hasEvent()) && (counter < 8)) {
-					mouseEventType = mouse.getEventType();
-					mouseEvent = mouse.getMouseEvent();
-
-					if((mouseEvent.getX() < 0) ||
-							(mouseEvent.getX() > windowWidth) ||
-							(mouseEvent.getY() < 0) ||
-							(mouseEvent.getY() > windowHeight)) {
-						mouseEvent = mouse.getMouseEvent();
-						continue;
-					}
-
-					mouseX = mouseEvent.getX();
-					mouseY = mouseEvent.getY();
-					mouseButton = mouseEvent.getButton();
-					mouseClicks = mouseEvent.getClickCount();
-
-					try {
-						handleMouseEvents(mouseEventType, mouseEvent);
-					}
-					catch(Exception e) {
-						if(!RELEASE_BUILD) {
-							e.printStackTrace();
-						}
-					}
-
-					counter++;
-				}
-
-				// handle keyboard events
-
-				counter = 0;
-				keyboard.processKeyPressEvents();
-				while((keyboard.hasEvent()) && (counter < 8)) {
-					keyEvent = keyboard.getKeyEvent();
-					if(keyEvent != null) {
-						keyboardEventType = keyboard.getKeyType();
-						shiftKey = keyboard.isShiftKeyOn();
-						lastBinaryKeyPress = keyEvent.getKeyCode();
-						keyPressBuffer = keyboard.getKeyBuffer();
-
-						try {
-							handleKeyboardEvents(keyEvent);
-						}
-						catch(Exception e) {
-							if(!RELEASE_BUILD) {
-								e.printStackTrace();
-							}
-						}
-					}
-					counter++;
-				}
-
-				// process the gameplay
-
-				if(!isGameLoaded) {
-					try {
-						loadGame();
-					}
-					catch(Exception e) {
-						if(!RELEASE_BUILD) {
-							e.printStackTrace();
-						}
-					}
+				if(loopMode == LOOP_MODE_FIXED) {
+					runFixedTimestep();
 				}
 				else {
-					try {
-						processGameplay();
-					}
-					catch(Exception e) {
-						if(!RELEASE_BUILD) {
-							e.printStackTrace();
-						}
-					}
-				}
-
-				// render the frame
-
-				iUpdate(this.getGraphics());
-
-				if(renderState == STATE_STOPPED) {
-					break;
-				}
-
-				// calculate the frame rate
-
-				frameRate.calculate();
-
-				// take a nap
-
-				if(((frameRate.getFrameCounter() % 32) == 0) &&
-						(frameRate.get() > 120.0)) {
-					delta = ((1.0 / (frameRate.get() - 80.0)) / 2.0);
-					sleepMillis = (int)(delta * 1000.0);
-					try {
-						Thread.sleep(sleepMillis);
-					}
-					catch(Exception e) {
-						// do nothing
-					}
+					runVariableTimestep();
 				}
 			}
 
@@ -818,8 +1806,8 @@ public class GameEngine extends Applet implements Runnable
 			if(render2D == null) {
 				manageRenderBuffer();
 			}
-			offscreenRenderBuffer.getGraphics().drawImage(image, x, y, width,
-					height, internalObserver);
+			offscreenRender.drawImage(image, x, y, width, height,
+					internalObserver);
 		}
 		catch(Exception e) {
 			if(!RELEASE_BUILD) {
@@ -850,6 +1838,13 @@ public class GameEngine extends Applet implements Runnable
 		Image image = null;
 		Cursor result = null;
 
+		// note: a headless toolkit has no custom cursors (the game then
+		// keeps the default cursor)
+
+		if(GraphicsEnvironment.isHeadless()) {
+			return null;
+		}
+
 		try {
 			image = (Image)assetCache.getAsset(AssetCache.TYPE_INTERNAL_IMAGE,
 					imageName);
@@ -920,6 +1915,14 @@ public class GameEngine extends Applet implements Runnable
 		// note: override me
 	}
 
+	public synchronized void buildRenderSnapshot(RenderSnapshot snapshot)
+	{
+		// note: override me (used instead of pipeline() in pipelined mode),
+		// by default the pipeline() drawing is recorded into the snapshot
+
+		pipeline();
+	}
+
 	public synchronized void handleMouseEvents(int type, MouseEvent event)
 	{
 		// note: override me
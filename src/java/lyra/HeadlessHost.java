@@ -0,0 +1,546 @@
+/*
+ * HeadlessHost.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A host for running a Lyra game outside of a browser or applet viewer,
+ * stepping the engine lifecycle against an offscreen surface with assets
+ * loaded from a file-system root and scripted user input.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.applet.Applet;
+import java.applet.AppletContext;
+import java.applet.AppletStub;
+import java.applet.AudioClip;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Panel;
+import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+
+// define class
+
+public class HeadlessHost implements AppletStub
+{
+	// define public class constants
+
+	public static final int DEFAULT_WIDTH = 640;
+	public static final int DEFAULT_HEIGHT = 480;
+
+	// define private class constants
+
+	private static final String CLASS_NAME = HeadlessHost.class.getName();
+
+	// define private class variables
+
+	private boolean isActive = false;
+	private long frames = 0;
+	private long elapsedNanos = 0;
+	private URL codeBase = null;
+	private HashMap parameters = null;
+	private ArrayList script = null;
+	private HostContext context = null;
+	private BufferedImage surface = null;
+	private GameEngine gameEngine = null;
+
+	// define private class objects
+
+	private class ScriptedEvent
+	{
+		private long frame = 0;
+		private Object event = null;
+
+		private ScriptedEvent(long frame, Object event)
+		{
+			this.frame = frame;
+			this.event = event;
+		}
+	}
+
+	private class HostContext implements AppletContext
+	{
+		private HashMap streams = new HashMap();
+
+		public AudioClip getAudioClip(URL url)
+		{
+			return Applet.newAudioClip(url);
+		}
+
+		public Image getImage(URL url)
+		{
+			return Toolkit.getDefaultToolkit().getImage(url);
+		}
+
+		public Applet getApplet(String name)
+		{
+			return null;
+		}
+
+		public Enumeration getApplets()
+		{
+			return Collections.enumeration(Collections.singletonList(
+						gameEngine));
+		}
+
+		public void showDocument(URL url)
+		{
+			// there is no browser, so the request is only reported
+
+			System.out.println("Lyra Headless Host: show document '" + url +
+					"'");
+		}
+
+		public void showDocument(URL url, String target)
+		{
+			showDocument(url);
+		}
+
+		public void showStatus(String status)
+		{
+			// do nothing
+		}
+
+		public void setStream(String key, InputStream stream)
+		{
+			if(stream == null) {
+				streams.remove(key);
+			}
+			else {
+				streams.put(key, stream);
+			}
+		}
+
+		public InputStream getStream(String key)
+		{
+			return (InputStream)streams.get(key);
+		}
+
+		public Iterator getStreamKeys()
+		{
+			return streams.keySet().iterator();
+		}
+	}
+
+	// define class private functions
+
+	private void scheduleEvent(long frame, Object event)
+	{
+		int ii = 0;
+
+		// keep the script ordered by frame, preserving insertion order for
+		// events scheduled on the same frame
+
+		for(ii = script.size(); ii > 0; ii--) {
+			if(((ScriptedEvent)script.get(ii - 1)).frame <= frame) {
+				break;
+			}
+		}
+		script.add(ii, new ScriptedEvent(frame, event));
+	}
+
+	private void deliverMouseEvent(MouseEvent event)
+	{
+		switch(event.getID()) {
+			case MouseEvent.MOUSE_PRESSED:
+				gameEngine.mouse.mousePressed(event);
+				break;
+			case MouseEvent.MOUSE_RELEASED:
+				gameEngine.mouse.mouseReleased(event);
+				break;
+			case MouseEvent.MOUSE_CLICKED:
+				gameEngine.mouse.mouseClicked(event);
+				break;
+			case MouseEvent.MOUSE_ENTERED:
+				gameEngine.mouse.mouseEntered(event);
+				break;
+			case MouseEvent.MOUSE_EXITED:
+				gameEngine.mouse.mouseExited(event);
+				break;
+			case MouseEvent.MOUSE_DRAGGED:
+				gameEngine.mouse.mouseDragged(event);
+				break;
+			case MouseEvent.MOUSE_MOVED:
+				gameEngine.mouse.mouseMoved(event);
+				break;
+			case MouseEvent.MOUSE_WHEEL:
+				gameEngine.mouse.mouseWheelMoved((MouseWheelEvent)event);
+				break;
+		}
+	}
+
+	private void deliverKeyEvent(KeyEvent event)
+	{
+		switch(event.getID()) {
+			case KeyEvent.KEY_PRESSED:
+				gameEngine.keyboard.keyPressed(event);
+				break;
+			case KeyEvent.KEY_RELEASED:
+				gameEngine.keyboard.keyReleased(event);
+				break;
+			case KeyEvent.KEY_TYPED:
+				gameEngine.keyboard.keyTyped(event);
+				break;
+		}
+	}
+
+	private void deliverScriptedEvents()
+	{
+		ScriptedEvent scripted = null;
+
+		// the input drivers are created by the engine on its first frame
+
+		if((gameEngine.mouse == null) || (gameEngine.keyboard == null)) {
+			return;
+		}
+
+		while(script.size() > 0) {
+			scripted = (ScriptedEvent)script.get(0);
+			if(scripted.frame > frames) {
+				break;
+			}
+			script.remove(0);
+			if(scripted.event instanceof MouseEvent) {
+				deliverMouseEvent((MouseEvent)scripted.event);
+			}
+			else if(scripted.event instanceof KeyEvent) {
+				deliverKeyEvent((KeyEvent)scripted.event);
+			}
+		}
+	}
+
+	// define class public functions
+
+	public HeadlessHost(GameEngine gameEngine, String assetRoot)
+			throws Exception
+	{
+		this(gameEngine, assetRoot, DEFAULT_WIDTH, DEFAULT_HEIGHT);
+	}
+
+	public HeadlessHost(GameEngine gameEngine, String assetRoot, int width,
+			int height) throws Exception
+	{
+		File root = null;
+
+		if(gameEngine == null) {
+			throw new Exception("{" + CLASS_NAME + "} invalid game engine");
+		}
+		if((width < 1) || (height < 1)) {
+			throw new Exception("{" + CLASS_NAME + "} invalid surface size " +
+					width + "x" + height);
+		}
+
+		root = new File(assetRoot);
+		if(!root.isDirectory()) {
+			throw new Exception("{" + CLASS_NAME + "} asset root '" +
+					assetRoot + "' is not a directory");
+		}
+
+		isActive = false;
+		frames = 0;
+		elapsedNanos = 0;
+		codeBase = root.getAbsoluteFile().toURI().toURL();
+		parameters = new HashMap();
+		script = new ArrayList();
+		context = new HostContext();
+		surface = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		this.gameEngine = gameEngine;
+
+		// attach the engine to this host in place of a browser
+
+		gameEngine.setStub(this);
+		gameEngine.setSize(width, height);
+		gameEngine.init();
+		gameEngine.setHeadlessSurface(surface);
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public GameEngine getGameEngine()
+	{
+		return gameEngine;
+	}
+
+	public BufferedImage getSurface()
+	{
+		return surface;
+	}
+
+	public long getFrames()
+	{
+		return frames;
+	}
+
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+
+	public double getFramesPerSecond()
+	{
+		if(elapsedNanos <= 0) {
+			return 0.0;
+		}
+		return ((double)frames / ((double)elapsedNanos / 1000000000.0));
+	}
+
+	public void setParameter(String name, String value)
+	{
+		if(value == null) {
+			parameters.remove(name);
+		}
+		else {
+			parameters.put(name, value);
+		}
+	}
+
+	public void step()
+	{
+		long startNanos = 0;
+
+		isActive = true;
+		startNanos = System.nanoTime();
+
+		deliverScriptedEvents();
+		gameEngine.stepFrame();
+		frames++;
+
+		elapsedNanos += (System.nanoTime() - startNanos);
+	}
+
+	public void run(int frameCount)
+	{
+		int ii = 0;
+
+		for(ii = 0; ii < frameCount; ii++) {
+			if((frames > 0) &&
+					(gameEngine.getRenderState() !=
+					 GameEngine.STATE_RUNNING)) {
+				break;
+			}
+			step();
+		}
+	}
+
+	public void shutdown()
+	{
+		gameEngine.shutdown();
+		isActive = false;
+	}
+
+	public static GameEngine createGameEngine(String className)
+		throws Exception
+	{
+		Class engineClass = null;
+		Object factory = null;
+		Constructor constructor = null;
+		GameEngine result = null;
+
+		engineClass = Class.forName(className);
+		if(!GameEngine.class.isAssignableFrom(engineClass)) {
+			throw new Exception("{" + CLASS_NAME + "} '" + className +
+					"' is not a game engine");
+		}
+
+		if(!GraphicsEnvironment.isHeadless()) {
+			result = (GameEngine)engineClass.getDeclaredConstructor(
+					).newInstance();
+			return result;
+		}
+
+		// java.applet.Applet's constructor only refuses to run when AWT is
+		// headless, so the engine is built from Panel's constructor instead
+		// (as deserialization would), skipping that check
+
+		// note: the engine & games declare no constructors and initialize
+		// their fields in init() & loadGame(), so nothing else is skipped
+
+		factory = Class.forName("sun.reflect.ReflectionFactory").getMethod(
+				"getReflectionFactory").invoke(null);
+		constructor = (Constructor)factory.getClass().getMethod(
+				"newConstructorForSerialization", Class.class,
+				Constructor.class).invoke(factory, engineClass,
+				Panel.class.getDeclaredConstructor());
+		result = (GameEngine)constructor.newInstance();
+
+		return result;
+	}
+
+	// scripted input functions
+
+	public void scheduleMouseEvent(long frame, int id, int x, int y,
+			int button)
+	{
+		int modifiers = 0;
+		int clickCount = 0;
+
+		if((id == MouseEvent.MOUSE_PRESSED) ||
+				(id == MouseEvent.MOUSE_DRAGGED)) {
+			if(button == MouseEvent.BUTTON1) {
+				modifiers = InputEvent.BUTTON1_DOWN_MASK;
+			}
+			else if(button == MouseEvent.BUTTON2) {
+				modifiers = InputEvent.BUTTON2_DOWN_MASK;
+			}
+			else if(button == MouseEvent.BUTTON3) {
+				modifiers = InputEvent.BUTTON3_DOWN_MASK;
+			}
+		}
+		if((id == MouseEvent.MOUSE_PRESSED) ||
+				(id == MouseEvent.MOUSE_RELEASED) ||
+				(id == MouseEvent.MOUSE_CLICKED)) {
+			clickCount = 1;
+		}
+
+		scheduleEvent(frame, new MouseEvent(gameEngine, id,
+					System.currentTimeMillis(), modifiers, x, y, clickCount,
+					false, button));
+	}
+
+	public void scheduleMouseClick(long frame, int x, int y, int button)
+	{
+		scheduleMouseEvent(frame, MouseEvent.MOUSE_PRESSED, x, y, button);
+		scheduleMouseEvent(frame, MouseEvent.MOUSE_RELEASED, x, y, button);
+		scheduleMouseEvent(frame, MouseEvent.MOUSE_CLICKED, x, y, button);
+	}
+
+	public void scheduleMouseWheel(long frame, int x, int y, int rotation)
+	{
+		scheduleEvent(frame, new MouseWheelEvent(gameEngine,
+					MouseEvent.MOUSE_WHEEL, System.currentTimeMillis(), 0, x,
+					y, 0, false, MouseWheelEvent.WHEEL_UNIT_SCROLL, 1,
+					rotation));
+	}
+
+	public void scheduleKeyEvent(long frame, int id, int keyCode,
+			char keyChar)
+	{
+		scheduleEvent(frame, new KeyEvent(gameEngine, id,
+					System.currentTimeMillis(), 0, keyCode, keyChar));
+	}
+
+	public void scheduleKeyPress(long frame, int keyCode, char keyChar)
+	{
+		scheduleKeyEvent(frame, KeyEvent.KEY_PRESSED, keyCode, keyChar);
+		scheduleKeyEvent(frame, KeyEvent.KEY_RELEASED, keyCode, keyChar);
+	}
+
+	public void scheduleKeyPress(long frame, char keyChar)
+	{
+		scheduleKeyPress(frame, KeyEvent.getExtendedKeyCodeForChar(keyChar),
+				keyChar);
+	}
+
+	// implement AppletStub interface
+
+	public boolean isActive()
+	{
+		return isActive;
+	}
+
+	public URL getDocumentBase()
+	{
+		return codeBase;
+	}
+
+	public URL getCodeBase()
+	{
+		return codeBase;
+	}
+
+	public String getParameter(String name)
+	{
+		return (String)parameters.get(name);
+	}
+
+	public AppletContext getAppletContext()
+	{
+		return context;
+	}
+
+	public void appletResize(int width, int height)
+	{
+		// do nothing, the surface size is fixed by the host
+	}
+
+	// command-line entry point (for benchmark & soak runs)
+
+	public static void main(String[] args)
+	{
+		int ii = 0;
+		int index = 0;
+		int width = 0;
+		int height = 0;
+		int frameCount = 0;
+
+		GameEngine engine = null;
+		HeadlessHost host = null;
+
+		if(args.length < 3) {
+			System.out.println("usage: java lyra.HeadlessHost {game class} " +
+					"{asset root} {frames} [width] [height] [name=value]...");
+			System.exit(1);
+		}
+
+		try {
+			frameCount = Integer.parseInt(args[2]);
+			width = DEFAULT_WIDTH;
+			height = DEFAULT_HEIGHT;
+			ii = 3;
+			if((args.length > 4) && (args[3].indexOf('=') < 0)) {
+				width = Integer.parseInt(args[3]);
+				height = Integer.parseInt(args[4]);
+				ii = 5;
+			}
+
+			engine = createGameEngine(args[0]);
+			host = new HeadlessHost(engine, args[1], width, height);
+
+			for(; ii < args.length; ii++) {
+				index = args[ii].indexOf('=');
+				if(index > 0) {
+					host.setParameter(args[ii].substring(0, index),
+							args[ii].substring(index + 1));
+				}
+			}
+
+			host.run(frameCount);
+			host.shutdown();
+
+			System.out.println("Lyra Headless Host: " + host.getFrames() +
+					" frames in " + (host.getElapsedNanos() / 1000000) +
+					" ms (" + host.getFramesPerSecond() + " fps)");
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		System.exit(0);
+	}
+}
+
@@ -0,0 +1,273 @@
+/*
+ * ImageConverter.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A component for converting decoded images into the display's native
+ * format, with the least transparency each image requires, so that blits
+ * avoid format conversion and may be hardware accelerated.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.util.Iterator;
+import java.util.WeakHashMap;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.ImageCapabilities;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+// define class
+
+public class ImageConverter
+{
+	// define private class constants
+
+	private static final String CLASS_NAME = ImageConverter.class.getName();
+
+	// define private class variables
+
+	private long convertedCount = 0;
+	private long compatibleCount = 0;
+	private long opaqueCount = 0;
+	private long bitmaskCount = 0;
+	private long translucentCount = 0;
+	private WeakHashMap images = null;
+	private GameEngine gameEngine = null;
+
+	// define class private functions
+
+	private GraphicsConfiguration obtainConfiguration()
+	{
+		GraphicsConfiguration result = null;
+
+		// the applet has no configuration until it is displayed, so fall
+		// back to the default screen
+
+		if(gameEngine != null) {
+			result = gameEngine.getGraphicsConfiguration();
+		}
+		if((result == null) && (!GraphicsEnvironment.isHeadless())) {
+			result = GraphicsEnvironment.getLocalGraphicsEnvironment(
+					).getDefaultScreenDevice().getDefaultConfiguration();
+		}
+
+		return result;
+	}
+
+	private synchronized void track(Image image, int transparency,
+			boolean wasConverted)
+	{
+		if(wasConverted) {
+			convertedCount++;
+		}
+		else {
+			compatibleCount++;
+		}
+
+		if(transparency == Transparency.OPAQUE) {
+			opaqueCount++;
+		}
+		else if(transparency == Transparency.BITMASK) {
+			bitmaskCount++;
+		}
+		else {
+			translucentCount++;
+		}
+
+		images.put(image, Integer.valueOf(transparency));
+	}
+
+	// define class public functions
+
+	public ImageConverter(GameEngine gameEngine)
+	{
+		this.gameEngine = gameEngine;
+		convertedCount = 0;
+		compatibleCount = 0;
+		opaqueCount = 0;
+		bitmaskCount = 0;
+		translucentCount = 0;
+		images = new WeakHashMap();
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public static int classifyTransparency(BufferedImage image)
+	{
+		int ii = 0;
+		int jj = 0;
+		int width = 0;
+		int height = 0;
+		int[] row = null;
+		int result = 0;
+
+		if(!image.getColorModel().hasAlpha()) {
+			return Transparency.OPAQUE;
+		}
+
+		// an image with only fully opaque & fully clear pixels can use a
+		// bitmask, which blits without blending
+
+		result = Transparency.OPAQUE;
+		width = image.getWidth();
+		height = image.getHeight();
+		row = new int[width];
+
+		for(ii = 0; ii < height; ii++) {
+			image.getRGB(0, ii, width, 1, row, 0, width);
+			for(jj = 0; jj < width; jj++) {
+				switch(row[jj] >>> 24) {
+					case 0xff:
+						break;
+					case 0x00:
+						result = Transparency.BITMASK;
+						break;
+					default:
+						return Transparency.TRANSLUCENT;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	public Image convert(Image image)
+	{
+		int transparency = 0;
+
+		BufferedImage source = null;
+		BufferedImage result = null;
+		Graphics2D render = null;
+		GraphicsConfiguration configuration = null;
+
+		// note: only buffered images can be inspected, any other image is
+		// returned as-is
+
+		if(!(image instanceof BufferedImage)) {
+			return image;
+		}
+
+		configuration = obtainConfiguration();
+		if(configuration == null) {
+			return image;
+		}
+
+		source = (BufferedImage)image;
+		transparency = classifyTransparency(source);
+
+		if(configuration.getColorModel(transparency).equals(
+					source.getColorModel())) {
+			source.setAccelerationPriority((float)1.0);
+			track(source, transparency, false);
+			return source;
+		}
+
+		result = configuration.createCompatibleImage(source.getWidth(),
+				source.getHeight(), transparency);
+		render = result.createGraphics();
+		try {
+			render.setComposite(AlphaComposite.Src);
+			render.drawImage(source, 0, 0, null);
+		}
+		finally {
+			render.dispose();
+		}
+
+		result.setAccelerationPriority((float)1.0);
+		track(result, transparency, true);
+
+		return result;
+	}
+
+	public synchronized int getTransparency(Image image)
+	{
+		Integer result = null;
+
+		result = (Integer)images.get(image);
+		if(result == null) {
+			return -1;
+		}
+
+		return result.intValue();
+	}
+
+	public boolean isAccelerated(Image image)
+	{
+		ImageCapabilities capabilities = null;
+		GraphicsConfiguration configuration = null;
+
+		configuration = obtainConfiguration();
+		if((image == null) || (configuration == null)) {
+			return false;
+		}
+
+		capabilities = image.getCapabilities(configuration);
+
+		return ((capabilities != null) && (capabilities.isAccelerated()));
+	}
+
+	public synchronized int getImageCount()
+	{
+		return images.size();
+	}
+
+	public synchronized int getAcceleratedCount()
+	{
+		int result = 0;
+
+		Iterator iterator = null;
+
+		// managed images are cached in video memory after being drawn a few
+		// times, and may later be evicted, so this is only a snapshot
+
+		iterator = images.keySet().iterator();
+		while(iterator.hasNext()) {
+			if(isAccelerated((Image)iterator.next())) {
+				result++;
+			}
+		}
+
+		return result;
+	}
+
+	public synchronized long getConvertedCount()
+	{
+		return convertedCount;
+	}
+
+	public synchronized long getCompatibleCount()
+	{
+		return compatibleCount;
+	}
+
+	public synchronized long getOpaqueCount()
+	{
+		return opaqueCount;
+	}
+
+	public synchronized long getBitmaskCount()
+	{
+		return bitmaskCount;
+	}
+
+	public synchronized long getTranslucentCount()
+	{
+		return translucentCount;
+	}
+}
+
@@ -0,0 +1,391 @@
+/*
+ * LayerCache.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A cache of a static layer (such as a tile map or a background) rendered
+ * into fixed-size offscreen chunks, which are reused while the camera pans
+ * and only re-rendered when they are invalidated.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+// import internal packages
+
+import lyra.interfaces.LayerInterface;
+
+// define class
+
+public class LayerCache
+{
+	// define public class constants
+
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+	public static final int DEFAULT_CAPACITY = 64;
+
+	// define private class constants
+
+	private static final String CLASS_NAME = LayerCache.class.getName();
+
+	// define private class variables
+
+	private int chunkSize = 0;
+	private int capacity = 0;
+	private long renderCount = 0;
+	private LinkedHashMap chunks = null;
+	private ChunkKey lookupKey = null;
+	private LayerInterface layer = null;
+	private GameEngine gameEngine = null;
+
+	// define private class objects
+
+	private class Chunk
+	{
+		private boolean isValid = false;
+		private boolean isPublished = false;
+		private int chunkX = 0;
+		private int chunkY = 0;
+		private BufferedImage image = null;
+		private BufferedImage spare = null;
+
+		private Chunk(int chunkX, int chunkY, BufferedImage image)
+		{
+			this.chunkX = chunkX;
+			this.chunkY = chunkY;
+			this.image = image;
+			isValid = false;
+			isPublished = false;
+			spare = null;
+		}
+	}
+
+	private class ChunkKey
+	{
+		private int chunkX = 0;
+		private int chunkY = 0;
+
+		private ChunkKey(int chunkX, int chunkY)
+		{
+			this.chunkX = chunkX;
+			this.chunkY = chunkY;
+		}
+
+		private ChunkKey set(int chunkX, int chunkY)
+		{
+			this.chunkX = chunkX;
+			this.chunkY = chunkY;
+			return this;
+		}
+
+		public int hashCode()
+		{
+			return ((chunkX * 92821) ^ chunkY);
+		}
+
+		public boolean equals(Object object)
+		{
+			ChunkKey key = null;
+
+			if(!(object instanceof ChunkKey)) {
+				return false;
+			}
+
+			key = (ChunkKey)object;
+
+			return ((key.chunkX == chunkX) && (key.chunkY == chunkY));
+		}
+	}
+
+	// define class private functions
+
+	private int toChunk(int value)
+	{
+		// round towards negative infinity, as per SpatialGrid.toCell()
+
+		if(value >= 0) {
+			return (value / chunkSize);
+		}
+		return (((value + 1) / chunkSize) - 1);
+	}
+
+	private BufferedImage buildImage()
+	{
+		GraphicsConfiguration configuration = null;
+
+		if(gameEngine != null) {
+			configuration = gameEngine.getGraphicsConfiguration();
+		}
+		if(configuration != null) {
+			return configuration.createCompatibleImage(chunkSize, chunkSize,
+					Transparency.TRANSLUCENT);
+		}
+
+		return new BufferedImage(chunkSize, chunkSize,
+				BufferedImage.TYPE_INT_ARGB);
+	}
+
+	private void renderChunk(Chunk chunk)
+	{
+		int worldX = 0;
+		int worldY = 0;
+
+		Graphics2D render = null;
+
+		worldX = (chunk.chunkX * chunkSize);
+		worldY = (chunk.chunkY * chunkSize);
+
+		render = chunk.image.createGraphics();
+		try {
+			// clear the chunk, the layer may not cover all of it
+
+			render.setComposite(AlphaComposite.Src);
+			render.setColor(new Color(0, 0, 0, 0));
+			render.fillRect(0, 0, chunkSize, chunkSize);
+			render.setComposite(AlphaComposite.SrcOver);
+
+			render.translate((0 - worldX), (0 - worldY));
+			layer.renderLayer(render, worldX, worldY, chunkSize, chunkSize);
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+		finally {
+			render.dispose();
+		}
+
+		chunk.isValid = true;
+		renderCount++;
+	}
+
+	private Chunk obtainChunk(int chunkX, int chunkY)
+	{
+		Chunk result = null;
+		BufferedImage image = null;
+
+		result = (Chunk)chunks.get(lookupKey.set(chunkX, chunkY));
+		if(result == null) {
+			result = new Chunk(chunkX, chunkY, buildImage());
+			chunks.put(new ChunkKey(chunkX, chunkY), result);
+		}
+		if(!result.isValid) {
+			if(result.isPublished) {
+				// the render thread may still be drawing the image handed
+				// to the last snapshot, so re-render into the spare image
+
+				if(result.spare == null) {
+					result.spare = buildImage();
+				}
+				image = result.image;
+				result.image = result.spare;
+				result.spare = image;
+				result.isPublished = false;
+			}
+			renderChunk(result);
+		}
+
+		return result;
+	}
+
+	private void evict(int minimum)
+	{
+		Iterator iterator = null;
+
+		// never evict the chunks under the camera, however small the
+		// capacity
+
+		iterator = chunks.values().iterator();
+		while((chunks.size() > Math.max(capacity, minimum)) &&
+				(iterator.hasNext())) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	// define class public functions
+
+	public LayerCache(LayerInterface layer, GameEngine gameEngine)
+	{
+		this(layer, DEFAULT_CHUNK_SIZE, DEFAULT_CAPACITY, gameEngine);
+	}
+
+	public LayerCache(LayerInterface layer, int chunkSize, int capacity,
+			GameEngine gameEngine)
+	{
+		if(chunkSize < 1) {
+			chunkSize = DEFAULT_CHUNK_SIZE;
+		}
+		if(capacity < 1) {
+			capacity = DEFAULT_CAPACITY;
+		}
+
+		this.layer = layer;
+		this.chunkSize = chunkSize;
+		this.capacity = capacity;
+		this.gameEngine = gameEngine;
+		renderCount = 0;
+		chunks = new LinkedHashMap(16, (float)0.75, true);
+		lookupKey = new ChunkKey(0, 0);
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	public synchronized int getCapacity()
+	{
+		return capacity;
+	}
+
+	public synchronized void setCapacity(int capacity)
+	{
+		if(capacity < 1) {
+			capacity = DEFAULT_CAPACITY;
+		}
+		this.capacity = capacity;
+		evict(0);
+	}
+
+	public synchronized int getChunkCount()
+	{
+		return chunks.size();
+	}
+
+	public synchronized long getRenderCount()
+	{
+		return renderCount;
+	}
+
+	public synchronized void invalidate(int x, int y, int width, int height)
+	{
+		int chunkX = 0;
+		int chunkY = 0;
+		int minChunkX = 0;
+		int minChunkY = 0;
+		int maxChunkX = 0;
+		int maxChunkY = 0;
+
+		Chunk chunk = null;
+
+		// note: the area is given in world coordinates
+
+		minChunkX = toChunk(x);
+		minChunkY = toChunk(y);
+		maxChunkX = toChunk(x + Math.max((width - 1), 0));
+		maxChunkY = toChunk(y + Math.max((height - 1), 0));
+
+		for(chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+			for(chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				chunk = (Chunk)chunks.get(lookupKey.set(chunkX, chunkY));
+				if(chunk != null) {
+					chunk.isValid = false;
+				}
+			}
+		}
+	}
+
+	public synchronized void invalidateAll()
+	{
+		Iterator iterator = null;
+
+		iterator = chunks.values().iterator();
+		while(iterator.hasNext()) {
+			((Chunk)iterator.next()).isValid = false;
+		}
+	}
+
+	public synchronized void clear()
+	{
+		chunks.clear();
+	}
+
+	public synchronized void captureRenderState(RenderSnapshot snapshot,
+			int cameraX, int cameraY, int width, int height)
+	{
+		int chunkX = 0;
+		int chunkY = 0;
+		int minChunkX = 0;
+		int minChunkY = 0;
+		int maxChunkX = 0;
+		int maxChunkY = 0;
+
+		Chunk chunk = null;
+
+		minChunkX = toChunk(cameraX);
+		minChunkY = toChunk(cameraY);
+		maxChunkX = toChunk(cameraX + Math.max((width - 1), 0));
+		maxChunkY = toChunk(cameraY + Math.max((height - 1), 0));
+
+		for(chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+			for(chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				chunk = obtainChunk(chunkX, chunkY);
+				chunk.isPublished = true;
+				snapshot.addImage(chunk.image,
+						((chunkX * chunkSize) - cameraX),
+						((chunkY * chunkSize) - cameraY), chunkSize,
+						chunkSize);
+			}
+		}
+
+		evict((maxChunkX - minChunkX + 1) * (maxChunkY - minChunkY + 1));
+	}
+
+	public synchronized void render2D(Graphics2D render, int cameraX,
+			int cameraY, int width, int height, boolean isDamageOnly)
+	{
+		int chunkX = 0;
+		int chunkY = 0;
+		int screenX = 0;
+		int screenY = 0;
+		int minChunkX = 0;
+		int minChunkY = 0;
+		int maxChunkX = 0;
+		int maxChunkY = 0;
+
+		Chunk chunk = null;
+
+		// each chunk under the camera is a single untransformed blit
+
+		minChunkX = toChunk(cameraX);
+		minChunkY = toChunk(cameraY);
+		maxChunkX = toChunk(cameraX + Math.max((width - 1), 0));
+		maxChunkY = toChunk(cameraY + Math.max((height - 1), 0));
+
+		for(chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+			for(chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				screenX = ((chunkX * chunkSize) - cameraX);
+				screenY = ((chunkY * chunkSize) - cameraY);
+				if((isDamageOnly) && (!gameEngine.isDamaged(screenX, screenY,
+								chunkSize, chunkSize))) {
+					continue;
+				}
+				chunk = obtainChunk(chunkX, chunkY);
+				render.drawImage(chunk.image, screenX, screenY, gameEngine);
+			}
+		}
+
+		evict((maxChunkX - minChunkX + 1) * (maxChunkY - minChunkY + 1));
+	}
+}
+
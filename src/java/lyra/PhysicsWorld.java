@@ -0,0 +1,515 @@
+/*
+ * PhysicsWorld.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A batch integrator for sprite physics, holding the state of every body in
+ * parallel arrays and advancing them together with a single shared timestep.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// define class
+
+public class PhysicsWorld
+{
+	// define public class constants
+
+	// the movement (in pixels per milli, per unit of thrust) along each of
+	// the sixteen sprite directions
+
+	public static final double[] DIRECTION_X = {
+		0.0,
+		(2.0 * 0.894454),
+		(4.0 * 0.707106),
+		(4.0 * 0.894454),
+		4.0,
+		(4.0 * 0.894454),
+		(4.0 * 0.707106),
+		(2.0 * 0.894454),
+		0.0,
+		(-2.0 * 0.894454),
+		(-4.0 * 0.707106),
+		(-4.0 * 0.894454),
+		-4.0,
+		(-4.0 * 0.894454),
+		(-4.0 * 0.707106),
+		(-2.0 * 0.894454)
+	};
+
+	public static final double[] DIRECTION_Y = {
+		-4.0,
+		(-4.0 * 0.894454),
+		(-4.0 * 0.707106),
+		(-2.0 * 0.894454),
+		0.0,
+		(2.0 * 0.894454),
+		(4.0 * 0.707106),
+		(4.0 * 0.894454),
+		4.0,
+		(4.0 * 0.894454),
+		(4.0 * 0.707106),
+		(2.0 * 0.894454),
+		0.0,
+		(-2.0 * 0.894454),
+		(-4.0 * 0.707106),
+		(-4.0 * 0.894454)
+	};
+
+	// define private class constants
+
+	private static final String CLASS_NAME = PhysicsWorld.class.getName();
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// define protected class variables
+
+	protected int count = 0;
+	protected long currentTimeNanos = 0;
+	protected boolean[] usingTurbo = null;
+	protected boolean[] isSliding = null;
+	protected boolean[] hasFriction = null;
+	protected boolean[] hasGravity = null;
+	protected boolean[] willBounce = null;
+	protected int[] direction = null;
+	protected int[] gravityDirection = null;
+	protected long[] currentTimes = null;
+	protected long[] elapsedTimes = null;
+	protected double[] x = null;
+	protected double[] y = null;
+	protected double[] xSpeed = null;
+	protected double[] ySpeed = null;
+	protected double[] xBoost = null;
+	protected double[] yBoost = null;
+	protected double[] thrust = null;
+	protected double[] turboThrust = null;
+	protected double[] currentThrust = null;
+	protected double[] gravity = null;
+	protected double[] friction = null;
+	protected double[] frictionModifier = null;
+	protected double[] lowestPixelRate = null;
+	protected double[] highestPixelRate = null;
+	protected double[] defaultRotateTimeSeconds = null;
+	protected SpritePhysics[] bodies = null;
+
+	// define private class objects
+
+	private class IntegrateTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private int start = 0;
+		private int end = 0;
+		private int threshold = 0;
+		private long elapsedTimeNanos = 0;
+		private DamageRegion region = null;
+		private DamageRegion damage = null;
+
+		private IntegrateTask(int start, int end, int threshold,
+				long elapsedTimeNanos, DamageRegion region)
+		{
+			this.start = start;
+			this.end = end;
+			this.threshold = threshold;
+			this.elapsedTimeNanos = elapsedTimeNanos;
+			this.region = region;
+		}
+
+		protected void compute()
+		{
+			int middle = 0;
+
+			IntegrateTask lower = null;
+			IntegrateTask upper = null;
+
+			// each chunk collects the damage of its own sprites, the chunks
+			// are then merged as they join
+
+			if((end - start) <= threshold) {
+				damage = new DamageRegion(region.getWidth(),
+						region.getHeight());
+				integrate(start, end, elapsedTimeNanos);
+				updateSprites(start, end, damage);
+				return;
+			}
+
+			middle = (start + ((end - start) / 2));
+			lower = new IntegrateTask(start, middle, threshold,
+					elapsedTimeNanos, region);
+			upper = new IntegrateTask(middle, end, threshold,
+					elapsedTimeNanos, region);
+			invokeAll(lower, upper);
+
+			damage = lower.damage;
+			damage.add(upper.damage);
+		}
+	}
+
+	// define class private functions
+
+	private void allocate(int capacity)
+	{
+		boolean[] newUsingTurbo = new boolean[capacity];
+		boolean[] newIsSliding = new boolean[capacity];
+		boolean[] newHasFriction = new boolean[capacity];
+		boolean[] newHasGravity = new boolean[capacity];
+		boolean[] newWillBounce = new boolean[capacity];
+		int[] newDirection = new int[capacity];
+		int[] newGravityDirection = new int[capacity];
+		long[] newCurrentTimes = new long[capacity];
+		long[] newElapsedTimes = new long[capacity];
+		double[] newX = new double[capacity];
+		double[] newY = new double[capacity];
+		double[] newXSpeed = new double[capacity];
+		double[] newYSpeed = new double[capacity];
+		double[] newXBoost = new double[capacity];
+		double[] newYBoost = new double[capacity];
+		double[] newThrust = new double[capacity];
+		double[] newTurboThrust = new double[capacity];
+		double[] newCurrentThrust = new double[capacity];
+		double[] newGravity = new double[capacity];
+		double[] newFriction = new double[capacity];
+		double[] newFrictionModifier = new double[capacity];
+		double[] newLowestPixelRate = new double[capacity];
+		double[] newHighestPixelRate = new double[capacity];
+		double[] newDefaultRotateTimeSeconds = new double[capacity];
+		SpritePhysics[] newBodies = new SpritePhysics[capacity];
+
+		if(bodies != null) {
+			System.arraycopy(usingTurbo, 0, newUsingTurbo, 0, count);
+			System.arraycopy(isSliding, 0, newIsSliding, 0, count);
+			System.arraycopy(hasFriction, 0, newHasFriction, 0, count);
+			System.arraycopy(hasGravity, 0, newHasGravity, 0, count);
+			System.arraycopy(willBounce, 0, newWillBounce, 0, count);
+			System.arraycopy(direction, 0, newDirection, 0, count);
+			System.arraycopy(gravityDirection, 0, newGravityDirection, 0,
+					count);
+			System.arraycopy(currentTimes, 0, newCurrentTimes, 0, count);
+			System.arraycopy(elapsedTimes, 0, newElapsedTimes, 0, count);
+			System.arraycopy(x, 0, newX, 0, count);
+			System.arraycopy(y, 0, newY, 0, count);
+			System.arraycopy(xSpeed, 0, newXSpeed, 0, count);
+			System.arraycopy(ySpeed, 0, newYSpeed, 0, count);
+			System.arraycopy(xBoost, 0, newXBoost, 0, count);
+			System.arraycopy(yBoost, 0, newYBoost, 0, count);
+			System.arraycopy(thrust, 0, newThrust, 0, count);
+			System.arraycopy(turboThrust, 0, newTurboThrust, 0, count);
+			System.arraycopy(currentThrust, 0, newCurrentThrust, 0, count);
+			System.arraycopy(gravity, 0, newGravity, 0, count);
+			System.arraycopy(friction, 0, newFriction, 0, count);
+			System.arraycopy(frictionModifier, 0, newFrictionModifier, 0,
+					count);
+			System.arraycopy(lowestPixelRate, 0, newLowestPixelRate, 0,
+					count);
+			System.arraycopy(highestPixelRate, 0, newHighestPixelRate, 0,
+					count);
+			System.arraycopy(defaultRotateTimeSeconds, 0,
+					newDefaultRotateTimeSeconds, 0, count);
+			System.arraycopy(bodies, 0, newBodies, 0, count);
+		}
+
+		usingTurbo = newUsingTurbo;
+		isSliding = newIsSliding;
+		hasFriction = newHasFriction;
+		hasGravity = newHasGravity;
+		willBounce = newWillBounce;
+		direction = newDirection;
+		gravityDirection = newGravityDirection;
+		currentTimes = newCurrentTimes;
+		elapsedTimes = newElapsedTimes;
+		x = newX;
+		y = newY;
+		xSpeed = newXSpeed;
+		ySpeed = newYSpeed;
+		xBoost = newXBoost;
+		yBoost = newYBoost;
+		thrust = newThrust;
+		turboThrust = newTurboThrust;
+		currentThrust = newCurrentThrust;
+		gravity = newGravity;
+		friction = newFriction;
+		frictionModifier = newFrictionModifier;
+		lowestPixelRate = newLowestPixelRate;
+		highestPixelRate = newHighestPixelRate;
+		defaultRotateTimeSeconds = newDefaultRotateTimeSeconds;
+		bodies = newBodies;
+	}
+
+	private void copyBody(PhysicsWorld source, int sourceId, int id)
+	{
+		usingTurbo[id] = source.usingTurbo[sourceId];
+		isSliding[id] = source.isSliding[sourceId];
+		hasFriction[id] = source.hasFriction[sourceId];
+		hasGravity[id] = source.hasGravity[sourceId];
+		willBounce[id] = source.willBounce[sourceId];
+		direction[id] = source.direction[sourceId];
+		gravityDirection[id] = source.gravityDirection[sourceId];
+		currentTimes[id] = source.currentTimes[sourceId];
+		elapsedTimes[id] = source.elapsedTimes[sourceId];
+		x[id] = source.x[sourceId];
+		y[id] = source.y[sourceId];
+		xSpeed[id] = source.xSpeed[sourceId];
+		ySpeed[id] = source.ySpeed[sourceId];
+		xBoost[id] = source.xBoost[sourceId];
+		yBoost[id] = source.yBoost[sourceId];
+		thrust[id] = source.thrust[sourceId];
+		turboThrust[id] = source.turboThrust[sourceId];
+		currentThrust[id] = source.currentThrust[sourceId];
+		gravity[id] = source.gravity[sourceId];
+		friction[id] = source.friction[sourceId];
+		frictionModifier[id] = source.frictionModifier[sourceId];
+		lowestPixelRate[id] = source.lowestPixelRate[sourceId];
+		highestPixelRate[id] = source.highestPixelRate[sourceId];
+		defaultRotateTimeSeconds[id] =
+			source.defaultRotateTimeSeconds[sourceId];
+	}
+
+	private long snapshot()
+	{
+		int ii = 0;
+		long result = 0;
+		long timeNanos = 0;
+
+		timeNanos = System.nanoTime();
+		result = (timeNanos - currentTimeNanos);
+		currentTimeNanos = timeNanos;
+
+		// a fixed-timestep game loop advances the physics by exactly one tick
+
+		for(ii = 0; ii < count; ii++) {
+			if(bodies[ii].sprite.gameEngine != null) {
+				if(bodies[ii].sprite.gameEngine.getLoopMode() ==
+						GameEngine.LOOP_MODE_FIXED) {
+					result = bodies[ii].sprite.gameEngine.getTickNanos();
+				}
+				break;
+			}
+		}
+
+		return result;
+	}
+
+	// define class public functions
+
+	public PhysicsWorld()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	public PhysicsWorld(int capacity)
+	{
+		if(capacity < 1) {
+			capacity = DEFAULT_CAPACITY;
+		}
+
+		count = 0;
+		currentTimeNanos = System.nanoTime();
+		bodies = null;
+
+		allocate(capacity);
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public synchronized int size()
+	{
+		return count;
+	}
+
+	public synchronized SpritePhysics getBody(int id)
+	{
+		if((id < 0) || (id >= count)) {
+			return null;
+		}
+		return bodies[id];
+	}
+
+	public synchronized int addBody(SpritePhysics body)
+	{
+		int result = 0;
+
+		if(count >= bodies.length) {
+			allocate(bodies.length * 2);
+		}
+
+		result = count;
+		bodies[result] = body;
+		currentTimes[result] = System.nanoTime();
+		elapsedTimes[result] = 0;
+		count++;
+
+		return result;
+	}
+
+	public synchronized int transferBody(PhysicsWorld source, int sourceId)
+	{
+		int result = 0;
+
+		result = addBody(source.bodies[sourceId]);
+		copyBody(source, sourceId, result);
+		source.removeBody(sourceId);
+
+		return result;
+	}
+
+	public synchronized void removeBody(int id)
+	{
+		int last = 0;
+
+		if((id < 0) || (id >= count)) {
+			return;
+		}
+
+		// keep the arrays dense by moving the last body into the hole
+
+		last = (count - 1);
+		if(id != last) {
+			copyBody(this, last, id);
+			bodies[id] = bodies[last];
+			bodies[id].bodyId = id;
+		}
+
+		bodies[last] = null;
+		count--;
+	}
+
+	public void integrate(int start, int end, long elapsedTimeNanos)
+	{
+		int ii = 0;
+		int localDirection = 0;
+		double damping = 0.0;
+		double millisPerFrame = 0.0;
+
+		millisPerFrame = ((double)elapsedTimeNanos / 1000000.0);
+
+		// apply friction to speed & update location, a single pass over the
+		// parallel arrays (bodies in the range may be integrated on any
+		// thread, they do not share state)
+
+		for(ii = start; ii < end; ii++) {
+			elapsedTimes[ii] = elapsedTimeNanos;
+			currentTimes[ii] = currentTimeNanos;
+
+			damping = (friction[ii] * frictionModifier[ii]);
+
+			if(hasFriction[ii]) {
+				xSpeed[ii] *= damping;
+				ySpeed[ii] *= damping;
+				currentThrust[ii] *= damping;
+			}
+
+			xBoost[ii] *= damping;
+			yBoost[ii] *= damping;
+
+			if(Math.abs(xSpeed[ii]) < 0.01) {
+				xSpeed[ii] = 0.0;
+			}
+			if(Math.abs(ySpeed[ii]) < 0.01) {
+				ySpeed[ii] = 0.0;
+			}
+			if(Math.abs(xBoost[ii]) < 0.01) {
+				xBoost[ii] = 0.0;
+			}
+			if(Math.abs(yBoost[ii]) < 0.01) {
+				yBoost[ii] = 0.0;
+			}
+			if(Math.abs(currentThrust[ii]) < 0.01) {
+				currentThrust[ii] = 0.0;
+			}
+			if((xSpeed[ii] == 0.0) && (ySpeed[ii] == 0.0)) {
+				isSliding[ii] = false;
+			}
+
+			x[ii] += xSpeed[ii];
+			y[ii] += ySpeed[ii];
+			x[ii] += xBoost[ii];
+			y[ii] += yBoost[ii];
+
+			// apply gravity
+
+			if(hasGravity[ii]) {
+				localDirection = gravityDirection[ii];
+				if((localDirection >= 0) &&
+						(localDirection < DIRECTION_X.length)) {
+					x[ii] += ((gravity[ii] * DIRECTION_X[localDirection]) *
+							millisPerFrame);
+					y[ii] += ((gravity[ii] * DIRECTION_Y[localDirection]) *
+							millisPerFrame);
+				}
+			}
+		}
+	}
+
+	public void updateSprites(int start, int end)
+	{
+		updateSprites(start, end, null);
+	}
+
+	public void updateSprites(int start, int end, DamageRegion damage)
+	{
+		int ii = 0;
+
+		for(ii = start; ii < end; ii++) {
+			bodies[ii].sprite.setDamageCollector(damage);
+			bodies[ii].updateSprite();
+			bodies[ii].sprite.setDamageCollector(null);
+		}
+	}
+
+	public synchronized void setFriction(double amount)
+	{
+		int ii = 0;
+
+		for(ii = 0; ii < count; ii++) {
+			friction[ii] = amount;
+		}
+	}
+
+	public synchronized void processGameplay()
+	{
+		processGameplay(null, 0, null);
+	}
+
+	public synchronized void processGameplay(ForkJoinPool pool, int threshold,
+			DamageRegion damage)
+	{
+		long elapsedTimeNanos = 0;
+
+		IntegrateTask task = null;
+
+		elapsedTimeNanos = snapshot();
+
+		if(threshold < 1) {
+			threshold = 1;
+		}
+
+		// split the bodies into chunks across the pool, each body (and its
+		// sprite) is only ever touched by the one chunk that owns it, and
+		// the sprite damage is handed back in the damage region as the
+		// workers may not call into the game engine
+
+		if((pool == null) || (damage == null) || (count <= threshold)) {
+			integrate(0, count, elapsedTimeNanos);
+			updateSprites(0, count);
+			return;
+		}
+
+		task = new IntegrateTask(0, count, threshold, elapsedTimeNanos,
+				damage);
+		pool.invoke(task);
+		damage.add(task.damage);
+	}
+}
+
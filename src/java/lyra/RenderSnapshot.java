@@ -0,0 +1,502 @@
+/*
+ * RenderSnapshot.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A captured, render-ready copy of the visible scene state, used to hand a
+ * frame from the gameplay thread to the render thread.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.image.ImageObserver;
+
+// import internal packages
+
+import lyra.interfaces.RenderableInterface;
+
+// define class
+
+public class RenderSnapshot implements RenderableInterface
+{
+	// define public class constants
+
+	public static final int ENTRY_IMAGE = 1;
+	public static final int ENTRY_RECT = 2;
+	public static final int ENTRY_FILL_RECT = 3;
+	public static final int ENTRY_OUTLINE = 4;
+	public static final int ENTRY_TEXT = 5;
+	public static final int ENTRY_REGION = 6;
+	public static final int ENTRY_LINE = 7;
+	public static final int ENTRY_SUB_IMAGE = 8;
+	public static final int ENTRY_SHAPE = 9;
+	public static final int ENTRY_FILL_SHAPE = 10;
+	public static final int ENTRY_TRANSFORM = 11;
+	public static final int ENTRY_CLIP = 12;
+
+	// define private class constants
+
+	private static final String CLASS_NAME = RenderSnapshot.class.getName();
+	private static final int DEFAULT_CAPACITY = 256;
+
+	// define private class variables
+
+	private int count = 0;
+	private long tick = 0;
+	private int[] types = null;
+	private int[] xs = null;
+	private int[] ys = null;
+	private int[] widths = null;
+	private int[] heights = null;
+	private int[] sources = null;
+	private double[] values = null;
+	private Object[] objects = null;
+	private Color[] colors = null;
+	private Font[] fonts = null;
+	private AffineTransform transform = null;
+	private Shape clip = null;
+	private ImageObserver observer = null;
+
+	// define class private functions
+
+	private void ensureCapacity(int capacity)
+	{
+		int length = 0;
+
+		int[] newTypes = null;
+		int[] newXs = null;
+		int[] newYs = null;
+		int[] newWidths = null;
+		int[] newHeights = null;
+		int[] newSources = null;
+		double[] newValues = null;
+		Object[] newObjects = null;
+		Color[] newColors = null;
+		Font[] newFonts = null;
+
+		if(capacity <= types.length) {
+			return;
+		}
+
+		length = (types.length * 2);
+		if(length < capacity) {
+			length = capacity;
+		}
+
+		newTypes = new int[length];
+		newXs = new int[length];
+		newYs = new int[length];
+		newWidths = new int[length];
+		newHeights = new int[length];
+		newSources = new int[(length * 4)];
+		newValues = new double[length];
+		newObjects = new Object[length];
+		newColors = new Color[length];
+		newFonts = new Font[length];
+
+		System.arraycopy(types, 0, newTypes, 0, count);
+		System.arraycopy(xs, 0, newXs, 0, count);
+		System.arraycopy(ys, 0, newYs, 0, count);
+		System.arraycopy(widths, 0, newWidths, 0, count);
+		System.arraycopy(heights, 0, newHeights, 0, count);
+		System.arraycopy(sources, 0, newSources, 0, (count * 4));
+		System.arraycopy(values, 0, newValues, 0, count);
+		System.arraycopy(objects, 0, newObjects, 0, count);
+		System.arraycopy(colors, 0, newColors, 0, count);
+		System.arraycopy(fonts, 0, newFonts, 0, count);
+
+		types = newTypes;
+		xs = newXs;
+		ys = newYs;
+		widths = newWidths;
+		heights = newHeights;
+		sources = newSources;
+		values = newValues;
+		objects = newObjects;
+		colors = newColors;
+		fonts = newFonts;
+	}
+
+	private int addEntry(int type, int x, int y, int width, int height)
+	{
+		int result = 0;
+
+		ensureCapacity(count + 1);
+
+		result = count;
+		types[result] = type;
+		xs[result] = x;
+		ys[result] = y;
+		widths[result] = width;
+		heights[result] = height;
+		values[result] = 0.0;
+		objects[result] = null;
+		colors[result] = null;
+		fonts[result] = null;
+		count++;
+
+		return result;
+	}
+
+	private void renderImage(Graphics2D render, int id)
+	{
+		if(types[id] == ENTRY_REGION) {
+			((AtlasRegion)objects[id]).render2D(render, xs[id], ys[id],
+					widths[id], heights[id], observer);
+		}
+		else if(types[id] == ENTRY_SUB_IMAGE) {
+			render.drawImage((Image)objects[id], xs[id], ys[id],
+					(xs[id] + widths[id]), (ys[id] + heights[id]),
+					sources[(id * 4)], sources[((id * 4) + 1)],
+					sources[((id * 4) + 2)], sources[((id * 4) + 3)],
+					observer);
+		}
+		else {
+			render.drawImage((Image)objects[id], xs[id], ys[id], widths[id],
+					heights[id], observer);
+		}
+	}
+
+	// define class public functions
+
+	public RenderSnapshot(ImageObserver observer)
+	{
+		this(DEFAULT_CAPACITY, observer);
+	}
+
+	public RenderSnapshot(int capacity, ImageObserver observer)
+	{
+		if(capacity < 1) {
+			capacity = DEFAULT_CAPACITY;
+		}
+
+		count = 0;
+		tick = 0;
+		types = new int[capacity];
+		xs = new int[capacity];
+		ys = new int[capacity];
+		widths = new int[capacity];
+		heights = new int[capacity];
+		sources = new int[(capacity * 4)];
+		values = new double[capacity];
+		objects = new Object[capacity];
+		colors = new Color[capacity];
+		fonts = new Font[capacity];
+		transform = null;
+		clip = null;
+
+		this.observer = observer;
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public void clear()
+	{
+		int ii = 0;
+
+		// release references so that the snapshot does not pin old images
+
+		for(ii = 0; ii < count; ii++) {
+			objects[ii] = null;
+			colors[ii] = null;
+			fonts[ii] = null;
+		}
+
+		count = 0;
+		tick = 0;
+		transform = null;
+		clip = null;
+	}
+
+	public int size()
+	{
+		return count;
+	}
+
+	public long getTick()
+	{
+		return tick;
+	}
+
+	public void setTick(long tick)
+	{
+		this.tick = tick;
+	}
+
+	public void addImage(Image image, int x, int y, int width, int height)
+	{
+		addImage(image, x, y, width, height, 0.0);
+	}
+
+	public void addImage(Image image, int x, int y, int width, int height,
+			double rotation)
+	{
+		int entry = 0;
+
+		// note: the image is kept by reference, so a surface the caller
+		// keeps drawing into must be double-buffered (see Scene.snapshot())
+
+		if(image == null) {
+			return;
+		}
+
+		entry = addEntry(ENTRY_IMAGE, x, y, width, height);
+		objects[entry] = image;
+		values[entry] = rotation;
+	}
+
+	public void addRegion(AtlasRegion region, int x, int y, int width,
+			int height, double rotation)
+	{
+		int entry = 0;
+
+		if(region == null) {
+			return;
+		}
+
+		entry = addEntry(ENTRY_REGION, x, y, width, height);
+		objects[entry] = region;
+		values[entry] = rotation;
+	}
+
+	public void addRect(Color color, int x, int y, int width, int height)
+	{
+		int entry = 0;
+
+		entry = addEntry(ENTRY_RECT, x, y, width, height);
+		colors[entry] = color;
+	}
+
+	public void addFillRect(Color color, int x, int y, int width, int height)
+	{
+		int entry = 0;
+
+		entry = addEntry(ENTRY_FILL_RECT, x, y, width, height);
+		colors[entry] = color;
+	}
+
+	public void addOutline(Color color, int x, int y, int width, int height,
+			double ratio)
+	{
+		int entry = 0;
+
+		entry = addEntry(ENTRY_OUTLINE, x, y, width, height);
+		colors[entry] = color;
+		values[entry] = ratio;
+	}
+
+	public void addText(String text, Color color, Font font, int x, int y)
+	{
+		int entry = 0;
+
+		if(text == null) {
+			return;
+		}
+
+		entry = addEntry(ENTRY_TEXT, x, y, 0, 0);
+		objects[entry] = text;
+		colors[entry] = color;
+		fonts[entry] = font;
+	}
+
+	public void addSubImage(Image image, int x, int y, int width, int height,
+			int sourceX1, int sourceY1, int sourceX2, int sourceY2)
+	{
+		int entry = 0;
+
+		if(image == null) {
+			return;
+		}
+
+		entry = addEntry(ENTRY_SUB_IMAGE, x, y, width, height);
+		objects[entry] = image;
+		sources[(entry * 4)] = sourceX1;
+		sources[((entry * 4) + 1)] = sourceY1;
+		sources[((entry * 4) + 2)] = sourceX2;
+		sources[((entry * 4) + 3)] = sourceY2;
+	}
+
+	public void addLine(Color color, int x1, int y1, int x2, int y2)
+	{
+		int entry = 0;
+
+		entry = addEntry(ENTRY_LINE, x1, y1, x2, y2);
+		colors[entry] = color;
+	}
+
+	public void addShape(Color color, Shape shape, boolean isFilled)
+	{
+		int entry = 0;
+
+		// note: the shape is kept by reference, so the caller must not
+		// modify it afterwards
+
+		if(shape == null) {
+			return;
+		}
+
+		entry = addEntry((isFilled ? ENTRY_FILL_SHAPE : ENTRY_SHAPE), 0, 0,
+				0, 0);
+		objects[entry] = shape;
+		colors[entry] = color;
+	}
+
+	public void setTransform(AffineTransform transform)
+	{
+		int entry = 0;
+
+		// the transform applies to every following entry, it is only
+		// recorded (as a copy) when it changes
+
+		if((transform == null) || (transform.isIdentity())) {
+			if(this.transform == null) {
+				return;
+			}
+			this.transform = null;
+		}
+		else {
+			if(transform.equals(this.transform)) {
+				return;
+			}
+			this.transform = new AffineTransform(transform);
+		}
+
+		entry = addEntry(ENTRY_TRANSFORM, 0, 0, 0, 0);
+		objects[entry] = this.transform;
+	}
+
+	public void setClip(Shape clip)
+	{
+		int entry = 0;
+
+		// the clip is given in untransformed coordinates
+
+		if(clip == this.clip) {
+			return;
+		}
+		this.clip = clip;
+
+		entry = addEntry(ENTRY_CLIP, 0, 0, 0, 0);
+		objects[entry] = clip;
+	}
+
+	public void render2D(Graphics2D render)
+	{
+		int ii = 0;
+		int centerX = 0;
+		int centerY = 0;
+
+		Font defaultFont = null;
+		Shape defaultClip = null;
+		AffineTransform defaultTransform = null;
+		AffineTransform currentTransform = null;
+
+		try {
+			defaultFont = render.getFont();
+			defaultClip = render.getClip();
+			defaultTransform = render.getTransform();
+
+			for(ii = 0; ii < count; ii++) {
+				switch(types[ii]) {
+					case ENTRY_IMAGE:
+					case ENTRY_REGION:
+						if(values[ii] != 0.0) {
+							centerX = (xs[ii] + (widths[ii] / 2));
+							centerY = (ys[ii] + (heights[ii] / 2));
+							render.rotate(Math.toRadians(values[ii]),
+									centerX, centerY);
+							renderImage(render, ii);
+							render.rotate(Math.toRadians(-values[ii]),
+									centerX, centerY);
+						}
+						else {
+							renderImage(render, ii);
+						}
+						break;
+					case ENTRY_RECT:
+						render.setColor(colors[ii]);
+						render.drawRect(xs[ii], ys[ii], widths[ii],
+								heights[ii]);
+						break;
+					case ENTRY_FILL_RECT:
+						render.setColor(colors[ii]);
+						render.fillRect(xs[ii], ys[ii], widths[ii],
+								heights[ii]);
+						break;
+					case ENTRY_OUTLINE:
+						render.setColor(colors[ii]);
+						Sprite.renderOutline(render, xs[ii], ys[ii],
+								widths[ii], heights[ii], values[ii]);
+						break;
+					case ENTRY_TEXT:
+						if(colors[ii] != null) {
+							render.setColor(colors[ii]);
+						}
+						if(fonts[ii] != null) {
+							render.setFont(fonts[ii]);
+						}
+						else {
+							render.setFont(defaultFont);
+						}
+						render.drawString((String)objects[ii], xs[ii],
+								ys[ii]);
+						break;
+					case ENTRY_SUB_IMAGE:
+						renderImage(render, ii);
+						break;
+					case ENTRY_LINE:
+						render.setColor(colors[ii]);
+						render.drawLine(xs[ii], ys[ii], widths[ii],
+								heights[ii]);
+						break;
+					case ENTRY_SHAPE:
+						render.setColor(colors[ii]);
+						render.draw((Shape)objects[ii]);
+						break;
+					case ENTRY_FILL_SHAPE:
+						render.setColor(colors[ii]);
+						render.fill((Shape)objects[ii]);
+						break;
+					case ENTRY_TRANSFORM:
+						render.setTransform(defaultTransform);
+						if(objects[ii] != null) {
+							render.transform((AffineTransform)objects[ii]);
+						}
+						break;
+					case ENTRY_CLIP:
+						currentTransform = render.getTransform();
+						render.setTransform(defaultTransform);
+						render.setClip(defaultClip);
+						if(objects[ii] != null) {
+							render.clip((Shape)objects[ii]);
+						}
+						render.setTransform(currentTransform);
+						break;
+				}
+			}
+
+			render.setFont(defaultFont);
+			render.setClip(defaultClip);
+			render.setTransform(defaultTransform);
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ * RotationCache.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A cache of sprite images pre-rendered at a fixed number of quantized
+ * angles, so that rotating sprites are drawn with an untransformed blit.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// define class
+
+public class RotationCache
+{
+	// define public class constants
+
+	public static final int DEFAULT_STEPS = 64;
+	public static final int DEFAULT_CAPACITY = 512;
+
+	// define private class constants
+
+	private static final String CLASS_NAME = RotationCache.class.getName();
+
+	// define private class variables
+
+	private int steps = 0;
+	private int capacity = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+	private LinkedHashMap index = null;
+	private RotationKey lookupKey = null;
+	private GameEngine gameEngine = null;
+
+	// define private class objects
+
+	private class RotationKey
+	{
+		private int width = 0;
+		private int height = 0;
+		private int step = 0;
+		private Image image = null;
+
+		private RotationKey(Image image, int width, int height, int step)
+		{
+			set(image, width, height, step);
+		}
+
+		private RotationKey set(Image image, int width, int height, int step)
+		{
+			this.image = image;
+			this.width = width;
+			this.height = height;
+			this.step = step;
+			return this;
+		}
+
+		public int hashCode()
+		{
+			return ((((System.identityHashCode(image) * 31) + width) * 31 +
+						height) * 31 + step);
+		}
+
+		public boolean equals(Object object)
+		{
+			RotationKey key = null;
+
+			if(!(object instanceof RotationKey)) {
+				return false;
+			}
+
+			key = (RotationKey)object;
+
+			return ((key.image == image) && (key.width == width) &&
+					(key.height == height) && (key.step == step));
+		}
+	}
+
+	// define class private functions
+
+	private BufferedImage buildImage(int size)
+	{
+		GraphicsConfiguration configuration = null;
+
+		// prefer an image in the screen's native format, so that the blit
+		// needs no conversion
+
+		if(gameEngine != null) {
+			configuration = gameEngine.getGraphicsConfiguration();
+		}
+		if(configuration != null) {
+			return configuration.createCompatibleImage(size, size,
+					Transparency.TRANSLUCENT);
+		}
+
+		return new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	private BufferedImage renderRotation(Image image, int width, int height,
+			int step)
+	{
+		int size = 0;
+		boolean isDrawn = false;
+
+		Graphics2D render = null;
+		BufferedImage result = null;
+
+		size = getRotatedSize(width, height);
+		result = buildImage(size);
+
+		render = result.createGraphics();
+		try {
+			render.setComposite(AlphaComposite.Src);
+			render.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+					RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			render.rotate(Math.toRadians(getStepDegrees(step)),
+					((double)size / 2.0), ((double)size / 2.0));
+			isDrawn = render.drawImage(image, ((size - width) / 2),
+					((size - height) / 2), width, height, gameEngine);
+		}
+		finally {
+			render.dispose();
+		}
+
+		// an image which has not finished loading is not cached
+
+		if(!isDrawn) {
+			return null;
+		}
+
+		result.setAccelerationPriority((float)1.0);
+
+		return result;
+	}
+
+	private void evict()
+	{
+		Iterator iterator = null;
+
+		iterator = index.values().iterator();
+		while((index.size() > capacity) && (iterator.hasNext())) {
+			iterator.next();
+			iterator.remove();
+			evictionCount++;
+		}
+	}
+
+	// define class public functions
+
+	public RotationCache(GameEngine gameEngine)
+	{
+		this(DEFAULT_STEPS, DEFAULT_CAPACITY, gameEngine);
+	}
+
+	public RotationCache(int steps, int capacity, GameEngine gameEngine)
+	{
+		if(steps < 1) {
+			steps = DEFAULT_STEPS;
+		}
+		if(capacity < 1) {
+			capacity = DEFAULT_CAPACITY;
+		}
+
+		this.steps = steps;
+		this.capacity = capacity;
+		this.gameEngine = gameEngine;
+		hitCount = 0;
+		missCount = 0;
+		evictionCount = 0;
+		index = new LinkedHashMap(16, (float)0.75, true);
+		lookupKey = new RotationKey(null, 0, 0, 0);
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public int getSteps()
+	{
+		return steps;
+	}
+
+	public synchronized int getCapacity()
+	{
+		return capacity;
+	}
+
+	public synchronized void setCapacity(int capacity)
+	{
+		if(capacity < 1) {
+			capacity = DEFAULT_CAPACITY;
+		}
+		this.capacity = capacity;
+		evict();
+	}
+
+	public synchronized int size()
+	{
+		return index.size();
+	}
+
+	public synchronized long getHitCount()
+	{
+		return hitCount;
+	}
+
+	public synchronized long getMissCount()
+	{
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount()
+	{
+		return evictionCount;
+	}
+
+	public static int getRotatedSize(int width, int height)
+	{
+		// the diagonal, so that the image fits at every angle
+
+		return (int)Math.ceil(Math.sqrt((double)((width * width) +
+						(height * height))));
+	}
+
+	public int quantize(double degrees)
+	{
+		int result = 0;
+
+		result = (int)Math.round((degrees / 360.0) * (double)steps);
+		result %= steps;
+		if(result < 0) {
+			result += steps;
+		}
+
+		return result;
+	}
+
+	public double getStepDegrees(int step)
+	{
+		return (((double)step * 360.0) / (double)steps);
+	}
+
+	public synchronized BufferedImage getRotatedImage(Image image, int width,
+			int height, double degrees)
+	{
+		int step = 0;
+
+		BufferedImage result = null;
+
+		if((image == null) || (width < 1) || (height < 1)) {
+			return null;
+		}
+
+		// note: the result is a square of getRotatedSize() pixels, to be
+		// drawn centered on the sprite's center
+
+		step = quantize(degrees);
+		result = (BufferedImage)index.get(lookupKey.set(image, width, height,
+					step));
+		lookupKey.set(null, 0, 0, 0);
+		if(result != null) {
+			hitCount++;
+			return result;
+		}
+
+		missCount++;
+		result = renderRotation(image, width, height, step);
+		if(result == null) {
+			return null;
+		}
+
+		index.put(new RotationKey(image, width, height, step), result);
+		evict();
+
+		return result;
+	}
+
+	public synchronized void clear()
+	{
+		index.clear();
+	}
+}
+
@@ -18,6 +18,8 @@ package lyra;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.awt.Rectangle;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
@@ -28,18 +30,245 @@ import java.awt.event.MouseEvent;
 // import internal packages
 
 import lyra.interfaces.GraphicsInterface;
+import lyra.interfaces.LayerInterface;
 
 // define class
 
 public class Scene implements GraphicsInterface
 {
+	// define public class constants
+
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+
 	// define private class constants
 
 	private static final String CLASS_NAME = Scene.class.getName();
 
+	// define private class objects
+
+	private class SpriteUpdateTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private boolean mode = false;
+		private int start = 0;
+		private int end = 0;
+		private double frameRate = 0.0;
+		private DamageRegion region = null;
+		private DamageRegion damage = null;
+
+		private SpriteUpdateTask(int start, int end, boolean mode,
+				double frameRate, DamageRegion region)
+		{
+			this.start = start;
+			this.end = end;
+			this.mode = mode;
+			this.frameRate = frameRate;
+			this.region = region;
+		}
+
+		protected void compute()
+		{
+			int middle = 0;
+
+			SpriteUpdateTask lower = null;
+			SpriteUpdateTask upper = null;
+
+			// each chunk collects the damage of its own sprites, the chunks
+			// are then merged as they join
+
+			if((end - start) <= parallelThreshold) {
+				damage = new DamageRegion(region.getWidth(),
+						region.getHeight());
+				updateSprites(start, end, mode, frameRate, damage);
+				return;
+			}
+
+			middle = (start + ((end - start) / 2));
+			lower = new SpriteUpdateTask(start, middle, mode, frameRate,
+					region);
+			upper = new SpriteUpdateTask(middle, end, mode, frameRate,
+					region);
+			invokeAll(lower, upper);
+
+			damage = lower.damage;
+			damage.add(upper.damage);
+		}
+	}
+
+	private class TileLayer implements LayerInterface
+	{
+		public void renderLayer(Graphics2D render, int x, int y, int width,
+				int height)
+		{
+			int ii = 0;
+
+			Tile tile = null;
+
+			// include the tiles whose one pixel border reaches into the area
+
+			layerQuery.clear();
+			tileGrid.query((x - 1), (y - 1), (width + 1), (height + 1),
+					layerQuery);
+
+			for(ii = 0; ii < layerQuery.size(); ii++) {
+				tile = (Tile)layerQuery.get(ii);
+				tile.render2D(render, tile.getX(), tile.getY());
+			}
+			layerQuery.clear();
+		}
+	}
+
+	// define class private functions
+
+	private int getSpriteCount()
+	{
+		int ii = 0;
+
+		// the sprite-set is processed up to its first empty entry
+
+		for(ii = 0; ii < spriteSet.size(); ii++) {
+			if(spriteSet.get(ii) == null) {
+				break;
+			}
+		}
+
+		return ii;
+	}
+
+	private DamageRegion createDamageRegion()
+	{
+		// the window size is read on the game thread, before forking
+
+		return new DamageRegion(gameEngine.getWindowWidth(),
+				gameEngine.getWindowHeight());
+	}
+
+	private void updateSprites(int start, int end, boolean mode,
+			double frameRate, DamageRegion damage)
+	{
+		int ii = 0;
+		int cameraX = 0;
+		int cameraY = 0;
+		int windowWidth = 0;
+		int windowHeight = 0;
+
+		Sprite sprite = null;
+
+		cameraX = camera.getCameraX();
+		cameraY = camera.getCameraY();
+		windowWidth = camera.getWindowWidth();
+		windowHeight = camera.getWindowHeight();
+
+		for(ii = start; ii < end; ii++) {
+			sprite = (Sprite)spriteSet.get(ii);
+
+			if(sprite.isStatic()) {
+				continue;
+			}
+
+			sprite.setDamageCollector(damage);
+
+			if(mode) {
+				sprite.processGameplay(frameRate);
+			}
+
+			sprite.applyCamera(cameraX, cameraY, windowWidth, windowHeight);
+
+			sprite.setDamageCollector(null);
+		}
+	}
+
+	private void renderScene(Graphics2D render, boolean isDamageOnly)
+	{
+		Iterator iterator = null;
+		Tile tile = null;
+		Sprite sprite = null;
+		Rectangle bounds = null;
+
+		try {
+			offsetX = (0 - camera.getCameraX());
+			offsetY = (0 - camera.getCameraY());
+
+			// render background set (from the cached layer chunks, when
+			// enabled)
+
+			if(layerCache != null) {
+				layerCache.render2D(render, camera.getCameraX(),
+						camera.getCameraY(), camera.getWindowWidth(),
+						camera.getWindowHeight(), isDamageOnly);
+			}
+			else {
+				iterator = visibleTiles.iterator();
+				while(iterator.hasNext()) {
+					tile = (Tile)iterator.next();
+					if(tile == null) {
+						break;
+					}
+					if(!tile.isVisible()) {
+						continue;
+					}
+					if(isDamageOnly) {
+						bounds = tile.getDamageBounds();
+						if(!gameEngine.isDamaged(bounds.x, bounds.y,
+									bounds.width, bounds.height)) {
+							continue;
+						}
+					}
+					tile.render2D(render);
+				}
+			}
+
+			// render sprite set
+
+			iterator = spriteSet.iterator();
+			while(iterator.hasNext()) {
+				sprite = (Sprite)iterator.next();
+				if(sprite == null) {
+					break;
+				}
+				if(!sprite.isVisible()) {
+					continue;
+				}
+				if(isDamageOnly) {
+					bounds = sprite.getDamageBounds();
+					if(!gameEngine.isDamaged(bounds.x, bounds.y,
+								bounds.width, bounds.height)) {
+						continue;
+					}
+				}
+				sprite.render2D(render);
+			}
+
+			if(debugMode) {
+				render.setColor(Color.blue);
+				render.fillOval(((spriteCenterX - 4) + offsetX),
+						((spriteCenterY - 4) + offsetY), 8, 8);
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	private ArrayList queryTiles(int screenX, int screenY, int width,
+			int height)
+	{
+		// tiles compare screen locations using the camera offset applied at
+		// the last culling pass, convert back to world coordinates using it
+
+		tileQuery.clear();
+		tileGrid.query((screenX + tileCameraX), (screenY + tileCameraY),
+				width, height, tileQuery);
+
+		return tileQuery;
+	}
+
 	// define private class variables
 
 	protected boolean debugMode = false;
+	protected boolean isParallelMode = false;
+	protected int parallelThreshold = 0;
 	protected int x = 0;
 	protected int y = 0;
 	protected int width = 0;
@@ -48,15 +277,66 @@ public class Scene implements GraphicsInterface
 	protected int offsetY = 0;
 	protected int spriteCenterX = 0;
 	protected int spriteCenterY = 0;
+	protected int tileCameraX = 0;
+	protected int tileCameraY = 0;
 	protected String name = null;
 	protected String cameraSpriteName = null;
 	protected ArrayList tileSet = null;
+	protected ArrayList visibleTiles = null;
+	protected ArrayList cullingTiles = null;
+	protected ArrayList tileQuery = null;
+	protected SpatialGrid tileGrid = null;
+	protected ArrayList layerQuery = null;
+	protected LayerCache layerCache = null;
+	protected CollisionSystem collisionSystem = null;
+	protected PhysicsWorld physicsWorld = null;
+	protected ForkJoinPool forkJoinPool = null;
 	protected ArrayList spriteSet = null;
 	protected HashMap spritePhysics = null;
 	protected Camera camera = null;
 	protected BufferedImage renderBuffer = null;
+	protected BufferedImage spareBuffer = null;
 	protected GameEngine gameEngine = null;
 
+	// define class protected functions
+
+	protected BufferedImage obtainSnapshotBuffer() throws Exception
+	{
+		int counter = 0;
+
+		// a snapshot handed out may still be drawn by the render thread (in
+		// pipelined mode), so each new snapshot is drawn into the spare
+		// buffer rather than the one last returned
+
+		if((spareBuffer == null) || (spareBuffer.getWidth() != width) ||
+				(spareBuffer.getHeight() != height)) {
+			spareBuffer = (BufferedImage)gameEngine.createImage(width,
+					height);
+			counter = 0;
+			while((counter < 8) && (spareBuffer == null)) {
+				counter++;
+				spareBuffer = (BufferedImage)gameEngine.createImage(width,
+						height);
+			}
+			if(spareBuffer == null) {
+				throw new Exception("failed to build rendering buffer");
+			}
+		}
+
+		return spareBuffer;
+	}
+
+	protected Image swapSnapshotBuffers()
+	{
+		BufferedImage buffer = null;
+
+		buffer = renderBuffer;
+		renderBuffer = spareBuffer;
+		spareBuffer = buffer;
+
+		return (Image)renderBuffer;
+	}
+
 	// define class public functions
 
 	public Scene(String name, int x, int y, int width, int height,
@@ -70,16 +350,30 @@ public class Scene implements GraphicsInterface
 		this.gameEngine = gameEngine;
 
 		debugMode = false;
+		isParallelMode = false;
+		parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 		offsetX = 0;
 		offsetY = 0;
 		spriteCenterX = 0;
 		spriteCenterY = 0;
+		tileCameraX = 0;
+		tileCameraY = 0;
 		cameraSpriteName = null;
 		tileSet = new ArrayList();
+		visibleTiles = new ArrayList();
+		cullingTiles = new ArrayList();
+		tileQuery = new ArrayList();
+		tileGrid = new SpatialGrid();
+		layerQuery = new ArrayList();
+		layerCache = null;
+		collisionSystem = new CollisionSystem(this);
+		physicsWorld = new PhysicsWorld();
+		forkJoinPool = null;
 		spriteSet = new ArrayList();
 		spritePhysics = new HashMap();
 		camera = new Camera(name + "Camera", x, y, width, height);
 		renderBuffer = null;
+		spareBuffer = null;
 	}
 
 	public String getClassName()
@@ -155,6 +449,45 @@ public class Scene implements GraphicsInterface
 		debugMode = mode;
 	}
 
+	public boolean isParallelMode()
+	{
+		return isParallelMode;
+	}
+
+	public synchronized void setParallelMode(boolean mode)
+	{
+		if(mode == isParallelMode) {
+			return;
+		}
+
+		// the pool is only created (and its threads only started) when a
+		// scene opts in to parallel updates
+
+		if(mode) {
+			forkJoinPool = new ForkJoinPool(
+					Runtime.getRuntime().availableProcessors());
+		}
+		else {
+			forkJoinPool.shutdown();
+			forkJoinPool = null;
+		}
+
+		isParallelMode = mode;
+	}
+
+	public int getParallelThreshold()
+	{
+		return parallelThreshold;
+	}
+
+	public void setParallelThreshold(int threshold)
+	{
+		if(threshold < 1) {
+			threshold = 1;
+		}
+		parallelThreshold = threshold;
+	}
+
 	public String getCameraSpriteName()
 	{
 		return cameraSpriteName;
@@ -167,8 +500,68 @@ public class Scene implements GraphicsInterface
 
 	public void commitTile(Tile tile, int x, int y)
 	{
+		tile.setLayerCache(layerCache);
 		tile.setLocation(x, y);
 		tileSet.add(tile);
+
+		// index the tile, it then keeps the grid current as it moves
+
+		tileGrid.add(tile);
+		tile.setSpatialGrid(tileGrid);
+
+		if(tile.isVisible()) {
+			visibleTiles.add(tile);
+		}
+	}
+
+	public boolean isLayerCacheMode()
+	{
+		return (layerCache != null);
+	}
+
+	public void setLayerCacheMode(boolean mode)
+	{
+		int ii = 0;
+
+		if(mode == (layerCache != null)) {
+			return;
+		}
+
+		// the tile-set is drawn from chunks of pre-rendered tiles, which the
+		// tiles invalidate as they change
+
+		if(mode) {
+			layerCache = new LayerCache(new TileLayer(), gameEngine);
+		}
+		else {
+			layerCache = null;
+		}
+
+		for(ii = 0; ii < tileSet.size(); ii++) {
+			((Tile)tileSet.get(ii)).setLayerCache(layerCache);
+		}
+
+		gameEngine.invalidate(x, y, width, height);
+	}
+
+	public LayerCache getLayerCache()
+	{
+		return layerCache;
+	}
+
+	public SpatialGrid getTileGrid()
+	{
+		return tileGrid;
+	}
+
+	public ArrayList getVisibleTiles()
+	{
+		return visibleTiles;
+	}
+
+	public CollisionSystem getCollisionSystem()
+	{
+		return collisionSystem;
 	}
 
 	public void commitSprite(Sprite sprite, int x, int y)
@@ -188,48 +581,97 @@ public class Scene implements GraphicsInterface
 
 	public void commitSpritePhysics(String spriteName, SpritePhysics physics)
 	{
-		spritePhysics.put(spriteName, physics);
+		SpritePhysics previous = null;
+
+		// move the body into the scene's world so that it is integrated with
+		// the other bodies, releasing any body it replaces
+
+		previous = (SpritePhysics)spritePhysics.put(spriteName, physics);
+		if((previous != null) && (previous != physics)) {
+			previous.setPhysicsWorld(new PhysicsWorld(1));
+		}
+
+		physics.setPhysicsWorld(physicsWorld);
+	}
+
+	public PhysicsWorld getPhysicsWorld()
+	{
+		return physicsWorld;
 	}
 
 	public void updateScene(boolean mode, double frameRate)
 	{
+		int count = 0;
+		int cameraX = 0;
+		int cameraY = 0;
+		int windowWidth = 0;
+		int windowHeight = 0;
+
 		Iterator iterator = null;
 		Tile tile = null;
-		Sprite sprite = null;
+		ArrayList list = null;
+		SpriteUpdateTask task = null;
 
 		try {
-			// apply camera to tile-set (check the tile-set for visiblity)
+			// the camera (or scene) has changed, repaint the whole scene
 
-			iterator = tileSet.iterator();
+			gameEngine.invalidate(x, y, width, height);
+
+			// apply camera to tile-set (check the tile-set for visiblity),
+			// hiding the previously visible tiles and then revealing those
+			// in the grid cells under the camera window
+
+			cameraX = camera.getCameraX();
+			cameraY = camera.getCameraY();
+			windowWidth = camera.getWindowWidth();
+			windowHeight = camera.getWindowHeight();
+
+			iterator = visibleTiles.iterator();
 			while(iterator.hasNext()) {
 				tile = (Tile)iterator.next();
 				if(tile == null) {
 					break;
 				}
 
-				tile.applyCamera(camera.getCameraX(), camera.getCameraY(),
-						camera.getWindowWidth(), camera.getWindowHeight());
+				tile.applyCamera(cameraX, cameraY, windowWidth, windowHeight);
 			}
 
-			// process the sprite-set gameplay and check them for visibility
+			cullingTiles.clear();
+			tileGrid.query(cameraX, cameraY, windowWidth, windowHeight,
+					cullingTiles);
 
-			iterator = spriteSet.iterator();
+			iterator = cullingTiles.iterator();
 			while(iterator.hasNext()) {
-				sprite = (Sprite)iterator.next();
-				if(sprite == null) {
-					break;
-				}
-
-				if(sprite.isStatic()) {
-					continue;
-				}
-
-				if(mode) {
-					sprite.processGameplay(frameRate);
+				tile = (Tile)iterator.next();
+				if(!tile.applyCamera(cameraX, cameraY, windowWidth,
+							windowHeight)) {
+					iterator.remove();
 				}
+			}
 
-				sprite.applyCamera(camera.getCameraX(), camera.getCameraY(),
-						camera.getWindowWidth(), camera.getWindowHeight());
+			list = visibleTiles;
+			visibleTiles = cullingTiles;
+			cullingTiles = list;
+			cullingTiles.clear();
+
+			tileCameraX = cameraX;
+			tileCameraY = cameraY;
+
+			// process the sprite-set gameplay and check them for visibility,
+			// each sprite is independent so they may be split across cores,
+			// the workers never call back into the game engine (whose
+			// monitor is held by the game thread) so their damage is merged
+			// here once they have all joined
+
+			count = getSpriteCount();
+			if((isParallelMode) && (count > parallelThreshold)) {
+				task = new SpriteUpdateTask(0, count, mode, frameRate,
+						createDamageRegion());
+				forkJoinPool.invoke(task);
+				gameEngine.invalidate(task.damage);
+			}
+			else {
+				updateSprites(0, count, mode, frameRate, null);
 			}
 		}
 		catch(Exception e) {
@@ -240,13 +682,13 @@ public class Scene implements GraphicsInterface
 	public void processGameplay(double frameRate)
 	{
 		boolean cameraMoved = false;
-		boolean hasCenterpoint = false;
 		double friction = 0.0;
 
 		Iterator iterator = null;
 		Tile tile = null;
 		Sprite sprite = null;
 		SpritePhysics physics = null;
+		DamageRegion damage = null;
 
 		try {
 			// determine current friction status
@@ -256,7 +698,8 @@ public class Scene implements GraphicsInterface
 
 			friction = SpritePhysics.DEFAULT_FRICTION;
 
-			iterator = tileSet.iterator();
+			iterator = queryTiles((spriteCenterX + offsetX),
+					(spriteCenterY + offsetY), 0, 0).iterator();
 			while(iterator.hasNext()) {
 				tile = (Tile)iterator.next();
 				if(tile == null) {
@@ -271,30 +714,36 @@ public class Scene implements GraphicsInterface
 				}
 			}
 
-			// process the sprite physics
-
-			iterator = spriteSet.iterator();
-			while(iterator.hasNext()) {
-				sprite = (Sprite)iterator.next();
-				if(sprite == null) {
-					break;
-				}
-
-				if(!hasCenterpoint) {
+			if(spriteSet.size() > 0) {
+				sprite = (Sprite)spriteSet.get(0);
+				if(sprite != null) {
 					spriteCenterX = (sprite.getX() + (sprite.getWidth() / 2));
 					spriteCenterY = (sprite.getY() + (sprite.getHeight() / 2));
-					hasCenterpoint = true;
 				}
+			}
 
-				physics = (SpritePhysics)spritePhysics.get(sprite.getName());
-				if(physics != null) {
-					physics.setFriction(friction);
-					physics.processGameplay();
-					if(sprite.getName().equals(cameraSpriteName)) {
-						camera.applyCameraDiff(sprite.getCameraDiffX(),
-								sprite.getCameraDiffY());
-					}
-				}
+			// process the sprite physics, every body in one pass with a
+			// single shared timestep
+
+			physicsWorld.setFriction(friction);
+			if(isParallelMode) {
+				damage = createDamageRegion();
+				physicsWorld.processGameplay(forkJoinPool, parallelThreshold,
+						damage);
+				gameEngine.invalidate(damage);
+			}
+			else {
+				physicsWorld.processGameplay();
+			}
+
+			// then the sequential phase, camera-follow & collisions are
+			// resolved in a fixed order
+
+			physics = (SpritePhysics)spritePhysics.get(cameraSpriteName);
+			if(physics != null) {
+				sprite = physics.getSprite();
+				camera.applyCameraDiff(sprite.getCameraDiffX(),
+						sprite.getCameraDiffY());
 			}
 
 			cameraMoved = camera.hasMoved();
@@ -314,6 +763,7 @@ public class Scene implements GraphicsInterface
 	{
 		Iterator spriteIterator = null;
 		Iterator tileIterator = null;
+		Rectangle location = null;
 		Tile tile = null;
 		Sprite sprite = null;
 
@@ -325,13 +775,16 @@ public class Scene implements GraphicsInterface
 					break;
 				}
 
-				tileIterator = tileSet.iterator();
+				location = sprite.getLocation();
+				tileIterator = queryTiles(location.x, location.y,
+						location.width, location.height).iterator();
 				while(tileIterator.hasNext()) {
 					tile = (Tile)tileIterator.next();
 					if(tile == null) {
 						break;
 					}
-					if(tile.detectCollision(sprite.getLocation())) {
+					if(tile.detectCollision(location.x, location.y,
+								location.width, location.height)) {
 						return sprite;
 					}
 				}
@@ -348,80 +801,14 @@ public class Scene implements GraphicsInterface
 			int yDiff, long simulateMillis)
 	{
 		boolean cameraChanged = false;
-		int ii = 0;
-
-		Iterator spriteIterator = null;
-		Iterator tileIterator = null;
-		Tile tile = null;
-		Sprite sprite = null;
-		SpritePhysics physics = null;
 
 		try {
-			spriteIterator = spriteSet.iterator();
-			while(spriteIterator.hasNext()) {
-				sprite = (Sprite)spriteIterator.next();
-				if(sprite == null) {
-					break;
-				}
+			// static mode nudges colliding sprites out of tiles by the given
+			// difference, dynamic mode resolves sprite versus tile & sprite
+			// versus sprite contacts at their time of impact
 
-				if(sprite.isStatic()) {
-					continue;
-				}
-
-				tileIterator = tileSet.iterator();
-				while(tileIterator.hasNext()) {
-					tile = (Tile)tileIterator.next();
-					if(tile == null) {
-						break;
-					}
-
-					if((tile.detectCollision(sprite.getLocation())) &&
-							(!tile.canIntersect())) {
-						if(dynamicMode) {
-							/*
-							 * TODO: this
-							 */
-						}
-						else {
-							physics = (SpritePhysics)spritePhysics.get(
-									sprite.getName());
-							while(tile.detectCollision(sprite.getLocation())) {
-								if(physics != null) {
-									physics.setLocation(
-											(sprite.getX() + xDiff),
-											(sprite.getY() + yDiff));
-								}
-								else {
-									sprite.setLocation(
-											(sprite.getX() + xDiff),
-											(sprite.getY() + yDiff));
-								}
-								if(sprite.getName().equals(cameraSpriteName)) {
-									camera.applyCameraDiff(
-											sprite.getCameraDiffX(),
-											sprite.getCameraDiffY());
-									cameraChanged = true;
-								}
-							}
-							if((physics != null) && (physics.willBounce())) {
-								if((xDiff != 0) && (yDiff != 0)) {
-									physics.antiGravityBounce(true, true,
-											simulateMillis);
-								}
-								else if(xDiff != 0) {
-									physics.antiGravityBounce(true, false,
-											simulateMillis);
-								}
-								else if(yDiff != 0) {
-									physics.antiGravityBounce(false, true,
-											simulateMillis);
-								}
-							}
-						}
-						break;
-					}
-				}
-			}
+			cameraChanged = collisionSystem.process(dynamicMode, xDiff, yDiff,
+					simulateMillis);
 
 			if(cameraChanged) {
 				updateScene(false, 0.0);
@@ -482,46 +869,26 @@ public class Scene implements GraphicsInterface
 
 	public Image snapshot()
 	{
-		int counter = 0;
-
 		Image result = null;
+		BufferedImage buffer = null;
 		Graphics2D render2D = null;
 
 		try {
-			// setup rendering buffer
-
-			if((renderBuffer == null) || (renderBuffer.getGraphics() == null)) {
-				renderBuffer = (BufferedImage)gameEngine.createImage(width,
-						height);
-				counter = 0;
-				while((counter < 8) &&
-						((renderBuffer == null) ||
-						 (renderBuffer.getGraphics() == null))) {
-					counter++;
-					renderBuffer = (BufferedImage)gameEngine.createImage(width,
-							height);
-				}
-				if((renderBuffer == null) ||
-						(renderBuffer.getGraphics() == null)) {
-					throw new Exception("failed to build rendering buffer");
-				}
+			// perform scene render to the spare buffer
+
+			buffer = obtainSnapshotBuffer();
+			render2D = buffer.createGraphics();
+			try {
+				render2D.setColor(gameEngine.getBackground());
+				render2D.fillRect(0, 0, width, height);
+				render2D.setColor(gameEngine.getForeground());
+				this.renderScene(render2D, false);
 			}
-
-			// test rendering buffer
-
-			if((renderBuffer == null) || (renderBuffer.getGraphics() == null)) {
-				throw new Exception("unable to perform snapshot render");
+			finally {
+				render2D.dispose();
 			}
 
-			// perform scene render to buffer
-
-			render2D = (Graphics2D)renderBuffer.getGraphics();
-			render2D.setColor(gameEngine.getBackground());
-			render2D.fillRect(0, 0, width, height);
-			render2D.setColor(gameEngine.getForeground());
-			this.render2D(render2D);
-
-			result = (Image)renderBuffer;
+			result = swapSnapshotBuffers();
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -530,7 +897,7 @@ public class Scene implements GraphicsInterface
 		return result;
 	}
 
-	public void render2D(Graphics2D render)
+	public void captureRenderState(RenderSnapshot snapshot)
 	{
 		Iterator iterator = null;
 		Tile tile = null;
@@ -540,20 +907,27 @@ public class Scene implements GraphicsInterface
 			offsetX = (0 - camera.getCameraX());
 			offsetY = (0 - camera.getCameraY());
 
-			// render background set
+			// capture background set
 
-			iterator = tileSet.iterator();
-			while(iterator.hasNext()) {
-				tile = (Tile)iterator.next();
-				if(tile == null) {
-					break;
-				}
-				if(tile.isVisible()) {
-					tile.render2D(render);
+			if(layerCache != null) {
+				layerCache.captureRenderState(snapshot, camera.getCameraX(),
+						camera.getCameraY(), camera.getWindowWidth(),
+						camera.getWindowHeight());
+			}
+			else {
+				iterator = visibleTiles.iterator();
+				while(iterator.hasNext()) {
+					tile = (Tile)iterator.next();
+					if(tile == null) {
+						break;
+					}
+					if(tile.isVisible()) {
+						tile.captureRenderState(snapshot);
+					}
 				}
 			}
 
-			// render sprite set
+			// capture sprite set
 
 			iterator = spriteSet.iterator();
 			while(iterator.hasNext()) {
@@ -562,13 +936,12 @@ public class Scene implements GraphicsInterface
 					break;
 				}
 				if(sprite.isVisible()) {
-					sprite.render2D(render);
+					sprite.captureRenderState(snapshot);
 				}
 			}
 
 			if(debugMode) {
-				render.setColor(Color.blue);
-				render.fillOval(((spriteCenterX - 4) + offsetX),
+				snapshot.addFillRect(Color.blue, ((spriteCenterX - 4) + offsetX),
 						((spriteCenterY - 4) + offsetY), 8, 8);
 			}
 		}
@@ -576,5 +949,10 @@ public class Scene implements GraphicsInterface
 			e.printStackTrace();
 		}
 	}
+
+	public void render2D(Graphics2D render)
+	{
+		renderScene(render, gameEngine.isDirtyRectangleMode());
+	}
 }
 
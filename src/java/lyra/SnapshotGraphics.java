@@ -0,0 +1,622 @@
+/*
+ * SnapshotGraphics.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A graphics context which records drawing into a render snapshot rather
+ * than rasterizing it, so that widgets & game overlays written against
+ * Graphics2D can be captured for the pipelined renderer.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+import java.text.CharacterIterator;
+import java.util.Map;
+
+// define class
+
+public class SnapshotGraphics extends Graphics2D
+{
+	// define private class constants
+
+	private static final String CLASS_NAME = SnapshotGraphics.class.getName();
+
+	// define private class variables
+
+	private Color color = null;
+	private Color background = null;
+	private Font font = null;
+	private Shape clip = null;
+	private AffineTransform transform = null;
+	private RenderSnapshot snapshot = null;
+	private Graphics2D metrics = null;
+
+	// define class private functions
+
+	private RenderSnapshot record()
+	{
+		// bring the snapshot's transform & clip up to date with this
+		// context before an entry is added
+
+		snapshot.setTransform(transform);
+		snapshot.setClip(clip);
+
+		return snapshot;
+	}
+
+	private void recordShape(Shape shape, boolean isFilled)
+	{
+		if(shape instanceof Rectangle) {
+			if(isFilled) {
+				fillRect(((Rectangle)shape).x, ((Rectangle)shape).y,
+						((Rectangle)shape).width, ((Rectangle)shape).height);
+			}
+			else {
+				drawRect(((Rectangle)shape).x, ((Rectangle)shape).y,
+						((Rectangle)shape).width, ((Rectangle)shape).height);
+			}
+			return;
+		}
+
+		// note: other shapes are copied, as the caller may reuse them
+
+		record().addShape(color, new GeneralPath(shape), isFilled);
+	}
+
+	private boolean recordImage(Image image, int x, int y, int width,
+			int height)
+	{
+		if((image == null) || (width < 0) || (height < 0)) {
+			return false;
+		}
+		record().addImage(image, x, y, width, height);
+		return true;
+	}
+
+	// define class public functions
+
+	public SnapshotGraphics(Graphics2D metrics)
+	{
+		color = Color.white;
+		background = Color.black;
+		font = null;
+		clip = null;
+		transform = new AffineTransform();
+		snapshot = null;
+		this.metrics = metrics;
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public void reset(RenderSnapshot snapshot, Color color, Color background,
+			Font font)
+	{
+		this.snapshot = snapshot;
+		this.color = color;
+		this.background = background;
+		this.font = font;
+		clip = null;
+		transform.setToIdentity();
+	}
+
+	public RenderSnapshot getSnapshot()
+	{
+		return snapshot;
+	}
+
+	// graphics state
+
+	public Graphics create()
+	{
+		SnapshotGraphics result = null;
+
+		result = new SnapshotGraphics(metrics);
+		result.reset(snapshot, color, background, font);
+		result.clip = clip;
+		result.transform.setTransform(transform);
+
+		return result;
+	}
+
+	public void dispose()
+	{
+		// do nothing
+	}
+
+	public Color getColor()
+	{
+		return color;
+	}
+
+	public void setColor(Color color)
+	{
+		if(color != null) {
+			this.color = color;
+		}
+	}
+
+	public Paint getPaint()
+	{
+		return color;
+	}
+
+	public void setPaint(Paint paint)
+	{
+		// note: only solid colors are recorded
+
+		if(paint instanceof Color) {
+			setColor((Color)paint);
+		}
+	}
+
+	public Color getBackground()
+	{
+		return background;
+	}
+
+	public void setBackground(Color color)
+	{
+		background = color;
+	}
+
+	public Font getFont()
+	{
+		return font;
+	}
+
+	public void setFont(Font font)
+	{
+		if(font != null) {
+			this.font = font;
+		}
+	}
+
+	public FontMetrics getFontMetrics(Font font)
+	{
+		return metrics.getFontMetrics(font);
+	}
+
+	public FontRenderContext getFontRenderContext()
+	{
+		return metrics.getFontRenderContext();
+	}
+
+	public GraphicsConfiguration getDeviceConfiguration()
+	{
+		return metrics.getDeviceConfiguration();
+	}
+
+	public void setPaintMode()
+	{
+		// do nothing
+	}
+
+	public void setXORMode(Color color)
+	{
+		// do nothing, only paint mode is recorded
+	}
+
+	public Composite getComposite()
+	{
+		return metrics.getComposite();
+	}
+
+	public void setComposite(Composite composite)
+	{
+		// do nothing, entries are always composited over the frame
+	}
+
+	public Stroke getStroke()
+	{
+		return metrics.getStroke();
+	}
+
+	public void setStroke(Stroke stroke)
+	{
+		// do nothing, lines are recorded with the default stroke
+	}
+
+	public Object getRenderingHint(RenderingHints.Key key)
+	{
+		return metrics.getRenderingHint(key);
+	}
+
+	public void setRenderingHint(RenderingHints.Key key, Object value)
+	{
+		// do nothing, the renderer's hints apply
+	}
+
+	public RenderingHints getRenderingHints()
+	{
+		return metrics.getRenderingHints();
+	}
+
+	public void setRenderingHints(Map hints)
+	{
+		// do nothing, the renderer's hints apply
+	}
+
+	public void addRenderingHints(Map hints)
+	{
+		// do nothing, the renderer's hints apply
+	}
+
+	// transform functions
+
+	public AffineTransform getTransform()
+	{
+		return new AffineTransform(transform);
+	}
+
+	public void setTransform(AffineTransform transform)
+	{
+		this.transform.setTransform(transform);
+	}
+
+	public void transform(AffineTransform transform)
+	{
+		this.transform.concatenate(transform);
+	}
+
+	public void translate(int x, int y)
+	{
+		transform.translate(x, y);
+	}
+
+	public void translate(double x, double y)
+	{
+		transform.translate(x, y);
+	}
+
+	public void rotate(double theta)
+	{
+		transform.rotate(theta);
+	}
+
+	public void rotate(double theta, double x, double y)
+	{
+		transform.rotate(theta, x, y);
+	}
+
+	public void scale(double x, double y)
+	{
+		transform.scale(x, y);
+	}
+
+	public void shear(double x, double y)
+	{
+		transform.shear(x, y);
+	}
+
+	// clip functions (the clip is held untransformed)
+
+	public Shape getClip()
+	{
+		if(clip == null) {
+			return null;
+		}
+		try {
+			return transform.createInverse().createTransformedShape(clip);
+		}
+		catch(Exception e) {
+			return null;
+		}
+	}
+
+	public Rectangle getClipBounds()
+	{
+		Shape result = getClip();
+
+		if(result == null) {
+			return null;
+		}
+		return result.getBounds();
+	}
+
+	public void setClip(Shape clip)
+	{
+		if(clip == null) {
+			this.clip = null;
+		}
+		else {
+			this.clip = transform.createTransformedShape(clip);
+		}
+	}
+
+	public void setClip(int x, int y, int width, int height)
+	{
+		setClip(new Rectangle(x, y, width, height));
+	}
+
+	public void clip(Shape shape)
+	{
+		Area area = null;
+
+		if(clip == null) {
+			setClip(shape);
+			return;
+		}
+
+		area = new Area(clip);
+		area.intersect(new Area(transform.createTransformedShape(shape)));
+		clip = area;
+	}
+
+	public void clipRect(int x, int y, int width, int height)
+	{
+		clip(new Rectangle(x, y, width, height));
+	}
+
+	public boolean hit(Rectangle rectangle, Shape shape, boolean onStroke)
+	{
+		return shape.intersects(rectangle);
+	}
+
+	// primitive drawing functions
+
+	public void drawLine(int x1, int y1, int x2, int y2)
+	{
+		record().addLine(color, x1, y1, x2, y2);
+	}
+
+	public void drawRect(int x, int y, int width, int height)
+	{
+		record().addRect(color, x, y, width, height);
+	}
+
+	public void fillRect(int x, int y, int width, int height)
+	{
+		record().addFillRect(color, x, y, width, height);
+	}
+
+	public void clearRect(int x, int y, int width, int height)
+	{
+		record().addFillRect(background, x, y, width, height);
+	}
+
+	public void drawRoundRect(int x, int y, int width, int height,
+			int arcWidth, int arcHeight)
+	{
+		recordShape(new RoundRectangle2D.Float(x, y, width, height,
+					arcWidth, arcHeight), false);
+	}
+
+	public void fillRoundRect(int x, int y, int width, int height,
+			int arcWidth, int arcHeight)
+	{
+		recordShape(new RoundRectangle2D.Float(x, y, width, height,
+					arcWidth, arcHeight), true);
+	}
+
+	public void drawOval(int x, int y, int width, int height)
+	{
+		recordShape(new Ellipse2D.Float(x, y, width, height), false);
+	}
+
+	public void fillOval(int x, int y, int width, int height)
+	{
+		recordShape(new Ellipse2D.Float(x, y, width, height), true);
+	}
+
+	public void drawArc(int x, int y, int width, int height, int startAngle,
+			int arcAngle)
+	{
+		recordShape(new Arc2D.Float(x, y, width, height, startAngle,
+					arcAngle, Arc2D.OPEN), false);
+	}
+
+	public void fillArc(int x, int y, int width, int height, int startAngle,
+			int arcAngle)
+	{
+		recordShape(new Arc2D.Float(x, y, width, height, startAngle,
+					arcAngle, Arc2D.PIE), true);
+	}
+
+	public void drawPolyline(int[] xPoints, int[] yPoints, int points)
+	{
+		int ii = 0;
+
+		GeneralPath path = null;
+
+		if(points < 1) {
+			return;
+		}
+
+		path = new GeneralPath();
+		path.moveTo(xPoints[0], yPoints[0]);
+		for(ii = 1; ii < points; ii++) {
+			path.lineTo(xPoints[ii], yPoints[ii]);
+		}
+		record().addShape(color, path, false);
+	}
+
+	public void drawPolygon(int[] xPoints, int[] yPoints, int points)
+	{
+		recordShape(new Polygon(xPoints, yPoints, points), false);
+	}
+
+	public void fillPolygon(int[] xPoints, int[] yPoints, int points)
+	{
+		recordShape(new Polygon(xPoints, yPoints, points), true);
+	}
+
+	public void draw(Shape shape)
+	{
+		recordShape(shape, false);
+	}
+
+	public void fill(Shape shape)
+	{
+		recordShape(shape, true);
+	}
+
+	public void copyArea(int x, int y, int width, int height, int dx, int dy)
+	{
+		// do nothing, there are no recorded pixels to copy
+	}
+
+	// text drawing functions
+
+	public void drawString(String text, int x, int y)
+	{
+		record().addText(text, color, font, x, y);
+	}
+
+	public void drawString(String text, float x, float y)
+	{
+		drawString(text, (int)x, (int)y);
+	}
+
+	public void drawString(AttributedCharacterIterator iterator, int x, int y)
+	{
+		char value = 0;
+		StringBuffer text = null;
+
+		// note: only the characters are recorded, not their attributes
+
+		text = new StringBuffer();
+		for(value = iterator.first(); value != CharacterIterator.DONE;
+				value = iterator.next()) {
+			text.append(value);
+		}
+		drawString(text.toString(), x, y);
+	}
+
+	public void drawString(AttributedCharacterIterator iterator, float x,
+			float y)
+	{
+		drawString(iterator, (int)x, (int)y);
+	}
+
+	public void drawGlyphVector(GlyphVector glyphs, float x, float y)
+	{
+		record().addShape(color, glyphs.getOutline(x, y), true);
+	}
+
+	// image drawing functions
+
+	public boolean drawImage(Image image, int x, int y,
+			ImageObserver observer)
+	{
+		if(image == null) {
+			return false;
+		}
+		return recordImage(image, x, y, image.getWidth(observer),
+				image.getHeight(observer));
+	}
+
+	public boolean drawImage(Image image, int x, int y, int width, int height,
+			ImageObserver observer)
+	{
+		return recordImage(image, x, y, width, height);
+	}
+
+	public boolean drawImage(Image image, int x, int y, Color color,
+			ImageObserver observer)
+	{
+		return drawImage(image, x, y, observer);
+	}
+
+	public boolean drawImage(Image image, int x, int y, int width, int height,
+			Color color, ImageObserver observer)
+	{
+		return recordImage(image, x, y, width, height);
+	}
+
+	public boolean drawImage(Image image, int dx1, int dy1, int dx2, int dy2,
+			int sx1, int sy1, int sx2, int sy2, ImageObserver observer)
+	{
+		if(image == null) {
+			return false;
+		}
+		record().addSubImage(image, dx1, dy1, (dx2 - dx1), (dy2 - dy1), sx1,
+				sy1, sx2, sy2);
+		return true;
+	}
+
+	public boolean drawImage(Image image, int dx1, int dy1, int dx2, int dy2,
+			int sx1, int sy1, int sx2, int sy2, Color color,
+			ImageObserver observer)
+	{
+		return drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2,
+				observer);
+	}
+
+	public boolean drawImage(Image image, AffineTransform transform,
+			ImageObserver observer)
+	{
+		AffineTransform saved = null;
+		boolean result = false;
+
+		saved = getTransform();
+		this.transform.concatenate(transform);
+		result = drawImage(image, 0, 0, observer);
+		this.transform.setTransform(saved);
+
+		return result;
+	}
+
+	public void drawImage(BufferedImage image, BufferedImageOp operation,
+			int x, int y)
+	{
+		// note: the filter is applied now, as the source may change before
+		// the snapshot is rendered
+
+		if(operation != null) {
+			image = operation.filter(image, null);
+		}
+		drawImage(image, x, y, null);
+	}
+
+	public void drawRenderedImage(RenderedImage image,
+			AffineTransform transform)
+	{
+		if(image instanceof BufferedImage) {
+			drawImage((BufferedImage)image, transform, null);
+		}
+	}
+
+	public void drawRenderableImage(RenderableImage image,
+			AffineTransform transform)
+	{
+		drawRenderedImage(image.createDefaultRendering(), transform);
+	}
+}
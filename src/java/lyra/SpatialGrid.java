@@ -0,0 +1,402 @@
+/*
+ * SpatialGrid.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A uniform grid spatial index of graphical components keyed on world
+ * coordinates, used to limit culling and collision queries to nearby cells.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+// import internal packages
+
+import lyra.interfaces.GraphicsInterface;
+
+// define class
+
+public class SpatialGrid
+{
+	// define public class constants
+
+	public static final int DEFAULT_CELL_SIZE = 128;
+
+	// define private class constants
+
+	private static final String CLASS_NAME = SpatialGrid.class.getName();
+
+	// define private class variables
+
+	private int cellSize = 0;
+	private long sequence = 0;
+	private long stamp = 0;
+	private HashMap cells = null;
+	private HashMap entries = null;
+	private int matchCount = 0;
+	private Entry[] matches = null;
+	private Comparator comparator = null;
+	private CellKey lookupKey = null;
+
+	// define private class objects
+
+	private class Entry
+	{
+		private long sequence = 0;
+		private long stamp = 0;
+		private int minCellX = 0;
+		private int minCellY = 0;
+		private int maxCellX = 0;
+		private int maxCellY = 0;
+		private GraphicsInterface item = null;
+
+		private Entry(long sequence, GraphicsInterface item)
+		{
+			this.sequence = sequence;
+			this.item = item;
+		}
+	}
+
+	private class CellKey
+	{
+		private int cellX = 0;
+		private int cellY = 0;
+
+		private CellKey(int cellX, int cellY)
+		{
+			this.cellX = cellX;
+			this.cellY = cellY;
+		}
+
+		private CellKey set(int cellX, int cellY)
+		{
+			this.cellX = cellX;
+			this.cellY = cellY;
+			return this;
+		}
+
+		public int hashCode()
+		{
+			return ((cellX * 92821) ^ cellY);
+		}
+
+		public boolean equals(Object object)
+		{
+			CellKey key = null;
+
+			if(!(object instanceof CellKey)) {
+				return false;
+			}
+
+			key = (CellKey)object;
+
+			return ((key.cellX == cellX) && (key.cellY == cellY));
+		}
+	}
+
+	private class SequenceComparator implements Comparator
+	{
+		public int compare(Object first, Object second)
+		{
+			long firstSequence = ((Entry)first).sequence;
+			long secondSequence = ((Entry)second).sequence;
+
+			if(firstSequence < secondSequence) {
+				return -1;
+			}
+			else if(firstSequence > secondSequence) {
+				return 1;
+			}
+			return 0;
+		}
+	}
+
+	// define class private functions
+
+	private int toCell(int value)
+	{
+		// round towards negative infinity so that negative world coordinates
+		// do not share cell zero
+
+		if(value >= 0) {
+			return (value / cellSize);
+		}
+		return (((value + 1) / cellSize) - 1);
+	}
+
+	private void insert(Entry entry)
+	{
+		int cellX = 0;
+		int cellY = 0;
+
+		ArrayList cell = null;
+
+		for(cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+			for(cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+				cell = (ArrayList)cells.get(lookupKey.set(cellX, cellY));
+				if(cell == null) {
+					cell = new ArrayList();
+					cells.put(new CellKey(cellX, cellY), cell);
+				}
+				cell.add(entry);
+			}
+		}
+	}
+
+	private void extract(Entry entry)
+	{
+		int cellX = 0;
+		int cellY = 0;
+
+		ArrayList cell = null;
+
+		for(cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+			for(cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+				cell = (ArrayList)cells.get(lookupKey.set(cellX, cellY));
+				if(cell == null) {
+					continue;
+				}
+				cell.remove(entry);
+				if(cell.size() == 0) {
+					cells.remove(lookupKey);
+				}
+			}
+		}
+	}
+
+	private void addMatch(Entry entry)
+	{
+		Entry[] newMatches = null;
+
+		if(matchCount >= matches.length) {
+			newMatches = new Entry[matches.length * 2];
+			System.arraycopy(matches, 0, newMatches, 0, matchCount);
+			matches = newMatches;
+		}
+
+		matches[matchCount] = entry;
+		matchCount++;
+	}
+
+	private void calculateCells(Entry entry)
+	{
+		GraphicsInterface item = entry.item;
+
+		// the right & bottom edges are inclusive, matching the camera tests
+		// performed by Tile.applyCamera() and Sprite.applyCamera()
+
+		entry.minCellX = toCell(item.getX());
+		entry.minCellY = toCell(item.getY());
+		entry.maxCellX = toCell(item.getX() + Math.max(item.getWidth(), 0));
+		entry.maxCellY = toCell(item.getY() + Math.max(item.getHeight(), 0));
+	}
+
+	// define class public functions
+
+	public SpatialGrid()
+	{
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	public SpatialGrid(int cellSize)
+	{
+		if(cellSize < 1) {
+			cellSize = DEFAULT_CELL_SIZE;
+		}
+
+		this.cellSize = cellSize;
+		sequence = 0;
+		stamp = 0;
+		cells = new HashMap();
+		entries = new HashMap();
+		matchCount = 0;
+		matches = new Entry[64];
+		comparator = new SequenceComparator();
+		lookupKey = new CellKey(0, 0);
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public int getCellSize()
+	{
+		return cellSize;
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	public synchronized int getCellCount()
+	{
+		return cells.size();
+	}
+
+	public synchronized boolean contains(GraphicsInterface item)
+	{
+		return entries.containsKey(item);
+	}
+
+	public synchronized void add(GraphicsInterface item)
+	{
+		Entry entry = null;
+
+		if((item == null) || (entries.containsKey(item))) {
+			return;
+		}
+
+		entry = new Entry(sequence, item);
+		sequence++;
+
+		calculateCells(entry);
+		insert(entry);
+		entries.put(item, entry);
+	}
+
+	public synchronized void update(GraphicsInterface item)
+	{
+		int minCellX = 0;
+		int minCellY = 0;
+		int maxCellX = 0;
+		int maxCellY = 0;
+
+		Entry entry = null;
+
+		if(item == null) {
+			return;
+		}
+
+		entry = (Entry)entries.get(item);
+		if(entry == null) {
+			return;
+		}
+
+		// only re-bucket the item when it has crossed a cell boundary
+
+		minCellX = toCell(item.getX());
+		minCellY = toCell(item.getY());
+		maxCellX = toCell(item.getX() + Math.max(item.getWidth(), 0));
+		maxCellY = toCell(item.getY() + Math.max(item.getHeight(), 0));
+
+		if((minCellX == entry.minCellX) && (minCellY == entry.minCellY) &&
+				(maxCellX == entry.maxCellX) &&
+				(maxCellY == entry.maxCellY)) {
+			return;
+		}
+
+		extract(entry);
+
+		entry.minCellX = minCellX;
+		entry.minCellY = minCellY;
+		entry.maxCellX = maxCellX;
+		entry.maxCellY = maxCellY;
+
+		insert(entry);
+	}
+
+	public synchronized void remove(GraphicsInterface item)
+	{
+		Entry entry = null;
+
+		if(item == null) {
+			return;
+		}
+
+		entry = (Entry)entries.remove(item);
+		if(entry != null) {
+			extract(entry);
+		}
+	}
+
+	public synchronized void clear()
+	{
+		cells.clear();
+		entries.clear();
+		sequence = 0;
+	}
+
+	public synchronized int query(int x, int y, int width, int height,
+			ArrayList result)
+	{
+		int ii = 0;
+		int nn = 0;
+		int cellX = 0;
+		int cellY = 0;
+		int minCellX = 0;
+		int minCellY = 0;
+		int maxCellX = 0;
+		int maxCellY = 0;
+
+		Entry entry = null;
+		ArrayList cell = null;
+
+		if(result == null) {
+			return 0;
+		}
+
+		// note: the result is a superset of the items intersecting the given
+		// rectangle (edges inclusive), returned in the order they were added,
+		// callers must still perform their own exact test
+
+		minCellX = toCell(x);
+		minCellY = toCell(y);
+		maxCellX = toCell(x + Math.max(width, 0));
+		maxCellY = toCell(y + Math.max(height, 0));
+
+		// stamp each visited entry so that items spanning several cells are
+		// only reported once
+
+		stamp++;
+		matchCount = 0;
+
+		for(cellY = minCellY; cellY <= maxCellY; cellY++) {
+			for(cellX = minCellX; cellX <= maxCellX; cellX++) {
+				cell = (ArrayList)cells.get(lookupKey.set(cellX, cellY));
+				if(cell == null) {
+					continue;
+				}
+				for(ii = 0; ii < cell.size(); ii++) {
+					entry = (Entry)cell.get(ii);
+					if(entry.stamp == stamp) {
+						continue;
+					}
+					entry.stamp = stamp;
+					addMatch(entry);
+				}
+			}
+		}
+
+		// small ranges are sorted in place without allocating
+
+		Arrays.sort(matches, 0, matchCount, comparator);
+
+		nn = matchCount;
+		for(ii = 0; ii < nn; ii++) {
+			result.add(matches[ii].item);
+			matches[ii] = null;
+		}
+		matchCount = 0;
+
+		return nn;
+	}
+
+	public int query(int x, int y, ArrayList result)
+	{
+		return query(x, y, 0, 0, result);
+	}
+}
+
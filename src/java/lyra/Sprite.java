@@ -19,6 +19,7 @@ import java.awt.Rectangle;
 import java.awt.Image;
 import java.awt.Graphics2D;
 import java.awt.Color;
+import java.awt.image.BufferedImage;
 import java.awt.event.MouseEvent;
 
 // import internal packages
@@ -98,6 +99,12 @@ public class Sprite implements GraphicsInterface
 	protected int outlineHeight = 0;
 	protected int lastX = 0;
 	protected int lastY = 0;
+	protected int previousX = 0;
+	protected int previousY = 0;
+	protected int previousOffsetX = 0;
+	protected int previousOffsetY = 0;
+	protected long previousTick = -1;
+	protected Rectangle renderedBounds = null;
 	protected int offsetX = 0;
 	protected int offsetY = 0;
 	protected int direction = 0;
@@ -115,10 +122,58 @@ public class Sprite implements GraphicsInterface
 	protected Color outlineColor = null;
 	protected Image outlineImage = null;
 	protected Image images[] = null;
+	protected Image regionImages[] = null;
+	protected AtlasRegion regions[] = null;
 	protected GameEngine gameEngine = null;
+	protected DamageRegion damageCollector = null;
 
 	// define class private functions
 
+	private AtlasRegion obtainRegion()
+	{
+		TextureAtlas atlas = null;
+
+		if((gameEngine == null) || (images[direction] == null)) {
+			return null;
+		}
+
+		atlas = gameEngine.getTextureAtlas();
+		if(atlas == null) {
+			return null;
+		}
+
+		// pack the current image on first use (or when it has changed, or
+		// the atlas has reused its space), an image the atlas can not hold
+		// is drawn directly and not offered to the atlas again
+
+		if((regionImages[direction] != images[direction]) ||
+				((regions[direction] != null) &&
+				 (!regions[direction].isValid()))) {
+			regions[direction] = atlas.add(images[direction]);
+			regionImages[direction] = images[direction];
+		}
+
+		return regions[direction];
+	}
+
+	private BufferedImage obtainRotatedImage()
+	{
+		RotationCache rotationCache = null;
+
+		if((currentRotation == 0.0) || (gameEngine == null) ||
+				(images[direction] == null)) {
+			return null;
+		}
+
+		rotationCache = gameEngine.getRotationCache();
+		if(rotationCache == null) {
+			return null;
+		}
+
+		return rotationCache.getRotatedImage(images[direction], width, height,
+				currentRotation);
+	}
+
 	private void calculateRotation(double frameRate)
 	{
 		double degreesPerMilli = 0.0;
@@ -139,6 +194,182 @@ public class Sprite implements GraphicsInterface
 		}
 	}
 
+	private void trackPreviousState()
+	{
+		long tick = 0;
+
+		// record the pre-tick position once per simulation tick, so that the
+		// renderer can blend between the previous and current positions
+
+		if(gameEngine == null) {
+			return;
+		}
+
+		tick = gameEngine.getTicks();
+		if(tick != previousTick) {
+			previousX = x;
+			previousY = y;
+			previousOffsetX = offsetX;
+			previousOffsetY = offsetY;
+			previousTick = tick;
+		}
+	}
+
+	private int interpolate(int previous, int current)
+	{
+		double alpha = 0.0;
+
+		if((gameEngine == null) || (previousTick != gameEngine.getTicks())) {
+			return current;
+		}
+
+		alpha = gameEngine.getRenderAlpha();
+		if(alpha >= 1.0) {
+			return current;
+		}
+
+		return (previous + (int)((double)(current - previous) * alpha));
+	}
+
+	private Rectangle buildDamageBounds(int screenX, int screenY)
+	{
+		int boundsWidth = 0;
+		int boundsHeight = 0;
+		int extent = 0;
+
+		// cover the outline (which may be larger than the sprite) and the
+		// one pixel overhang of stroked outlines
+
+		boundsWidth = (Math.max(width, outlineWidth) + 1);
+		boundsHeight = (Math.max(height, outlineHeight) + 1);
+
+		// a rotating sprite may sweep out to its diagonal
+
+		if(currentRotation != 0.0) {
+			extent = ((int)Math.ceil(Math.sqrt((double)((width * width) +
+								(height * height)))) + 2);
+			if(extent > boundsWidth) {
+				screenX -= ((extent - width) / 2);
+				boundsWidth = extent;
+			}
+			if(extent > boundsHeight) {
+				screenY -= ((extent - height) / 2);
+				boundsHeight = extent;
+			}
+		}
+
+		return new Rectangle(screenX, screenY, boundsWidth, boundsHeight);
+	}
+
+	private void damage(int damageX, int damageY, int damageWidth,
+			int damageHeight)
+	{
+		// while updated on a worker thread the damage is collected for the
+		// scene to merge, as the engine monitor is held by the game thread
+
+		if(damageCollector != null) {
+			damageCollector.invalidate(damageX, damageY, damageWidth,
+					damageHeight);
+		}
+		else {
+			gameEngine.invalidate(damageX, damageY, damageWidth,
+					damageHeight);
+		}
+	}
+
+	private void damageAll()
+	{
+		if(damageCollector != null) {
+			damageCollector.invalidateAll();
+		}
+		else {
+			gameEngine.invalidateAll();
+		}
+	}
+
+	private void invalidateAt(int screenX, int screenY)
+	{
+		Rectangle bounds = null;
+
+		if((gameEngine == null) || (!gameEngine.isDirtyRectangleMode())) {
+			return;
+		}
+
+		// debug text is drawn outside of the sprite bounds
+
+		if(debugMode) {
+			damageAll();
+			return;
+		}
+
+		bounds = buildDamageBounds(screenX, screenY);
+		damage(bounds.x, bounds.y, bounds.width, bounds.height);
+	}
+
+	// define class protected functions
+
+	protected void setDamageCollector(DamageRegion region)
+	{
+		damageCollector = region;
+	}
+
+	protected void invalidate()
+	{
+		if((gameEngine == null) || (!gameEngine.isDirtyRectangleMode())) {
+			return;
+		}
+
+		// damage both where the sprite was last drawn and where it is now
+
+		if(renderedBounds != null) {
+			if(debugMode) {
+				damageAll();
+				return;
+			}
+			damage(renderedBounds.x, renderedBounds.y, renderedBounds.width,
+					renderedBounds.height);
+		}
+		if(isVisible) {
+			invalidateAt((previousX + previousOffsetX),
+					(previousY + previousOffsetY));
+			invalidateAt((x + offsetX), (y + offsetY));
+		}
+	}
+
+	// define class public static functions
+
+	public static void renderOutline(Graphics2D render, int x, int y,
+			int width, int height, double ratio)
+	{
+		int lengthX = 0;
+		int lengthY = 0;
+
+		lengthX = (int)((double)width * (ratio / 100.0));
+		lengthY = (int)((double)height * (ratio / 100.0));
+
+		// draw outline top
+
+		render.drawLine(x, y, (x + lengthX), y);
+		render.drawLine(((x + width) - lengthX), y, (x + width), y);
+
+		// draw outline right
+
+		render.drawLine((x + width), y, (x + width), (y + lengthY));
+		render.drawLine((x + width), (y + (height - lengthY)), (x + width),
+				(y + height));
+
+		// draw outline bottom
+
+		render.drawLine((x + width), (y + height), ((x + width) - lengthX),
+				(y + height));
+		render.drawLine((x + lengthX), (y + height), x, (y + height));
+
+		// draw outline left
+
+		render.drawLine(x, (y + height), x, (y + (height - lengthY)));
+		render.drawLine(x, (y + lengthY), x, y);
+	}
+
 	// define class public functions
 
 	public Sprite(String name, int x, int y, int width, int height,
@@ -155,6 +386,12 @@ public class Sprite implements GraphicsInterface
 		offsetY = 0;
 		lastX = 0;
 		lastY = 0;
+		previousX = x;
+		previousY = y;
+		previousOffsetX = 0;
+		previousOffsetY = 0;
+		previousTick = -1;
+		renderedBounds = null;
 		direction = DEFAULT_STARTING_DIRECTION;
 		destDirection = DEFAULT_STARTING_DIRECTION;
 		nextDirection = DEFAULT_STARTING_DIRECTION;
@@ -169,6 +406,8 @@ public class Sprite implements GraphicsInterface
 		outlineColor = Color.blue;
 		outlineImage = null;
 		images = new Image[DIRECTIONS];
+		regionImages = new Image[DIRECTIONS];
+		regions = new AtlasRegion[DIRECTIONS];
 
 		this.name = name;
 		this.x = x;
@@ -212,14 +451,17 @@ public class Sprite implements GraphicsInterface
 
 	public void setLocation(int x, int y)
 	{
+		trackPreviousState();
 		lastX = this.x;
 		lastY = this.y;
 		this.x = x;
 		this.y = y;
+		invalidate();
 	}
 
 	public void setSizes(int width, int height)
 	{
+		invalidate();
 		if(this.width == outlineWidth) {
 			outlineWidth = width;
 		}
@@ -228,6 +470,7 @@ public class Sprite implements GraphicsInterface
 			outlineHeight = height;
 		}
 		this.height = height;
+		invalidate();
 	}
 
 	public void resize(int width, int height)
@@ -237,6 +480,7 @@ public class Sprite implements GraphicsInterface
 
 		Texture texture = null;
 
+		invalidate();
 		this.width = width;
 		this.height = height;
 
@@ -266,6 +510,7 @@ public class Sprite implements GraphicsInterface
 					}
 				}
 			}
+			invalidate();
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -282,6 +527,11 @@ public class Sprite implements GraphicsInterface
 		return isVisible;
 	}
 
+	public Rectangle getDamageBounds()
+	{
+		return buildDamageBounds(getRenderX(), getRenderY());
+	}
+
 	public boolean isStatic()
 	{
 		return isStatic;
@@ -309,7 +559,10 @@ public class Sprite implements GraphicsInterface
 
 	public void setHasOutline(boolean mode)
 	{
-		hasOutline = mode;
+		if(hasOutline != mode) {
+			hasOutline = mode;
+			invalidate();
+		}
 	}
 
 	public void setOutlineRatio(double ratio)
@@ -357,7 +610,7 @@ public class Sprite implements GraphicsInterface
 	{
 		isSelected = mode;
 		if(isOutline) {
-			hasOutline = mode;
+			setHasOutline(mode);
 		}
 	}
 
@@ -368,11 +621,15 @@ public class Sprite implements GraphicsInterface
 				(x <= (cameraX + cameraWidth)) &&
 				((y >= cameraY) || ((y + height) >= cameraY)) &&
 				(y <= (cameraY + cameraHeight))) {
+			trackPreviousState();
 			isVisible = true;
 			offsetX = (0 - cameraX);
 			offsetY = (0 - cameraY);
 		}
 		else {
+			if(isVisible) {
+				invalidate();
+			}
 			isVisible = false;
 		}
 
@@ -389,6 +646,16 @@ public class Sprite implements GraphicsInterface
 		return (offsetY + y);
 	}
 
+	public int getRenderX()
+	{
+		return interpolate((previousX + previousOffsetX), (x + offsetX));
+	}
+
+	public int getRenderY()
+	{
+		return interpolate((previousY + previousOffsetY), (y + offsetY));
+	}
+
 	public int getOffsetX()
 	{
 		return offsetX;
@@ -403,6 +670,7 @@ public class Sprite implements GraphicsInterface
 	{
 		offsetX = x;
 		offsetY = y;
+		invalidate();
 	}
 
 	public int getCameraDiffX()
@@ -428,6 +696,9 @@ public class Sprite implements GraphicsInterface
 	public void setDebugMode(boolean mode)
 	{
 		debugMode = mode;
+		if(gameEngine != null) {
+			gameEngine.invalidateAll();
+		}
 	}
 
 	public void setImageTexture(int direction, String imageName)
@@ -442,6 +713,7 @@ public class Sprite implements GraphicsInterface
 					AssetCache.TYPE_TEXTURE, imageName);
 			texture.buildMipMap(width, height);
 			images[direction] = texture.getMipMap(width, height);
+			invalidate();
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -455,6 +727,7 @@ public class Sprite implements GraphicsInterface
 				return;
 			}
 			images[direction] = image;
+			invalidate();
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -484,6 +757,7 @@ public class Sprite implements GraphicsInterface
 		this.direction = direction;
 		this.destDirection = direction;
 		this.nextDirection = direction;
+		invalidate();
 	}
 
 	public int getDirection()
@@ -534,13 +808,13 @@ public class Sprite implements GraphicsInterface
 					(mouseY <= ((y + offsetY) + height))) {
 				isSelected = true;
 				if(isOutline) {
-					hasOutline = true;
+					setHasOutline(true);
 				}
 			}
 			else {
 				isSelected = false;
 				if(isOutline) {
-					hasOutline = false;
+					setHasOutline(false);
 				}
 			}
 		}
@@ -552,10 +826,10 @@ public class Sprite implements GraphicsInterface
 		if((mouseX >= (x + offsetX)) && (mouseX <= ((x + offsetX) + width)) &&
 				(mouseY >= (y + offsetY)) &&
 				(mouseY <= ((y + offsetY) + height))) {
-			hasOutline = true;
+			setHasOutline(true);
 		}
 		else {
-			hasOutline = false;
+			setHasOutline(false);
 		}
 	}
 
@@ -596,34 +870,124 @@ public class Sprite implements GraphicsInterface
 				currentRotation = 0.0;
 			}
 		}
+
+		// the sprite is rotating, repaint it every tick
+
+		invalidate();
+	}
+
+	public void captureRenderState(RenderSnapshot snapshot)
+	{
+		int renderX = 0;
+		int renderY = 0;
+
+		AtlasRegion region = null;
+		BufferedImage rotated = null;
+
+		if(!isVisible) {
+			return;
+		}
+
+		renderX = getRenderX();
+		renderY = getRenderY();
+
+		rotated = obtainRotatedImage();
+		region = obtainRegion();
+		if(rotated != null) {
+			snapshot.addImage(rotated,
+					(renderX + ((width - rotated.getWidth()) / 2)),
+					(renderY + ((height - rotated.getHeight()) / 2)),
+					rotated.getWidth(), rotated.getHeight());
+		}
+		else if(region != null) {
+			snapshot.addRegion(region, renderX, renderY, width, height,
+					currentRotation);
+		}
+		else {
+			snapshot.addImage(images[direction], renderX, renderY, width,
+					height, currentRotation);
+		}
+
+		if((isOutline) && (hasOutline)) {
+			if(outlineImage == null) {
+				snapshot.addOutline(outlineColor, renderX, renderY,
+						outlineWidth, outlineHeight, outlineRatio);
+			}
+			else {
+				snapshot.addImage(outlineImage, renderX, renderY,
+						outlineWidth, outlineHeight);
+			}
+		}
+
+		if(debugMode) {
+			snapshot.addText("Sprite{" + name + "}[" +
+					DIRECTION_NAMES[direction] + "]@(" + renderX + ", " +
+					renderY + "):" + width + "x" + height, Color.white, null,
+					(renderX - 4), (renderY - 4));
+			snapshot.addRect(Color.red, renderX, renderY, width, height);
+		}
 	}
 
 	public void render2D(Graphics2D render)
 	{
+		int renderX = 0;
+		int renderY = 0;
+
+		AtlasRegion region = null;
+		BufferedImage rotated = null;
+
 		try {
 			if(!isVisible) {
 				return;
 			}
 
-			// perform sprite rotation
+			renderX = getRenderX();
+			renderY = getRenderY();
 
-			if(currentRotation != 0.0) {
-				render.rotate(Math.toRadians(currentRotation),
-						((x + offsetX) + (width / 2)),
-						((y + offsetY) + (height / 2)));
+			if((gameEngine != null) && (gameEngine.isDirtyRectangleMode())) {
+				renderedBounds = buildDamageBounds(renderX, renderY);
 			}
 
-			// render sprite
+			// a rotating sprite is drawn from the pre-rotated image cache
+			// (when enabled) with an untransformed blit
 
-			render.drawImage(images[direction], (x + offsetX), (y + offsetY),
-					width, height, gameEngine);
+			rotated = obtainRotatedImage();
+			if(rotated != null) {
+				render.drawImage(rotated,
+						(renderX + ((width - rotated.getWidth()) / 2)),
+						(renderY + ((height - rotated.getHeight()) / 2)),
+						gameEngine);
+			}
+			else {
+				// perform sprite rotation
 
-			// perform counter-rotation (reset rendering to normal rotation)
+				if(currentRotation != 0.0) {
+					render.rotate(Math.toRadians(currentRotation),
+							(renderX + (width / 2)),
+							(renderY + (height / 2)));
+				}
 
-			if(currentRotation != 0.0) {
-				render.rotate(Math.toRadians(-currentRotation),
-						((x + offsetX) + (width / 2)),
-						((y + offsetY) + (height / 2)));
+				// render sprite (from the texture atlas when it has been
+				// packed)
+
+				region = obtainRegion();
+				if(region != null) {
+					region.render2D(render, renderX, renderY, width, height,
+							gameEngine);
+				}
+				else {
+					render.drawImage(images[direction], renderX, renderY,
+							width, height, gameEngine);
+				}
+
+				// perform counter-rotation (reset rendering to normal
+				// rotation)
+
+				if(currentRotation != 0.0) {
+					render.rotate(Math.toRadians(-currentRotation),
+							(renderX + (width / 2)),
+							(renderY + (height / 2)));
+				}
 			}
 
 			// render outline (if set & mouse hover-over)
@@ -631,61 +995,12 @@ public class Sprite implements GraphicsInterface
 			if((isOutline) && (hasOutline)) {
 				if(outlineImage == null) {
 					render.setColor(outlineColor);
-
-					// draw outline top
-
-					render.drawLine((x + offsetX), (y + offsetY),
-							((x + offsetX) + (int)((double)outlineWidth *
-								(outlineRatio / 100.0))), (y + offsetY));
-					render.drawLine(
-							(((x + offsetX) + outlineWidth) -
-							 (int)((double)outlineWidth *
-								 (outlineRatio / 100.0))),
-							(y + offsetY), ((x + offsetX) + outlineWidth),
-							(y + offsetY));
-
-					// draw outline right
-
-					render.drawLine(((x + offsetX) + outlineWidth),
-							(y + offsetY), ((x + offsetX) + outlineWidth),
-							((y + offsetY) + (int)((double)outlineHeight *
-								(outlineRatio / 100.00))));
-					render.drawLine(((x + offsetX) + outlineWidth),
-							((y + offsetY) + (outlineHeight -
-								(int)((double)outlineHeight *
-									(outlineRatio / 100.00)))),
-							((x + offsetX) + outlineWidth),
-							((y + offsetY) + outlineHeight));
-
-					// draw outline bottom
-
-					render.drawLine(((x + offsetX) + outlineWidth),
-							((y + offsetY) + outlineHeight),
-							(((x + offsetX) + outlineWidth) -
-							 (int)((double)outlineWidth *
-								 (outlineRatio / 100.0))),
-							((y + offsetY) + outlineHeight));
-					render.drawLine(((x + offsetX) +
-								(int)((double)outlineWidth *
-									(outlineRatio / 100.0))),
-							((y + offsetY) + outlineHeight), (x + offsetX),
-							((y + offsetY) + outlineHeight));
-
-					// draw outline left
-
-					render.drawLine((x + offsetX),
-							((y + offsetY) + outlineHeight), (x + offsetX),
-							((y + offsetY) + (outlineHeight -
-								(int)((double)outlineHeight *
-									(outlineRatio / 100.00)))));
-					render.drawLine((x + offsetX),
-							((y + offsetY) + (int)((double)outlineHeight *
-								(outlineRatio / 100.00))),
-							(x + offsetX), (y + offsetY));
+					renderOutline(render, renderX, renderY, outlineWidth,
+							outlineHeight, outlineRatio);
 				}
 				else {
-					render.drawImage(outlineImage, (x + offsetX),
-							(y + offsetY), outlineWidth, outlineHeight,
+					render.drawImage(outlineImage, renderX,
+							renderY, outlineWidth, outlineHeight,
 							gameEngine);
 				}
 			}
@@ -695,11 +1010,11 @@ public class Sprite implements GraphicsInterface
 			if(debugMode) {
 				render.setColor(Color.white);
 				render.drawString("Sprite{" + name + "}[" +
-						DIRECTION_NAMES[direction] + "]@(" + (x + offsetX) +
-						", " + (y + offsetY) + "):" + width + "x" + height,
-						((x + offsetX) - 4), ((y + offsetY) - 4));
+						DIRECTION_NAMES[direction] + "]@(" + renderX +
+						", " + renderY + "):" + width + "x" + height,
+						(renderX - 4), (renderY - 4));
 				render.setColor(Color.red);
-				render.drawRect((x + offsetX), (y + offsetY), width, height);
+				render.drawRect(renderX, renderY, width, height);
 			}
 		}
 		catch(Exception e) {
@@ -35,33 +35,14 @@ public class SpritePhysics
 
 	// define protected class variables
 
-	protected boolean usingTurbo = false;
-	protected boolean isSliding = false;
-	protected boolean hasFriction = false;
-	protected boolean hasGravity = false;
-	protected boolean willBounce = false;
-	protected int direction = 0;
-	protected int gravityDirection = 0;
-	protected long currentTimeNanos = 0;
-	protected long elapsedTimeNanos = 0;
-	protected double x = 0.0;
-	protected double y = 0.0;
-	protected double xSpeed = 0.0;
-	protected double ySpeed = 0.0;
-	protected double xBoost = 0.0;
-	protected double yBoost = 0.0;
+	// note: the physics state is held by the physics world, in parallel
+	// arrays indexed by body id, this class is a view onto a single body
+
+	protected int bodyId = 0;
 	protected double xSpeedCalc = 0.0;
 	protected double ySpeedCalc = 0.0;
-	protected double thrust = 0.0;
-	protected double turboThrust = 0.0;
 	protected double thrustCalc = 0.0;
-	protected double currentThrust = 0.0;
-	protected double gravity = 0.0;
-	protected double friction = 0.0;
-	protected double frictionModifier = 0.0;
-	protected double lowestPixelRate = 0.0;
-	protected double highestPixelRate = 0.0;
-	protected double defaultRotateTimeSeconds = 0.0;
+	protected PhysicsWorld world = null;
 	protected Sprite sprite = null;
 
 	// define class private functions
@@ -70,118 +51,41 @@ public class SpritePhysics
 	{
 		double millisPerFrame = 0.0;
 
-		millisPerFrame = ((double)elapsedTimeNanos / 1000000.0);
+		millisPerFrame = ((double)world.elapsedTimes[bodyId] / 1000000.0);
 
 		xSpeedCalc = 0.0;
 		ySpeedCalc = 0.0;
 
-		switch(localDirection) {
-			case Sprite.DIRECTION_NORTH:
-				ySpeedCalc -= ((localThrust * 4.0) * millisPerFrame);
-				break;
-			case Sprite.DIRECTION_NORTH_NORTH_EAST:
-				xSpeedCalc += (((localThrust * 2.0) * 0.894454) *
-						millisPerFrame);
-				ySpeedCalc -= (((localThrust * 4.0) * 0.894454) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_NORTH_EAST:
-				xSpeedCalc += (((localThrust * 4.0) * 0.707106) *
-						millisPerFrame);
-				ySpeedCalc -= (((localThrust * 4.0) * 0.707106) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_NORTH_EAST_NORTH:
-				xSpeedCalc += (((localThrust * 4.0) * 0.894454) *
-						millisPerFrame);
-				ySpeedCalc -= (((localThrust * 2.0) * 0.894454) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_EAST:
-				xSpeedCalc += ((localThrust * 4.0) * millisPerFrame);
-				break;
-			case Sprite.DIRECTION_SOUTH_EAST_SOUTH:
-				xSpeedCalc += (((localThrust * 4.0) * 0.894454) *
-						millisPerFrame);
-				ySpeedCalc += (((localThrust * 2.0) * 0.894454) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_SOUTH_EAST:
-				xSpeedCalc += (((localThrust * 4.0) * 0.707106) *
-						millisPerFrame);
-				ySpeedCalc += (((localThrust * 4.0) * 0.707106) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_SOUTH_SOUTH_EAST:
-				xSpeedCalc += (((localThrust * 2.0) * 0.894454) *
-						millisPerFrame);
-				ySpeedCalc += (((localThrust * 4.0) * 0.894454) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_SOUTH:
-				ySpeedCalc += ((localThrust * 4.0) * millisPerFrame);
-				break;
-			case Sprite.DIRECTION_SOUTH_SOUTH_WEST:
-				xSpeedCalc -= (((localThrust * 2.0) * 0.894454) *
-						millisPerFrame);
-				ySpeedCalc += (((localThrust * 4.0) * 0.894454) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_SOUTH_WEST:
-				xSpeedCalc -= (((localThrust * 4.0) * 0.707106) *
-						millisPerFrame);
-				ySpeedCalc += (((localThrust * 4.0) * 0.707106) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_SOUTH_WEST_SOUTH:
-				xSpeedCalc -= (((localThrust * 4.0) * 0.894454) *
-						millisPerFrame);
-				ySpeedCalc += (((localThrust * 2.0) * 0.894454) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_WEST:
-				xSpeedCalc -= ((localThrust * 4.0) * millisPerFrame);
-				break;
-			case Sprite.DIRECTION_NORTH_WEST_NORTH:
-				xSpeedCalc -= (((localThrust * 4.0) * 0.894454) *
-						millisPerFrame);
-				ySpeedCalc -= (((localThrust * 2.0) * 0.894454) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_NORTH_WEST:
-				xSpeedCalc -= (((localThrust * 4.0) * 0.707106) *
-						millisPerFrame);
-				ySpeedCalc -= (((localThrust * 4.0) * 0.707106) *
-						millisPerFrame);
-				break;
-			case Sprite.DIRECTION_NORTH_NORTH_WEST:
-				xSpeedCalc -= (((localThrust * 2.0) * 0.894454) *
-						millisPerFrame);
-				ySpeedCalc -= (((localThrust * 4.0) * 0.894454) *
-						millisPerFrame);
-				break;
+		if((localDirection < 0) ||
+				(localDirection >= PhysicsWorld.DIRECTION_X.length)) {
+			return;
 		}
+
+		xSpeedCalc = ((localThrust *
+					PhysicsWorld.DIRECTION_X[localDirection]) * millisPerFrame);
+		ySpeedCalc = ((localThrust *
+					PhysicsWorld.DIRECTION_Y[localDirection]) * millisPerFrame);
 	}
 
 	private void updateSpriteSpeed(boolean directionMode)
 	{
-		if(usingTurbo) {
-			thrustCalc = (thrust + turboThrust);
+		if(world.usingTurbo[bodyId]) {
+			thrustCalc = (world.thrust[bodyId] + world.turboThrust[bodyId]);
 		}
 		else {
-			thrustCalc = thrust;
+			thrustCalc = world.thrust[bodyId];
 		}
 		if(directionMode == MODE_REVERSE) {
 			thrustCalc /= 8.0;
 		}
-		currentThrust += thrustCalc;
-		calculateMovement(direction, thrustCalc);
+		world.currentThrust[bodyId] += thrustCalc;
+		calculateMovement(world.direction[bodyId], thrustCalc);
 		if(directionMode == MODE_REVERSE) {
 			xSpeedCalc *= -1.0;
 			ySpeedCalc *= -1.0;
 		}
-		xSpeed += xSpeedCalc;
-		ySpeed += ySpeedCalc;
+		world.xSpeed[bodyId] += xSpeedCalc;
+		world.ySpeed[bodyId] += ySpeedCalc;
 	}
 
 	private int getRoundedDouble(double value)
@@ -211,16 +115,16 @@ public class SpritePhysics
 
 		// calculate sprite movement with no angular velocity
 
-		direction = sprite.getDirection();
-		thrustCalc = currentThrust;
-		calculateMovement(direction, thrustCalc);
+		world.direction[bodyId] = sprite.getDirection();
+		thrustCalc = world.currentThrust[bodyId];
+		calculateMovement(world.direction[bodyId], thrustCalc);
 
 		// determine coordinates
 
 		localX = this.getX();
 		localY = this.getY();
-		localDestX = getRoundedDouble(x + xSpeed);
-		localDestY = getRoundedDouble(y + ySpeed);
+		localDestX = getRoundedDouble(world.x[bodyId] + world.xSpeed[bodyId]);
+		localDestY = getRoundedDouble(world.y[bodyId] + world.ySpeed[bodyId]);
 		spriteX = sprite.getX();
 		spriteY = sprite.getY();
 		spriteDestX = getRoundedDouble((double)spriteX + xSpeedCalc);
@@ -250,24 +154,22 @@ public class SpritePhysics
 		// determine if has angular velocity
 
 		if(Math.abs(localAngle - spriteAngle) > 0.001) {
-			isSliding = true;
+			world.isSliding[bodyId] = true;
 		}
 		else {
-			isSliding = false;
+			world.isSliding[bodyId] = false;
 		}
 	}
 
 	private void applyFriction()
 	{
-		xSpeed *= (friction * frictionModifier);
-		ySpeed *= (friction * frictionModifier);
-		currentThrust *= (friction * frictionModifier);
-	}
+		double damping = 0.0;
 
-	private void applyBoostFriction()
-	{
-		xBoost *= (friction * frictionModifier);
-		yBoost *= (friction * frictionModifier);
+		damping = (world.friction[bodyId] * world.frictionModifier[bodyId]);
+
+		world.xSpeed[bodyId] *= damping;
+		world.ySpeed[bodyId] *= damping;
+		world.currentThrust[bodyId] *= damping;
 	}
 
 	private void snapshot()
@@ -275,8 +177,16 @@ public class SpritePhysics
 		long timeNanos = 0;
 
 		timeNanos = System.nanoTime();
-		elapsedTimeNanos = (timeNanos - currentTimeNanos);
-		currentTimeNanos = timeNanos;
+		world.elapsedTimes[bodyId] = (timeNanos - world.currentTimes[bodyId]);
+		world.currentTimes[bodyId] = timeNanos;
+
+		// a fixed-timestep game loop advances the physics by exactly one tick
+
+		if((sprite.gameEngine != null) &&
+				(sprite.gameEngine.getLoopMode() ==
+				 GameEngine.LOOP_MODE_FIXED)) {
+			world.elapsedTimes[bodyId] = sprite.gameEngine.getTickNanos();
+		}
 	}
 
 	private int invertDirection(int localDirection)
@@ -340,36 +250,51 @@ public class SpritePhysics
 	// define class public functions
 
 	public SpritePhysics(Sprite sprite)
+	{
+		this(sprite, null);
+	}
+
+	public SpritePhysics(Sprite sprite, PhysicsWorld world)
 	{
 		this.sprite = sprite;
 
-		usingTurbo = false;
-		isSliding = false;
-		hasFriction = true;
-		hasGravity = false;
-		willBounce = false;
-		direction = sprite.getDirection();
-		gravityDirection = Sprite.DIRECTION_SOUTH;
-		currentTimeNanos = System.nanoTime();
-		elapsedTimeNanos = 0;
-		x = (double)sprite.getX();
-		y = (double)sprite.getY();
-		xSpeed = 0.0;
-		ySpeed = 0.0;
-		xBoost = 0.0;
-		yBoost = 0.0;
+		// a stand-alone body lives in a world of its own until it is
+		// committed to a scene
+
+		if(world == null) {
+			world = new PhysicsWorld(1);
+		}
+		this.world = world;
+		bodyId = world.addBody(this);
+
 		xSpeedCalc = 0.0;
 		ySpeedCalc = 0.0;
-		thrust = DEFAULT_THRUST;
-		turboThrust = DEFAULT_TURBO_THRUST;
 		thrustCalc = 0.0;
-		currentThrust = thrust;
-		gravity = DEFAULT_GRAVITY;
-		friction = DEFAULT_FRICTION;
-		frictionModifier = 1.0;
-		lowestPixelRate = 100000.0;
-		highestPixelRate = 0.0;
-		defaultRotateTimeSeconds = sprite.getRotateTimeSeconds();
+
+		world.usingTurbo[bodyId] = false;
+		world.isSliding[bodyId] = false;
+		world.hasFriction[bodyId] = true;
+		world.hasGravity[bodyId] = false;
+		world.willBounce[bodyId] = false;
+		world.direction[bodyId] = sprite.getDirection();
+		world.gravityDirection[bodyId] = Sprite.DIRECTION_SOUTH;
+		world.currentTimes[bodyId] = System.nanoTime();
+		world.elapsedTimes[bodyId] = 0;
+		world.x[bodyId] = (double)sprite.getX();
+		world.y[bodyId] = (double)sprite.getY();
+		world.xSpeed[bodyId] = 0.0;
+		world.ySpeed[bodyId] = 0.0;
+		world.xBoost[bodyId] = 0.0;
+		world.yBoost[bodyId] = 0.0;
+		world.thrust[bodyId] = DEFAULT_THRUST;
+		world.turboThrust[bodyId] = DEFAULT_TURBO_THRUST;
+		world.currentThrust[bodyId] = DEFAULT_THRUST;
+		world.gravity[bodyId] = DEFAULT_GRAVITY;
+		world.friction[bodyId] = DEFAULT_FRICTION;
+		world.frictionModifier[bodyId] = 1.0;
+		world.lowestPixelRate[bodyId] = 100000.0;
+		world.highestPixelRate[bodyId] = 0.0;
+		world.defaultRotateTimeSeconds[bodyId] = sprite.getRotateTimeSeconds();
 	}
 
 	public String getClassName()
@@ -382,43 +307,70 @@ public class SpritePhysics
 		return sprite.getName();
 	}
 
+	public Sprite getSprite()
+	{
+		return sprite;
+	}
+
+	public PhysicsWorld getPhysicsWorld()
+	{
+		return world;
+	}
+
+	public void setPhysicsWorld(PhysicsWorld world)
+	{
+		if((world == null) || (world == this.world)) {
+			return;
+		}
+
+		// move this body's state into the new world
+
+		bodyId = world.transferBody(this.world, bodyId);
+		this.world = world;
+	}
+
+	public int getBodyId()
+	{
+		return bodyId;
+	}
+
 	public int getX()
 	{
-		return getRoundedDouble(x);
+		return getRoundedDouble(world.x[bodyId]);
 	}
 
 	public int getY()
 	{
-		return getRoundedDouble(y);
+		return getRoundedDouble(world.y[bodyId]);
 	}
 
 	public void setLocation(int x, int y)
 	{
-		this.x = (double)x;
-		this.y = (double)y;
+		world.x[bodyId] = (double)x;
+		world.y[bodyId] = (double)y;
 		sprite.setLocation(x, y);
 	}
 
 	public double getCurrentThrust()
 	{
-		return currentThrust;
+		return world.currentThrust[bodyId];
 	}
 
 	public double getXSpeed()
 	{
-		return xSpeed;
+		return world.xSpeed[bodyId];
 	}
 
 	public double getYSpeed()
 	{
-		return ySpeed;
+		return world.ySpeed[bodyId];
 	}
 
 	public void setPhysics(double currentThrust, double xSpeed, double ySpeed)
 	{
-		this.currentThrust = currentThrust;
-		this.xSpeed = xSpeed;
-		this.ySpeed = ySpeed;
+		world.currentThrust[bodyId] = currentThrust;
+		world.xSpeed[bodyId] = xSpeed;
+		world.ySpeed[bodyId] = ySpeed;
 	}
 
 	public void updatePhysicsOnCurrentThrust(long simulatedMillis)
@@ -430,99 +382,104 @@ public class SpritePhysics
 			return;
 		}
 
-		elapsedTimeNanos = (simulatedMillis * 1000000);
-		millisPerFrame = ((double)elapsedTimeNanos / 1000000.0);
+		world.elapsedTimes[bodyId] = (simulatedMillis * 1000000);
+		millisPerFrame = ((double)world.elapsedTimes[bodyId] / 1000000.0);
 
-		update = (currentThrust * millisPerFrame);
+		update = (world.currentThrust[bodyId] * millisPerFrame);
 
-		currentThrust *= update;
-		xSpeed *= update;
-		ySpeed *= update;
+		world.currentThrust[bodyId] *= update;
+		world.xSpeed[bodyId] *= update;
+		world.ySpeed[bodyId] *= update;
 	}
 
 	public boolean hasFriction()
 	{
-		return hasFriction;
+		return world.hasFriction[bodyId];
 	}
 
 	public void setFrictionMode(boolean mode)
 	{
-		hasFriction = mode;
+		world.hasFriction[bodyId] = mode;
 	}
 
 	public double getFriction()
 	{
-		return friction;
+		return world.friction[bodyId];
 	}
 
 	public void setFriction(double amount)
 	{
-		friction = amount;
+		world.friction[bodyId] = amount;
 	}
 
 	public double getFrictionModifier()
 	{
-		return frictionModifier;
+		return world.frictionModifier[bodyId];
 	}
 
 	public void setFrictionModifier(double amount)
 	{
-		frictionModifier = amount;
+		world.frictionModifier[bodyId] = amount;
 	}
 
 	public boolean hasGravity()
 	{
-		return hasGravity;
+		return world.hasGravity[bodyId];
 	}
 
 	public void setGravityMode(boolean mode)
 	{
-		hasGravity = mode;
+		world.hasGravity[bodyId] = mode;
 	}
 
 	public boolean willBounce()
 	{
-		return willBounce;
+		return world.willBounce[bodyId];
 	}
 
 	public void setWillBounce(boolean mode)
 	{
-		willBounce = mode;
+		world.willBounce[bodyId] = mode;
 	}
 
 	public double getGravity()
 	{
-		return gravity;
+		return world.gravity[bodyId];
 	}
 
 	public void setGravity(double amount)
 	{
-		gravity = amount;
+		world.gravity[bodyId] = amount;
 	}
 
 	public int getGravityDirection()
 	{
-		return gravityDirection;
+		return world.gravityDirection[bodyId];
 	}
 
 	public void setGravityDirection(int direction)
 	{
-		gravityDirection = direction;
+		world.gravityDirection[bodyId] = direction;
 	}
 
 	public boolean isUsingTurbo()
 	{
-		return usingTurbo;
+		return world.usingTurbo[bodyId];
 	}
 
 	public void setTurboMode(boolean mode)
 	{
-		usingTurbo = mode;
+		world.usingTurbo[bodyId] = mode;
 	}
 
 	public double getPixelRate()
 	{
 		double result = 0.0;
+		double xSpeed = 0.0;
+		double ySpeed = 0.0;
+
+		xSpeed = world.xSpeed[bodyId];
+		ySpeed = world.ySpeed[bodyId];
 
 		if(xSpeed == 0.0) {
 			result = Math.abs(ySpeed);
@@ -540,6 +497,11 @@ public class SpritePhysics
 	public double getRate()
 	{
 		double result = 0.0;
+		double xSpeed = 0.0;
+		double ySpeed = 0.0;
+
+		xSpeed = world.xSpeed[bodyId];
+		ySpeed = world.ySpeed[bodyId];
 
 		result = Math.sqrt((double)(xSpeed * xSpeed) +
 				(double)(ySpeed * ySpeed));
@@ -549,19 +511,19 @@ public class SpritePhysics
 
 	public boolean isSliding()
 	{
-		return isSliding;
+		return world.isSliding[bodyId];
 	}
 
 	public void simpleBounce(boolean xAxis, boolean yAxis)
 	{
 		if(xAxis) {
-			xSpeed *= -1.0;
+			world.xSpeed[bodyId] *= -1.0;
 		}
 		if(yAxis) {
-			ySpeed *= -1.0;
+			world.ySpeed[bodyId] *= -1.0;
 		}
-		direction = invertDirection(sprite.getDirection());
-		sprite.resetDirection(direction);
+		world.direction[bodyId] = invertDirection(sprite.getDirection());
+		sprite.resetDirection(world.direction[bodyId]);
 	}
 
 	public void antiGravityBounce(boolean xAxis, boolean yAxis,
@@ -569,41 +531,42 @@ public class SpritePhysics
 	{
 		int localDirection = 0;
 
-		elapsedTimeNanos = (simulatedMillis * 1000000);
-		localDirection = invertDirection(gravityDirection);
+		world.elapsedTimes[bodyId] = (simulatedMillis * 1000000);
+		localDirection = invertDirection(world.gravityDirection[bodyId]);
 
-		calculateMovement(localDirection, gravity);
-		if(hasFriction) {
-			xSpeed += xSpeedCalc;
-			ySpeed += ySpeedCalc;
+		calculateMovement(localDirection, world.gravity[bodyId]);
+		if(world.hasFriction[bodyId]) {
+			world.xSpeed[bodyId] += xSpeedCalc;
+			world.ySpeed[bodyId] += ySpeedCalc;
 		}
 		else {
-			xBoost += xSpeedCalc;
-			yBoost += ySpeedCalc;
+			world.xBoost[bodyId] += xSpeedCalc;
+			world.yBoost[bodyId] += ySpeedCalc;
 		}
 		sprite.setLocation(this.getX(), this.getY());
 
-		direction = invertDirection(sprite.getDirection());
-		sprite.resetDirection(direction);
+		world.direction[bodyId] = invertDirection(sprite.getDirection());
+		sprite.resetDirection(world.direction[bodyId]);
 	}
 
 	public void processPhysics(boolean directionMode)
 	{
 		snapshot();
 
-		direction = sprite.getDirection();
+		world.direction[bodyId] = sprite.getDirection();
 		updateSpriteSpeed(directionMode);
 		determineAlignedWithAngularVelocity();
-		if(!hasFriction) {
+		if(!world.hasFriction[bodyId]) {
 			applyFriction(); // normalize the speed
 		}
 
 		// apply gravity
 
-		if(hasGravity) {
-			calculateMovement(gravityDirection, gravity);
-			x += xSpeedCalc;
-			y += ySpeedCalc;
+		if(world.hasGravity[bodyId]) {
+			calculateMovement(world.gravityDirection[bodyId],
+					world.gravity[bodyId]);
+			world.x[bodyId] += xSpeedCalc;
+			world.y[bodyId] += ySpeedCalc;
 		}
 
 		sprite.setLocation(this.getX(), this.getY());
@@ -616,74 +579,36 @@ public class SpritePhysics
 			return;
 		}
 
-		elapsedTimeNanos = (simulatedMillis * 1000000);
+		world.elapsedTimes[bodyId] = (simulatedMillis * 1000000);
 
-		direction = sprite.getDirection();
+		world.direction[bodyId] = sprite.getDirection();
 		updateSpriteSpeed(directionMode);
 		determineAlignedWithAngularVelocity();
-		if(!hasFriction) {
+		if(!world.hasFriction[bodyId]) {
 			applyFriction(); // normalize the speed
 		}
 
 		// apply gravity
 
-		if((useGravity) && (hasGravity)) {
-			calculateMovement(gravityDirection, gravity);
-			x += xSpeedCalc;
-			y += ySpeedCalc;
+		if((useGravity) && (world.hasGravity[bodyId])) {
+			calculateMovement(world.gravityDirection[bodyId],
+					world.gravity[bodyId]);
+			world.x[bodyId] += xSpeedCalc;
+			world.y[bodyId] += ySpeedCalc;
 		}
 
 		sprite.setLocation(this.getX(), this.getY());
 	}
 
-	public void processGameplay()
+	public void updateSprite()
 	{
 		double pixelRate = 0.0;
 		double ratio = 0.0;
 		double average = 0.0;
 		double rotateTimeSeconds = 0.0;
-
-		// apply friction to speed & update location
-
-		snapshot();
-
-		if(hasFriction) {
-			applyFriction();
-		}
-
-		applyBoostFriction();
-
-		if(Math.abs(xSpeed) < 0.01) {
-			xSpeed = 0.0;
-		}
-		if(Math.abs(ySpeed) < 0.01) {
-			ySpeed = 0.0;
-		}
-		if(Math.abs(xBoost) < 0.01) {
-			xBoost = 0.0;
-		}
-		if(Math.abs(yBoost) < 0.01) {
-			yBoost = 0.0;
-		}
-		if(Math.abs(currentThrust) < 0.01) {
-			currentThrust = 0.0;
-		}
-		if((xSpeed == 0.0) && (ySpeed == 0.0)) {
-			isSliding = false;
-		}
-
-		x += xSpeed;
-		y += ySpeed;
-		x += xBoost;
-		y += yBoost;
-
-		// apply gravity
-
-		if(hasGravity) {
-			calculateMovement(gravityDirection, gravity);
-			x += xSpeedCalc;
-			y += ySpeedCalc;
-		}
+		double lowestPixelRate = 0.0;
+		double highestPixelRate = 0.0;
+		double defaultRotateTimeSeconds = 0.0;
 
 		// update sprite location
 
@@ -692,13 +617,17 @@ public class SpritePhysics
 		// normalize sprite rotation
 
 		pixelRate = getPixelRate();
-		if(pixelRate > highestPixelRate) {
-			highestPixelRate = pixelRate;
+		if(pixelRate > world.highestPixelRate[bodyId]) {
+			world.highestPixelRate[bodyId] = pixelRate;
 		}
-		if(pixelRate < lowestPixelRate) {
-			lowestPixelRate = pixelRate;
+		if(pixelRate < world.lowestPixelRate[bodyId]) {
+			world.lowestPixelRate[bodyId] = pixelRate;
 		}
 
+		lowestPixelRate = world.lowestPixelRate[bodyId];
+		highestPixelRate = world.highestPixelRate[bodyId];
+		defaultRotateTimeSeconds = world.defaultRotateTimeSeconds[bodyId];
+
 		if((highestPixelRate - lowestPixelRate) > 200.0) {
 			ratio = (pixelRate / (highestPixelRate + lowestPixelRate));
 			if(((ratio * 100.0) < 0.1) || ((ratio * 100.0) > 99.9)) {
@@ -712,5 +641,21 @@ public class SpritePhysics
 			sprite.setRotateTimeSeconds(rotateTimeSeconds);
 		}
 	}
+
+	public void processGameplay()
+	{
+		long timeNanos = 0;
+
+		// integrate this body on its own, scenes advance all of their bodies
+		// together through PhysicsWorld.processGameplay()
+
+		snapshot();
+		timeNanos = world.currentTimes[bodyId];
+
+		world.integrate(bodyId, (bodyId + 1), world.elapsedTimes[bodyId]);
+		world.currentTimes[bodyId] = timeNanos;
+
+		updateSprite();
+	}
 }
 
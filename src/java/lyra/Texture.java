@@ -16,17 +16,21 @@ package lyra;
 
 // import external packages
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.Future;
 import java.awt.Rectangle;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.awt.Graphics2D;
 import java.awt.Color;
+import java.awt.AlphaComposite;
 import java.awt.RenderingHints;
 
 // import internal packages
 
 import lyra.interfaces.GraphicsInterface;
+import lyra.util.ImageDiskCache;
 
 // define class
 
@@ -46,10 +50,47 @@ public class Texture implements GraphicsInterface
 	protected int height = 0;
 	protected int offsetX = 0;
 	protected int offsetY = 0;
+	protected long memorySize = 0;
 	protected String name = null;
 	protected HashMap index = null;
+	protected ArrayList levels = null;
 	protected GameEngine gameEngine = null;
 
+	// define private class objects
+
+	private class MipLevel
+	{
+		private boolean isWarm = false;
+		private int width = 0;
+		private int height = 0;
+		private Image image = null;
+
+		private MipLevel(Image image, int width, int height)
+		{
+			this.isWarm = false;
+			this.image = image;
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+	private class MipChainTask implements Runnable
+	{
+		private int[] widths = null;
+		private int[] heights = null;
+
+		private MipChainTask(int[] widths, int[] heights)
+		{
+			this.widths = widths.clone();
+			this.heights = heights.clone();
+		}
+
+		public void run()
+		{
+			buildMipChain(widths, heights);
+		}
+	}
+
 	// define class private functions
 
 	private String buildKey(int width, int height)
@@ -61,6 +102,268 @@ public class Texture implements GraphicsInterface
 		return result;
 	}
 
+	private synchronized Image lookupImage(String key)
+	{
+		return (Image)index.get(key);
+	}
+
+	private synchronized void storeImage(String key, Image image, int width,
+			int height)
+	{
+		int ii = 0;
+
+		MipLevel level = null;
+
+		// keep a running total of the 32-bit pixels held by every mipmap, so
+		// that the asset cache can weigh the texture without walking it, the
+		// key is the size so a replaced image weighs the same (the first
+		// level is the base image, which is weighed as an image asset)
+
+		if(index.put(key, image) == null) {
+			level = new MipLevel(image, width, height);
+			if(levels.size() > 0) {
+				memorySize += ((long)width * (long)height * 4);
+			}
+			else {
+				level.isWarm = true;
+			}
+			levels.add(level);
+			return;
+		}
+
+		for(ii = 0; ii < levels.size(); ii++) {
+			level = (MipLevel)levels.get(ii);
+			if((level.width == width) && (level.height == height)) {
+				level.image = image;
+				level.isWarm = false;
+				break;
+			}
+		}
+	}
+
+	private synchronized boolean markWarm(Image image)
+	{
+		int ii = 0;
+
+		MipLevel level = null;
+
+		// a level is drawn once to the offscreen buffer when it is first
+		// used, to move it into accelerated memory, the mip chain threads
+		// never touch the game engine
+
+		for(ii = 0; ii < levels.size(); ii++) {
+			level = (MipLevel)levels.get(ii);
+			if(level.image != image) {
+				continue;
+			}
+			if(level.isWarm) {
+				return false;
+			}
+			level.isWarm = true;
+			return true;
+		}
+
+		return false;
+	}
+
+	private Image warmImage(Image image)
+	{
+		if(image == null) {
+			return null;
+		}
+
+		if(markWarm(image)) {
+			gameEngine.drawOffscreenImage(image, 0, 0, image.getWidth(null),
+					image.getHeight(null));
+		}
+
+		return image;
+	}
+
+	private synchronized Image findNearestMipMap(int width, int height)
+	{
+		int ii = 0;
+
+		MipLevel level = null;
+		MipLevel larger = null;
+		MipLevel largest = null;
+
+		// the smallest level which covers the requested size is drawn with a
+		// minor downscale, otherwise the largest level available
+
+		for(ii = 0; ii < levels.size(); ii++) {
+			level = (MipLevel)levels.get(ii);
+			if((largest == null) || ((level.width * level.height) >
+						(largest.width * largest.height))) {
+				largest = level;
+			}
+			if((level.width < width) || (level.height < height)) {
+				continue;
+			}
+			if((larger == null) || ((level.width * level.height) <
+						(larger.width * larger.height))) {
+				larger = level;
+			}
+		}
+
+		if(larger != null) {
+			return larger.image;
+		}
+		if(largest != null) {
+			return largest.image;
+		}
+		return null;
+	}
+
+	private synchronized MipLevel obtainSource(int width, int height)
+	{
+		int ii = 0;
+
+		MipLevel level = null;
+		MipLevel result = null;
+
+		// scale from the smallest level at least as large as the target,
+		// so that each step of a mip chain reuses the work of the last,
+		// otherwise from the default image (levels upscaled beyond the
+		// default image are never used as a source)
+
+		for(ii = 0; ii < levels.size(); ii++) {
+			level = (MipLevel)levels.get(ii);
+			if((level.width < width) || (level.height < height) ||
+					(level.width > this.width) ||
+					(level.height > this.height)) {
+				continue;
+			}
+			if((result == null) || ((level.width * level.height) <
+						(result.width * result.height))) {
+				result = level;
+			}
+		}
+
+		if(result == null) {
+			for(ii = 0; ii < levels.size(); ii++) {
+				level = (MipLevel)levels.get(ii);
+				if((level.width == this.width) &&
+						(level.height == this.height)) {
+					result = level;
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	private BufferedImage scaleImage(Image image, int imageWidth,
+			int imageHeight, int width, int height)
+	{
+		int currentWidth = 0;
+		int currentHeight = 0;
+
+		Image current = null;
+		BufferedImage result = null;
+		Graphics2D render = null;
+
+		current = image;
+		currentWidth = imageWidth;
+		currentHeight = imageHeight;
+
+		// downscale by halves, so that every bilinear pass samples all of the
+		// source pixels, before a final pass to the exact size (upscaling is
+		// a single pass)
+
+		do {
+			if((currentWidth / 2) >= width) {
+				currentWidth /= 2;
+			}
+			else {
+				currentWidth = width;
+			}
+			if((currentHeight / 2) >= height) {
+				currentHeight /= 2;
+			}
+			else {
+				currentHeight = height;
+			}
+
+			result = new BufferedImage(currentWidth, currentHeight,
+					BufferedImage.TYPE_INT_ARGB);
+			render = result.createGraphics();
+			try {
+				render.setComposite(AlphaComposite.Src);
+				render.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+						RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				render.setRenderingHint(RenderingHints.KEY_RENDERING,
+						RenderingHints.VALUE_RENDER_QUALITY);
+				render.drawImage(current, 0, 0, currentWidth, currentHeight,
+						gameEngine);
+			}
+			finally {
+				render.dispose();
+			}
+			current = result;
+		}
+		while((currentWidth != width) || (currentHeight != height));
+
+		return result;
+	}
+
+	private String buildDiskKey(String variant)
+	{
+		String hash = null;
+		AssetCache assetCache = null;
+
+		// generated images are cached on disk against the content hash of
+		// the source image, when the asset cache has a disk cache
+
+		assetCache = gameEngine.getAssetCache();
+		if(assetCache.getDiskCache() == null) {
+			return null;
+		}
+		hash = assetCache.getContentHash(name);
+		if(hash == null) {
+			return null;
+		}
+
+		return ImageDiskCache.buildKey(hash, variant);
+	}
+
+	private Image loadDiskImage(String diskKey)
+	{
+		if(diskKey == null) {
+			return null;
+		}
+		return gameEngine.getAssetCache().getDiskCache().load(diskKey);
+	}
+
+	private void storeDiskImage(String diskKey, Image image, int width,
+			int height)
+	{
+		if(diskKey == null) {
+			return;
+		}
+		gameEngine.getAssetCache().getDiskCache().store(diskKey, image, width,
+				height);
+	}
+
+	private void addMipMap(Image mipMap, int width, int height)
+	{
+		ImageConverter converter = null;
+
+		// scaled & disk cached levels are held in the display's format
+
+		converter = gameEngine.getAssetCache().getImageConverter();
+		if(converter != null) {
+			mipMap = converter.convert(mipMap);
+		}
+
+		mipMap.setAccelerationPriority((float)1.0);
+		storeImage(buildKey(width, height), mipMap, width, height);
+
+		gameEngine.getAssetCache().reweighAsset(AssetCache.TYPE_TEXTURE,
+				name);
+	}
+
 	// define class public functions
 
 	public Texture(String name, GameEngine gameEngine)
@@ -76,7 +379,9 @@ public class Texture implements GraphicsInterface
 			height = 0;
 			offsetX = 0;
 			offsetY = 0;
+			memorySize = 0;
 			index = new HashMap();
+			levels = new ArrayList();
 
 			this.name = name;
 			this.gameEngine = gameEngine;
@@ -87,7 +392,7 @@ public class Texture implements GraphicsInterface
 			width = gameEngine.getImageWidth(image);
 			height = gameEngine.getImageHeight(image);
 			key = buildKey(width, height);
-			index.put(key, image);
+			storeImage(key, image, width, height);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -105,16 +410,27 @@ public class Texture implements GraphicsInterface
 		height = 0;
 		offsetX = 0;
 		offsetY = 0;
+		memorySize = 0;
 		index = new HashMap();
+		levels = new ArrayList();
 
 		this.name = name;
 		this.gameEngine = gameEngine;
 
+		// decoded images are measured directly, as textures are built on the
+		// asset worker threads which never take the game engine lock
+
 		image.setAccelerationPriority((float)1.0);
-		width = gameEngine.getImageWidth(image);
-		height = gameEngine.getImageHeight(image);
+		if(image instanceof BufferedImage) {
+			width = ((BufferedImage)image).getWidth();
+			height = ((BufferedImage)image).getHeight();
+		}
+		else {
+			width = gameEngine.getImageWidth(image);
+			height = gameEngine.getImageHeight(image);
+		}
 		key = buildKey(width, height);
-		index.put(key, image);
+		storeImage(key, image, width, height);
 	}
 
 	public String getClassName()
@@ -192,6 +508,11 @@ public class Texture implements GraphicsInterface
 		debugMode = mode;
 	}
 
+	public synchronized long getMemorySize()
+	{
+		return memorySize;
+	}
+
 	public Image getDefaultImage()
 	{
 		String key = null;
@@ -199,7 +520,7 @@ public class Texture implements GraphicsInterface
 
 		try {
 			key = buildKey(width, height);
-			result = (Image)index.get(key);
+			result = lookupImage(key);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -211,36 +532,115 @@ public class Texture implements GraphicsInterface
 	public void buildMipMap(int width, int height)
 	{
 		String key = null;
+		String diskKey = null;
 		Image image = null;
 		Image mipMap = null;
+		MipLevel source = null;
 
 		try {
+			if((width < 1) || (height < 1)) {
+				return;
+			}
 			key = buildKey(width, height);
-			image = (Image)index.get(key);
+			image = lookupImage(key);
 			if(image != null) {
 				return;
 			}
-			key = buildKey(this.width, this.height);
-			image = (Image)index.get(key);
-			if(image == null) {
+			source = obtainSource(width, height);
+			if(source == null) {
 				return;
 			}
-			mipMap = image.getScaledInstance(width, height, Image.SCALE_SMOOTH);
+			diskKey = buildDiskKey("mipmap-" + width + "x" + height);
+			mipMap = loadDiskImage(diskKey);
+			if(mipMap != null) {
+				addMipMap(mipMap, width, height);
+				return;
+			}
+			mipMap = scaleImage(source.image, source.width, source.height,
+					width, height);
 			if(mipMap == null) {
 				throw new Exception("{" + CLASS_NAME +
-						"} failed to build scaled instance of " + image +
-						" @ " + width + "x" + height);
+						"} failed to build scaled instance of " +
+						source.image + " @ " + width + "x" + height);
 			}
-			mipMap.setAccelerationPriority((float)1.0);
-			gameEngine.drawOffscreenImage(mipMap, 0, 0, width, height);
-			key = buildKey(width, height);
-			index.put(key, mipMap);
+			addMipMap(mipMap, width, height);
+			storeDiskImage(diskKey, mipMap, width, height);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
 		}
 	}
 
+	public void buildMipChain(int[] widths, int[] heights)
+	{
+		int ii = 0;
+		int jj = 0;
+		int swap = 0;
+		int[] order = null;
+
+		if((widths == null) || (heights == null)) {
+			return;
+		}
+
+		// build the largest levels first, so that each level is downscaled
+		// from its nearest larger neighbour rather than the full image
+
+		order = new int[Math.min(widths.length, heights.length)];
+		for(ii = 0; ii < order.length; ii++) {
+			order[ii] = ii;
+		}
+		for(ii = 1; ii < order.length; ii++) {
+			for(jj = ii; jj > 0; jj--) {
+				if((widths[order[jj]] * heights[order[jj]]) <=
+						(widths[order[(jj - 1)]] * heights[order[(jj - 1)]])) {
+					break;
+				}
+				swap = order[jj];
+				order[jj] = order[(jj - 1)];
+				order[(jj - 1)] = swap;
+			}
+		}
+
+		for(ii = 0; ii < order.length; ii++) {
+			buildMipMap(widths[order[ii]], heights[order[ii]]);
+		}
+	}
+
+	public Future buildMipChainAsync(int[] widths, int[] heights)
+	{
+		if((widths == null) || (heights == null)) {
+			return null;
+		}
+		return gameEngine.getAssetCache().submitTask(new MipChainTask(widths,
+					heights));
+	}
+
+	public Future buildMipPyramidAsync(int width, int height, int minWidth,
+			int minHeight)
+	{
+		int ii = 0;
+		int count = 0;
+		int[] widths = null;
+		int[] heights = null;
+
+		// successive halvings of the given size, down to the minimum
+
+		count = 0;
+		while(((width >> count) >= Math.max(minWidth, 1)) &&
+				((height >> count) >= Math.max(minHeight, 1))) {
+			count++;
+		}
+
+		widths = new int[count];
+		heights = new int[count];
+		for(ii = 0; ii < count; ii++) {
+			widths[ii] = (width >> ii);
+			heights[ii] = (height >> ii);
+		}
+
+		return buildMipChainAsync(widths, heights);
+	}
+
 	public void buildButtonMipMap(int width, int height, int margin)
 	{
 		int ii = 0;
@@ -253,6 +653,7 @@ public class Texture implements GraphicsInterface
 		double heightRatio = 0.0;
 
 		String key = null;
+		String diskKey = null;
 		Image image = null;
 		Image mipMap = null;
 		BufferedImage imageInput = null;
@@ -266,16 +667,26 @@ public class Texture implements GraphicsInterface
 
 		try {
 			key = buildKey(width, height);
-			image = (Image)index.get(key);
+			image = lookupImage(key);
 			if(image != null) {
 				return;
 			}
 			key = buildKey(this.width, this.height);
-			image = (Image)index.get(key);
+			image = lookupImage(key);
 			if(image == null) {
 				return;
 			}
 
+			// reuse the composited 9-slice image from the disk cache
+
+			diskKey = buildDiskKey("button-" + width + "x" + height + "-" +
+					margin);
+			mipMap = loadDiskImage(diskKey);
+			if(mipMap != null) {
+				addMipMap(mipMap, width, height);
+				return;
+			}
+
 			currentWidth = this.width;
 			currentHeight = this.height;
 			localMargin = margin;
@@ -471,10 +882,8 @@ public class Texture implements GraphicsInterface
 			// add new image to index
 
 			mipMap = (Image)result;
-			mipMap.setAccelerationPriority((float)1.0);
-			gameEngine.drawOffscreenImage(mipMap, 0, 0, width, height);
-			key = buildKey(width, height);
-			index.put(key, mipMap);
+			addMipMap(mipMap, width, height);
+			storeDiskImage(diskKey, mipMap, width, height);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -488,7 +897,7 @@ public class Texture implements GraphicsInterface
 
 		try {
 			key = buildKey(width, height);
-			result = (Image)index.get(key);
+			result = warmImage(lookupImage(key));
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -497,6 +906,11 @@ public class Texture implements GraphicsInterface
 		return result;
 	}
 
+	public Image getNearestMipMap(int width, int height)
+	{
+		return warmImage(findNearestMipMap(width, height));
+	}
+
 	public void setMipMapAsDefault(int width, int height)
 	{
 		String key = null;
@@ -504,7 +918,7 @@ public class Texture implements GraphicsInterface
 
 		try {
 			key = buildKey(width, height);
-			image = (Image)index.get(key);
+			image = lookupImage(key);
 			if(image != null) {
 				this.width = width;
 				this.height = height;
@@ -526,7 +940,7 @@ public class Texture implements GraphicsInterface
 			}
 
 			key = buildKey(width, height);
-			image = (Image)index.get(key);
+			image = lookupImage(key);
 			if(image != null) {
 				render.drawImage(image, x, y, width, height, gameEngine);
 			}
@@ -0,0 +1,580 @@
+/*
+ * TextureAtlas.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A packer of small images into a few large (accelerated) atlas pages, so
+ * that sprites & tiles are drawn as sub-rectangles of a shared surface. The
+ * space of an image that is no longer referenced is reused, and once every
+ * page is in use the oldest page is recycled.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra;
+
+// import external packages
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.WeakHashMap;
+
+// define class
+
+public class TextureAtlas
+{
+	// define public class constants
+
+	public static final int DEFAULT_PAGE_SIZE = 1024;
+	public static final int DEFAULT_PADDING = 1;
+	public static final int DEFAULT_MAX_IMAGE_SIZE = 256;
+	public static final int DEFAULT_MAX_PAGES = 4;
+
+	// define private class constants
+
+	private static final String CLASS_NAME = TextureAtlas.class.getName();
+
+	// define private class variables
+
+	private int pageSize = 0;
+	private int padding = 0;
+	private int maxImageSize = 0;
+	private int maxPages = 0;
+	private int recycleId = 0;
+	private int regionCount = 0;
+	private int[] openY = null;
+	private ArrayList pages = null;
+	private ArrayList shelves = null;
+	private WeakHashMap regions = null;
+	private WeakHashMap rejected = null;
+	private HashSet references = null;
+	private ReferenceQueue released = null;
+	private ImageObserver observer = null;
+
+	// define private class objects
+
+	private class Shelf
+	{
+		private int page = 0;
+		private int y = 0;
+		private int height = 0;
+		private int cursorX = 0;
+		private int count = 0;
+		private ArrayList gaps = null;
+
+		private Shelf(int page, int y, int height)
+		{
+			this.page = page;
+			this.y = y;
+			this.height = height;
+			this.cursorX = 0;
+			this.count = 0;
+			this.gaps = new ArrayList();
+		}
+
+		private boolean hasRoom(int width)
+		{
+			int ii = 0;
+
+			for(ii = 0; ii < gaps.size(); ii++) {
+				if(((int[])gaps.get(ii))[1] >= width) {
+					return true;
+				}
+			}
+
+			return ((cursorX + width) <= pageSize);
+		}
+
+		private int reserve(int width)
+		{
+			int ii = 0;
+			int result = 0;
+			int[] gap = null;
+
+			// reuse the first gap left by a released image, otherwise take
+			// the space at the end of the shelf
+
+			for(ii = 0; ii < gaps.size(); ii++) {
+				gap = (int[])gaps.get(ii);
+				if(gap[1] < width) {
+					continue;
+				}
+				result = gap[0];
+				gap[0] += width;
+				gap[1] -= width;
+				if(gap[1] == 0) {
+					gaps.remove(ii);
+				}
+				count++;
+				return result;
+			}
+
+			result = cursorX;
+			cursorX += width;
+			count++;
+
+			return result;
+		}
+
+		private void release(int x, int width)
+		{
+			int ii = 0;
+			int[] gap = null;
+
+			count--;
+			if(count < 1) {
+				count = 0;
+				cursorX = 0;
+				gaps.clear();
+				return;
+			}
+
+			gaps.add(new int[] { x, width });
+
+			// give the space at the end of the shelf back to the cursor
+
+			ii = 0;
+			while(ii < gaps.size()) {
+				gap = (int[])gaps.get(ii);
+				if((gap[0] + gap[1]) == cursorX) {
+					cursorX = gap[0];
+					gaps.remove(ii);
+					ii = 0;
+					continue;
+				}
+				ii++;
+			}
+		}
+	}
+
+	private class RegionReference extends WeakReference
+	{
+		private int x = 0;
+		private int width = 0;
+		private Shelf shelf = null;
+		private AtlasRegion region = null;
+
+		private RegionReference(Image image, AtlasRegion region, Shelf shelf,
+				int x, int width)
+		{
+			super(image, released);
+			this.region = region;
+			this.shelf = shelf;
+			this.x = x;
+			this.width = width;
+		}
+	}
+
+	private class HeightComparator implements Comparator
+	{
+		public int compare(Object first, Object second)
+		{
+			int firstHeight = ((Image)first).getHeight(observer);
+			int secondHeight = ((Image)second).getHeight(observer);
+
+			// tallest first, so that each shelf is opened at its tallest
+
+			if(firstHeight > secondHeight) {
+				return -1;
+			}
+			else if(firstHeight < secondHeight) {
+				return 1;
+			}
+			return 0;
+		}
+	}
+
+	// define class private functions
+
+	private Shelf findShelf(int width, int height)
+	{
+		int ii = 0;
+		int page = 0;
+
+		Shelf shelf = null;
+		Shelf result = null;
+
+		// best fit, the shortest open shelf with room for the image
+
+		for(ii = 0; ii < shelves.size(); ii++) {
+			shelf = (Shelf)shelves.get(ii);
+			if((shelf.height < height) || (!shelf.hasRoom(width))) {
+				continue;
+			}
+			if((result == null) || (shelf.height < result.height)) {
+				result = shelf;
+			}
+		}
+
+		if(result != null) {
+			return result;
+		}
+
+		// open a new shelf on a page with room for it, or start a new page,
+		// or (once every page is in use) recycle the oldest page
+
+		page = -1;
+		for(ii = 0; ii < pages.size(); ii++) {
+			if((openY[ii] + height) <= pageSize) {
+				page = ii;
+				break;
+			}
+		}
+		if((page < 0) && (pages.size() < maxPages)) {
+			pages.add(buildPage());
+			page = (pages.size() - 1);
+			openY[page] = 0;
+		}
+		if(page < 0) {
+			page = recycleId;
+			recyclePage(page);
+			recycleId = ((recycleId + 1) % pages.size());
+		}
+
+		result = new Shelf(page, openY[page], height);
+		shelves.add(result);
+		openY[page] += height;
+
+		return result;
+	}
+
+	private void clearArea(BufferedImage page, int x, int y, int width,
+			int height)
+	{
+		Graphics2D render = null;
+
+		render = page.createGraphics();
+		try {
+			render.setComposite(AlphaComposite.Clear);
+			render.fillRect(x, y, width, height);
+		}
+		finally {
+			render.dispose();
+		}
+	}
+
+	private void releaseRegion(RegionReference reference)
+	{
+		Shelf shelf = null;
+
+		// the region is no longer drawn from, so its pixels (including the
+		// padding) are cleared for the next image placed there
+
+		shelf = reference.shelf;
+		reference.region.invalidate();
+		clearArea((BufferedImage)pages.get(shelf.page), reference.x, shelf.y,
+				reference.width, shelf.height);
+		shelf.release(reference.x, reference.width);
+		regionCount--;
+	}
+
+	private void reclaim()
+	{
+		RegionReference reference = null;
+
+		// images that are no longer referenced give their space back
+
+		while((reference = (RegionReference)released.poll()) != null) {
+			if(references.remove(reference)) {
+				releaseRegion(reference);
+			}
+		}
+	}
+
+	private void recyclePage(int page)
+	{
+		Image image = null;
+		Iterator iterator = null;
+		Shelf shelf = null;
+		RegionReference reference = null;
+
+		// every region on the page is invalidated, so that their sprites &
+		// tiles pack their images again (on another page) when next drawn
+
+		iterator = references.iterator();
+		while(iterator.hasNext()) {
+			reference = (RegionReference)iterator.next();
+			if(reference.shelf.page != page) {
+				continue;
+			}
+			iterator.remove();
+			reference.region.invalidate();
+			image = (Image)reference.get();
+			if(image != null) {
+				regions.remove(image);
+			}
+			regionCount--;
+		}
+
+		iterator = shelves.iterator();
+		while(iterator.hasNext()) {
+			shelf = (Shelf)iterator.next();
+			if(shelf.page == page) {
+				iterator.remove();
+			}
+		}
+
+		clearArea((BufferedImage)pages.get(page), 0, 0, pageSize, pageSize);
+		openY[page] = 0;
+	}
+
+	private BufferedImage buildPage()
+	{
+		BufferedImage result = null;
+
+		result = new BufferedImage(pageSize, pageSize,
+				BufferedImage.TYPE_INT_ARGB);
+		result.setAccelerationPriority((float)1.0);
+
+		return result;
+	}
+
+	// define class public functions
+
+	public TextureAtlas(ImageObserver observer)
+	{
+		this(DEFAULT_PAGE_SIZE, DEFAULT_PADDING, DEFAULT_MAX_IMAGE_SIZE,
+				observer);
+	}
+
+	public TextureAtlas(int pageSize, int padding, int maxImageSize,
+			ImageObserver observer)
+	{
+		if(pageSize < 1) {
+			pageSize = DEFAULT_PAGE_SIZE;
+		}
+		if(padding < 0) {
+			padding = DEFAULT_PADDING;
+		}
+		if((maxImageSize < 1) || (maxImageSize > (pageSize - (padding * 2)))) {
+			maxImageSize = (pageSize - (padding * 2));
+		}
+
+		this.pageSize = pageSize;
+		this.padding = padding;
+		this.maxImageSize = maxImageSize;
+		this.observer = observer;
+		maxPages = DEFAULT_MAX_PAGES;
+		recycleId = 0;
+		regionCount = 0;
+		openY = new int[maxPages];
+		pages = new ArrayList();
+		shelves = new ArrayList();
+		regions = new WeakHashMap();
+		rejected = new WeakHashMap();
+		references = new HashSet();
+		released = new ReferenceQueue();
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public int getPageSize()
+	{
+		return pageSize;
+	}
+
+	public int getPadding()
+	{
+		return padding;
+	}
+
+	public int getMaxImageSize()
+	{
+		return maxImageSize;
+	}
+
+	public synchronized int getMaxPages()
+	{
+		return maxPages;
+	}
+
+	public synchronized void setMaxPages(int amount)
+	{
+		// note: the pages already built are cleared when the limit changes
+
+		if(amount < 1) {
+			amount = 1;
+		}
+		clear();
+		maxPages = amount;
+		openY = new int[maxPages];
+	}
+
+	public synchronized int getPageCount()
+	{
+		return pages.size();
+	}
+
+	public synchronized BufferedImage getPage(int id)
+	{
+		if((id < 0) || (id >= pages.size())) {
+			return null;
+		}
+		return (BufferedImage)pages.get(id);
+	}
+
+	public synchronized int getRegionCount()
+	{
+		return regionCount;
+	}
+
+	public synchronized AtlasRegion getRegion(Image image)
+	{
+		if(image == null) {
+			return null;
+		}
+		return (AtlasRegion)regions.get(image);
+	}
+
+	public synchronized AtlasRegion add(Image image)
+	{
+		int width = 0;
+		int height = 0;
+		int paddedWidth = 0;
+		int paddedHeight = 0;
+		int shelfX = 0;
+		boolean isDrawn = false;
+
+		Shelf shelf = null;
+		BufferedImage page = null;
+		Graphics2D render = null;
+		AtlasRegion result = null;
+
+		if(image == null) {
+			return null;
+		}
+
+		result = (AtlasRegion)regions.get(image);
+		if(result != null) {
+			return result;
+		}
+		if(rejected.containsKey(image)) {
+			return null;
+		}
+
+		reclaim();
+
+		// note: images that are too large (or not yet loaded) are not packed,
+		// callers draw them directly, and a too large image is remembered so
+		// that it is not measured again each time it is drawn
+
+		width = image.getWidth(observer);
+		height = image.getHeight(observer);
+		if((width < 1) || (height < 1)) {
+			return null;
+		}
+		if((width > maxImageSize) || (height > maxImageSize)) {
+			rejected.put(image, Boolean.TRUE);
+			return null;
+		}
+
+		// pad each image with transparent pixels, so that filtering at its
+		// edges never samples a neighbour
+
+		paddedWidth = (width + (padding * 2));
+		paddedHeight = (height + (padding * 2));
+
+		shelf = findShelf(paddedWidth, paddedHeight);
+		shelfX = shelf.reserve(paddedWidth);
+		page = (BufferedImage)pages.get(shelf.page);
+
+		render = page.createGraphics();
+		try {
+			render.setComposite(AlphaComposite.Src);
+			isDrawn = render.drawImage(image, (shelfX + padding),
+					(shelf.y + padding), width, height, observer);
+		}
+		finally {
+			render.dispose();
+		}
+		if(!isDrawn) {
+			clearArea(page, shelfX, shelf.y, paddedWidth, shelf.height);
+			shelf.release(shelfX, paddedWidth);
+			return null;
+		}
+
+		result = new AtlasRegion(shelf.page, page, (shelfX + padding),
+				(shelf.y + padding), width, height);
+		regions.put(image, result);
+		references.add(new RegionReference(image, result, shelf, shelfX,
+					paddedWidth));
+		regionCount++;
+
+		return result;
+	}
+
+	public synchronized int pack(Image[] images)
+	{
+		int ii = 0;
+		int count = 0;
+		int result = 0;
+
+		Image[] sorted = null;
+
+		if(images == null) {
+			return 0;
+		}
+
+		// packing a batch (e.g. at load or build time) tallest-first keeps
+		// the shelves tightly filled
+
+		for(ii = 0; ii < images.length; ii++) {
+			if(images[ii] != null) {
+				count++;
+			}
+		}
+		sorted = new Image[count];
+		count = 0;
+		for(ii = 0; ii < images.length; ii++) {
+			if(images[ii] != null) {
+				sorted[count] = images[ii];
+				count++;
+			}
+		}
+		Arrays.sort(sorted, new HeightComparator());
+
+		for(ii = 0; ii < sorted.length; ii++) {
+			if(add(sorted[ii]) != null) {
+				result++;
+			}
+		}
+
+		return result;
+	}
+
+	public synchronized void clear()
+	{
+		Iterator iterator = null;
+
+		iterator = references.iterator();
+		while(iterator.hasNext()) {
+			((RegionReference)iterator.next()).region.invalidate();
+		}
+
+		recycleId = 0;
+		regionCount = 0;
+		openY = new int[maxPages];
+		pages.clear();
+		shelves.clear();
+		regions.clear();
+		rejected.clear();
+		references.clear();
+	}
+}
+
@@ -47,8 +47,58 @@ public class Tile implements GraphicsInterface
 	protected double friction = 0.0;
 	protected String name = null;
 	protected Image image = null;
+	protected Image regionImage = null;
+	protected AtlasRegion region = null;
+	protected SpatialGrid spatialGrid = null;
+	protected LayerCache layerCache = null;
 	protected GameEngine gameEngine = null;
 
+	// define class private functions
+
+	private void invalidate()
+	{
+		// a cached static layer is kept in world coordinates, so it is
+		// invalidated whether or not the tile is on screen
+
+		if(layerCache != null) {
+			layerCache.invalidate(x, y, (width + 1), (height + 1));
+		}
+
+		if((gameEngine == null) || (!isVisible)) {
+			return;
+		}
+
+		// include the one pixel border stroked around the tile
+
+		gameEngine.invalidate((x + offsetX), (y + offsetY), (width + 1),
+				(height + 1));
+	}
+
+	private AtlasRegion obtainRegion()
+	{
+		TextureAtlas atlas = null;
+
+		if((gameEngine == null) || (image == null)) {
+			return null;
+		}
+
+		atlas = gameEngine.getTextureAtlas();
+		if(atlas == null) {
+			return null;
+		}
+
+		// an image the atlas can not hold is drawn directly and not offered
+		// to the atlas again, a region whose space was reused is re-packed
+
+		if((regionImage != image) ||
+				((region != null) && (!region.isValid()))) {
+			region = atlas.add(image);
+			regionImage = image;
+		}
+
+		return region;
+	}
+
 	// define class public functions
 
 	public Tile(String name, int x, int y, int width, int height,
@@ -61,6 +111,10 @@ public class Tile implements GraphicsInterface
 		offsetY = 0;
 		friction = 0.0;
 		image = null;
+		regionImage = null;
+		region = null;
+		spatialGrid = null;
+		layerCache = null;
 
 		this.name = name;
 		this.x = x;
@@ -102,14 +156,26 @@ public class Tile implements GraphicsInterface
 
 	public void setLocation(int x, int y)
 	{
+		invalidate();
 		this.x = x;
 		this.y = y;
+		invalidate();
+
+		if(spatialGrid != null) {
+			spatialGrid.update(this);
+		}
 	}
 
 	public void resize(int width, int height)
 	{
+		invalidate();
 		this.width = width;
 		this.height = height;
+		invalidate();
+
+		if(spatialGrid != null) {
+			spatialGrid.update(this);
+		}
 	}
 
 	public Rectangle getLocation()
@@ -122,6 +188,12 @@ public class Tile implements GraphicsInterface
 		return isVisible;
 	}
 
+	public Rectangle getDamageBounds()
+	{
+		return new Rectangle((x + offsetX), (y + offsetY), (width + 1),
+				(height + 1));
+	}
+
 	public boolean applyCamera(int cameraX, int cameraY, int cameraWidth,
 			int cameraHeight)
 	{
@@ -134,12 +206,34 @@ public class Tile implements GraphicsInterface
 			offsetY = (0 - cameraY);
 		}
 		else {
+			invalidate();
 			isVisible = false;
 		}
 
 		return isVisible;
 	}
 
+	public SpatialGrid getSpatialGrid()
+	{
+		return spatialGrid;
+	}
+
+	public void setSpatialGrid(SpatialGrid spatialGrid)
+	{
+		this.spatialGrid = spatialGrid;
+	}
+
+	public LayerCache getLayerCache()
+	{
+		return layerCache;
+	}
+
+	public void setLayerCache(LayerCache layerCache)
+	{
+		this.layerCache = layerCache;
+		invalidate();
+	}
+
 	public void setFriction(double amount)
 	{
 		friction = amount;
@@ -159,6 +253,7 @@ public class Tile implements GraphicsInterface
 					AssetCache.TYPE_TEXTURE, imageName);
 			texture.buildMipMap(width, height);
 			image = texture.getMipMap(width, height);
+			invalidate();
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -187,15 +282,36 @@ public class Tile implements GraphicsInterface
 
 	public boolean detectCollision(Rectangle rectangle)
 	{
-		Rectangle location = null;
+		if(rectangle == null) {
+			return false;
+		}
+
+		return detectCollision(rectangle.x, rectangle.y, rectangle.width,
+				rectangle.height);
+	}
+
+	public boolean detectCollision(int x, int y, int width, int height)
+	{
+		int tileX = 0;
+		int tileY = 0;
 
 		if((!isVisible) || (!canCollide)) {
 			return false;
 		}
 
-		location = this.getLocation();
+		if((width <= 0) || (height <= 0) || (this.width <= 0) ||
+				(this.height <= 0)) {
+			return false;
+		}
 
-		return location.intersects(rectangle);
+		// compare screen locations without allocating a rectangle (this is
+		// called repeatedly by the collision system)
+
+		tileX = (this.x + offsetX);
+		tileY = (this.y + offsetY);
+
+		return ((x < (tileX + this.width)) && ((x + width) > tileX) &&
+				(y < (tileY + this.height)) && ((y + height) > tileY));
 	}
 
 	public boolean detectIntersection(int x, int y)
@@ -213,22 +329,51 @@ public class Tile implements GraphicsInterface
 		return location.contains(point);
 	}
 
-	public void render2D(Graphics2D render)
+	public void captureRenderState(RenderSnapshot snapshot)
+	{
+		if(!isVisible) {
+			return;
+		}
+
+		if(obtainRegion() != null) {
+			snapshot.addRegion(region, (x + offsetX), (y + offsetY), width,
+					height, 0.0);
+		}
+		else {
+			snapshot.addImage(image, (x + offsetX), (y + offsetY), width,
+					height);
+		}
+		snapshot.addRect(Color.black, (x + offsetX), (y + offsetY), width,
+				height);
+	}
+
+	public void render2D(Graphics2D render, int renderX, int renderY)
 	{
 		try {
-			if(!isVisible) {
-				return;
+			if(obtainRegion() != null) {
+				region.render2D(render, renderX, renderY, width, height,
+						gameEngine);
+			}
+			else {
+				render.drawImage(image, renderX, renderY, width, height,
+						gameEngine);
 			}
-
-			render.drawImage(image, (x + offsetX), (y + offsetY), width,
-					height, gameEngine);
 
 			render.setColor(Color.black);
-			render.drawRect((x + offsetX), (y + offsetY), width, height);
+			render.drawRect(renderX, renderY, width, height);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
 		}
 	}
+
+	public void render2D(Graphics2D render)
+	{
+		if(!isVisible) {
+			return;
+		}
+
+		render2D(render, (x + offsetX), (y + offsetY));
+	}
 }
 
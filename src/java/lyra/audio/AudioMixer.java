@@ -0,0 +1,482 @@
+/*
+ * AudioMixer.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A software mixer which plays a fixed pool of voices through a single
+ * output line, with per-voice gain & balance and priority based voice
+ * stealing.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra.audio;
+
+// import external packages
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+
+// import internal packages
+
+import lyra.GameEngine;
+import lyra.util.Config;
+
+// define class
+
+public class AudioMixer implements Runnable
+{
+	// define public class constants
+
+	public static final int DEFAULT_VOICES = 8;
+	public static final int DEFAULT_PRIORITY = 5;
+	public static final float MINIMUM_GAIN = (float)-80.0;
+	public static final float MAXIMUM_GAIN = (float)6.0;
+	public static final float GAIN_PRECISION = (float)1.0;
+	public static final float MINIMUM_BALANCE = (float)-1.0;
+	public static final float MAXIMUM_BALANCE = (float)1.0;
+	public static final float BALANCE_PRECISION = (float)0.0625;
+
+	// define private class constants
+
+	private static final String CLASS_NAME = AudioMixer.class.getName();
+	private static final float SAMPLE_RATE = (float)44100.0;
+	private static final int CHANNELS = 2;
+	private static final int BLOCK_FRAMES = 512;
+	private static final int LINE_BLOCKS = 4;
+
+	// define private class variables
+
+	private volatile boolean isRunning = false;
+	private int activeCount = 0;
+	private long nextVoiceId = 0;
+	private long sequence = 0;
+	private long stolenCount = 0;
+	private long rejectedCount = 0;
+	private float[] mixBuffer = null;
+	private byte[] outputBuffer = null;
+	private Voice[] voices = null;
+	private AudioFormat format = null;
+	private SourceDataLine line = null;
+	private Thread thread = null;
+
+	// define private class objects
+
+	private class Voice
+	{
+		private boolean isActive = false;
+		private boolean isPaused = false;
+		private boolean isLooping = false;
+		private int priority = 0;
+		private long id = 0;
+		private long sequence = 0;
+		private double position = 0.0;
+		private double step = 0.0;
+		private float leftGain = (float)0.0;
+		private float rightGain = (float)0.0;
+		private AudioSample sample = null;
+	}
+
+	// define class private functions
+
+	private Voice findVoice(long id)
+	{
+		int ii = 0;
+
+		if(id < 0) {
+			return null;
+		}
+
+		for(ii = 0; ii < voices.length; ii++) {
+			if((voices[ii].isActive) && (voices[ii].id == id)) {
+				return voices[ii];
+			}
+		}
+
+		return null;
+	}
+
+	private Voice allocateVoice(int priority)
+	{
+		int ii = 0;
+
+		Voice result = null;
+
+		// take a free voice, otherwise steal the lowest priority (and then
+		// oldest) voice, unless every voice outranks the new one
+
+		for(ii = 0; ii < voices.length; ii++) {
+			if(!voices[ii].isActive) {
+				return voices[ii];
+			}
+			if((result == null) ||
+					(voices[ii].priority < result.priority) ||
+					((voices[ii].priority == result.priority) &&
+					 (voices[ii].sequence < result.sequence))) {
+				result = voices[ii];
+			}
+		}
+
+		if(result.priority > priority) {
+			rejectedCount++;
+			return null;
+		}
+
+		stolenCount++;
+		activeCount--;
+		result.isActive = false;
+
+		return result;
+	}
+
+	private void releaseVoice(Voice voice)
+	{
+		if(!voice.isActive) {
+			return;
+		}
+		voice.isActive = false;
+		voice.sample = null;
+		activeCount--;
+	}
+
+	private void updateGain(Voice voice, float gain, float balance)
+	{
+		float amplitude = (float)0.0;
+
+		gain = Math.max(MINIMUM_GAIN, Math.min(MAXIMUM_GAIN, gain));
+		balance = Math.max(MINIMUM_BALANCE, Math.min(MAXIMUM_BALANCE,
+					balance));
+
+		// gain is given in decibels & balance attenuates the opposite
+		// channel, as the line controls did
+
+		amplitude = (float)Math.pow(10.0, ((double)gain / 20.0));
+		voice.leftGain = amplitude;
+		voice.rightGain = amplitude;
+		if(balance > (float)0.0) {
+			voice.leftGain *= ((float)1.0 - balance);
+		}
+		else if(balance < (float)0.0) {
+			voice.rightGain *= ((float)1.0 + balance);
+		}
+	}
+
+	private void mixVoice(Voice voice)
+	{
+		int ii = 0;
+		int index = 0;
+		int next = 0;
+		int frames = 0;
+		int channels = 0;
+		float fraction = (float)0.0;
+		float left = (float)0.0;
+		float right = (float)0.0;
+		short[] data = null;
+
+		data = voice.sample.getSamples();
+		frames = voice.sample.getFrames();
+		channels = voice.sample.getChannels();
+
+		for(ii = 0; ii < BLOCK_FRAMES; ii++) {
+			index = (int)voice.position;
+			if(index >= frames) {
+				if((!voice.isLooping) || (frames == 0)) {
+					releaseVoice(voice);
+					return;
+				}
+				voice.position -= (double)frames;
+				index = (int)voice.position;
+			}
+
+			// linear interpolation between adjacent frames resamples the
+			// clip to the line rate
+
+			next = (index + 1);
+			if(next >= frames) {
+				next = (voice.isLooping ? 0 : index);
+			}
+			fraction = (float)(voice.position - (double)index);
+
+			if(channels == 1) {
+				left = ((float)data[index] + (((float)data[next] -
+								(float)data[index]) * fraction));
+				right = left;
+			}
+			else {
+				index *= channels;
+				next *= channels;
+				left = ((float)data[index] + (((float)data[next] -
+								(float)data[index]) * fraction));
+				right = ((float)data[(index + 1)] +
+						(((float)data[(next + 1)] -
+						  (float)data[(index + 1)]) * fraction));
+			}
+
+			mixBuffer[(ii * 2)] += (left * voice.leftGain);
+			mixBuffer[((ii * 2) + 1)] += (right * voice.rightGain);
+
+			voice.position += voice.step;
+		}
+	}
+
+	private void mixBlock()
+	{
+		int ii = 0;
+
+		for(ii = 0; ii < mixBuffer.length; ii++) {
+			mixBuffer[ii] = (float)0.0;
+		}
+
+		for(ii = 0; ii < voices.length; ii++) {
+			if((voices[ii].isActive) && (!voices[ii].isPaused)) {
+				mixVoice(voices[ii]);
+			}
+		}
+	}
+
+	private void encodeBlock()
+	{
+		int ii = 0;
+		int value = 0;
+
+		for(ii = 0; ii < mixBuffer.length; ii++) {
+			value = (int)mixBuffer[ii];
+			if(value > Short.MAX_VALUE) {
+				value = Short.MAX_VALUE;
+			}
+			else if(value < Short.MIN_VALUE) {
+				value = Short.MIN_VALUE;
+			}
+			outputBuffer[(ii * 2)] = (byte)value;
+			outputBuffer[((ii * 2) + 1)] = (byte)(value >> 8);
+		}
+	}
+
+	private boolean obtainLine()
+	{
+		// note: the caller must hold the mixer lock
+
+		if(line != null) {
+			return true;
+		}
+
+		try {
+			line = AudioSystem.getSourceDataLine(format);
+			line.open(format, (outputBuffer.length * LINE_BLOCKS));
+			line.start();
+
+			isRunning = true;
+			thread = new Thread(this);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			line = null;
+		}
+
+		return (line != null);
+	}
+
+	// define class public functions
+
+	public AudioMixer(int voiceCount)
+	{
+		int ii = 0;
+
+		if(voiceCount < 1) {
+			voiceCount = DEFAULT_VOICES;
+		}
+
+		isRunning = false;
+		activeCount = 0;
+		nextVoiceId = 0;
+		sequence = 0;
+		stolenCount = 0;
+		rejectedCount = 0;
+		mixBuffer = new float[(BLOCK_FRAMES * CHANNELS)];
+		outputBuffer = new byte[(BLOCK_FRAMES * CHANNELS * 2)];
+		voices = new Voice[voiceCount];
+		for(ii = 0; ii < voices.length; ii++) {
+			voices[ii] = new Voice();
+		}
+		format = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+		line = null;
+		thread = null;
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public AudioFormat getFormat()
+	{
+		return format;
+	}
+
+	public int getVoiceCount()
+	{
+		return voices.length;
+	}
+
+	public synchronized int getActiveVoiceCount()
+	{
+		return activeCount;
+	}
+
+	public synchronized long getStolenCount()
+	{
+		return stolenCount;
+	}
+
+	public synchronized long getRejectedCount()
+	{
+		return rejectedCount;
+	}
+
+	public AudioSample obtainSample(Config config, GameEngine gameEngine)
+	{
+		// decoded clips are held by the asset cache & shared by every voice
+		// and player using them
+
+		return gameEngine.getAssetCache().getAudioSample(config);
+	}
+
+	public synchronized long play(AudioSample sample, float gain,
+			float balance, int priority, boolean isLooping)
+	{
+		Voice voice = null;
+
+		if((sample == null) || (sample.getFrames() < 1) ||
+				(!obtainLine())) {
+			return -1;
+		}
+
+		voice = allocateVoice(priority);
+		if(voice == null) {
+			return -1;
+		}
+
+		voice.isActive = true;
+		voice.isPaused = false;
+		voice.isLooping = isLooping;
+		voice.priority = priority;
+		voice.id = nextVoiceId++;
+		voice.sequence = sequence++;
+		voice.position = 0.0;
+		voice.step = ((double)sample.getSampleRate() / (double)SAMPLE_RATE);
+		voice.sample = sample;
+		updateGain(voice, gain, balance);
+		activeCount++;
+
+		notifyAll();
+
+		return voice.id;
+	}
+
+	public synchronized boolean isPlaying(long id)
+	{
+		Voice voice = findVoice(id);
+
+		return ((voice != null) && (!voice.isPaused));
+	}
+
+	public synchronized void stop(long id)
+	{
+		Voice voice = findVoice(id);
+
+		if(voice != null) {
+			releaseVoice(voice);
+		}
+	}
+
+	public synchronized void pause(long id)
+	{
+		Voice voice = findVoice(id);
+
+		if(voice != null) {
+			voice.isPaused = true;
+		}
+	}
+
+	public synchronized void resume(long id)
+	{
+		Voice voice = findVoice(id);
+
+		if(voice != null) {
+			voice.isPaused = false;
+			notifyAll();
+		}
+	}
+
+	public synchronized void setGain(long id, float gain, float balance)
+	{
+		Voice voice = findVoice(id);
+
+		if(voice != null) {
+			updateGain(voice, gain, balance);
+		}
+	}
+
+	public synchronized void close()
+	{
+		int ii = 0;
+
+		isRunning = false;
+		for(ii = 0; ii < voices.length; ii++) {
+			releaseVoice(voices[ii]);
+		}
+		notifyAll();
+	}
+
+	public void run()
+	{
+		SourceDataLine output = null;
+
+		System.out.println("{" + CLASS_NAME + "} running with " +
+				voices.length + " voices");
+
+		try {
+			synchronized(this) {
+				output = line;
+			}
+
+			while(isRunning) {
+				// the mixer thread pulls a block from the voices, then
+				// blocks on the line write outside of the lock
+
+				synchronized(this) {
+					while((isRunning) && (activeCount == 0)) {
+						wait();
+					}
+					if(!isRunning) {
+						break;
+					}
+					mixBlock();
+				}
+
+				encodeBlock();
+				output.write(outputBuffer, 0, outputBuffer.length);
+			}
+
+			output.stop();
+			output.close();
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+
+		synchronized(this) {
+			line = null;
+			thread = null;
+		}
+
+		System.out.println("{" + CLASS_NAME + "} shut down");
+	}
+}
+
@@ -29,7 +29,6 @@ import javax.swing.Timer;
 
 import lyra.GameEngine;
 import lyra.util.Config;
-import lyra.util.CachedInputStream;
 
 // define class
 
@@ -41,6 +40,7 @@ public class AudioPlayer
 	public static final int MODE_PLAYING = 2;
 	public static final int MODE_PAUSED = 3;
 	public static final int MODE_LOOP = 4;
+	public static final int MODE_CLOSED = 5;
 	public static final int VOLUME_UP = 1;
 	public static final int VOLUME_DOWN = 2;
 	public static final int BALANCE_LEFT = 1;
@@ -58,8 +58,14 @@ public class AudioPlayer
 	private long playTimeMillis = 0;
 	private long elapsedTimeMillis = 0;
 	private long playStartTime = 0;
+	private int priority = 0;
+	private long voice = 0;
+	private float gain = (float)0.0;
+	private float balance = (float)0.0;
 	private String assetName = null;
-	private CachedInputStream inputStream = null;
+	private AudioStream stream = null;
+	private AudioSample sample = null;
+	private AudioMixer mixer = null;
 	private DataLine line = null;
 	private GameEngine gameEngine = null;
 
@@ -87,19 +93,43 @@ public class AudioPlayer
 	{
 		long trackLengthSeconds = 0;
 
-		AudioStream fileStream = null;
-
 		try {
 			trackLengthSeconds = config.getLong("global",
 					"trackLengthSeconds", 0);
 			playTimeMillis = (trackLengthSeconds * 1000);
 			this.gameEngine = gameEngine;
-			fileStream = new AudioStream(config, gameEngine);
-			assetName = fileStream.getName();
-			inputStream = fileStream.getCachedInputStream();
-			line = fileStream.getSource();
+			priority = 0;
+			voice = -1;
+			gain = (float)0.0;
+			balance = (float)0.0;
+
+			// mixed clips are decoded once & played as voices of the shared
+			// mixer, rather than each opening their own line
+
+			if(config.getBoolean("global", "isMixed", false).booleanValue()) {
+				mixer = gameEngine.getAudioMixer();
+			}
+
+			if(mixer != null) {
+				sample = mixer.obtainSample(config, gameEngine);
+				priority = config.getInteger("global", "priority",
+						AudioMixer.DEFAULT_PRIORITY).intValue();
+				assetName = sample.getName();
+				if("mp3".equals(config.getString("global", "type"))) {
+					type = AudioStream.MP3;
+				}
+				else {
+					type = AudioStream.WAV;
+				}
+				mode = MODE_READY;
+				return;
+			}
+
+			stream = new AudioStream(config, gameEngine);
+			assetName = stream.getName();
+			line = stream.getSource();
 			mode = MODE_READY;
-			type = fileStream.getType();
+			type = stream.getType();
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -116,14 +146,31 @@ public class AudioPlayer
 		return assetName;
 	}
 
+	public long getMemorySize()
+	{
+		// an mp3 stream is cached in memory as it is played, while a wav
+		// stream only holds its ring buffer (decoded samples are weighed by
+		// their own cache entry)
+
+		if(stream == null) {
+			return 0;
+		}
+		return stream.getMemorySize();
+	}
+
 	public boolean isStreaming()
 	{
-		if((inputStream != null) && (!inputStream.isEOF())) {
+		if((stream != null) && (stream.isStreaming())) {
 			return true;
 		}
 		return false;
 	}
 
+	public boolean isMixed()
+	{
+		return (mixer != null);
+	}
+
 	public boolean isPlaying()
 	{
 		if((mode == MODE_PLAYING) || (mode == MODE_LOOP)) {
@@ -164,6 +211,16 @@ public class AudioPlayer
 		FloatControl control = null;
 
 		try {
+			if(mixer != null) {
+				if(type == FloatControl.Type.MASTER_GAIN) {
+					result = AudioMixer.MINIMUM_GAIN;
+				}
+				else if(type == FloatControl.Type.BALANCE) {
+					result = AudioMixer.MINIMUM_BALANCE;
+				}
+				return result;
+			}
+
 			control = (FloatControl)line.getControl(type);
 			result = control.getMinimum();
 		}
@@ -181,6 +238,16 @@ public class AudioPlayer
 		FloatControl control = null;
 
 		try {
+			if(mixer != null) {
+				if(type == FloatControl.Type.MASTER_GAIN) {
+					result = AudioMixer.MAXIMUM_GAIN;
+				}
+				else if(type == FloatControl.Type.BALANCE) {
+					result = AudioMixer.MAXIMUM_BALANCE;
+				}
+				return result;
+			}
+
 			control = (FloatControl)line.getControl(type);
 			result = control.getMaximum();
 		}
@@ -198,6 +265,16 @@ public class AudioPlayer
 		FloatControl control = null;
 
 		try {
+			if(mixer != null) {
+				if(type == FloatControl.Type.MASTER_GAIN) {
+					result = AudioMixer.GAIN_PRECISION;
+				}
+				else if(type == FloatControl.Type.BALANCE) {
+					result = AudioMixer.BALANCE_PRECISION;
+				}
+				return result;
+			}
+
 			control = (FloatControl)line.getControl(type);
 			result = control.getPrecision();
 		}
@@ -220,6 +297,19 @@ public class AudioPlayer
 				return;
 			}
 
+			if(mixer != null) {
+				if(direction == BALANCE_RIGHT) {
+					this.balance = Math.min(AudioMixer.MAXIMUM_BALANCE,
+							(this.balance + AudioMixer.BALANCE_PRECISION));
+				}
+				else {
+					this.balance = Math.max(AudioMixer.MINIMUM_BALANCE,
+							(this.balance - AudioMixer.BALANCE_PRECISION));
+				}
+				mixer.setGain(voice, gain, this.balance);
+				return;
+			}
+
 			balance = (FloatControl)line.getControl(FloatControl.Type.BALANCE);
 			precision = balance.getPrecision();
 			current = balance.getValue();
@@ -256,6 +346,19 @@ public class AudioPlayer
 				return;
 			}
 
+			if(mixer != null) {
+				if(direction == VOLUME_UP) {
+					gain = Math.min(AudioMixer.MAXIMUM_GAIN,
+							(gain + AudioMixer.GAIN_PRECISION));
+				}
+				else {
+					gain = Math.max(AudioMixer.MINIMUM_GAIN,
+							(gain - AudioMixer.GAIN_PRECISION));
+				}
+				mixer.setGain(voice, gain, balance);
+				return;
+			}
+
 			volume = (FloatControl)line.getControl(
 					FloatControl.Type.MASTER_GAIN);
 			precision = volume.getPrecision();
@@ -287,7 +390,15 @@ public class AudioPlayer
 			if(mode != MODE_READY) {
 				return;
 			}
-			line.start();
+			if(mixer != null) {
+				// note: a voice rejected by higher priority voices is
+				// simply not heard
+
+				voice = mixer.play(sample, gain, balance, priority, false);
+			}
+			else {
+				line.start();
+			}
 			playStartTime = (new Date()).getTime();
 			mode = MODE_PLAYING;
 
@@ -299,10 +410,20 @@ public class AudioPlayer
 					timer = (Timer)event.getSource();
 					timer.stop();
 
+					if(mode == MODE_CLOSED) {
+						return;
+					}
+
+					if(mixer != null) {
+						mixer.stop(voice);
+						mode = MODE_READY;
+						return;
+					}
+
 					line.stop();
 					synchronized(this) {
+						stream.rewind();
 						line.flush();
-						inputStream.rewind();
 					}
 
 					mode = MODE_READY;
@@ -321,7 +442,12 @@ public class AudioPlayer
 			if(mode != MODE_PLAYING) {
 				return;
 			}
-			line.stop();
+			if(mixer != null) {
+				mixer.pause(voice);
+			}
+			else {
+				line.stop();
+			}
 			elapsedTimeMillis = (playTimeMillis - getPlayTimeRemaining());
 			mode = MODE_PAUSED;
 		}
@@ -336,7 +462,12 @@ public class AudioPlayer
 			if(mode != MODE_PAUSED) {
 				return;
 			}
-			line.start();
+			if(mixer != null) {
+				mixer.resume(voice);
+			}
+			else {
+				line.start();
+			}
 			playTimeMillis -= elapsedTimeMillis;
 			playStartTime = (new Date()).getTime();
 			mode = MODE_PLAYING;
@@ -352,10 +483,15 @@ public class AudioPlayer
 			if(mode != MODE_LOOP) {
 				return;
 			}
+			if(mixer != null) {
+				mixer.stop(voice);
+				mode = MODE_READY;
+				return;
+			}
 			line.stop();
 			synchronized(this) {
+				stream.rewind();
 				line.flush();
-				inputStream.rewind();
 			}
 			mode = MODE_READY;
 		}
@@ -364,12 +500,40 @@ public class AudioPlayer
 		}
 	}
 
+	public void close()
+	{
+		try {
+			if(mode == MODE_CLOSED) {
+				return;
+			}
+			if(mixer != null) {
+				if(isPlaying() || (mode == MODE_PAUSED)) {
+					mixer.stop(voice);
+				}
+			}
+			else if(stream != null) {
+				// releases the stream's reader & writer threads and its line
+
+				stream.close();
+			}
+			mode = MODE_CLOSED;
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+	}
+
 	public void loop()
 	{
 		try {
 			if(mode != MODE_READY) {
 				return;
 			}
+			if(mixer != null) {
+				voice = mixer.play(sample, gain, balance, priority, true);
+				mode = MODE_LOOP;
+				return;
+			}
 			line.stop();
 			line.start();
 			mode = MODE_LOOP;
@@ -0,0 +1,312 @@
+/*
+ * AudioRingBuffer.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A lock-free single-producer, single-consumer ring buffer of PCM frames,
+ * where the producer & consumer threads park when the buffer is full or
+ * empty rather than spinning.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra.audio;
+
+// import external packages
+
+import java.util.concurrent.locks.LockSupport;
+
+// define class
+
+public class AudioRingBuffer
+{
+	// define public class constants
+
+	public static final int DEFAULT_CAPACITY = 65536;
+
+	// define private class constants
+
+	private static final String CLASS_NAME = AudioRingBuffer.class.getName();
+
+	// define private class variables
+
+	private volatile boolean isClosed = false;
+	private volatile long readPosition = 0;
+	private volatile long writePosition = 0;
+	private volatile Thread producer = null;
+	private volatile Thread consumer = null;
+	private int frameSize = 0;
+	private int capacity = 0;
+	private byte[] buffer = null;
+
+	// define class private functions
+
+	private int alignFrames(int length)
+	{
+		return (length - (length % frameSize));
+	}
+
+	private void copyIn(long position, byte[] source, int offset, int length)
+	{
+		int index = 0;
+		int first = 0;
+
+		index = (int)(position % (long)capacity);
+		first = Math.min(length, (capacity - index));
+
+		System.arraycopy(source, offset, buffer, index, first);
+		if(first < length) {
+			System.arraycopy(source, (offset + first), buffer, 0,
+					(length - first));
+		}
+	}
+
+	private void copyOut(long position, byte[] target, int offset, int length)
+	{
+		int index = 0;
+		int first = 0;
+
+		index = (int)(position % (long)capacity);
+		first = Math.min(length, (capacity - index));
+
+		System.arraycopy(buffer, index, target, offset, first);
+		if(first < length) {
+			System.arraycopy(buffer, 0, target, (offset + first),
+					(length - first));
+		}
+	}
+
+	// define class public functions
+
+	public AudioRingBuffer(int capacity, int frameSize)
+	{
+		if(frameSize < 1) {
+			frameSize = 1;
+		}
+		if(capacity < frameSize) {
+			capacity = DEFAULT_CAPACITY;
+		}
+
+		this.frameSize = frameSize;
+		this.capacity = (capacity - (capacity % frameSize));
+		buffer = new byte[this.capacity];
+		readPosition = 0;
+		writePosition = 0;
+		isClosed = false;
+		producer = null;
+		consumer = null;
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	public int getFrameSize()
+	{
+		return frameSize;
+	}
+
+	public long getReadPosition()
+	{
+		return readPosition;
+	}
+
+	public long getWritePosition()
+	{
+		return writePosition;
+	}
+
+	public int available()
+	{
+		return (int)(writePosition - readPosition);
+	}
+
+	public int remaining()
+	{
+		return (capacity - available());
+	}
+
+	public boolean isClosed()
+	{
+		return isClosed;
+	}
+
+	public void close()
+	{
+		isClosed = true;
+		wakeProducer();
+		wakeConsumer();
+	}
+
+	public void wakeProducer()
+	{
+		Thread thread = producer;
+
+		if(thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	public void wakeConsumer()
+	{
+		Thread thread = consumer;
+
+		if(thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	// producer functions
+
+	public int offer(byte[] source, int offset, int length)
+	{
+		long position = 0;
+
+		// note: only whole frames are written, never blocks
+
+		position = writePosition;
+		length = alignFrames(Math.min(length,
+					(capacity - (int)(position - readPosition))));
+		if(length <= 0) {
+			return 0;
+		}
+
+		copyIn(position, source, offset, length);
+
+		// publish the frames, then wake a parked consumer
+
+		writePosition = (position + length);
+		wakeConsumer();
+
+		return length;
+	}
+
+	public void awaitSpace(int length)
+	{
+		// park the producer until there is room for the given number of
+		// bytes, the buffer is closed, or it is explicitly woken, the
+		// condition is re-checked after registering so that a wake-up
+		// cannot be lost
+
+		length = Math.min(length, capacity);
+		producer = Thread.currentThread();
+		try {
+			if((remaining() < length) && (!isClosed)) {
+				LockSupport.park(this);
+			}
+		}
+		finally {
+			producer = null;
+		}
+	}
+
+	public int write(byte[] source, int offset, int length)
+	{
+		int amount = 0;
+		int result = 0;
+
+		length = alignFrames(length);
+		while((result < length) && (!isClosed)) {
+			amount = offer(source, (offset + result), (length - result));
+			if(amount == 0) {
+				awaitSpace(Math.min((length - result), (capacity / 2)));
+				continue;
+			}
+			result += amount;
+		}
+
+		return result;
+	}
+
+	// consumer functions
+
+	public int poll(byte[] target, int offset, int length)
+	{
+		long position = 0;
+
+		// note: only whole frames are read, never blocks
+
+		position = readPosition;
+		length = alignFrames(Math.min(length,
+					(int)(writePosition - position)));
+		if(length <= 0) {
+			return 0;
+		}
+
+		copyOut(position, target, offset, length);
+
+		// release the space, then wake a parked producer
+
+		readPosition = (position + length);
+		wakeProducer();
+
+		return length;
+	}
+
+	public void awaitData(int length)
+	{
+		length = Math.min(length, capacity);
+		consumer = Thread.currentThread();
+		try {
+			if((available() < length) && (!isClosed)) {
+				LockSupport.park(this);
+			}
+		}
+		finally {
+			consumer = null;
+		}
+	}
+
+	public int read(byte[] target, int offset, int length)
+	{
+		int result = 0;
+
+		// blocks until at least one frame is available, returning -1 once
+		// the buffer is closed & drained
+
+		if(length < frameSize) {
+			return 0;
+		}
+
+		while(true) {
+			result = poll(target, offset, length);
+			if(result > 0) {
+				return result;
+			}
+			if(isClosed) {
+				if(available() >= frameSize) {
+					continue;
+				}
+				return -1;
+			}
+			awaitData(frameSize);
+		}
+	}
+
+	public long skip(long length)
+	{
+		long position = 0;
+
+		position = readPosition;
+		length = Math.min(length, (writePosition - position));
+		length -= (length % frameSize);
+		if(length <= 0) {
+			return 0;
+		}
+
+		readPosition = (position + length);
+		wakeProducer();
+
+		return length;
+	}
+}
+
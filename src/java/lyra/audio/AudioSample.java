@@ -0,0 +1,341 @@
+/*
+ * AudioSample.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A fully decoded audio clip held in memory as 16-bit PCM samples, shared by
+ * any number of mixer voices.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra.audio;
+
+// import external packages
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+// import internal packages
+
+import lyra.GameEngine;
+import lyra.util.Config;
+import lyra.plugins.codecs.mp3.Bitstream;
+import lyra.plugins.codecs.mp3.Decoder;
+import lyra.plugins.codecs.mp3.Header;
+import lyra.plugins.codecs.mp3.SampleBuffer;
+
+// define class
+
+public class AudioSample
+{
+	// define private class constants
+
+	private static final String CLASS_NAME = AudioSample.class.getName();
+
+	// define private class variables
+
+	private int channels = 0;
+	private int frames = 0;
+	private int length = 0;
+	private float sampleRate = (float)0.0;
+	private String name = null;
+	private short[] samples = null;
+
+	// define private class objects
+
+	private class SampleInputStream extends InputStream
+	{
+		private int position = 0;
+
+		public int read()
+		{
+			int result = 0;
+
+			if(position >= (length * 2)) {
+				return -1;
+			}
+
+			// samples are read out as signed 16-bit little-endian bytes
+
+			result = samples[(position / 2)];
+			if((position % 2) == 1) {
+				result >>= 8;
+			}
+			position++;
+
+			return (result & 0xff);
+		}
+
+		public int read(byte[] buffer, int offset, int amount)
+		{
+			int ii = 0;
+			int result = 0;
+			short value = 0;
+
+			amount = Math.min(amount, ((length * 2) - position));
+			if(amount <= 0) {
+				return -1;
+			}
+
+			for(ii = 0; ii < amount; ii++) {
+				value = samples[(position / 2)];
+				if((position % 2) == 0) {
+					buffer[(offset + ii)] = (byte)value;
+				}
+				else {
+					buffer[(offset + ii)] = (byte)(value >> 8);
+				}
+				position++;
+			}
+			result = amount;
+
+			return result;
+		}
+
+		public int available()
+		{
+			return ((length * 2) - position);
+		}
+	}
+
+	// define class private functions
+
+	private void append(short[] buffer, int offset, int amount)
+	{
+		short[] grown = null;
+
+		if((length + amount) > samples.length) {
+			grown = new short[Math.max((samples.length * 2),
+					(length + amount))];
+			System.arraycopy(samples, 0, grown, 0, length);
+			samples = grown;
+		}
+
+		System.arraycopy(buffer, offset, samples, length, amount);
+		length += amount;
+	}
+
+	private void decodeMp3(InputStream stream) throws Exception
+	{
+		Header header = null;
+		Bitstream bitstream = null;
+		Decoder decoder = null;
+		SampleBuffer output = null;
+
+		bitstream = new Bitstream(stream);
+		decoder = new Decoder();
+
+		while((header = bitstream.readFrame()) != null) {
+			output = (SampleBuffer)decoder.decodeFrame(header, bitstream);
+			append(output.getBuffer(), 0, output.getBufferLength());
+			bitstream.closeFrame();
+		}
+
+		bitstream.close();
+
+		channels = decoder.getOutputChannels();
+		sampleRate = (float)decoder.getOutputFrequency();
+	}
+
+	private void decodeWav(InputStream stream, Config config)
+		throws Exception
+	{
+		boolean isBigEndian = false;
+		int ii = 0;
+		int amount = 0;
+		int count = 0;
+		byte[] buffer = null;
+		short[] converted = null;
+
+		AudioFormat format = null;
+		AudioInputStream input = null;
+
+		// a stream with a recognized header is converted to signed 16-bit
+		// samples, otherwise the raw data is read in the configured format
+
+		try {
+			input = AudioSystem.getAudioInputStream(stream);
+			format = input.getFormat();
+			if((format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED) ||
+					(format.getSampleSizeInBits() != 16)) {
+				format = new AudioFormat(format.getSampleRate(), 16,
+						format.getChannels(), true, false);
+				input = AudioSystem.getAudioInputStream(format, input);
+			}
+			stream = input;
+		}
+		catch(Exception e) {
+			format = new AudioFormat(
+					config.getDouble("global", "sampleRate",
+						44100).floatValue(),
+					16,
+					config.getInteger("global", "channels", 2).intValue(),
+					true,
+					config.getBoolean("global", "isBigEndian",
+						false).booleanValue());
+		}
+
+		isBigEndian = format.isBigEndian();
+		channels = format.getChannels();
+		sampleRate = format.getSampleRate();
+
+		buffer = new byte[8192];
+		converted = new short[4096];
+
+		while((amount = stream.read(buffer, count,
+						(buffer.length - count))) > 0) {
+			// an odd byte is carried over to the front of the next read,
+			// so that the samples stay aligned
+
+			amount += count;
+			count = (amount % 2);
+			amount /= 2;
+			for(ii = 0; ii < amount; ii++) {
+				if(isBigEndian) {
+					converted[ii] = (short)((buffer[(ii * 2)] << 8) |
+							(buffer[((ii * 2) + 1)] & 0xff));
+				}
+				else {
+					converted[ii] = (short)((buffer[((ii * 2) + 1)] << 8) |
+							(buffer[(ii * 2)] & 0xff));
+				}
+			}
+			append(converted, 0, amount);
+			if(count > 0) {
+				buffer[0] = buffer[(amount * 2)];
+			}
+		}
+	}
+
+	// define class public functions
+
+	public AudioSample(String name, short[] samples, int length, int channels,
+			float sampleRate)
+	{
+		this.name = name;
+		this.samples = samples;
+		this.length = length;
+		this.channels = channels;
+		this.sampleRate = sampleRate;
+
+		if(this.channels < 1) {
+			this.channels = 1;
+		}
+		frames = (this.length / this.channels);
+	}
+
+	public AudioSample(Config config, GameEngine gameEngine)
+	{
+		short[] converted = null;
+		String type = null;
+
+		InputStream stream = null;
+
+		try {
+			channels = 0;
+			frames = 0;
+			length = 0;
+			sampleRate = (float)0.0;
+			samples = new short[65536];
+
+			name = config.getString("global", "url");
+			if(name == null) {
+				throw new Exception("{" + CLASS_NAME +
+						"} missing url for audio sample");
+			}
+
+			type = config.getString("global", "type");
+			stream = new BufferedInputStream(
+					gameEngine.getAssetCache().obtainAssetStream(name));
+
+			if((type != null) && (type.equals("mp3"))) {
+				decodeMp3(stream);
+			}
+			else {
+				decodeWav(stream, config);
+			}
+
+			stream.close();
+
+			// release the slack left from growing the sample array
+
+			if(samples.length > length) {
+				converted = new short[length];
+				System.arraycopy(samples, 0, converted, 0, length);
+				samples = converted;
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+
+		if(channels < 1) {
+			channels = 1;
+		}
+		frames = (length / channels);
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public int getChannels()
+	{
+		return channels;
+	}
+
+	public int getFrames()
+	{
+		return frames;
+	}
+
+	public float getSampleRate()
+	{
+		return sampleRate;
+	}
+
+	public short[] getSamples()
+	{
+		return samples;
+	}
+
+	public AudioFormat getFormat()
+	{
+		return new AudioFormat(sampleRate, 16, channels, true, false);
+	}
+
+	public InputStream openInputStream()
+	{
+		return new SampleInputStream();
+	}
+
+	public long getMicrosecondLength()
+	{
+		if(sampleRate <= (float)0.0) {
+			return 0;
+		}
+		return (long)(((double)frames * 1000000.0) / (double)sampleRate);
+	}
+
+	public long getMemorySize()
+	{
+		if(samples == null) {
+			return 0;
+		}
+		return ((long)samples.length * 2);
+	}
+}
+
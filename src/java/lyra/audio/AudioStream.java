@@ -15,12 +15,8 @@ package lyra.audio;
 
 // import external packages
 
-import java.io.OutputStream;
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.FileInputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.io.InputStream;
 import javax.sound.sampled.DataLine;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.AudioFormat;
@@ -32,6 +28,7 @@ import lyra.GameEngine;
 import lyra.util.Config;
 import lyra.util.CachedInputStream;
 import lyra.plugins.MP3DataLine;
+import lyra.plugins.MP3FrameIndex;
 
 // define class
 
@@ -40,106 +37,156 @@ public class AudioStream
 	// define private class constants
 
 	private static final String CLASS_NAME = AudioStream.class.getName();
-	private static final int PIPE_SIZE = 262144;
-	private static final int BLOCK_SIZE = 32768;
-	private static final int READ_THRESHOLD = 1024;
-	private static final int READ_SIZE = 8192;//1024;
+	private static final int RING_SIZE = 65536;
+	private static final int BLOCK_SIZE = 8192;
 
 	// define public class constants
 
 	public static final int WAV = 1;
 	public static final int MP3 = 2;
+	public static final int SAMPLE = 3;
 	public static final int UNKNOWN = -1;
 
 	// define private class variables
 
-	private boolean isFinished = false;
+	private volatile boolean isFinished = false;
+	private volatile boolean isRewinding = false;
+	private volatile boolean hasReachedEnd = false;
+	private volatile long discardPosition = 0;
 	private int type = UNKNOWN;
 	private String name = null;
 	private AudioFormat format = null;
 	private DataLine source = null;
+	private AudioRingBuffer ringBuffer = null;
+	private AudioSample sample = null;
 	private CachedInputStream inputStream = null;
 	private Config config = null;
 	private GameEngine gameEngine = null;
 
 	// define private class objects
 
-	private class BufferedWriter implements Runnable
+	private class StreamReader implements Runnable
 	{
-		private BufferedInputStream external = null;
-		private OutputStream output = null;
-
-		public BufferedWriter(BufferedInputStream external, OutputStream output)
+		public StreamReader()
 		{
 			Thread thread = null;
 
-			this.external = external;
-			this.output = output;
 			thread = new Thread(this);
+			thread.setDaemon(true);
 			thread.start();
 		}
 
 		public void run()
 		{
+			int count = 0;
+			int offset = 0;
 			int result = 0;
+			long streamLength = 0;
 			byte[] buffer = null;
 
-			buffer = new byte[BLOCK_SIZE];
+			InputStream input = null;
 
 			System.out.println("{" + CLASS_NAME +
-					"} [BufferedWriter] running for '" + name + "'");
+					"} [StreamReader] running for '" + name + "'");
 
 			try {
+				buffer = new byte[BLOCK_SIZE];
+				input = obtainInputStream();
+
 				while(!isFinished) {
-					result = external.read(buffer);
-					if(result < 0) {
-						external.close();
-						output.close();
-						isFinished = true;
+					// restart the stream, discarding the frames buffered
+					// before the rewind
+
+					if(isRewinding) {
+						isRewinding = false;
+						input.close();
+						input = obtainInputStream();
+						count = 0;
+						offset = 0;
+						streamLength = 0;
+						discardPosition = ringBuffer.getWritePosition();
+						ringBuffer.wakeConsumer();
 					}
-					else if(result > 0) {
-						output.write(buffer, 0, result);
+
+					// refill the block once less than a frame remains,
+					// keeping any partial frame at the front
+
+					if((count - offset) < ringBuffer.getFrameSize()) {
+						count -= offset;
+						System.arraycopy(buffer, offset, buffer, 0, count);
+						offset = 0;
+
+						result = input.read(buffer, count,
+								(buffer.length - count));
+						if(result < 0) {
+							input.close();
+							if(streamLength == 0) {
+								break;
+							}
+
+							// the stream repeats from the beginning, as
+							// playback is controlled by the line
+
+							hasReachedEnd = true;
+							input = obtainInputStream();
+							count = 0;
+							streamLength = 0;
+							continue;
+						}
+						count += result;
+						streamLength += result;
+						continue;
 					}
+
+					// park while the ring buffer is full
+
+					result = ringBuffer.offer(buffer, offset, (count - offset));
+					if(result == 0) {
+						ringBuffer.awaitSpace(count - offset);
+						continue;
+					}
+					offset += result;
 				}
+
+				input.close();
 			}
 			catch(Exception e) {
 				e.printStackTrace();
 			}
 
+			ringBuffer.close();
+
 			System.out.println("{" + CLASS_NAME +
-					"} [BufferedWriter] shut down for '" + name + "'");
+					"} [StreamReader] shut down for '" + name + "'");
 		}
 	}
 
-	private class Reader implements Runnable
+	private class LineWriter implements Runnable
 	{
-		private CachedInputStream input = null;
 		private SourceDataLine source = null;
 
-		public Reader(CachedInputStream input, SourceDataLine source)
+		public LineWriter(SourceDataLine source)
 		{
 			Thread thread = null;
-			this.input = input;
+
 			this.source = source;
 			thread = new Thread(this);
+			thread.setDaemon(true);
 			thread.start();
 		}
 
 		public void run()
 		{
 			int result = 0;
-			int length = 0;
-			int target = 0;
-			int lengthWritten = 0;
-			int totalLength = 0;
+			long position = 0;
 			byte[] buffer = null;
 
-			System.out.println("{" + CLASS_NAME + "} [AudioReader] running");
+			System.out.println("{" + CLASS_NAME + "} [LineWriter] running");
 
 			try {
-				buffer = new byte[READ_SIZE];
+				buffer = new byte[BLOCK_SIZE];
 
-				while(true) {
+				while(!isFinished) {
 					if(!source.isOpen()) {
 						try {
 							source.open(format);
@@ -149,89 +196,28 @@ public class AudioStream
 						}
 					}
 
-					if((isFinished) &&
-							(input.getMarkTarget() >=
-							 (input.getCacheSize() - 4))) {
-						input.rewind();
+					position = ringBuffer.getReadPosition();
+					if(position < discardPosition) {
+						ringBuffer.skip(discardPosition - position);
 					}
 
-					if((source.available() >= READ_THRESHOLD) &&
-							(lengthWritten > 0)) {
-						input.rewindToTarget(target);
-						lengthWritten = 0;
-					}
+					// park until frames are available, the line write then
+					// blocks while the line is full or stopped
 
-					result = input.available();
-					if(result == 0) {
-						continue;
-					}
-					else if((result >= 4) && (source.available() >= 4)) {
-						if(result > source.available()) {
-							result = source.available();
-						}
-						while(((result % 4) != 0) && (result > 4)) {
-							result--;
-						}
-						if(result < 4) {
-							continue;
-						}
-					}
-					else if((result % 4) != 0) {
-						continue;
-					}
-					if(result >= buffer.length) {
-						length = buffer.length;
-					}
-					else {
-						length = result;
-					}
-					result = input.read(buffer, 0, length);
-					if(result == -1) {
+					result = ringBuffer.read(buffer, 0, buffer.length);
+					if(result < 0) {
 						break;
 					}
-					else if(result == 0) {
-						continue;
-					}
-
-					if(source.available() >= result) {
-						if(lengthWritten > 0) {
-							input.rewindToTarget(target);
-							lengthWritten = 0;
-							result = input.read(buffer, 0, length);
-							if(result == -1) {
-								break;
-							}
-							else if(result == 0) {
-								continue;
-							}
-						}
-						while(((result % 4) != 0) && (result > 4)) {
-							result--;
-						}
-						if(result < 4) {
-							continue;
-						}
-						synchronized(this) {
-							source.write(buffer, 0, result);
-						}
-					}
-					else {
-						if(lengthWritten == 0) {
-							target = input.getMarkTarget();
-						}
-						lengthWritten += result;
-					}
-
-					totalLength = input.getCacheSize();
+					source.write(buffer, 0, result);
 				}
 
-				input.close();
+				source.close();
 			}
 			catch(Exception e) {
 				e.printStackTrace();
 			}
 
-			System.out.println("{" + CLASS_NAME + "} [AudioReader] shut down");
+			System.out.println("{" + CLASS_NAME + "} [LineWriter] shut down");
 		}
 	}
 
@@ -271,11 +257,16 @@ public class AudioStream
 
 	private BufferedInputStream obtainInputStream()
 	{
-		ByteArrayInputStream input = null;
+		InputStream input = null;
 		BufferedInputStream result = null;
 
 		try {
-			input = gameEngine.getAssetCache().obtainAssetStream(name);
+			if(sample != null) {
+				input = sample.openInputStream();
+			}
+			else {
+				input = gameEngine.getAssetCache().obtainAssetStream(name);
+			}
 			result = new BufferedInputStream(input);
 		}
 		catch(Exception e) {
@@ -287,11 +278,6 @@ public class AudioStream
 
 	private DataLine getWavDataLine()
 	{
-		Reader reader = null;
-		BufferedWriter writer = null;
-		BufferedInputStream bufferedInput = null;
-		PipedInputStream pipedInputStream = null;
-		PipedOutputStream outputStream = null;
 		SourceDataLine sourceDataLine = null;
 
 		try {
@@ -301,17 +287,16 @@ public class AudioStream
 				return null;
 			}
 
+			// the asset is read straight into a ring buffer of PCM frames,
+			// which is drained into the line
+
 			format = determineFormat();
-			bufferedInput = obtainInputStream();
 			sourceDataLine = (SourceDataLine)AudioSystem.getLine(
 				new DataLine.Info(SourceDataLine.class, format));
 			sourceDataLine.open(format);
-			outputStream = new PipedOutputStream();
-			pipedInputStream = new PipedInputStream(PIPE_SIZE);
-			pipedInputStream.connect(outputStream);
-			inputStream = new CachedInputStream(pipedInputStream);
-			writer = new BufferedWriter(bufferedInput, outputStream);
-			reader = new Reader(inputStream, sourceDataLine);
+			ringBuffer = new AudioRingBuffer(RING_SIZE, format.getFrameSize());
+			new StreamReader();
+			new LineWriter(sourceDataLine);
 			type = WAV;
 		}
 		catch(Exception e) {
@@ -321,13 +306,56 @@ public class AudioStream
 		return sourceDataLine;
 	}
 
+	private DataLine getSampleDataLine()
+	{
+		SourceDataLine sourceDataLine = null;
+
+		try {
+			// a short clip is played from its shared decoded samples,
+			// through the same ring buffer as a wav stream
+
+			sample = gameEngine.getAssetCache().getAudioSample(config);
+			if(sample == null) {
+				return null;
+			}
+			name = sample.getName();
+
+			format = sample.getFormat();
+			sourceDataLine = (SourceDataLine)AudioSystem.getLine(
+				new DataLine.Info(SourceDataLine.class, format));
+			sourceDataLine.open(format);
+			ringBuffer = new AudioRingBuffer(RING_SIZE, format.getFrameSize());
+			new StreamReader();
+			new LineWriter(sourceDataLine);
+			type = SAMPLE;
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+
+		return sourceDataLine;
+	}
+
+	private void storeFrameIndex()
+	{
+		MP3FrameIndex frameIndex = null;
+
+		// the index is built once the stream is fully cached, and is then
+		// shared through the asset cache with every stream of the track
+
+		if(!(source instanceof MP3DataLine)) {
+			return;
+		}
+		frameIndex = ((MP3DataLine)source).getFrameIndex();
+		if(frameIndex != null) {
+			gameEngine.getAssetCache().storeFrameIndex(name, frameIndex);
+		}
+	}
+
 	private DataLine getMp3DataLine()
 	{
-		BufferedWriter writer = null;
+		MP3FrameIndex frameIndex = null;
 		MP3DataLine mp3Line = null;
-		BufferedInputStream bufferedInput = null;
-		PipedOutputStream pipedOutputStream = null;
-		PipedInputStream pipedInputStream = null;
 
 		try {
 			name = config.getString("global", "url");
@@ -336,12 +364,17 @@ public class AudioStream
 				return null;
 			}
 
-			bufferedInput = obtainInputStream();
-			pipedOutputStream = new PipedOutputStream();
-			pipedInputStream = new PipedInputStream(PIPE_SIZE);
-			pipedInputStream.connect(pipedOutputStream);
-			writer = new BufferedWriter(bufferedInput, pipedOutputStream);
-			mp3Line = new MP3DataLine(pipedInputStream, true);
+			// the decoder caches the encoded stream itself, so it reads the
+			// asset directly, decoding ahead of the line by the configured
+			// number of frames
+
+			mp3Line = new MP3DataLine(obtainInputStream(), true,
+					config.getInteger("global", "lookAheadFrames",
+						MP3DataLine.DEFAULT_LOOK_AHEAD_FRAMES).intValue());
+			frameIndex = gameEngine.getAssetCache().getFrameIndex(name);
+			if(frameIndex != null) {
+				mp3Line.setFrameIndex(frameIndex);
+			}
 			mp3Line.open();
 			inputStream = mp3Line.getCachedInputStream();
 			type = MP3;
@@ -364,14 +397,22 @@ public class AudioStream
 			this.gameEngine = gameEngine;
 
 			isFinished = false;
+			isRewinding = false;
+			hasReachedEnd = false;
+			discardPosition = 0;
 			this.type = UNKNOWN;
 			name = null;
 			format = null;
 			source = null;
+			ringBuffer = null;
+			sample = null;
 			inputStream = null;
 
 			type = config.getString("global", "type");
-			if ((type == null) || (type.equals("wav"))) {
+			if(gameEngine.getAssetCache().isSampleAudio(config)) {
+				source = getSampleDataLine();
+			}
+			else if ((type == null) || (type.equals("wav"))) {
 				source = getWavDataLine();
 			}
 			else if (type.equals("mp3")) {
@@ -403,11 +444,80 @@ public class AudioStream
 		return isFinished;
 	}
 
+	public boolean isStreaming()
+	{
+		if(type == SAMPLE) {
+			return false;
+		}
+		if(type == WAV) {
+			return (!hasReachedEnd);
+		}
+		return ((inputStream != null) && (!inputStream.isEOF()));
+	}
+
+	public long getMemorySize()
+	{
+		// note: decoded samples are weighed by their own cache entry
+
+		if(ringBuffer != null) {
+			return ringBuffer.getCapacity();
+		}
+		if(inputStream != null) {
+			return inputStream.getCache().length;
+		}
+		return 0;
+	}
+
+	public void rewind()
+	{
+		if(ringBuffer != null) {
+			// everything buffered so far is discarded, the stream reader
+			// then restarts the asset
+
+			discardPosition = ringBuffer.getWritePosition();
+			isRewinding = true;
+			ringBuffer.wakeProducer();
+		}
+		else if(source instanceof MP3DataLine) {
+			// the decoder restarts from the first indexed frame, rather
+			// than reading on from bytes left in its bitstream, once the
+			// frames queued for the line have been flushed
+
+			((MP3DataLine)source).setFramePosition(0);
+			storeFrameIndex();
+		}
+	}
+
+	public void close()
+	{
+		// the reader & writer threads exit once the ring buffer is closed,
+		// closing the line also releases a writer blocked on a full line
+
+		isFinished = true;
+		if(ringBuffer != null) {
+			ringBuffer.close();
+		}
+		storeFrameIndex();
+		if(source != null) {
+			source.close();
+		}
+	}
+
 	public CachedInputStream getCachedInputStream()
 	{
 		return inputStream;
 	}
 
+	public AudioSample getSample()
+	{
+		return sample;
+	}
+
+	public AudioRingBuffer getRingBuffer()
+	{
+		return ringBuffer;
+	}
+
 	public DataLine getSource()
 	{
 		return source;
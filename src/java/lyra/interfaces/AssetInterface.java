@@ -0,0 +1,22 @@
+/*
+ * AssetInterface.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * An interface to define a receiver of asynchronously loaded assets.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra.interfaces;
+
+// define class
+
+public interface AssetInterface
+{
+	public void assetLoaded(int type, String assetName, Object asset);
+}
+
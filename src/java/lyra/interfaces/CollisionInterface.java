@@ -0,0 +1,31 @@
+/*
+ * CollisionInterface.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * An interface to define a receiver of collision system contacts.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra.interfaces;
+
+// import internal packages
+
+import lyra.Sprite;
+import lyra.Tile;
+
+// define class
+
+public interface CollisionInterface
+{
+	public void spriteCollision(Sprite sprite, Sprite target,
+			double timeOfImpact, boolean xAxis, boolean yAxis);
+
+	public void tileCollision(Sprite sprite, Tile tile, double timeOfImpact,
+			boolean xAxis, boolean yAxis);
+}
+
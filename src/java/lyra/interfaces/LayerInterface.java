@@ -0,0 +1,28 @@
+/*
+ * LayerInterface.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * An interface to define a static layer which can be rendered in pieces,
+ * with the renderer translated so that drawing uses world coordinates.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra.interfaces;
+
+// import external packages
+
+import java.awt.Graphics2D;
+
+// define class
+
+public interface LayerInterface
+{
+	public void renderLayer(Graphics2D render, int x, int y, int width,
+			int height);
+}
+
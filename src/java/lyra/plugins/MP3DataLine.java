@@ -33,12 +33,17 @@ import lyra.util.CachedInputStream;
 import lyra.plugins.codecs.mp3.Decoder;
 import lyra.plugins.codecs.mp3.Header;
 import lyra.plugins.codecs.mp3.Bitstream;
+import lyra.plugins.codecs.mp3.Obuffer;
 import lyra.plugins.codecs.mp3.SampleBuffer;
 
 // define class
 
 public class MP3DataLine implements Clip
 {
+	// define public class constants
+
+	public static final int DEFAULT_LOOK_AHEAD_FRAMES = 8;
+
 	// define private class constants
 
 	private static final String CLASS_NAME = MP3DataLine.class.getName();
@@ -48,20 +53,28 @@ public class MP3DataLine implements Clip
 	private static final int MODE_STARTED = 2;
 
 	private static final int ENTIRE_TRACK = -1;
+	private static final int MINIMUM_CACHE_SIZE = 4096;
+
+	// layer III frames may draw on the previous frames' data through the
+	// bit reservoir, so a seek decodes this many frames silently first
+
+	private static final int SEEK_PREROLL_FRAMES = 4;
+
+	private static final long FLUSH_WAIT_MILLIS = 10;
 
 	// define private class variables
 
-	private boolean isFinished = false;
-	private boolean isActive = false;
+	private volatile boolean isFinished = false;
+	private volatile boolean isActive = false;
 	private boolean enableReplays = false;
 	private boolean firstFramePlayed = false;
-	private boolean cacheComplete = false;
+	private volatile boolean cacheComplete = false;
 	private int firstFrameSize = 0;
-	private int mode = MODE_INACTIVE;
-	private int loopTimes = 0;
-	private int loopCount = 0;
+	private volatile int mode = MODE_INACTIVE;
+	private volatile int loopTimes = 0;
+	private volatile int loopCount = 0;
 	private long framesProcessed = 0;
-	private long totalFrames = 0;
+	private volatile long totalFrames = 0;
 	private byte[] byteBuffer = null;
 	private short[] firstFrameBuffer = null;
 	private CachedInputStream inputStream = null;
@@ -70,18 +83,37 @@ public class MP3DataLine implements Clip
 	private Bitstream mp3Bitstream = null;
 	private Decoder mp3Decoder = null;
 	private Thread runThread = null;
+	private Thread writeThread = null;
 	private Header firstHeader = null;
+	private MP3FrameIndex frameIndex = null;
+	private MP3FrameQueue frameQueue = null;
 
 	// constructor
 
-	public MP3DataLine(InputStream stream, boolean enableReplays) 
-		throws LineUnavailableException
+	public MP3DataLine(InputStream stream, boolean enableReplays,
+			int lookAheadFrames) throws LineUnavailableException
 	{
-		byteBuffer = new byte[4096];
+		int cacheSize = MINIMUM_CACHE_SIZE;
+
+		// each block of the queue holds the largest frame the decoder can
+		// produce, so that none are regrown while playing
+
+		frameQueue = new MP3FrameQueue(lookAheadFrames,
+				(Obuffer.OBUFFERSIZE * 2));
 
 		if (enableReplays) {
 			this.enableReplays = true;
-			inputStream = new CachedInputStream(stream);
+
+			// size the cache to the whole stream when it is known, rather
+			// than doubling (& copying) it as frames are decoded
+
+			try {
+				cacheSize = Math.max(MINIMUM_CACHE_SIZE, stream.available());
+			}
+			catch (Exception e) {
+				cacheSize = MINIMUM_CACHE_SIZE;
+			}
+			inputStream = new CachedInputStream(stream, cacheSize);
 			mp3Bitstream = new Bitstream(inputStream);
 		}
 		else {
@@ -94,6 +126,12 @@ public class MP3DataLine implements Clip
 		createSource();
 	}
 
+	public MP3DataLine(InputStream stream, boolean enableReplays)
+		throws LineUnavailableException
+	{
+		this(stream, enableReplays, DEFAULT_LOOK_AHEAD_FRAMES);
+	}
+
 	public MP3DataLine(InputStream stream) throws LineUnavailableException
 	{
 		this(stream, false);
@@ -101,6 +139,25 @@ public class MP3DataLine implements Clip
 
 	// internal methods
 	
+	protected void awaitThread()
+	{
+		Thread thread = runThread;
+
+		// block until the decode thread exits, rather than spinning on its
+		// state
+
+		if ((thread == null) || (thread == Thread.currentThread())) {
+			return;
+		}
+
+		try {
+			thread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	protected void createSource() throws LineUnavailableException
 	{
 		// In order to properly create the source the initial frame
@@ -117,8 +174,13 @@ public class MP3DataLine implements Clip
 			SampleBuffer output =
 				(SampleBuffer) mp3Decoder.decodeFrame(firstHeader, 
 						mp3Bitstream);
-			firstFrameBuffer = output.getBuffer();
+			// note: the sample buffer is reused by the decoder, so the
+			// first frame is copied out of it
+
 			firstFrameSize = output.getBufferLength();
+			firstFrameBuffer = new short[firstFrameSize];
+			System.arraycopy(output.getBuffer(), 0, firstFrameBuffer, 0,
+					firstFrameSize);
 		}
 		catch (Exception e) {
 			throw new LineUnavailableException(e.getMessage());
@@ -144,11 +206,13 @@ public class MP3DataLine implements Clip
 
 	protected boolean decodeFrame(boolean silently)
 	{
+		// note: the byte buffer is only touched by the decode thread, so
+		// frames are written without holding the line's lock (which would
+		// otherwise be held while the write blocks on a full line)
+
 		try {
 			if (!firstFramePlayed) {
-				synchronized(this) {
-					write(firstFrameBuffer, 0, firstFrameSize);
-				}
+				write(firstFrameBuffer, 0, firstFrameSize);
 				mp3Bitstream.closeFrame();
 				framesProcessed++;
 				firstFramePlayed = true;
@@ -164,9 +228,7 @@ public class MP3DataLine implements Clip
 				(SampleBuffer) mp3Decoder.decodeFrame(header, mp3Bitstream);
 
 			if (!silently) {
-				synchronized(this) {
-					write(output.getBuffer(), 0, output.getBufferLength());
-				}
+				write(output.getBuffer(), 0, output.getBufferLength());
 			}
 			mp3Bitstream.closeFrame();
 			framesProcessed++;
@@ -182,17 +244,26 @@ public class MP3DataLine implements Clip
 
 	protected void write(short[] samples, int offsets, int length)
 	{
+		byte[] block = null;
+
 		if (source == null) {
 			return;
 		}
 
-		byte[] bytes = toByteArray(samples, offsets, length);
-		source.write(bytes, 0, (length * 2));
+		// the frame is converted straight into a free block of the look
+		// ahead queue, which the write thread drains into the line
+
+		block = frameQueue.obtainBlock();
+		if (block == null) {
+			return;
+		}
+		toByteArray(samples, offsets, length, block);
+		frameQueue.commitBlock(length * 2);
 	}
 
 	protected byte[] getByteArray(int length)
 	{
-		if (byteBuffer.length < length) {
+		if ((byteBuffer == null) || (byteBuffer.length < length)) {
 			byteBuffer = new byte[length + 1024];
 		}
 		return byteBuffer;
@@ -200,23 +271,109 @@ public class MP3DataLine implements Clip
 
 	protected byte[] toByteArray(short[] samples, int offsets, int length)
 	{
-		byte[] bytes = null;
+		return toByteArray(samples, offsets, length,
+				getByteArray(length * 2));
+	}
+
+	public static byte[] toByteArray(short[] samples, int offsets,
+			int length, byte[] bytes)
+	{
 		int index = 0;
+		int end = 0;
 		short sample = 0;
 
-		bytes = getByteArray(length * 2);
+		end = (offsets + length);
 
-		while (length-- > 0) {
+		for (; offsets < end; offsets++) {
 			sample = samples[offsets];
-			offsets++;
-			bytes[index] = (byte)sample;
-			index++;
-			bytes[index] = (byte)(sample>>>8);
-			index++;
+			bytes[index++] = (byte)sample;
+			bytes[index++] = (byte)(sample>>>8);
 		}
 		return bytes;
 	}
 
+	protected synchronized MP3FrameIndex obtainFrameIndex()
+	{
+		int target = 0;
+
+		// note: the decode thread must not be running, as the rest of the
+		// stream is read into the cache to build the index (or, with an
+		// index given up front, so that its frames can be seeked to)
+
+		if ((inputStream == null) ||
+				((frameIndex != null) && (isCacheComplete()))) {
+			return frameIndex;
+		}
+
+		try {
+			target = inputStream.getMarkTarget();
+			while (inputStream.skip(Integer.MAX_VALUE) > 0) {
+				;
+			}
+			inputStream.rewindToTarget(target);
+
+			if (frameIndex == null) {
+				frameIndex = new MP3FrameIndex(inputStream.getCache(),
+						inputStream.getCacheSize());
+			}
+			setTotalFrames(frameIndex.getFrameCount());
+			setCacheComplete(true);
+		}
+		catch (Exception e) {
+			System.err.println("MP3DataLine: could not index frames: " +
+					e.getMessage());
+			frameIndex = null;
+		}
+
+		return frameIndex;
+	}
+
+	protected synchronized void seekFrame(int frame)
+	{
+		int first = 0;
+
+		// restart the bitstream a few frames before the target, straight
+		// from the frame's offset in the cached stream
+
+		frame = Math.max(0, Math.min(frame, frameIndex.getFrameCount()));
+		first = Math.max(0, (frame - SEEK_PREROLL_FRAMES));
+
+		// note: frames decoded ahead of the old position are dropped
+
+		discardQueue();
+		inputStream.rewindToTarget(frameIndex.getFrameOffset(first));
+		setIsFinished(false);
+		framesProcessed = first;
+		firstFramePlayed = true;
+
+		mp3Decoder = new Decoder();
+		mp3Bitstream = new Bitstream(inputStream);
+
+		while ((framesProcessed < frame) && (decodeFrame(true))) {
+			;
+		}
+		if (framesProcessed < frame) {
+			setIsFinished(true);
+		}
+	}
+
+	protected void discardQueue()
+	{
+		frameQueue.clear();
+		if (source == null) {
+			return;
+		}
+
+		// the write thread may still be blocked writing a block decoded
+		// before the seek to the stopped line, so the line is flushed until
+		// that block is released, and then once more to drop its remains
+
+		while (!frameQueue.awaitRelease(FLUSH_WAIT_MILLIS)) {
+			source.flush();
+		}
+		source.flush();
+	}
+
 	protected void start(int frames, boolean silently)
 	{
 		if (isActive()) {
@@ -238,6 +395,12 @@ public class MP3DataLine implements Clip
 		source.start();
 
 		try {
+			if (writeThread == null) {
+				writeThread = new MP3WriteThread();
+				writeThread.setDaemon(true);
+				writeThread.start();
+			}
+
 			runThread = new MP3Thread(frames, silently);
 			runThread.start();
 		}
@@ -269,37 +432,40 @@ public class MP3DataLine implements Clip
 		mp3Bitstream = new Bitstream(inputStream);
 	}
 
-	protected synchronized void setMode(int mode)
+	// note: the state setters are plain volatile writes, as the decode
+	// thread calls them on its way out while stop() may be joining it
+
+	protected void setMode(int mode)
 	{
 		this.mode = mode;
 	}
 
-	protected synchronized void setIsActive(boolean bool)
+	protected void setIsActive(boolean bool)
 	{
 		this.isActive = bool;
 	}
 
-	protected synchronized void setIsFinished(boolean bool)
+	protected void setIsFinished(boolean bool)
 	{
 		this.isFinished = bool;
 	}
 
-	protected synchronized void setCacheComplete(boolean bool)
+	protected void setCacheComplete(boolean bool)
 	{
 		this.cacheComplete = bool;
 	}
 
-	protected synchronized void setTotalFrames(long totalFrames)
+	protected void setTotalFrames(long totalFrames)
 	{
 		this.totalFrames = totalFrames;
 	}
 
-	protected synchronized void setLoopCount(int loopCount)
+	protected void setLoopCount(int loopCount)
 	{
 		this.loopCount = loopCount;
 	}
 
-	protected synchronized void setLoopTimes(int loopTimes)
+	protected void setLoopTimes(int loopTimes)
 	{
 		this.loopTimes = loopTimes;
 	}
@@ -346,6 +512,38 @@ public class MP3DataLine implements Clip
 		return inputStream;
 	}
 
+	public MP3FrameIndex getFrameIndex()
+	{
+		return frameIndex;
+	}
+
+	public synchronized void setFrameIndex(MP3FrameIndex frameIndex)
+	{
+		// an index built by another line of the same stream, which spares
+		// re-scanning the stream on the first seek
+
+		if ((inputStream == null) || (this.frameIndex != null)) {
+			return;
+		}
+		this.frameIndex = frameIndex;
+		setTotalFrames(frameIndex.getFrameCount());
+	}
+
+	public int getLookAheadFrames()
+	{
+		return frameQueue.getCapacity();
+	}
+
+	public long getUnderrunCount()
+	{
+		return frameQueue.getUnderrunCount();
+	}
+
+	public long getOverrunCount()
+	{
+		return frameQueue.getOverrunCount();
+	}
+
 	// Line Interface
 
 	public void addLineListener(LineListener listener)
@@ -355,21 +553,28 @@ public class MP3DataLine implements Clip
 		}
 	}
 
-	public synchronized void close()
+	public void close()
 	{
+		// note: the decode thread is joined without holding the line's
+		// lock, which it needs to index the stream before it exits
+
 		if (isActive()) {
 			stop();
 		}
 
-		try {
-			if (mp3Bitstream != null) {
-				mp3Bitstream.close();
+		synchronized (this) {
+			try {
+				if (mp3Bitstream != null) {
+					mp3Bitstream.close();
+				}
+			}
+			catch (Exception e) {
+				System.err.println("MP3DataLine: could not close " +
+						"bitstream: " + e.getMessage());
 			}
 		}
-		catch (Exception e) {
-			System.err.println("MP3DataLine: could not close bitstream: " + 
-					e.getMessage());
-		}
+
+		frameQueue.close();
 
 		if (source != null) {
 			source.close();
@@ -441,6 +646,12 @@ public class MP3DataLine implements Clip
 
 	public void drain()
 	{
+		// the decoded frames still queued for the write thread have not yet
+		// reached the line, so they are waited for before draining it
+
+		if (!frameQueue.awaitDrained()) {
+			return;
+		}
 		if (source != null) {
 			source.drain();
 		}
@@ -448,9 +659,7 @@ public class MP3DataLine implements Clip
 
 	public void flush()
 	{
-		if (source != null) {
-			source.flush();
-		}
+		discardQueue();
 	}
 
 	public void start()
@@ -464,9 +673,7 @@ public class MP3DataLine implements Clip
 		setLoopCount(0);
 		setMode(MODE_STOPPED);
 		setIsActive(false);
-		while (runThread.isAlive()) {
-			;
-		}
+		awaitThread();
 		source.stop();
 	}
 
@@ -542,6 +749,9 @@ public class MP3DataLine implements Clip
 
 	public int getFrameLength()
 	{
+		if (frameIndex != null) {
+			return frameIndex.getFrameCount();
+		}
 		if (!isCacheComplete()) {
 			return -1;
 		}
@@ -550,10 +760,12 @@ public class MP3DataLine implements Clip
 
 	public long getMicrosecondLength()
 	{
-		// NOTE: for VBR mp3s the bitrate returned is an average
-		// bitrate per frame so time may be slightly off in these
-		// cases.
+		// NOTE: without a frame index the length is estimated from the
+		// bitrate of the first frame, which is only accurate for CBR mp3s
 
+		if (frameIndex != null) {
+			return frameIndex.getMicrosecondLength();
+		}
 		if (!isCacheComplete()) {
 			return -1;
 		}
@@ -592,19 +804,20 @@ public class MP3DataLine implements Clip
 	public void setFramePosition(int frame)
 	{
 		stop();
+		if (obtainFrameIndex() != null) {
+			seekFrame(frame);
+			return;
+		}
+
 		if (!isCacheComplete()) {
 			start(true);
-			while (isActive()) {
-				;
-			}
+			awaitThread();
 		}
 
 		refresh();
+		discardQueue();
 		start(frame, true);
-
-		while (isActive()) {
-			;
-		}
+		awaitThread();
 	}
 	
 	public void setLoopPoints(int start, int end) 
@@ -614,8 +827,13 @@ public class MP3DataLine implements Clip
 
 	public void setMicrosecondPosition(long microseconds)
 	{
-		System.err.println("MP3DataLine: setMicroSecondPosition() not " +
-				"supported\n");
+		stop();
+		if (obtainFrameIndex() == null) {
+			System.err.println("MP3DataLine: setMicroSecondPosition() " +
+					"requires replays to be enabled\n");
+			return;
+		}
+		seekFrame(frameIndex.getFrame(microseconds));
 	}
 	
 	public class MP3Thread extends Thread
@@ -632,6 +850,8 @@ public class MP3DataLine implements Clip
 		public void run() {
 			boolean result = true;
 
+			frameQueue.setProducing(!silently);
+
 			while ((result) && (mode == MODE_STARTED) && 
 					((frames == ENTIRE_TRACK) || (framesProcessed < frames))) {
 				result = decodeFrame(silently);
@@ -641,12 +861,41 @@ public class MP3DataLine implements Clip
 				setIsFinished(true);
 				setTotalFrames(framesProcessed);
 				setCacheComplete(true);
+
+				// the whole stream is now cached, so indexing it only
+				// scans memory
+
+				obtainFrameIndex();
 			}
 
+			frameQueue.setProducing(false);
 			setIsActive(false);
 			loopCheck();
 			return;
 		}
 	}
+
+	public class MP3WriteThread extends Thread
+	{
+		public void run() {
+			int index = 0;
+
+			// drains decoded frames into the line, so that a slow decode
+			// only empties the look ahead rather than stalling the line
+
+			while ((index = frameQueue.takeBlock()) >= 0) {
+				try {
+					source.write(frameQueue.getBlock(index), 0,
+							frameQueue.getBlockLength(index));
+				}
+				catch (Exception e) {
+					System.err.println("MP3DataLine Exception in " +
+							"MP3WriteThread: " + e.getMessage());
+				}
+				frameQueue.releaseBlock();
+			}
+			return;
+		}
+	}
 }
 
@@ -0,0 +1,292 @@
+/*
+ * MP3FrameIndex.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A table of the byte offset of every frame in an MP3 stream, used to seek
+ * without decoding from the start of the stream.
+ *
+ * Written by Josh English.
+ */
+
+// package declaration
+
+package lyra.plugins;
+
+// internal libraries
+
+import lyra.plugins.codecs.mp3.Header;
+
+// define class
+
+public class MP3FrameIndex
+{
+	// define private class constants
+
+	private static final String CLASS_NAME = MP3FrameIndex.class.getName();
+
+	private static final int HEADER_SIZE = 4;
+	private static final int ID3_HEADER_SIZE = 10;
+	private static final int SYNC_MASK = 0xFFE00000;
+	private static final int MATCH_MASK = 0xFFFE0C00;
+
+	// define private class variables
+
+	private int frameCount = 0;
+	private int samplesPerFrame = 0;
+	private int sampleRate = 0;
+	private int streamLength = 0;
+	private int[] offsets = null;
+
+	// internal methods
+
+	protected int readInt(byte[] data, int position)
+	{
+		return (((data[position] & 0xff) << 24) |
+				((data[(position + 1)] & 0xff) << 16) |
+				((data[(position + 2)] & 0xff) << 8) |
+				(data[(position + 3)] & 0xff));
+	}
+
+	protected int skipID3v2(byte[] data, int length)
+	{
+		int size = 0;
+
+		if ((length < ID3_HEADER_SIZE) || (data[0] != 'I') ||
+				(data[1] != 'D') || (data[2] != '3')) {
+			return 0;
+		}
+
+		// the tag size is a 28-bit synchsafe integer, excluding the header
+		// (and footer, when flagged)
+
+		size = (((data[6] & 0x7f) << 21) | ((data[7] & 0x7f) << 14) |
+				((data[8] & 0x7f) << 7) | (data[9] & 0x7f));
+		size += ID3_HEADER_SIZE;
+		if ((data[5] & 0x10) != 0) {
+			size += ID3_HEADER_SIZE;
+		}
+
+		return Math.min(size, length);
+	}
+
+	protected int getVersion(int header)
+	{
+		// follows the decoder: MPEG-1, MPEG-2 LSF or MPEG-2.5 LSF
+
+		if (((header >>> 20) & 1) == 0) {
+			if (((header >>> 19) & 1) == 1) {
+				return -1;
+			}
+			return Header.MPEG25_LSF;
+		}
+		return ((header >>> 19) & 1);
+	}
+
+	protected int getFrameSize(int header)
+	{
+		int version = 0;
+		int layer = 0;
+		int bitrateIndex = 0;
+		int frequencyIndex = 0;
+		int padding = 0;
+		int frequency = 0;
+		int result = 0;
+
+		if ((header & SYNC_MASK) != SYNC_MASK) {
+			return -1;
+		}
+
+		version = getVersion(header);
+		layer = (4 - ((header >>> 17) & 3));
+		bitrateIndex = ((header >>> 12) & 0xf);
+		frequencyIndex = ((header >>> 10) & 3);
+		padding = ((header >>> 9) & 1);
+
+		if ((version < 0) || (layer > 3) || (bitrateIndex == 0) ||
+				(bitrateIndex == 15) || (frequencyIndex == 3)) {
+			return -1;
+		}
+
+		// note: calculated exactly as the decoder's header does, so that
+		// the offsets line up with the frames it reads
+
+		frequency = Header.frequencies[version][frequencyIndex];
+		if (layer == 1) {
+			result = ((12 * Header.bitrates[version][0][bitrateIndex]) /
+					frequency);
+			result = ((result + padding) << 2);
+		}
+		else {
+			result = ((144 * Header.bitrates[version][(layer - 1)]
+						[bitrateIndex]) / frequency);
+			if (version != Header.MPEG1) {
+				result >>= 1;
+			}
+			result += padding;
+		}
+
+		return result;
+	}
+
+	protected void addFrame(int offset)
+	{
+		int[] grown = null;
+
+		if (frameCount >= offsets.length) {
+			grown = new int[(offsets.length * 2)];
+			System.arraycopy(offsets, 0, grown, 0, frameCount);
+			offsets = grown;
+		}
+		offsets[frameCount] = offset;
+		frameCount++;
+	}
+
+	protected void build(byte[] data, int length)
+	{
+		int position = 0;
+		int header = 0;
+		int first = 0;
+		int size = 0;
+		int version = 0;
+		int layer = 0;
+		int[] trimmed = null;
+
+		position = skipID3v2(data, length);
+
+		while ((position + HEADER_SIZE) <= length) {
+			header = readInt(data, position);
+			size = getFrameSize(header);
+
+			// a frame is only accepted when it matches the stream's first
+			// frame & the following frame header does too, which rejects
+			// false syncs inside frame data
+
+			if ((size < HEADER_SIZE) || ((frameCount > 0) &&
+						((header & MATCH_MASK) != (first & MATCH_MASK)))) {
+				position++;
+				continue;
+			}
+			if (((position + size + HEADER_SIZE) <= length) &&
+					((readInt(data, (position + size)) & MATCH_MASK) !=
+					 (header & MATCH_MASK))) {
+				position++;
+				continue;
+			}
+
+			if (frameCount == 0) {
+				first = header;
+			}
+			addFrame(position);
+			position += size;
+		}
+
+		if (frameCount > 0) {
+			version = getVersion(first);
+			layer = (4 - ((first >>> 17) & 3));
+			sampleRate = Header.frequencies[version][((first >>> 10) & 3)];
+			if (layer == 1) {
+				samplesPerFrame = 384;
+			}
+			else if ((layer == 3) && (version != Header.MPEG1)) {
+				samplesPerFrame = 576;
+			}
+			else {
+				samplesPerFrame = 1152;
+			}
+		}
+
+		trimmed = new int[frameCount];
+		System.arraycopy(offsets, 0, trimmed, 0, frameCount);
+		offsets = trimmed;
+	}
+
+	// constructor
+
+	public MP3FrameIndex(byte[] data, int length)
+	{
+		frameCount = 0;
+		samplesPerFrame = 0;
+		sampleRate = 0;
+		streamLength = length;
+		offsets = new int[1024];
+
+		build(data, length);
+	}
+
+	// public methods
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public int getFrameCount()
+	{
+		return frameCount;
+	}
+
+	public int getSamplesPerFrame()
+	{
+		return samplesPerFrame;
+	}
+
+	public int getSampleRate()
+	{
+		return sampleRate;
+	}
+
+	public long getMemorySize()
+	{
+		return ((long)offsets.length * 4);
+	}
+
+	public int getFrameOffset(int frame)
+	{
+		// the offset past the last frame is the end of the stream
+
+		if (frame < 0) {
+			frame = 0;
+		}
+		if (frame >= frameCount) {
+			return streamLength;
+		}
+		return offsets[frame];
+	}
+
+	public long getMicrosecondLength()
+	{
+		return getMicrosecondPosition(frameCount);
+	}
+
+	public long getMicrosecondPosition(int frame)
+	{
+		if (sampleRate == 0) {
+			return 0;
+		}
+		return (((long)frame * (long)samplesPerFrame * 1000000L) /
+				(long)sampleRate);
+	}
+
+	public int getFrame(long microseconds)
+	{
+		long result = 0;
+
+		if (samplesPerFrame == 0) {
+			return 0;
+		}
+
+		result = ((microseconds * (long)sampleRate) /
+				((long)samplesPerFrame * 1000000L));
+		if (result < 0) {
+			result = 0;
+		}
+		if (result > frameCount) {
+			result = frameCount;
+		}
+
+		return (int)result;
+	}
+}
+
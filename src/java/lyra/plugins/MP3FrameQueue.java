@@ -0,0 +1,248 @@
+/*
+ * MP3FrameQueue.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A bounded queue of reusable PCM blocks, passing decoded frames from the
+ * decode thread to the thread writing them to the line.
+ *
+ * Written by Josh English.
+ */
+
+// package declaration
+
+package lyra.plugins;
+
+// define class
+
+public class MP3FrameQueue
+{
+	// define private class constants
+
+	private static final String CLASS_NAME = MP3FrameQueue.class.getName();
+
+	// define private class variables
+
+	private boolean isClosed = false;
+	private boolean isProducing = false;
+	private boolean isPrimed = false;
+	private boolean isWriting = false;
+	private int readIndex = 0;
+	private int writeIndex = 0;
+	private int filled = 0;
+	private long underrunCount = 0;
+	private long overrunCount = 0;
+	private int[] lengths = null;
+	private byte[][] blocks = null;
+
+	// internal methods
+
+	protected boolean isFull()
+	{
+		// note: the block being written to the line is still in use, so it
+		// counts against the capacity
+
+		return ((filled + (isWriting ? 1 : 0)) >= blocks.length);
+	}
+
+	// constructor
+
+	public MP3FrameQueue(int capacity, int blockSize)
+	{
+		int ii = 0;
+
+		if (capacity < 1) {
+			capacity = 1;
+		}
+
+		isClosed = false;
+		isProducing = false;
+		isPrimed = false;
+		isWriting = false;
+		readIndex = 0;
+		writeIndex = 0;
+		filled = 0;
+		underrunCount = 0;
+		overrunCount = 0;
+		lengths = new int[capacity];
+		blocks = new byte[capacity][];
+		for (ii = 0; ii < capacity; ii++) {
+			blocks[ii] = new byte[blockSize];
+		}
+	}
+
+	// public methods
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public int getCapacity()
+	{
+		return blocks.length;
+	}
+
+	public synchronized int getFilledCount()
+	{
+		return filled;
+	}
+
+	public synchronized long getUnderrunCount()
+	{
+		return underrunCount;
+	}
+
+	public synchronized long getOverrunCount()
+	{
+		return overrunCount;
+	}
+
+	public synchronized void setProducing(boolean bool)
+	{
+		isProducing = bool;
+		isPrimed = false;
+	}
+
+	public synchronized byte[] obtainBlock()
+	{
+		// the decoder fills the next free block in place, waiting while the
+		// whole look ahead is queued (an overrun)
+
+		if (isFull() && (!isClosed)) {
+			overrunCount++;
+		}
+
+		try {
+			while (isFull() && (!isClosed)) {
+				wait();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+
+		if (isClosed) {
+			return null;
+		}
+		return blocks[writeIndex];
+	}
+
+	public synchronized void commitBlock(int length)
+	{
+		if (isClosed) {
+			return;
+		}
+
+		lengths[writeIndex] = length;
+		writeIndex = ((writeIndex + 1) % blocks.length);
+		filled++;
+		isPrimed = true;
+		notifyAll();
+	}
+
+	public synchronized int takeBlock()
+	{
+		// the writer waits for a decoded block, which is an underrun once
+		// the decoder has begun playing & is still meant to be
+
+		if ((filled == 0) && (isProducing) && (isPrimed) && (!isClosed)) {
+			underrunCount++;
+		}
+
+		try {
+			while ((filled == 0) && (!isClosed)) {
+				wait();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return -1;
+		}
+
+		if (isClosed) {
+			return -1;
+		}
+
+		filled--;
+		isWriting = true;
+		return readIndex;
+	}
+
+	public byte[] getBlock(int index)
+	{
+		return blocks[index];
+	}
+
+	public synchronized int getBlockLength(int index)
+	{
+		return lengths[index];
+	}
+
+	public synchronized void releaseBlock()
+	{
+		if (!isWriting) {
+			return;
+		}
+
+		isWriting = false;
+		readIndex = ((readIndex + 1) % blocks.length);
+		notifyAll();
+	}
+
+	public synchronized boolean awaitRelease(long millis)
+	{
+		// waits (at most the given time) for the writer to hand back the
+		// block it is writing to the line
+
+		try {
+			if (isWriting && (!isClosed)) {
+				wait(millis);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		return ((!isWriting) || (isClosed));
+	}
+
+	public synchronized boolean awaitDrained()
+	{
+		// waits for the writer to take every queued block & hand back the
+		// last of them to the line
+
+		try {
+			while (((filled > 0) || isWriting) && (!isClosed)) {
+				wait();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		return true;
+	}
+
+	public synchronized void clear()
+	{
+		// drops every queued block, except one the writer is still holding
+
+		filled = 0;
+		isPrimed = false;
+		writeIndex = readIndex;
+		if (isWriting) {
+			writeIndex = ((readIndex + 1) % blocks.length);
+		}
+		notifyAll();
+	}
+
+	public synchronized void close()
+	{
+		isClosed = true;
+		notifyAll();
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * MP3AllocationTest.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A command line test measuring the bytes allocated by the MP3 decode path
+ * (decoding each frame & converting it into a block of the frame queue),
+ * failing unless the warmed up decoder allocates nothing per frame.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra.tests;
+
+// import external packages
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+
+// import internal packages
+
+import lyra.util.CachedInputStream;
+import lyra.plugins.MP3DataLine;
+import lyra.plugins.MP3FrameQueue;
+import lyra.plugins.codecs.mp3.Bitstream;
+import lyra.plugins.codecs.mp3.Decoder;
+import lyra.plugins.codecs.mp3.Header;
+import lyra.plugins.codecs.mp3.Obuffer;
+import lyra.plugins.codecs.mp3.SampleBuffer;
+
+// define class
+
+public class MP3AllocationTest
+{
+	// define private class constants
+
+	private static final String CLASS_NAME =
+		MP3AllocationTest.class.getName();
+	private static final String DEFAULT_FILENAME =
+		"assets/audio/tracks/track01.mp3";
+	private static final int WARM_UP_FRAMES = 5;
+	private static final int PASSES = 3;
+
+	// define class private functions
+
+	private static byte[] readFile(String filename) throws Exception
+	{
+		int offset = 0;
+		int result = 0;
+		byte[] data = null;
+
+		File file = null;
+		FileInputStream input = null;
+
+		file = new File(filename);
+		data = new byte[(int)file.length()];
+		input = new FileInputStream(file);
+
+		while((offset < data.length) &&
+				((result = input.read(data, offset,
+					(data.length - offset))) > 0)) {
+			offset += result;
+		}
+
+		input.close();
+
+		return data;
+	}
+
+	private static void decodeFrame(Header header, Bitstream bitstream,
+			Decoder decoder, MP3FrameQueue frameQueue) throws Exception
+	{
+		byte[] block = null;
+		SampleBuffer output = null;
+
+		// mirrors MP3DataLine.decodeFrame() & write(), with the write thread
+		// taking the block back at once
+
+		output = (SampleBuffer)decoder.decodeFrame(header, bitstream);
+
+		block = frameQueue.obtainBlock();
+		MP3DataLine.toByteArray(output.getBuffer(), 0,
+				output.getBufferLength(), block);
+		frameQueue.commitBlock(output.getBufferLength() * 2);
+		frameQueue.takeBlock();
+		frameQueue.releaseBlock();
+
+		bitstream.closeFrame();
+	}
+
+	private static boolean decodePass(int pass, byte[] data,
+			com.sun.management.ThreadMXBean threads) throws Exception
+	{
+		int ii = 0;
+		int frames = 0;
+		long threadId = 0;
+		long before = 0;
+		long steady = 0;
+		long after = 0;
+
+		Header header = null;
+		Bitstream bitstream = null;
+		Decoder decoder = null;
+		MP3FrameQueue frameQueue = null;
+
+		// the stream is cached at its full size up front (as MP3DataLine
+		// does for a replayable asset), so only the decode path is measured
+
+		bitstream = new Bitstream(new CachedInputStream(
+					new ByteArrayInputStream(data), data.length));
+		decoder = new Decoder();
+		frameQueue = new MP3FrameQueue(1, (Obuffer.OBUFFERSIZE * 2));
+		threadId = Thread.currentThread().getId();
+
+		for(ii = 0; ii < WARM_UP_FRAMES; ii++) {
+			if((header = bitstream.readFrame()) == null) {
+				break;
+			}
+			decodeFrame(header, bitstream, decoder, frameQueue);
+		}
+
+		before = threads.getThreadAllocatedBytes(threadId);
+		steady = before;
+		while((header = bitstream.readFrame()) != null) {
+			decodeFrame(header, bitstream, decoder, frameQueue);
+			frames++;
+			steady = threads.getThreadAllocatedBytes(threadId);
+		}
+		after = threads.getThreadAllocatedBytes(threadId);
+
+		// note: the end of the stream raises (& allocates) an exception
+		// inside the bitstream, which falls after the last steady reading
+
+		System.out.println("{" + CLASS_NAME + "} pass " + pass +
+				": decoded " + frames + " frames, allocated " +
+				(steady - before) + " bytes (" +
+				((steady - before) / Math.max(1, frames)) +
+				" bytes per frame), " + (after - steady) +
+				" bytes at the end of the stream");
+
+		return ((frames > 0) && (steady == before));
+	}
+
+	// define class public functions
+
+	public static void main(String[] args)
+	{
+		int ii = 0;
+		boolean result = false;
+		String filename = null;
+		byte[] data = null;
+
+		com.sun.management.ThreadMXBean threads = null;
+
+		try {
+			filename = DEFAULT_FILENAME;
+			if(args.length > 0) {
+				filename = args[0];
+			}
+
+			threads = (com.sun.management.ThreadMXBean)
+				ManagementFactory.getThreadMXBean();
+			if(!threads.isThreadAllocatedMemorySupported()) {
+				System.out.println("{" + CLASS_NAME + "} thread allocation " +
+						"counting is not supported by this VM");
+				return;
+			}
+			threads.setThreadAllocatedMemoryEnabled(true);
+
+			data = readFile(filename);
+
+			// the first passes also warm up the JIT, so only the last pass
+			// (the steady state) must not allocate
+
+			for(ii = 0; ii < PASSES; ii++) {
+				result = decodePass(ii, data, threads);
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			result = false;
+		}
+
+		if(!result) {
+			System.out.println("{" + CLASS_NAME + "} FAILED");
+			System.exit(1);
+		}
+		System.out.println("{" + CLASS_NAME + "} passed");
+		System.exit(0);
+	}
+}
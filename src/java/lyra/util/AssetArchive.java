@@ -0,0 +1,480 @@
+/*
+ * AssetArchive.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A packed archive of game assets (an index of name, offset, length & checksum
+ * followed by a data region), memory-mapped for zero-copy random access, and
+ * the build tool for packing an asset directory into an archive.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra.util;
+
+// external libraries
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+// internal libraries
+
+public class AssetArchive
+{
+	// define public class constants
+
+	public static final int MAGIC = 0x4c594141;
+	public static final int VERSION = 1;
+	public static final String DEFAULT_DIRECTORY = "assets";
+
+	// define private class constants
+
+	private static final String CLASS_NAME = AssetArchive.class.getName();
+	private static final int COPY_BUFFER_SIZE = 65536;
+
+	// define private class variables
+
+	private long dataOffset = 0;
+	private String filename = null;
+	private HashMap index = null;
+	private String[] names = null;
+	private MappedByteBuffer buffer = null;
+
+	// define private class objects
+
+	private static class Entry
+	{
+		private int length = 0;
+		private long offset = 0;
+		private long checksum = 0;
+		private String name = null;
+
+		private Entry(String name, long offset, int length, long checksum)
+		{
+			this.name = name;
+			this.offset = offset;
+			this.length = length;
+			this.checksum = checksum;
+		}
+	}
+
+	// define class private functions
+
+	private static String normalizeName(String name)
+	{
+		String result = null;
+
+		result = name.replace('\\', '/');
+		while(result.startsWith("./")) {
+			result = result.substring(2);
+		}
+		while(result.startsWith("/")) {
+			result = result.substring(1);
+		}
+
+		return result;
+	}
+
+	private static void collectFiles(File directory, String prefix,
+			ArrayList result)
+	{
+		int ii = 0;
+
+		File[] files = null;
+
+		// sort each directory so that the archive layout is reproducible
+
+		files = directory.listFiles();
+		if(files == null) {
+			return;
+		}
+		Arrays.sort(files);
+
+		for(ii = 0; ii < files.length; ii++) {
+			if(files[ii].isDirectory()) {
+				collectFiles(files[ii], (prefix + files[ii].getName() + "/"),
+						result);
+			}
+			else if(files[ii].isFile()) {
+				result.add(prefix + files[ii].getName());
+			}
+		}
+	}
+
+	private static long calculateChecksum(File file) throws Exception
+	{
+		int length = 0;
+		byte[] copyBuffer = null;
+
+		CRC32 crc = null;
+		FileInputStream input = null;
+
+		crc = new CRC32();
+		copyBuffer = new byte[COPY_BUFFER_SIZE];
+		input = new FileInputStream(file);
+		try {
+			while((length = input.read(copyBuffer)) > 0) {
+				crc.update(copyBuffer, 0, length);
+			}
+		}
+		finally {
+			input.close();
+		}
+
+		return crc.getValue();
+	}
+
+	private void readIndex() throws Exception
+	{
+		int ii = 0;
+		int count = 0;
+		int magic = 0;
+		int version = 0;
+
+		Entry entry = null;
+		DataInputStream input = null;
+
+		input = new DataInputStream(new ByteBufferInputStream(buffer));
+
+		magic = input.readInt();
+		if(magic != MAGIC) {
+			throw new Exception("{" + CLASS_NAME + "} '" + filename +
+					"' is not an asset archive");
+		}
+		version = input.readInt();
+		if(version != VERSION) {
+			throw new Exception("{" + CLASS_NAME + "} '" + filename +
+					"' has unsupported version " + version);
+		}
+		count = input.readInt();
+		dataOffset = input.readLong();
+
+		names = new String[count];
+		for(ii = 0; ii < count; ii++) {
+			entry = new Entry(input.readUTF(), input.readLong(),
+					input.readInt(), input.readLong());
+			if((entry.offset < 0) || (entry.length < 0) ||
+					((dataOffset + entry.offset + entry.length) >
+					 buffer.capacity())) {
+				throw new Exception("{" + CLASS_NAME + "} '" + filename +
+						"' entry '" + entry.name + "' is out of bounds");
+			}
+			index.put(entry.name, entry);
+			names[ii] = entry.name;
+		}
+	}
+
+	// define class public functions
+
+	public AssetArchive(String filename) throws Exception
+	{
+		RandomAccessFile file = null;
+		FileChannel channel = null;
+
+		this.filename = filename;
+		dataOffset = 0;
+		index = new HashMap();
+		names = null;
+
+		// map the whole archive once, the operating system pages assets in
+		// (and keeps them cached) as they are read
+
+		file = new RandomAccessFile(filename, "r");
+		try {
+			channel = file.getChannel();
+			if(channel.size() > Integer.MAX_VALUE) {
+				throw new Exception("{" + CLASS_NAME + "} '" + filename +
+						"' exceeds the maximum archive size");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		}
+		finally {
+			file.close();
+		}
+
+		readIndex();
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public String getFilename()
+	{
+		return filename;
+	}
+
+	public int getEntryCount()
+	{
+		return names.length;
+	}
+
+	public String getEntryName(int id)
+	{
+		if((id < 0) || (id >= names.length)) {
+			return null;
+		}
+		return names[id];
+	}
+
+	public boolean contains(String name)
+	{
+		return index.containsKey(normalizeName(name));
+	}
+
+	public int getLength(String name)
+	{
+		Entry entry = null;
+
+		entry = (Entry)index.get(normalizeName(name));
+		if(entry == null) {
+			return -1;
+		}
+		return entry.length;
+	}
+
+	public long getChecksum(String name)
+	{
+		Entry entry = null;
+
+		entry = (Entry)index.get(normalizeName(name));
+		if(entry == null) {
+			return -1;
+		}
+		return entry.checksum;
+	}
+
+	public ByteBuffer getBuffer(String name)
+	{
+		int position = 0;
+
+		Entry entry = null;
+		ByteBuffer result = null;
+
+		entry = (Entry)index.get(normalizeName(name));
+		if(entry == null) {
+			return null;
+		}
+
+		// note: the result is a read-only view of the mapped archive, no
+		// bytes are copied
+
+		position = (int)(dataOffset + entry.offset);
+		result = buffer.duplicate();
+		result.limit(position + entry.length);
+		result.position(position);
+
+		return result.slice();
+	}
+
+	public ByteBufferInputStream getInputStream(String name)
+	{
+		ByteBuffer slice = null;
+
+		slice = getBuffer(name);
+		if(slice == null) {
+			return null;
+		}
+		return new ByteBufferInputStream(slice);
+	}
+
+	public byte[] getBytes(String name)
+	{
+		byte[] result = null;
+		ByteBuffer slice = null;
+
+		slice = getBuffer(name);
+		if(slice == null) {
+			return null;
+		}
+
+		result = new byte[slice.remaining()];
+		slice.get(result);
+
+		return result;
+	}
+
+	public boolean verify(String name)
+	{
+		int length = 0;
+		byte[] copyBuffer = null;
+
+		CRC32 crc = null;
+		Entry entry = null;
+		ByteBuffer slice = null;
+
+		entry = (Entry)index.get(normalizeName(name));
+		if(entry == null) {
+			return false;
+		}
+
+		crc = new CRC32();
+		copyBuffer = new byte[COPY_BUFFER_SIZE];
+		slice = getBuffer(name);
+		while(slice.hasRemaining()) {
+			length = Math.min(copyBuffer.length, slice.remaining());
+			slice.get(copyBuffer, 0, length);
+			crc.update(copyBuffer, 0, length);
+		}
+
+		return (crc.getValue() == entry.checksum);
+	}
+
+	public static int pack(String rootPath, String[] directories,
+			String filename) throws Exception
+	{
+		int ii = 0;
+		int length = 0;
+		long offset = 0;
+		long checksum = 0;
+		byte[] header = null;
+		byte[] copyBuffer = null;
+
+		File file = null;
+		ArrayList files = null;
+		ByteArrayOutputStream indexBytes = null;
+		DataOutputStream indexOutput = null;
+		DataOutputStream output = null;
+		FileInputStream input = null;
+
+		files = new ArrayList();
+		for(ii = 0; ii < directories.length; ii++) {
+			file = new File(rootPath, directories[ii]);
+			if(!file.isDirectory()) {
+				throw new Exception("{" + CLASS_NAME + "} '" +
+						file.getPath() + "' is not a directory");
+			}
+			collectFiles(file, (normalizeName(directories[ii]) + "/"), files);
+		}
+
+		// build the index, entry offsets are relative to the data region so
+		// the index size does not need to be known up-front
+
+		indexBytes = new ByteArrayOutputStream();
+		indexOutput = new DataOutputStream(indexBytes);
+		offset = 0;
+		for(ii = 0; ii < files.size(); ii++) {
+			file = new File(rootPath, (String)files.get(ii));
+			if(file.length() > Integer.MAX_VALUE) {
+				throw new Exception("{" + CLASS_NAME + "} asset '" +
+						files.get(ii) + "' is too large to pack");
+			}
+			checksum = calculateChecksum(file);
+			indexOutput.writeUTF((String)files.get(ii));
+			indexOutput.writeLong(offset);
+			indexOutput.writeInt((int)file.length());
+			indexOutput.writeLong(checksum);
+			offset += file.length();
+		}
+		indexOutput.flush();
+		header = indexBytes.toByteArray();
+
+		// write the header, the index & then the data region
+
+		output = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(filename), COPY_BUFFER_SIZE));
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(files.size());
+			output.writeLong(4 + 4 + 4 + 8 + header.length);
+			output.write(header);
+
+			copyBuffer = new byte[COPY_BUFFER_SIZE];
+			for(ii = 0; ii < files.size(); ii++) {
+				input = new FileInputStream(new File(rootPath,
+							(String)files.get(ii)));
+				try {
+					while((length = input.read(copyBuffer)) > 0) {
+						output.write(copyBuffer, 0, length);
+					}
+				}
+				finally {
+					input.close();
+				}
+			}
+		}
+		finally {
+			output.close();
+		}
+
+		return files.size();
+	}
+
+	// command-line entry point (the archive build tool)
+
+	public static void main(String[] args)
+	{
+		int ii = 0;
+		int count = 0;
+		int failures = 0;
+		String[] directories = null;
+
+		AssetArchive archive = null;
+
+		if(args.length < 2) {
+			System.out.println("usage: java lyra.util.AssetArchive " +
+					"{root path} {archive file} [directory]...");
+			System.exit(1);
+		}
+
+		try {
+			if(args.length > 2) {
+				directories = new String[args.length - 2];
+				for(ii = 2; ii < args.length; ii++) {
+					directories[ii - 2] = args[ii];
+				}
+			}
+			else {
+				directories = new String[1];
+				directories[0] = DEFAULT_DIRECTORY;
+			}
+
+			count = pack(args[0], directories, args[1]);
+
+			// re-open the archive & check every entry against its checksum
+
+			archive = new AssetArchive(args[1]);
+			for(ii = 0; ii < archive.getEntryCount(); ii++) {
+				if(!archive.verify(archive.getEntryName(ii))) {
+					System.out.println("Lyra Asset Archive: entry '" +
+							archive.getEntryName(ii) + "' failed verification");
+					failures++;
+				}
+			}
+
+			System.out.println("Lyra Asset Archive: packed " + count +
+					" assets into '" + args[1] + "' (" +
+					new File(args[1]).length() + " bytes)");
+
+			if(failures > 0) {
+				System.exit(1);
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		System.exit(0);
+	}
+}
+
@@ -0,0 +1,124 @@
+/*
+ * ByteBufferInputStream.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A utility for reading a (possibly memory-mapped) byte buffer as an input
+ * stream, without first copying its contents into an array.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra.util;
+
+// external libraries
+
+import java.io.InputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// internal libraries
+
+public class ByteBufferInputStream extends InputStream
+{
+	// define private class constants
+
+	private static final String CLASS_NAME =
+		ByteBufferInputStream.class.getName();
+
+	// define private class variables
+
+	private int markPosition = 0;
+	private ByteBuffer buffer = null;
+
+	// define class public functions
+
+	public ByteBufferInputStream(ByteBuffer buffer)
+	{
+		// read from a private view, so that the caller's position & limit
+		// are left untouched
+
+		this.buffer = buffer.duplicate();
+		markPosition = this.buffer.position();
+	}
+
+	// overidden InputStream functions
+
+	public int available() throws IOException
+	{
+		return buffer.remaining();
+	}
+
+	public void mark(int readlimit)
+	{
+		markPosition = buffer.position();
+	}
+
+	public boolean markSupported()
+	{
+		return true;
+	}
+
+	public void reset()
+	{
+		buffer.position(markPosition);
+	}
+
+	public int read() throws IOException
+	{
+		if(!buffer.hasRemaining()) {
+			return -1;
+		}
+		return (buffer.get() & 0xff);
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if((b == null) || (off < 0) || (len < 0) || ((off + len) > b.length)) {
+			throw new IOException("argument(s) missing or invalid, b is " + b +
+					", off is " + off + ", length is " + len + ".");
+		}
+
+		if(len == 0) {
+			return 0;
+		}
+		if(!buffer.hasRemaining()) {
+			return -1;
+		}
+
+		len = Math.min(len, buffer.remaining());
+		buffer.get(b, off, len);
+
+		return len;
+	}
+
+	public long skip(long n) throws IOException
+	{
+		int result = 0;
+
+		if(n <= 0) {
+			return 0;
+		}
+
+		result = (int)Math.min(n, (long)buffer.remaining());
+		buffer.position(buffer.position() + result);
+
+		return result;
+	}
+
+	// non-overridden functions
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public ByteBuffer getBuffer()
+	{
+		return buffer;
+	}
+}
+
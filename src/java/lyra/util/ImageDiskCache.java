@@ -0,0 +1,323 @@
+/*
+ * ImageDiskCache.java
+ *
+ * Copyright (C) 2007 - 2008 by Joshua S. English. This document is the
+ * intellectual property of Joshua S. English. All rights reserved.
+ *
+ * A persistent on-disk cache of decoded images, stored as raw ARGB pixels
+ * keyed by the content hash of their source, so that later runs can skip
+ * image decoding & scaling.
+ *
+ * Written by Josh English.
+ */
+
+// define package space
+
+package lyra.util;
+
+// external libraries
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+
+// internal libraries
+
+public class ImageDiskCache
+{
+	// define public class constants
+
+	public static final int MAGIC = 0x4c594943;
+	public static final int VERSION = 1;
+	public static final String FILE_EXTENSION = ".argb";
+
+	// define private class constants
+
+	private static final String CLASS_NAME = ImageDiskCache.class.getName();
+	private static final int HEADER_LENGTH = 16;
+	private static final char[] HEX_DIGITS = {
+		'0', '1', '2', '3', '4', '5', '6', '7',
+		'8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+	};
+
+	// define private class variables
+
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long writeCount = 0;
+	private File directory = null;
+
+	// define class private functions
+
+	private File buildFile(String key)
+	{
+		return new File(directory, (key + FILE_EXTENSION));
+	}
+
+	// define class public functions
+
+	public ImageDiskCache(String directory) throws Exception
+	{
+		this.directory = new File(directory);
+		if((!this.directory.isDirectory()) && (!this.directory.mkdirs())) {
+			throw new Exception("{" + CLASS_NAME + "} unable to create " +
+					"cache directory '" + directory + "'");
+		}
+
+		hitCount = 0;
+		missCount = 0;
+		writeCount = 0;
+	}
+
+	public String getClassName()
+	{
+		return CLASS_NAME;
+	}
+
+	public String getDirectory()
+	{
+		return directory.getPath();
+	}
+
+	public synchronized long getHitCount()
+	{
+		return hitCount;
+	}
+
+	public synchronized long getMissCount()
+	{
+		return missCount;
+	}
+
+	public synchronized long getWriteCount()
+	{
+		return writeCount;
+	}
+
+	public static String hash(ByteBuffer source) throws Exception
+	{
+		int ii = 0;
+		byte[] digest = null;
+		char[] result = null;
+
+		MessageDigest messageDigest = null;
+
+		messageDigest = MessageDigest.getInstance("SHA-1");
+		messageDigest.update(source.duplicate());
+		digest = messageDigest.digest();
+
+		result = new char[digest.length * 2];
+		for(ii = 0; ii < digest.length; ii++) {
+			result[(ii * 2)] = HEX_DIGITS[((digest[ii] >> 4) & 0x0f)];
+			result[((ii * 2) + 1)] = HEX_DIGITS[(digest[ii] & 0x0f)];
+		}
+
+		return new String(result);
+	}
+
+	public static String buildKey(String hash, String variant)
+	{
+		// variants (e.g. mipmaps) of the same source share its hash
+
+		if((variant == null) || (variant.length() == 0)) {
+			return hash;
+		}
+		return (hash + "-" + variant);
+	}
+
+	public boolean contains(String key)
+	{
+		return buildFile(key).isFile();
+	}
+
+	public BufferedImage load(String key)
+	{
+		int width = 0;
+		int height = 0;
+		int[] pixels = null;
+
+		File file = null;
+		RandomAccessFile input = null;
+		MappedByteBuffer buffer = null;
+		IntBuffer pixelBuffer = null;
+		BufferedImage result = null;
+
+		try {
+			file = buildFile(key);
+			if(!file.isFile()) {
+				synchronized(this) {
+					missCount++;
+				}
+				return null;
+			}
+
+			input = new RandomAccessFile(file, "r");
+			try {
+				buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY,
+						0, input.length());
+			}
+			finally {
+				input.close();
+			}
+
+			if((buffer.capacity() < HEADER_LENGTH) ||
+					(buffer.getInt(0) != MAGIC) ||
+					(buffer.getInt(4) != VERSION)) {
+				throw new Exception("{" + CLASS_NAME + "} invalid cache " +
+						"entry '" + file.getPath() + "'");
+			}
+			width = buffer.getInt(8);
+			height = buffer.getInt(12);
+			if((width < 1) || (height < 1) ||
+					(buffer.capacity() !=
+					 (HEADER_LENGTH + ((long)width * (long)height * 4)))) {
+				throw new Exception("{" + CLASS_NAME + "} truncated cache " +
+						"entry '" + file.getPath() + "'");
+			}
+
+			// copy the mapped pixels into the raster through the public
+			// raster interface, so that Java2D may still accelerate the image
+
+			buffer.position(HEADER_LENGTH);
+			pixelBuffer = buffer.asIntBuffer();
+			pixels = new int[width * height];
+			pixelBuffer.get(pixels);
+
+			result = new BufferedImage(width, height,
+					BufferedImage.TYPE_INT_ARGB);
+			result.getRaster().setDataElements(0, 0, width, height, pixels);
+
+			synchronized(this) {
+				hitCount++;
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			buildFile(key).delete();
+			result = null;
+		}
+
+		return result;
+	}
+
+	public boolean store(String key, Image image, int width, int height)
+	{
+		boolean result = false;
+
+		Graphics2D render = null;
+		BufferedImage argbImage = null;
+
+		if((image == null) || (width < 1) || (height < 1)) {
+			return false;
+		}
+
+		if(image instanceof BufferedImage) {
+			return store(key, (BufferedImage)image);
+		}
+
+		// render into an ARGB image, an image which has not finished loading
+		// is not stored
+
+		argbImage = new BufferedImage(width, height,
+				BufferedImage.TYPE_INT_ARGB);
+		render = argbImage.createGraphics();
+		try {
+			result = render.drawImage(image, 0, 0, width, height, null);
+		}
+		finally {
+			render.dispose();
+		}
+		if(!result) {
+			return false;
+		}
+
+		return store(key, argbImage);
+	}
+
+	public boolean store(String key, BufferedImage image)
+	{
+		boolean result = false;
+		int width = 0;
+		int height = 0;
+		int[] pixels = null;
+
+		File file = null;
+		File temporary = null;
+		ByteBuffer buffer = null;
+		FileOutputStream output = null;
+
+		try {
+			width = image.getWidth();
+			height = image.getHeight();
+			pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+			buffer = ByteBuffer.allocate(HEADER_LENGTH + (pixels.length * 4));
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(width);
+			buffer.putInt(height);
+			buffer.asIntBuffer().put(pixels);
+			buffer.rewind();
+
+			// write to a temporary file & rename it into place, so that a
+			// concurrent (or interrupted) writer never leaves a partial entry
+
+			file = buildFile(key);
+			temporary = File.createTempFile(key, ".tmp", directory);
+			output = new FileOutputStream(temporary);
+			try {
+				while(buffer.hasRemaining()) {
+					output.getChannel().write(buffer);
+				}
+			}
+			finally {
+				output.close();
+			}
+
+			if((!temporary.renameTo(file)) && (!file.isFile())) {
+				temporary.delete();
+				throw new Exception("{" + CLASS_NAME + "} unable to write " +
+						"cache entry '" + file.getPath() + "'");
+			}
+			temporary.delete();
+
+			synchronized(this) {
+				writeCount++;
+			}
+			result = true;
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			result = false;
+		}
+
+		return result;
+	}
+
+	public synchronized void clear()
+	{
+		int ii = 0;
+
+		File[] files = null;
+
+		files = directory.listFiles();
+		if(files == null) {
+			return;
+		}
+
+		for(ii = 0; ii < files.length; ii++) {
+			if(files[ii].getName().endsWith(FILE_EXTENSION)) {
+				files[ii].delete();
+			}
+		}
+	}
+}
+
@@ -177,12 +177,17 @@ public class Autoscroll implements Widget
 
 	public void setLocation(int x, int y)
 	{
+		gameEngine.invalidate(this);
 		this.x = x;
 		this.y = y;
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
 		isVisible = mode;
 	}
 
@@ -199,27 +204,32 @@ public class Autoscroll implements Widget
 	public void setBackgroundColor(Color color)
 	{
 		backgroundColor = color;
+		gameEngine.invalidate(this);
 	}
 
 	public void setBackground(Image image)
 	{
 		background = image;
+		gameEngine.invalidate(this);
 	}
 
 	public void setTextColor(Color color)
 	{
 		textColor = color;
+		gameEngine.invalidate(this);
 	}
 
 	public void setOutlineColor(Color color)
 	{
 		hasOutline = true;
 		outlineColor = color;
+		gameEngine.invalidate(this);
 	}
 
 	public void setHasOutline(boolean mode)
 	{
 		hasOutline = mode;
+		gameEngine.invalidate(this);
 	}
 
 	public boolean hasOutline()
@@ -243,6 +253,7 @@ public class Autoscroll implements Widget
 
 		entries[scrollCount] = entry;
 		scrollCount++;
+		gameEngine.invalidate(this);
 	}
 
 	public void addText(String text)
@@ -261,6 +272,7 @@ public class Autoscroll implements Widget
 
 		entries[scrollCount] = entry;
 		scrollCount++;
+		gameEngine.invalidate(this);
 	}
 
 	public void addImage(Image image, int width, int height)
@@ -275,6 +287,7 @@ public class Autoscroll implements Widget
 
 		entries[scrollCount] = entry;
 		scrollCount++;
+		gameEngine.invalidate(this);
 	}
 
 	public void addHyperlink(HyperLink link)
@@ -290,6 +303,7 @@ public class Autoscroll implements Widget
 
 		entries[scrollCount] = entry;
 		scrollCount++;
+		gameEngine.invalidate(this);
 	}
 
 	public boolean hasFocus(int mouseX, int mouseY)
@@ -325,6 +339,10 @@ public class Autoscroll implements Widget
 			}
 		}
 
+		if(result) {
+			gameEngine.invalidate(this);
+		}
+
 		return result;
 	}
 
@@ -340,6 +358,7 @@ public class Autoscroll implements Widget
 				link.deFocus();
 			}
 		}
+		gameEngine.invalidate(this);
 	}
 
 	public boolean isClicked(int mouseX, int mouseY)
@@ -367,6 +386,10 @@ public class Autoscroll implements Widget
 			}
 		}
 
+		if(result) {
+			gameEngine.invalidate(this);
+		}
+
 		return result;
 	}
 
@@ -379,11 +402,15 @@ public class Autoscroll implements Widget
 	{
 		isRunning = true;
 		scrollTicks = 0;
+		gameEngine.invalidate(this);
 	}
 
 	public void process()
 	{
 		scrollTicks++;
+		if(isRunning) {
+			gameEngine.invalidate(this);
+		}
 	}
 
 	public void render2D(Graphics2D render)
@@ -126,28 +126,39 @@ public class Button implements Widget
 	{
 		int ii = 0;
 
+		gameEngine.invalidate(this);
+
 		this.x = x;
 		this.y = y;
 
 		for(ii = 0; ii < STATES; ii++) {
 			buttonRender[ii].setLocation(x, y);
 		}
+
+		gameEngine.invalidate(this);
 	}
 
 	public void resize(int width, int height)
 	{
 		int ii = 0;
 
+		gameEngine.invalidate(this);
+
 		this.width = width;
 		this.height = height;
 
 		for(ii = 0; ii < STATES; ii++) {
 			buttonRender[ii].resize(width, height);
 		}
+
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
 		isVisible = mode;
 	}
 
@@ -159,6 +170,9 @@ public class Button implements Widget
 	public boolean hasFocus(int mouseX, int mouseY)
 	{
 		boolean result = false;
+		int lastState = 0;
+
+		lastState = state;
 
 		if(!isVisible) {
 			state = STATE_NORMAL;
@@ -206,13 +220,18 @@ public class Button implements Widget
 			}
 		}
 
+		if(state != lastState) {
+			gameEngine.invalidate(this);
+		}
+
 		return result;
 	}
 
 	public void deFocus()
 	{
-		if(state != STATE_HIGHLIGHTED) {
+		if((state != STATE_HIGHLIGHTED) && (state != STATE_NORMAL)) {
 			state = STATE_NORMAL;
+			gameEngine.invalidate(this);
 		}
 	}
 
@@ -241,6 +260,7 @@ public class Button implements Widget
 			else {
 				state = STATE_DOWN;
 			}
+			gameEngine.invalidate(this);
 		}
 
 		return result;
@@ -265,6 +285,7 @@ public class Button implements Widget
 	{
 		this.color = color;
 		this.text = text;
+		gameEngine.invalidate(this);
 	}
 
 	public Color getColor()
@@ -275,6 +296,7 @@ public class Button implements Widget
 	public void setColor(Color color)
 	{
 		this.color = color;
+		gameEngine.invalidate(this);
 	}
 
 	public String getText()
@@ -285,6 +307,7 @@ public class Button implements Widget
 	public void setText(String text)
 	{
 		this.text = text;
+		gameEngine.invalidate(this);
 	}
 
 	public boolean isHighlighted()
@@ -299,6 +322,7 @@ public class Button implements Widget
 	{
 		state = STATE_NORMAL;
 		wasHighlighted = false;
+		gameEngine.invalidate(this);
 	}
 
 	public boolean isFocused()
@@ -325,6 +349,7 @@ public class Button implements Widget
 			}
 
 			buttonRender[id].setImage(imageName);
+			gameEngine.invalidate(this);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -339,6 +364,7 @@ public class Button implements Widget
 			}
 
 			buttonRender[id].setUncorneredImage(imageName);
+			gameEngine.invalidate(this);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -348,6 +374,7 @@ public class Button implements Widget
 	public void setBackgroundColor(Color color)
 	{
 		backgroundColor = color;
+		gameEngine.invalidate(this);
 	}
 
 	public void setBackgroundImage(String imageName)
@@ -359,6 +386,7 @@ public class Button implements Widget
 					AssetCache.TYPE_TEXTURE, imageName);
 			texture.buildMipMap(width, height);
 			background = texture.getMipMap(width, height);
+			gameEngine.invalidate(this);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
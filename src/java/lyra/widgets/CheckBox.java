@@ -96,18 +96,25 @@ public class CheckBox implements Widget
 
 	public void setLocation(int x, int y)
 	{
+		gameEngine.invalidate(this);
 		this.x = x;
 		this.y = y;
+		gameEngine.invalidate(this);
 	}
 
 	public void resize(int width, int height)
 	{
+		gameEngine.invalidate(this);
 		this.width = width;
 		this.height = height;
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
 		isVisible = mode;
 	}
 
@@ -118,6 +125,9 @@ public class CheckBox implements Widget
 
 	public void setIsChecked(boolean mode)
 	{
+		if(isChecked != mode) {
+			gameEngine.invalidate(this);
+		}
 		isChecked = mode;
 	}
 
@@ -131,6 +141,7 @@ public class CheckBox implements Widget
 		try {
 			boxImage = (Image)gameEngine.getAssetCache().getAsset(
 					AssetCache.TYPE_IMAGE, name);
+			gameEngine.invalidate(this);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -142,6 +153,7 @@ public class CheckBox implements Widget
 		try {
 			checkImage = (Image)gameEngine.getAssetCache().getAsset(
 					AssetCache.TYPE_IMAGE, name);
+			gameEngine.invalidate(this);
 		}
 		catch(Exception e) {
 			e.printStackTrace();
@@ -193,6 +205,7 @@ public class CheckBox implements Widget
 			else {
 				isChecked = true;
 			}
+			gameEngine.invalidate(this);
 		}
 
 		return result;
@@ -67,6 +67,17 @@ public class DropdownBox implements Widget
 	protected FontInfo fontInfo = null;
 	protected GameEngine gameEngine = null;
 
+	// define class private functions
+
+	private void invalidate()
+	{
+		gameEngine.invalidate(this);
+		if(isInDropdown) {
+			gameEngine.invalidate((x - 1), ((y + height) - 1),
+					(downWidth + 2), (downHeight + 2));
+		}
+	}
+
 	// define class public functions
 
 	public DropdownBox(String name, int x, int y, int width, int height,
@@ -136,15 +147,22 @@ public class DropdownBox implements Widget
 	{
 		int buttonSize = 0;
 
+		invalidate();
+
 		this.x = x;
 		this.y = y;
 
 		buttonSize = (height - 4);
 		button.setLocation((((x + width) - buttonSize) - 2), (y + 2));
+
+		invalidate();
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			invalidate();
+		}
 		isVisible = mode;
 		button.setVisibility(mode);
 	}
@@ -157,26 +175,31 @@ public class DropdownBox implements Widget
 	public void setBoxColor(Color color)
 	{
 		boxColor = color;
+		invalidate();
 	}
 
 	public void setTextColor(Color color)
 	{
 		textColor = color;
+		invalidate();
 	}
 
 	public void setForegroundColor(Color color)
 	{
 		foregroundColor = color;
+		invalidate();
 	}
 
 	public void setBackgroundColor(Color color)
 	{
 		backgroundColor = color;
+		invalidate();
 	}
 
 	public void setOutlineColor(Color color)
 	{
 		outlineColor = color;
+		invalidate();
 	}
 
 	public Button getButton()
@@ -216,6 +239,7 @@ public class DropdownBox implements Widget
 		downWidth += 4;
 
 		downHeight = ((fontInfo.getHeight() + 4) * entryCount);
+		invalidate();
 	}
 
 	public void setSelection(String entry)
@@ -228,6 +252,7 @@ public class DropdownBox implements Widget
 				break;
 			}
 		}
+		invalidate();
 	}
 
 	public String getSelection()
@@ -274,6 +299,10 @@ public class DropdownBox implements Widget
 
 		button.hasFocus(mouseX, mouseY);
 
+		if((result) || (isInDropdown)) {
+			invalidate();
+		}
+
 		return result;
 	}
 
@@ -317,6 +346,7 @@ public class DropdownBox implements Widget
 		}
 
 		if(isInDropdown) {
+			invalidate();
 			isInDropdown = false;
 		}
 
@@ -327,6 +357,7 @@ public class DropdownBox implements Widget
 			else {
 				isInDropdown = true;
 			}
+			invalidate();
 		}
 
 		return result;
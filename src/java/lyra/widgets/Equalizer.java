@@ -116,12 +116,17 @@ public class Equalizer implements Widget
 
 	public void setLocation(int x, int y)
 	{
+		gameEngine.invalidate(this);
 		this.x = x;
 		this.y = y;
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
 		isVisible = mode;
 	}
 
@@ -133,6 +138,7 @@ public class Equalizer implements Widget
 	public void setHighlightBarFocus(boolean mode)
 	{
 		highlightBarFocus = mode;
+		gameEngine.invalidate(this);
 	}
 
 	public boolean getHighlightBarFocus()
@@ -143,6 +149,7 @@ public class Equalizer implements Widget
 	public void setBackgroundColor(Color color)
 	{
 		backgroundColor = color;
+		gameEngine.invalidate(this);
 	}
 
 	public void setupEqualizer(int minValue, int maxValue, int increments,
@@ -160,6 +167,7 @@ public class Equalizer implements Widget
 		this.bars = new int[bars];
 
 		calculateBarSize();
+		gameEngine.invalidate(this);
 	}
 
 	public void setBarValue(int bar, int value)
@@ -169,7 +177,10 @@ public class Equalizer implements Widget
 			return;
 		}
 
-		bars[bar] = value;
+		if(bars[bar] != value) {
+			bars[bar] = value;
+			gameEngine.invalidate(this);
+		}
 	}
 
 	public boolean hasFocus(int mouseX, int mouseY)
@@ -179,11 +190,14 @@ public class Equalizer implements Widget
 		int localX = 0;
 		int localY = 0;
 		int localHeight = 0;
+		int lastFocus = 0;
 
 		if(!isVisible) {
 			return false;
 		}
 
+		lastFocus = getBarFocus();
+
 		for(ii = 0; ii < bars.length; ii++) {
 			barFocus[ii] = false;
 		}
@@ -206,6 +220,10 @@ public class Equalizer implements Widget
 			}
 		}
 
+		if((result) || (lastFocus != -1)) {
+			gameEngine.invalidate(this);
+		}
+
 		return result;
 	}
 
@@ -247,6 +265,7 @@ public class Equalizer implements Widget
 			barFocus[ii] = false;
 			barClick[ii] = false;
 		}
+		gameEngine.invalidate(this);
 	}
 
 	public boolean isClicked(int mouseX, int mouseY)
@@ -283,6 +302,10 @@ public class Equalizer implements Widget
 			}
 		}
 
+		if(result) {
+			gameEngine.invalidate(this);
+		}
+
 		return result;
 	}
 
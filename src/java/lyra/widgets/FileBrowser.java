@@ -390,12 +390,17 @@ public class FileBrowser implements Widget
 
 	public void setLocation(int x, int y)
 	{
+		gameEngine.invalidate(this);
 		this.x = x;
 		this.y = y;
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
 		isVisible = mode;
 	}
 
@@ -437,6 +442,7 @@ public class FileBrowser implements Widget
 			this.rootDirectory = dir;
 			fileTree.getRootNode().deleteChildren();
 			expandTree(fileTree.getRootNode(), true);
+			gameEngine.invalidate(this);
 		}
 	}
 
@@ -514,6 +520,8 @@ public class FileBrowser implements Widget
 			fileTreeClicked();
 		}
 
+		gameEngine.invalidate(this);
+
 		return true;
 	}
 
@@ -556,6 +564,7 @@ public class FileBrowser implements Widget
 			selectedFileName = fileTextBox.getSubmittedContents();
 			selectedFile = new File(selectedFileName);
 			verifySelectedFile();
+			gameEngine.invalidate(this);
 		}
 	}
 
@@ -130,18 +130,25 @@ public class HyperLink implements Widget
 
 	public void setLocation(int x, int y)
 	{
+		gameEngine.invalidate(this);
 		this.x = x;
 		this.y = y;
+		gameEngine.invalidate(this);
 	}
 
 	public void resize(int width, int height)
 	{
+		gameEngine.invalidate(this);
 		this.width = width;
 		this.height = height;
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
 		isVisible = mode;
 	}
 
@@ -166,16 +173,20 @@ public class HyperLink implements Widget
 		this.linkColor = linkColor;
 		this.downColor = downColor;
 		this.clickedColor = clickedColor;
+		gameEngine.invalidate(this);
 	}
 
 	public void setLink(String text, String url)
 	{
+		gameEngine.invalidate(this);
+
 		this.text = text;
 		this.url = url;
 
 		fontInfo.setString(text);
 		width = fontInfo.getWidth();
 		height = fontInfo.getHeight();
+		gameEngine.invalidate(this);
 	}
 
 	public String getLinkText()
@@ -196,17 +207,21 @@ public class HyperLink implements Widget
 		else {
 			state = STATE_NORMAL;
 		}
+		gameEngine.invalidate(this);
 	}
 
 	public boolean hasFocus(int mouseX, int mouseY)
 	{
 		boolean result = false;
+		int lastState = 0;
 
 		if(!isVisible) {
 			state = STATE_NORMAL;
 			return false;
 		}
 
+		lastState = state;
+
 		if((mouseX >= x) && (mouseX <= (x + width)) && (mouseY >= y) &&
 				(mouseY <= (y + height))) {
 			result = true;
@@ -230,6 +245,10 @@ public class HyperLink implements Widget
 			}
 		}
 
+		if(state != lastState) {
+			gameEngine.invalidate(this);
+		}
+
 		return result;
 	}
 
@@ -237,6 +256,7 @@ public class HyperLink implements Widget
 	{
 		state = STATE_NORMAL;
 		wasClicked = false;
+		gameEngine.invalidate(this);
 	}
 
 	public boolean isClicked(int mouseX, int mouseY)
@@ -270,6 +290,10 @@ public class HyperLink implements Widget
 			}
 		}
 
+		if(result) {
+			gameEngine.invalidate(this);
+		}
+
 		return result;
 	}
 
@@ -291,16 +291,23 @@ public class NumericBox implements Widget
 
 	public void setLocation(int x, int y)
 	{
+		gameEngine.invalidate(this);
+
 		this.x = x;
 		this.y = y;
 
 		setupVisibleArea();
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
 		int ii = 0;
 
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
+
 		isVisible = mode;
 
 		for(ii = 0; ii < BUTTONS; ii++) {
@@ -316,16 +323,19 @@ public class NumericBox implements Widget
 	public void setTextColor(Color color)
 	{
 		textColor = color;
+		gameEngine.invalidate(this);
 	}
 
 	public void setBackgroundColor(Color color)
 	{
 		backgroundColor = color;
+		gameEngine.invalidate(this);
 	}
 
 	public void setOutlineColor(Color color)
 	{
 		outlineColor = color;
+		gameEngine.invalidate(this);
 	}
 
 	public Button getButton(int id)
@@ -349,6 +359,7 @@ public class NumericBox implements Widget
 		maxNumeric = maximum;
 
 		reset();
+		gameEngine.invalidate(this);
 	}
 
 	public boolean hasResult()
@@ -374,11 +385,15 @@ public class NumericBox implements Widget
 
 	public void process()
 	{
+		int lastNumeric = 0;
+
 		if(skipProcess) {
 			skipProcess = false;
 			return;
 		}
 
+		lastNumeric = currentNumeric;
+
 		if(buttons[UP_ARROW].isDown()) {
 			currentNumeric += numericIncrement;
 			if(currentNumeric > maxNumeric) {
@@ -391,6 +406,9 @@ public class NumericBox implements Widget
 				currentNumeric = minNumeric;
 			}
 		}
+		if(currentNumeric != lastNumeric) {
+			gameEngine.invalidate(this);
+		}
 	}
 
 	public boolean hasFocus(int mouseX, int mouseY)
@@ -476,6 +494,10 @@ public class NumericBox implements Widget
 			}
 		}
 
+		if(result) {
+			gameEngine.invalidate(this);
+		}
+
 		return result;
 	}
 
@@ -50,15 +50,32 @@ public class ProgressBar implements Widget
 	protected int height = 0;
 	protected int ticks = 0;
 	protected int totalTicks = 0;
+	protected int loadTicks = 0;
 	protected String name = null;
 	protected Color color = null;
 	protected Image fillImage = null;
 	protected CorneredBox corneredBox = null;
+	protected AssetCache assetCache = null;
 	protected GameEngine gameEngine = null;
 	protected FontInfo fontInfo = null;
 
 	// define class private functions
 
+	private int getCurrentTicks()
+	{
+		int result = 0;
+
+		// the ticks given over to asynchronous loads fill as the asset
+		// workers complete them
+
+		result = ticks;
+		if(assetCache != null) {
+			result += (int)(assetCache.getLoadProgress() * (double)loadTicks);
+		}
+
+		return result;
+	}
+
 	private void renderProgress(Graphics2D render, double percent)
 	{
 		int lx = 0;
@@ -98,6 +115,8 @@ public class ProgressBar implements Widget
 		state = STATE_INIT;
 		ticks = 0;
 		totalTicks = 0;
+		loadTicks = 0;
+		assetCache = null;
 		color = DEFAULT_COLOR;
 		fillImage = null;
 		corneredBox = new CorneredBox(name + "CorneredBox", x, y, width,
@@ -137,13 +156,19 @@ public class ProgressBar implements Widget
 
 	public void setLocation(int x, int y)
 	{
+		gameEngine.invalidate(this);
+
 		this.x = x;
 		this.y = y;
 		corneredBox.setLocation(x, y);
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
 		isVisible = mode;
 		corneredBox.setVisibility(mode);
 	}
@@ -182,6 +207,7 @@ public class ProgressBar implements Widget
 		catch(Exception e) {
 			e.printStackTrace();
 		}
+		gameEngine.invalidate(this);
 	}
 
 	public void setImage(int id, String imageName)
@@ -192,11 +218,13 @@ public class ProgressBar implements Widget
 		catch(Exception e) {
 			e.printStackTrace();
 		}
+		gameEngine.invalidate(this);
 	}
 
 	public void setTotalTicks(int amount)
 	{
 		totalTicks = amount;
+		gameEngine.invalidate(this);
 	}
 
 	public Color getColor()
@@ -207,12 +235,14 @@ public class ProgressBar implements Widget
 	public void setColor(Color color)
 	{
 		this.color = color;
+		gameEngine.invalidate(this);
 	}
 
 	public void start()
 	{
 		ticks = 0;
 		state = STATE_RUNNING;
+		gameEngine.invalidate(this);
 	}
 
 	public void start(int totalTicks)
@@ -220,16 +250,35 @@ public class ProgressBar implements Widget
 		ticks = 0;
 		this.totalTicks = totalTicks;
 		state = STATE_RUNNING;
+		gameEngine.invalidate(this);
 	}
 
 	public void increment()
 	{
 		ticks++;
+		gameEngine.invalidate(this);
 	}
 
 	public void increment(int ticks)
 	{
 		this.ticks += ticks;
+		gameEngine.invalidate(this);
+	}
+
+	public void setTicks(int ticks)
+	{
+		this.ticks = ticks;
+		gameEngine.invalidate(this);
+	}
+
+	public void trackLoads(AssetCache assetCache, int ticks)
+	{
+		// note: the asset cache's load progress should be reset before the
+		// loads being tracked are requested
+
+		this.assetCache = assetCache;
+		loadTicks = ticks;
+		gameEngine.invalidate(this);
 	}
 
 	public int getState()
@@ -249,6 +298,7 @@ public class ProgressBar implements Widget
 	{
 		int fontX = 0;
 		int fontY = 0;
+		int currentTicks = 0;
 		double percent = 0.0;
 
 		String temp = null;
@@ -270,8 +320,10 @@ public class ProgressBar implements Widget
 				percent = 0.0;
 			}
 			else if(state == STATE_RUNNING) {
-				percent = (((double)ticks / (double)totalTicks) * 100.0);
-				if(ticks >= totalTicks) {
+				currentTicks = getCurrentTicks();
+				percent = (((double)currentTicks / (double)totalTicks) *
+						100.0);
+				if(currentTicks >= totalTicks) {
 					state = STATE_COMPLETE;
 				}
 			}
@@ -93,6 +93,10 @@ public class ScrollBar implements Widget
 		else {
 			calculateCoordsHorizontal();
 		}
+
+		// the bar has (potentially) moved
+
+		gameEngine.invalidate(this);
 	}
 
 	private void calculateCoordsVertical()
@@ -269,12 +273,17 @@ public class ScrollBar implements Widget
 
 	public void setLocation(int x, int y)
 	{
+		gameEngine.invalidate(this);
 		this.x = x;
 		this.y = y;
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
 		isVisible = mode;
 	}
 
@@ -288,6 +297,8 @@ public class ScrollBar implements Widget
 		int ii = 0;
 		Texture texture = null;
 
+		gameEngine.invalidate(this);
+
 		this.width = width;
 		this.height = height;
 
@@ -316,6 +327,7 @@ public class ScrollBar implements Widget
 				e.printStackTrace();
 			}
 		}
+		gameEngine.invalidate(this);
 	}
 
 	public void setPossibleViews(int possibleViews)
@@ -369,6 +381,7 @@ public class ScrollBar implements Widget
 		catch(Exception e) {
 			e.printStackTrace();
 		}
+		gameEngine.invalidate(this);
 	}
 
 	public Image getImage(int id)
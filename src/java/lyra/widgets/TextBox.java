@@ -224,20 +224,29 @@ public class TextBox implements Widget
 
 	public void setLocation(int x, int y)
 	{
+		gameEngine.invalidate(this);
+
 		this.x = x;
 		this.y = y;
 		corneredBox.setLocation(x, y);
+		gameEngine.invalidate(this);
 	}
 
 	public void resize(int width, int height)
 	{
+		gameEngine.invalidate(this);
+
 		this.width = width;
 		this.height = height;
 		corneredBox.resize(width, height);
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
 		isVisible = mode;
 	}
 
@@ -287,6 +296,12 @@ public class TextBox implements Widget
 		int cursorX = 0;
 		StringBuffer buffer = null;
 
+		// a click either moves or removes the text cursor
+
+		if(wasClicked) {
+			gameEngine.invalidate(this);
+		}
+
 		if(!isVisible) {
 			wasClicked = false;
 			return false;
@@ -299,6 +314,7 @@ public class TextBox implements Widget
 		}
 
 		wasClicked = true;
+		gameEngine.invalidate(this);
 
 		cursorX = x;
 		buffer = getContentsBuffer();
@@ -325,6 +341,10 @@ public class TextBox implements Widget
 
 		buffer = getContentsBuffer();
 
+		// any key handled while focused may change the text or the cursor
+
+		gameEngine.invalidate(this);
+
 		if(event.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
 			if((bufferIndex > 0) && (buffer.length() >= bufferIndex)) {
 				buffer.deleteCharAt(bufferIndex-1);
@@ -411,17 +431,20 @@ public class TextBox implements Widget
 	public void setDisplayColor(Color displayColor)
 	{
 		this.displayColor = displayColor;
+		gameEngine.invalidate(this);
 	}
 
 	public void setBackgroundColor(Color backgroundColor)
 	{
 		this.backgroundColor = backgroundColor;
+		gameEngine.invalidate(this);
 	}
 
 	public void setColorScheme(Color displayColor, Color backgroundColor)
 	{
 		this.displayColor = displayColor;
 		this.backgroundColor = backgroundColor;
+		gameEngine.invalidate(this);
 	}
 
 	public void setMaxChars(int maxChars)
@@ -432,6 +455,7 @@ public class TextBox implements Widget
 	public void setPasswordMasking(boolean mode)
 	{
 		isMasked = mode;
+		gameEngine.invalidate(this);
 	}
 
 	public boolean isPasswordMasked()
@@ -449,6 +473,7 @@ public class TextBox implements Widget
 		contents.add(new StringBuffer(text));
 		historyIndex = contents.size() - 1;
 		bufferIndex = 0;
+		gameEngine.invalidate(this);
 	}
 
 	public String getContents()
@@ -478,6 +503,7 @@ public class TextBox implements Widget
 		catch(Exception e) {
 			e.printStackTrace();
 		}
+		gameEngine.invalidate(this);
 	}
 
 	public void render2D(Graphics2D render)
@@ -536,6 +562,9 @@ public class TextBox implements Widget
 				if(blink == BLINK_COUNT) {
 					blink = 0;
 				}
+				if((blink == 0) || (blink == (BLINK_COUNT >> 1))) {
+					gameEngine.invalidate(this);
+				}
 			}
 		}
 		catch(Exception e) {
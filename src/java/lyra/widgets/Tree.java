@@ -405,18 +405,25 @@ public class Tree implements Widget
 
 	public void setLocation(int x, int y)
 	{
+		gameEngine.invalidate(this);
 		this.x = x;
 		this.y = y;
+		gameEngine.invalidate(this);
 	}
 
 	public void resize(int width, int height)
 	{
+		gameEngine.invalidate(this);
 		this.width = width;
 		this.height = height;
+		gameEngine.invalidate(this);
 	}
 
 	public void setVisibility(boolean mode)
 	{
+		if(isVisible != mode) {
+			gameEngine.invalidate(this);
+		}
 		isVisible = mode;
 	}
 
@@ -432,6 +439,7 @@ public class Tree implements Widget
 		this.selectedColor = selectedColor;
 		this.backgroundColor = backgroundColor;
 		this.backgroundColor2 = backgroundColor2;
+		gameEngine.invalidate(this);
 	}
 
 	public TreeNode getRootNode()
@@ -447,6 +455,7 @@ public class Tree implements Widget
 	public void treeChanged()
 	{
 		updateParameters();
+		gameEngine.invalidate(this);
 	}
 
 	public boolean hasFocus(int mouseX, int mouseY)
@@ -486,6 +495,10 @@ public class Tree implements Widget
 			return false;
 		}
 
+		// scrolling or selecting changes the rendered rows
+
+		gameEngine.invalidate(this);
+
 		if((vScroll != null) && vScroll.isClicked(mouseX, mouseY)) {
 			currentElement = (vScroll.getCurrentOffset());
 			return true;
@@ -526,6 +539,7 @@ public class Tree implements Widget
 
 		if((vScroll != null) && vScroll.mouseWheelMoved(event)) {
 			currentElement = (vScroll.getCurrentOffset());
+			gameEngine.invalidate(this);
 		}
 		return true;
 	}
@@ -554,10 +568,16 @@ public class Tree implements Widget
 
 	public boolean mouseDragged(int mouseX, int mouseY)
 	{
+		int lastElement = 0;
+		int lastStringIndex = 0;
+
 		if(!isVisible) {
 			return false;
 		}
 
+		lastElement = currentElement;
+		lastStringIndex = currentStringIndex;
+
 		if(vScroll != null) {
 			vScroll.mouseDragged(mouseX, mouseY);
 			currentElement = (vScroll.getCurrentOffset());
@@ -568,6 +588,11 @@ public class Tree implements Widget
 			currentStringIndex = (int)(hScroll.getCurrentOffset());
 		}
 
+		if((currentElement != lastElement) ||
+				(currentStringIndex != lastStringIndex)) {
+			gameEngine.invalidate(this);
+		}
+
 		if(!((mouseX >= x) && (mouseX <= (x + width)) && (mouseY >= y) &&
 						(mouseY <= (y + height)))) {
 			return false;
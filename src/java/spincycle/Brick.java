@@ -19,6 +19,7 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Polygon;
 import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.awt.image.MemoryImageSource;
 import java.awt.image.PixelGrabber;
 
@@ -602,6 +603,9 @@ public class Brick extends Sprite
 		int localY = 0;
 		double rotation = 0.0;
 
+		RotationCache rotationCache = null;
+		BufferedImage rotated = null;
+
 		try {
 			if((!isVisible) || (!isAlive)) {
 				return;
@@ -612,6 +616,19 @@ public class Brick extends Sprite
 
 			rotation = calculateRotationTheta();
 
+			// use the nearest pre-rotated image when the engine caches them
+
+			rotationCache = gameEngine.getRotationCache();
+			if(rotationCache != null) {
+				rotated = rotationCache.getRotatedImage(images[direction],
+						width, height, Math.toDegrees(rotation));
+			}
+			if(rotated != null) {
+				render.drawImage(rotated, (x - (rotated.getWidth() / 2)),
+						(y - (rotated.getHeight() / 2)), gameEngine);
+				return;
+			}
+
 			render.rotate(rotation, x, y);
 
 			render.drawImage(images[direction], (x - (width / 2)),
@@ -16,7 +16,7 @@ package spincycle;
 // import external packages
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.awt.Color;
 import java.awt.Graphics2D;
@@ -244,7 +244,7 @@ public class Game
 
 		String line = null;
 		String assetName = null;
-		ByteArrayInputStream byteArrayInputStream = null;
+		InputStream inputStream = null;
 		InputStreamReader inputStreamReader = null;
 		BufferedReader bufferedReader = null;
 		Brick bricks[] = null;
@@ -253,9 +253,9 @@ public class Game
 			assetName = new String("assets/config/spincycle/levels/game" +
 					level + ".level");
 
-			byteArrayInputStream = spincycle.getAssetCache().
+			inputStream = spincycle.getAssetCache().
 				obtainAssetStream(assetName);
-			inputStreamReader = new InputStreamReader(byteArrayInputStream);
+			inputStreamReader = new InputStreamReader(inputStream);
 			bufferedReader = new BufferedReader(inputStreamReader);
 
 			/*
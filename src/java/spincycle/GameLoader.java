@@ -33,6 +33,23 @@ public class GameLoader implements Runnable
 
 	private static final String CLASS_NAME = GameLoader.class.getName();
 
+	private static final String[] TEXTURES = {
+		"assets/textures/spincycle/ball.png",
+		"assets/textures/spincycle/brickGreen.png",
+		"assets/textures/spincycle/brickBlue.png",
+		"assets/textures/spincycle/brickRed.png"
+	};
+
+	private static final String[] IMAGES = {
+		"assets/textures/spincycle/revbar.png",
+		"assets/textures/spincycle/revbarTick.png",
+		"assets/textures/spincycle/menu.png",
+		"assets/textures/spincycle/background.png",
+		"assets/textures/spincycle/outlineCorners.png",
+		"assets/textures/spincycle/outlineSolid.png",
+		"assets/textures/galaxik/gui/background/image02.png"
+	};
+
 	// define private class variables
 
 	private Thread thread = null;
@@ -50,6 +67,8 @@ public class GameLoader implements Runnable
 
 	public void run()
 	{
+		int ii = 0;
+
 		Image image = null;
 		AssetCache assetCache = null;
 		HyperLink hyperlink = null;
@@ -80,19 +99,22 @@ public class GameLoader implements Runnable
 
 		assetCache = spincycle.getAssetCache();
 
-		// preload images
-
-		image = (Image)assetCache.getAsset(AssetCache.TYPE_IMAGE,
-				"assets/textures/spincycle/ball.png");
+		// start decoding every texture & image across the asset workers,
+		// the loads below wait on (or reuse) these
 
-		image = (Image)assetCache.getAsset(AssetCache.TYPE_IMAGE,
-				"assets/textures/spincycle/brickGreen.png");
+		for(ii = 0; ii < TEXTURES.length; ii++) {
+			assetCache.getAssetAsync(AssetCache.TYPE_TEXTURE, TEXTURES[ii]);
+		}
+		for(ii = 0; ii < IMAGES.length; ii++) {
+			assetCache.getAssetAsync(AssetCache.TYPE_IMAGE, IMAGES[ii]);
+		}
 
-		image = (Image)assetCache.getAsset(AssetCache.TYPE_IMAGE,
-				"assets/textures/spincycle/brickBlue.png");
+		// preload the sprite textures, pinned for the life of the game so
+		// that the mipmaps built for the bricks are never evicted
 
-		image = (Image)assetCache.getAsset(AssetCache.TYPE_IMAGE,
-				"assets/textures/spincycle/brickRed.png");
+		for(ii = 0; ii < TEXTURES.length; ii++) {
+			assetCache.pinAsset(AssetCache.TYPE_TEXTURE, TEXTURES[ii]);
+		}
 
 		// calculate display width
 